@@ -0,0 +1,114 @@
+package com.braintreepayments.api.core
+
+import android.content.Context
+import androidx.room.Room
+import androidx.test.core.app.ApplicationProvider
+import androidx.test.internal.runner.junit4.AndroidJUnit4ClassRunner
+import org.json.JSONObject
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNull
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+
+@RunWith(AndroidJUnit4ClassRunner::class)
+class AnalyticsEventLogTest {
+
+    private lateinit var database: AnalyticsDatabase
+    private lateinit var sut: AnalyticsEventLog
+
+    @Before
+    fun setUp() {
+        val context = ApplicationProvider.getApplicationContext<Context>()
+        database = Room.inMemoryDatabaseBuilder(context, AnalyticsDatabase::class.java).build()
+        sut = AnalyticsEventLog(database, maxEvents = 5)
+    }
+
+    @After
+    fun tearDown() {
+        database.close()
+    }
+
+    @Test
+    fun append_thenReadOldest_returnsEventsInTheOrderTheyWereAppended() {
+        sut.append(events(0 until 2), session("session-1"))
+        sut.append(events(2 until 4), session("session-2"))
+
+        val result = sut.readOldest(limit = 3)
+
+        assertEquals(listOf("event-0", "event-1", "event-2"), result.map { eventName(it) })
+        assertEquals(listOf("session-1", "session-1", "session-2"), result.map { it.sessionId })
+    }
+
+    @Test
+    fun append_beyondMaxEvents_removesTheOldestEvents() {
+        sut.append(events(0 until 4), session("session-id"))
+        sut.append(events(4 until 8), session("session-id"))
+
+        val result = sut.readOldest(limit = 10)
+
+        assertEquals((3 until 8).map { "event-$it" }, result.map { eventName(it) })
+    }
+
+    @Test
+    fun remove_deletesOnlyTheGivenEvents() {
+        sut.append(events(0 until 4), session("session-id"))
+
+        sut.remove(sut.readOldest(limit = 2))
+
+        assertEquals(listOf("event-2", "event-3"), sut.readOldest(limit = 10).map { eventName(it) })
+    }
+
+    @Test
+    fun eventsAppendedByOneLog_areReadByAnotherLogOnTheSameDatabase() {
+        sut.append(events(0 until 1), session("session-id"))
+
+        val result = AnalyticsEventLog(database).readOldest(limit = 10)
+
+        assertEquals(listOf("event-0"), result.map { eventName(it) })
+        assertTrue(result.all { it.id > 0 })
+    }
+
+    @Test
+    fun readSession_returnsTheSessionOfTheEventsInTheLog() {
+        sut.append(events(0 until 1), session("session-id"))
+
+        assertEquals(session("session-id"), sut.readSession("session-id"))
+    }
+
+    @Test
+    fun remove_deletesSessionsWithoutEventsLeftInTheLog() {
+        sut.append(events(0 until 2), session("session-1"))
+        sut.append(events(2 until 3), session("session-2"))
+
+        sut.remove(sut.readOldest(limit = 2))
+
+        assertNull(sut.readSession("session-1"))
+        assertEquals(session("session-2"), sut.readSession("session-2"))
+    }
+
+    @Test
+    fun append_beyondMaxEvents_deletesSessionsWhoseEventsWereRemoved() {
+        sut.append(events(0 until 2), session("session-1"))
+        sut.append(events(2 until 7), session("session-2"))
+
+        assertNull(sut.readSession("session-1"))
+    }
+
+    private fun session(sessionId: String) = AnalyticsSession(
+        sessionId = sessionId,
+        tokenizationKey = "sandbox_tokenization_key",
+        authorizationFingerprint = null,
+        environment = "sandbox",
+        merchantId = "merchant-id",
+        integration = "custom"
+    )
+
+    private fun events(indices: IntRange): List<String> =
+        indices.map { JSONObject().put("event_name", "event-$it").put("t", it).toString() }
+
+    private fun eventName(eventBlob: AnalyticsEventBlob): String =
+        JSONObject(eventBlob.jsonString).getString("event_name")
+}
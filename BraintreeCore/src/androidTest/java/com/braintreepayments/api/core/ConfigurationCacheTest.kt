@@ -5,13 +5,16 @@ import androidx.test.core.app.ApplicationProvider
 import androidx.test.internal.runner.junit4.AndroidJUnit4ClassRunner
 import com.braintreepayments.api.sharedutils.BraintreeSharedPreferences
 import com.braintreepayments.api.testutils.Fixtures
+import kotlinx.coroutines.runBlocking
 import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
 import org.junit.Assert.assertNotNull
 import org.junit.Assert.assertNull
 import org.junit.Assert.assertTrue
 import org.junit.Before
 import org.junit.Test
 import org.junit.runner.RunWith
+import java.io.File
 import java.util.concurrent.TimeUnit
 
 @RunWith(AndroidJUnit4ClassRunner::class)
@@ -20,13 +23,16 @@ class ConfigurationCacheTest {
     private lateinit var context: Context
     private lateinit var sut: ConfigurationCache
     private lateinit var sharedPreferences: BraintreeSharedPreferences
+    private lateinit var storeDirectory: File
 
     @Before
     fun setUp() {
         context = ApplicationProvider.getApplicationContext()
         sharedPreferences = BraintreeSharedPreferences.getInstance(context)
         sharedPreferences.clearSharedPreferences()
-        sut = ConfigurationCache(sharedPreferences)
+        storeDirectory = File(context.noBackupFilesDir, "configuration_cache_test")
+        storeDirectory.deleteRecursively()
+        sut = createConfigurationCache()
     }
 
     @Test(timeout = 1000)
@@ -36,17 +42,16 @@ class ConfigurationCacheTest {
         val timestamp = 1000L
 
         sut.saveConfiguration(configuration, cacheKey, timestamp)
-        val result = sut.getConfiguration(cacheKey, timestamp + 1)
+        val result = readFromDisk(cacheKey, timestamp + 1)
 
         requireNotNull(result)
-        val resultConfig = Configuration.fromJson(result)
-        assertEquals("test", resultConfig.environment)
-        assertEquals("integration_merchant_id", resultConfig.merchantId)
+        assertEquals("test", result.environment)
+        assertEquals("integration_merchant_id", result.merchantId)
     }
 
     @Test(timeout = 1000)
     fun getConfiguration_returnsNullWhenNotSaved() {
-        val result = sut.getConfiguration("nonexistent_key", System.currentTimeMillis())
+        val result = readFromDisk("nonexistent_key", System.currentTimeMillis())
         assertNull(result)
     }
 
@@ -58,7 +63,7 @@ class ConfigurationCacheTest {
         val expiredTimestamp = TimeUnit.MINUTES.toMillis(5) + 1
 
         sut.saveConfiguration(configuration, cacheKey, saveTimestamp)
-        val result = sut.getConfiguration(cacheKey, expiredTimestamp)
+        val result = readFromDisk(cacheKey, expiredTimestamp)
 
         assertNull(result)
     }
@@ -71,7 +76,7 @@ class ConfigurationCacheTest {
         val justBeforeExpiry = TimeUnit.MINUTES.toMillis(5) - 1
 
         sut.saveConfiguration(configuration, cacheKey, saveTimestamp)
-        val result = sut.getConfiguration(cacheKey, justBeforeExpiry)
+        val result = readFromDisk(cacheKey, justBeforeExpiry)
 
         assertNotNull(result)
     }
@@ -86,10 +91,9 @@ class ConfigurationCacheTest {
         sut.saveConfiguration(configA, cacheKey, timestamp)
         sut.saveConfiguration(configB, cacheKey, timestamp)
 
-        val result = sut.getConfiguration(cacheKey, timestamp + 1)
+        val result = readFromDisk(cacheKey, timestamp + 1)
         requireNotNull(result)
-        val resultConfig = Configuration.fromJson(result)
-        assertEquals("merchant-id", resultConfig.merchantId)
+        assertEquals("merchant-id", result.merchantId)
     }
 
     @Test(timeout = 1000)
@@ -103,16 +107,41 @@ class ConfigurationCacheTest {
         sut.saveConfiguration(configA, keyA, timestamp)
         sut.saveConfiguration(configB, keyB, timestamp)
 
-        val resultA = sut.getConfiguration(keyA, timestamp + 1)
-        val resultB = sut.getConfiguration(keyB, timestamp + 1)
+        val resultA = readFromDisk(keyA, timestamp + 1)
+        val resultB = readFromDisk(keyB, timestamp + 1)
 
         requireNotNull(resultA)
         requireNotNull(resultB)
 
-        val configResultA = Configuration.fromJson(resultA)
-        val configResultB = Configuration.fromJson(resultB)
+        assertEquals("test", resultA.environment)
+        assertTrue(resultB.isGooglePayEnabled)
+    }
+
+    @Test(timeout = 1000)
+    fun newCache_movesConfigurationSavedBySharedPreferencesToTheStore() {
+        val configuration = Configuration.fromJson(Fixtures.CONFIGURATION_WITH_ENVIRONMENT)
+        val cacheKey = "test_cache_key_legacy"
+        val timestamp = 1000L
+        sharedPreferences.putStringAndLong(cacheKey, configuration.toJson(), "${cacheKey}_timestamp", timestamp)
 
-        assertEquals("test", configResultA.environment)
-        assertTrue(configResultB.isGooglePayEnabled)
+        val result = runBlocking { createConfigurationCache().getCachedConfiguration(cacheKey, timestamp + 1) }
+
+        assertEquals("test", result?.environment)
+        assertFalse(sharedPreferences.containsKey(cacheKey))
+        assertFalse(sharedPreferences.containsKey("${cacheKey}_timestamp"))
+        assertEquals("test", readFromDisk(cacheKey, timestamp + 1)?.environment)
+    }
+
+    /**
+     * Reads [cacheKey] through a new [ConfigurationCache] so that the result comes from disk rather than
+     * from the in-memory copy held by [sut].
+     */
+    private fun readFromDisk(cacheKey: String, currentTimeMillis: Long): Configuration? {
+        return runBlocking { createConfigurationCache().getCachedConfiguration(cacheKey, currentTimeMillis) }
     }
+
+    private fun createConfigurationCache() = ConfigurationCache(
+        sharedPreferences,
+        ConfigurationStore(storeDirectory)
+    )
 }
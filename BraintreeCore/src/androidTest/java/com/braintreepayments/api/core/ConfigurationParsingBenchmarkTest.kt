@@ -0,0 +1,108 @@
+package com.braintreepayments.api.core
+
+import android.util.Log
+import androidx.test.internal.runner.junit4.AndroidJUnit4ClassRunner
+import com.braintreepayments.api.testutils.Fixtures
+import org.junit.Assert.assertEquals
+import org.junit.Test
+import org.junit.runner.RunWith
+import java.io.ByteArrayOutputStream
+import java.io.DataOutputStream
+import java.nio.ByteBuffer
+
+/**
+ * Measures [Configuration.fromJson] for a card-only checkout, which reads only the card
+ * sub-configuration, against a checkout that reads every sub-configuration, and JSON parsing against
+ * [ConfigurationBinaryFormat] decoding, over the [Fixtures] configuration payloads. Timings are
+ * written to logcat under the [TAG] tag.
+ */
+@RunWith(AndroidJUnit4ClassRunner::class)
+@Suppress("DEPRECATION")
+class ConfigurationParsingBenchmarkTest {
+
+    @Test
+    fun cardOnlyAccess_readsTheSameValuesAsFullAccess() {
+        PAYLOADS.forEach { payload ->
+            assertEquals(
+                Configuration.fromJson(payload).also { readAllSections(it) }.supportedCardTypes,
+                Configuration.fromJson(payload).supportedCardTypes
+            )
+        }
+    }
+
+    @Test
+    fun benchmark_parse_cardOnlyVersusAllSections() {
+        // warm up class loading and org.json so the first measured iteration is not penalized
+        PAYLOADS.forEach { readAllSections(Configuration.fromJson(it)) }
+
+        val cardOnlyNanos = medianParseNanos { readCardSection(it) }
+        val allSectionsNanos = medianParseNanos { readAllSections(it) }
+
+        Log.i(TAG, "Configuration median parse of ${PAYLOADS.size} payloads: card only " +
+            "${cardOnlyNanos / NANOS_PER_MICRO} us, all sections ${allSectionsNanos / NANOS_PER_MICRO} us")
+    }
+
+    @Test
+    fun benchmark_coldRead_jsonVersusBinary() {
+        val encodedPayloads = PAYLOADS.map { payload ->
+            val bytes = ByteArrayOutputStream()
+            DataOutputStream(bytes).use { ConfigurationBinaryFormat.encode(payload, it) }
+            payload to bytes.toByteArray()
+        }
+        val decode = { (payload, bytes): Pair<String, ByteArray> ->
+            ConfigurationBinaryFormat.decode(ByteBuffer.wrap(bytes), lazyOf(payload))!!
+        }
+        encodedPayloads.forEach { readCardSection(decode(it)) }
+
+        val jsonNanos = medianParseNanos { readCardSection(it) }
+        val binaryNanos = medianNanos { encodedPayloads.forEach { readCardSection(decode(it)) } }
+
+        Log.i(TAG, "Configuration median cold read of ${PAYLOADS.size} payloads: JSON " +
+            "${jsonNanos / NANOS_PER_MICRO} us, binary ${binaryNanos / NANOS_PER_MICRO} us")
+    }
+
+    private fun medianParseNanos(access: (Configuration) -> Unit): Long {
+        return medianNanos { PAYLOADS.forEach { access(Configuration.fromJson(it)) } }
+    }
+
+    private fun medianNanos(block: () -> Unit): Long {
+        val samples = LongArray(ITERATIONS) {
+            val start = System.nanoTime()
+            block()
+            System.nanoTime() - start
+        }
+        samples.sort()
+        return samples[ITERATIONS / 2]
+    }
+
+    private fun readCardSection(configuration: Configuration) {
+        configuration.supportedCardTypes
+        configuration.isFraudDataCollectionEnabled
+    }
+
+    private fun readAllSections(configuration: Configuration) {
+        readCardSection(configuration)
+        configuration.isBraintreeApiEnabled
+        configuration.isGooglePayEnabled
+        configuration.isGraphQLEnabled
+        configuration.isPayPalTouchDisabled
+        configuration.isVenmoEnabled
+        configuration.isVisaCheckoutEnabled
+    }
+
+    companion object {
+        private const val TAG = "ConfigurationParsingBenchmark"
+        private const val ITERATIONS = 25
+        private const val NANOS_PER_MICRO = 1_000L
+
+        private val PAYLOADS = listOf(
+            Fixtures.CONFIGURATION_WITH_ACCESS_TOKEN,
+            Fixtures.CONFIGURATION_WITH_GOOGLE_PAY,
+            Fixtures.CONFIGURATION_WITH_GRAPHQL,
+            Fixtures.CONFIGURATION_WITH_LIVE_PAYPAL,
+            Fixtures.CONFIGURATION_WITH_PAY_WITH_VENMO,
+            Fixtures.CONFIGURATION_WITH_SUPPORTED_CARD_TYPES,
+            Fixtures.CONFIGURATION_WITH_VISA_CHECKOUT,
+        )
+    }
+}
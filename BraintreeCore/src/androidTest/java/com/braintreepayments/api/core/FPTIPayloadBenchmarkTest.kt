@@ -0,0 +1,155 @@
+package com.braintreepayments.api.core
+
+import android.content.Context
+import android.os.Debug
+import android.util.Log
+import androidx.test.core.app.ApplicationProvider
+import androidx.test.internal.runner.junit4.AndroidJUnit4ClassRunner
+import com.braintreepayments.api.sharedutils.Utf8JsonWriter
+import com.braintreepayments.api.testutils.Fixtures
+import org.json.JSONArray
+import org.json.JSONObject
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import java.io.OutputStream
+
+/**
+ * Compares the streaming FPTI payload writer in [AnalyticsApi] with building the same payload as a
+ * tree of [JSONObject]s, for a batch of [EVENT_COUNT] events. Allocation counts, sizes and timings
+ * are written to logcat under the [TAG] tag.
+ *
+ * The streaming payload is written as its request body writes it, with a [Utf8JsonWriter] over an okio
+ * buffer. Reading the buffer into a [ByteArray] is counted against it, although a request sends the
+ * buffered bytes without that copy.
+ */
+@RunWith(AndroidJUnit4ClassRunner::class)
+class FPTIPayloadBenchmarkTest {
+
+    private lateinit var context: Context
+    private lateinit var configuration: Configuration
+    private lateinit var authorization: Authorization
+    private lateinit var sut: AnalyticsApi
+    private val events = List(EVENT_COUNT) { index ->
+        AnalyticsEvent(
+            name = "paypal:tokenize:app-switch:started",
+            timestamp = 1_700_000_000_000L + index,
+            contextId = "EC-$index",
+            startTime = 1_700_000_000_000L + index,
+            endTime = 1_700_000_000_250L + index,
+            endpoint = "/v1/paypal_hermes/create_payment_resource",
+            didEnablePayPalAppSwitch = true
+        )
+    }
+
+    @Before
+    fun setUp() {
+        context = ApplicationProvider.getApplicationContext()
+        configuration = Configuration.fromJson(Fixtures.CONFIGURATION_WITH_ENVIRONMENT)
+        authorization = Authorization.fromString(Fixtures.TOKENIZATION_KEY)
+        SdkComponent.create(context)
+        sut = AnalyticsApi(deviceInspector = DeviceInspector(context))
+    }
+
+    @Test
+    fun streamingPayload_containsEveryEvent() {
+        val payload = JSONObject(streamingPayload().encodeToString())
+        val eventParams = payload.getJSONArray("events").getJSONObject(0).getJSONArray("event_params")
+
+        assertEquals(EVENT_COUNT, eventParams.length())
+        assertEquals("EC-${EVENT_COUNT - 1}", eventParams.getJSONObject(EVENT_COUNT - 1).getString("context_id"))
+    }
+
+    @Test
+    fun benchmark_streamingPayload_allocatesLessThanJSONObjectTree() {
+        // warm up class loading and the cached batch params so they are not counted
+        writeStreamingPayload()
+        writeJSONObjectPayload()
+
+        val streaming = measure { writeStreamingPayload() }
+        val jsonObjectTree = measure { writeJSONObjectPayload() }
+
+        Log.i(TAG, "streaming: $streaming")
+        Log.i(TAG, "JSONObject tree: $jsonObjectTree")
+        assertTrue(
+            "streaming allocated ${streaming.objects} objects, JSONObject tree ${jsonObjectTree.objects}",
+            streaming.objects < jsonObjectTree.objects
+        )
+    }
+
+    private fun streamingPayload() = sut.createFPTIRequestBody(
+        context = context,
+        authorization = authorization,
+        configuration = configuration,
+        sessionId = "session-id",
+        integration = IntegrationType.CUSTOM
+    ) { writer -> events.forEach { sut.writeFPTIEvent(writer, it) } }
+
+    private fun writeStreamingPayload() {
+        val payload = Utf8JsonWriter.encodeToByteArray { writer ->
+            writer.beginObject()
+            streamingPayload().writeMembers(writer)
+            writer.endObject()
+        }
+        DiscardingOutputStream.write(payload)
+    }
+
+    /**
+     * Builds the payload as [AnalyticsApi] did before it was streamed: a [JSONObject] per event, a
+     * [JSONObject] for the batch params, and the tree encoded to a [String] before it is sent.
+     */
+    private fun writeJSONObjectPayload() {
+        val eventParams = JSONArray()
+        events.forEach { event ->
+            eventParams.put(
+                JSONObject()
+                    .put("event_name", event.name)
+                    .put("t", event.timestamp)
+                    .put("is_vault", event.isVaultRequest)
+                    .put("tenant_name", "Braintree")
+                    .putOpt("context_id", event.contextId)
+                    .putOpt("start_time", event.startTime)
+                    .putOpt("end_time", event.endTime)
+                    .putOpt("endpoint", event.endpoint)
+                    .putOpt("merchant_enabled_app_switch", event.didEnablePayPalAppSwitch)
+                    .putOpt("context_type", if (event.isVaultRequest) "BA-TOKEN" else "EC-TOKEN")
+            )
+        }
+        val batchParams = JSONObject(Fixtures.FPTI_BATCH_PARAMS)
+            .put("tokenization_key", authorization.bearer)
+        val payload = JSONObject().put(
+            "events",
+            JSONArray().put(JSONObject().put("batch_params", batchParams).put("event_params", eventParams))
+        )
+        DiscardingOutputStream.write(payload.toString().toByteArray())
+    }
+
+    @Suppress("DEPRECATION")
+    private fun measure(block: () -> Unit): Measurement {
+        Debug.resetThreadAllocCount()
+        Debug.resetThreadAllocSize()
+        Debug.startAllocCounting()
+        val start = System.nanoTime()
+        block()
+        val nanos = System.nanoTime() - start
+        Debug.stopAllocCounting()
+        return Measurement(Debug.getThreadAllocCount(), Debug.getThreadAllocSize(), nanos / NANOS_PER_MICRO)
+    }
+
+    private data class Measurement(val objects: Int, val bytes: Int, val micros: Long) {
+        override fun toString() = "$objects objects, $bytes bytes allocated, $micros us"
+    }
+
+    private object DiscardingOutputStream : OutputStream() {
+        override fun write(b: Int) = Unit
+        override fun write(b: ByteArray, off: Int, len: Int) = Unit
+    }
+
+    companion object {
+        private const val TAG = "FPTIPayloadBenchmark"
+        private const val EVENT_COUNT = 500
+        private const val NANOS_PER_MICRO = 1_000L
+    }
+}
@@ -0,0 +1,178 @@
+package com.braintreepayments.api.core
+
+import android.util.Log
+import androidx.test.internal.runner.junit4.AndroidJUnit4ClassRunner
+import com.braintreepayments.api.paypal.PayPalCheckoutRequest
+import com.braintreepayments.api.paypal.PayPalLineItem
+import com.braintreepayments.api.paypal.PayPalLineItemKind
+import com.braintreepayments.api.sharedutils.RequestCompression
+import com.braintreepayments.api.testutils.Fixtures
+import kotlinx.coroutines.runBlocking
+import okhttp3.mockwebserver.Dispatcher
+import okhttp3.mockwebserver.MockResponse
+import okhttp3.mockwebserver.MockWebServer
+import okhttp3.mockwebserver.RecordedRequest
+import okio.GzipSource
+import okio.buffer
+import org.json.JSONArray
+import org.json.JSONObject
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNull
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+
+/**
+ * Measures [RequestCompression.GZIP] over FPTI analytics batches and PayPal checkout requests of
+ * realistic sizes, built from the [Fixtures] analytics payloads and [PayPalCheckoutRequest] with
+ * line items. Each payload is posted through [BraintreeHttpClient] to a local [MockWebServer], once
+ * uncompressed and once with [RequestCompression.GZIP], so the streamed request bodies are compressed
+ * the way OkHttp sends them. Sizes on the wire and timings are written to logcat under the [TAG] tag.
+ */
+@RunWith(AndroidJUnit4ClassRunner::class)
+class RequestCompressionBenchmarkTest {
+
+    private lateinit var mockWebServer: MockWebServer
+    private val authorization = Authorization.fromString(Fixtures.TOKENIZATION_KEY)
+    private val uncompressedClient = BraintreeHttpClient()
+    private val compressedClient = BraintreeHttpClient(compression = RequestCompression.GZIP)
+
+    @Before
+    fun setUp() {
+        mockWebServer = MockWebServer()
+        mockWebServer.dispatcher = object : Dispatcher() {
+            override fun dispatch(request: RecordedRequest) = MockResponse().setResponseCode(200).setBody("{}")
+        }
+        mockWebServer.start()
+    }
+
+    @After
+    fun tearDown() {
+        mockWebServer.shutdown()
+    }
+
+    @Test
+    fun post_withCompression_sendsEveryPayloadIntact() {
+        payloads().forEach { (name, payload) ->
+            val uncompressed = send(uncompressedClient, payload)
+            assertNull(name, uncompressed.getHeader("Content-Encoding"))
+            val expectedBody = uncompressed.body.readUtf8()
+
+            val compressed = send(compressedClient, payload)
+            if (expectedBody.length < RequestCompression.GZIP.minBodySize) {
+                assertNull(name, compressed.getHeader("Content-Encoding"))
+                assertEquals(name, expectedBody, compressed.body.readUtf8())
+            } else {
+                assertEquals(name, "gzip", compressed.getHeader("Content-Encoding"))
+                assertEquals(name, expectedBody, GzipSource(compressed.body).buffer().use { it.readUtf8() })
+            }
+        }
+    }
+
+    @Test
+    fun benchmark_post_sizeAndTime() {
+        val payloads = payloads()
+        // warm up class loading, the connection and the deflater so the first measured post is not penalized
+        payloads.forEach { (_, payload) ->
+            send(uncompressedClient, payload)
+            send(compressedClient, payload)
+        }
+
+        payloads.forEach { (name, payload) ->
+            val uncompressedSize = send(uncompressedClient, payload).bodySize
+            val compressed = send(compressedClient, payload)
+            val uncompressedNanos = medianNanos { send(uncompressedClient, payload) }
+            val compressedNanos = medianNanos { send(compressedClient, payload) }
+            val encoding = compressed.getHeader("Content-Encoding") ?: "identity"
+            Log.i(TAG, "$name: $uncompressedSize bytes, $encoding ${compressed.bodySize} bytes, " +
+                "median post ${uncompressedNanos / NANOS_PER_MICRO} us uncompressed, " +
+                "${compressedNanos / NANOS_PER_MICRO} us with compression")
+        }
+    }
+
+    private fun send(client: BraintreeHttpClient, payload: Payload): RecordedRequest {
+        val url = mockWebServer.url("/v1/tracking/batch/events").toString()
+        runBlocking {
+            when (payload) {
+                is Payload.Streamed -> client.post(url, payload.json, null, authorization)
+                is Payload.Serialized -> client.post(url, payload.json, null, authorization)
+            }
+        }
+        return mockWebServer.takeRequest()
+    }
+
+    private fun payloads(): List<Pair<String, Payload>> {
+        val fptiBatches = FPTI_BATCH_SIZES.map { eventCount ->
+            "FPTI batch of $eventCount events" to Payload.Streamed(fptiBatch(eventCount))
+        }
+        val checkoutRequests = LINE_ITEM_COUNTS.map { lineItemCount ->
+            "PayPal checkout with $lineItemCount line items" to
+                Payload.Serialized(payPalCheckoutRequestBody(lineItemCount))
+        }
+        return fptiBatches + checkoutRequests
+    }
+
+    private fun fptiBatch(eventCount: Int): JSONObject {
+        val events = JSONArray()
+        repeat(eventCount) { events.put(JSONObject(Fixtures.FPTI_EVENT)) }
+        val eventsContainer = JSONObject()
+            .put("batch_params", JSONObject(Fixtures.FPTI_BATCH_PARAMS))
+            .put("event_params", events)
+        return JSONObject().put("events", JSONArray().put(eventsContainer))
+    }
+
+    private fun payPalCheckoutRequestBody(lineItemCount: Int): String {
+        val request = PayPalCheckoutRequest(amount = "120.00", hasUserLocationConsent = true).apply {
+            currencyCode = "USD"
+            lineItems = List(lineItemCount) { index ->
+                PayPalLineItem(
+                    kind = PayPalLineItemKind.DEBIT,
+                    name = "Organic cotton t-shirt, size M, colour $index",
+                    quantity = "1",
+                    unitAmount = "12.00",
+                    description = "Short sleeve crew neck t-shirt made from 100% organic cotton",
+                    imageUrl = "https://example.com/images/products/t-shirt-$index.jpg",
+                    productCode = "TSHIRT-$index",
+                    unitTaxAmount = "0.96",
+                    url = "https://example.com/products/t-shirt-$index"
+                )
+            }
+        }
+        return request.createRequestBody(
+            configuration = Configuration.fromJson(Fixtures.CONFIGURATION_WITH_LIVE_PAYPAL),
+            authorization = Authorization.fromString(Fixtures.TOKENIZATION_KEY),
+            successUrl = "com.braintreepayments.demo.braintree://onetouch/v1/success",
+            cancelUrl = "com.braintreepayments.demo.braintree://onetouch/v1/cancel",
+            appLink = null
+        )
+    }
+
+    private fun medianNanos(block: () -> Unit): Long {
+        val samples = LongArray(ITERATIONS) {
+            val start = System.nanoTime()
+            block()
+            System.nanoTime() - start
+        }
+        samples.sort()
+        return samples[ITERATIONS / 2]
+    }
+
+    /**
+     * A request body posted either as a [JSONObject] streamed into the request, whose length is not
+     * known up front, or as an already serialized [String].
+     */
+    private sealed class Payload {
+        class Streamed(val json: JSONObject) : Payload()
+        class Serialized(val json: String) : Payload()
+    }
+
+    companion object {
+        private const val TAG = "RequestCompressionBenchmark"
+        private const val ITERATIONS = 25
+        private const val NANOS_PER_MICRO = 1_000L
+
+        private val FPTI_BATCH_SIZES = listOf(1, 10, 50)
+        private val LINE_ITEM_COUNTS = listOf(0, 10, 50)
+    }
+}
@@ -1,12 +1,16 @@
 package com.braintreepayments.api.core
 
+import android.content.Context
+import com.braintreepayments.api.sharedutils.EncodedJsonRequestBody
+import com.braintreepayments.api.sharedutils.JsonName
+import com.braintreepayments.api.sharedutils.RequestPriority
+import com.braintreepayments.api.sharedutils.TimeoutBudget
+import com.braintreepayments.api.sharedutils.Utf8JsonWriter
 import kotlinx.coroutines.CoroutineDispatcher
 import kotlinx.coroutines.CoroutineScope
 import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.launch
-import org.json.JSONArray
-import org.json.JSONException
-import org.json.JSONObject
+import java.io.IOException
 import kotlin.coroutines.cancellation.CancellationException
 
 /**
@@ -14,7 +18,10 @@ import kotlin.coroutines.cancellation.CancellationException
  */
 @Suppress("SwallowedException", "TooGenericExceptionCaught")
 internal class AnalyticsApi(
-    private val httpClient: BraintreeHttpClient = BraintreeHttpClient(),
+    private val httpClient: BraintreeHttpClient = BraintreeHttpClient(
+        timeoutBudget = TimeoutBudget.SHORT,
+        priority = RequestPriority.BACKGROUND
+    ),
     private val deviceInspector: DeviceInspector = DeviceInspectorProvider().deviceInspector,
     private val analyticsParamRepository: AnalyticsParamRepository = AnalyticsParamRepository.instance,
     private val merchantRepository: MerchantRepository = MerchantRepository.instance,
@@ -22,24 +29,31 @@ internal class AnalyticsApi(
     private val coroutineScope: CoroutineScope = CoroutineScope(dispatcher)
 ) {
 
+    /**
+     * The members of the FPTI batch params that are the same for every upload from this process,
+     * encoded once and paired with the [DeviceMetadata] they were encoded from.
+     */
+    @Volatile
+    private var staticBatchParams: Pair<DeviceMetadata, ByteArray>? = null
+
     fun execute(
         events: List<AnalyticsEvent>,
         configuration: Configuration?
     ) {
-        val jsonEvents = events.map { mapAnalyticsEventToFPTIEventJSON(it) }
-        val metadata = deviceInspector.getDeviceMetadata(
+        val analyticsRequest = createFPTIRequestBody(
             context = merchantRepository.applicationContext,
+            authorization = merchantRepository.authorization,
             configuration = configuration,
             sessionId = analyticsParamRepository.sessionId,
             integration = merchantRepository.integrationType
-        )
-        val analyticsRequest =
-            createFPTIPayload(merchantRepository.authorization, jsonEvents, metadata)
+        ) { writer ->
+            events.forEach { writeFPTIEvent(writer, it) }
+        }
         coroutineScope.launch {
             try {
                 httpClient.post(
                     path = FPTI_ANALYTICS_URL,
-                    data = analyticsRequest.toString(),
+                    data = analyticsRequest,
                     configuration = null,
                     authorization = merchantRepository.authorization,
                 )
@@ -49,146 +63,279 @@ internal class AnalyticsApi(
         }
     }
 
-    @Throws(JSONException::class)
-    private fun createFPTIPayload(
-        authorization: Authorization?,
-        events: List<JSONObject>,
-        metadata: DeviceMetadata
-    ): JSONObject {
-        val batchParamsJSON = mapDeviceMetadataToFPTIBatchParamsJSON(metadata)
-        batchParamsJSON.put(FPTI_BATCH_KEY_SPACE_KEY, "SKDUYK")
-        batchParamsJSON.put(FPTI_BATCH_KEY_PRODUCT_NAME, "BT_DCC")
-
-        authorization?.let {
-            if (it is ClientToken) {
-                batchParamsJSON.put(FPTI_KEY_AUTH_FINGERPRINT, it.bearer)
-            } else {
-                batchParamsJSON.put(FPTI_KEY_TOKENIZATION_KEY, it.bearer)
-            }
+    /**
+     * Uploads FPTI [events], encoded with [encodeFPTIEvent] during [session] and typically read back
+     * from the [AnalyticsEventLog] by a process that did not record them. The events are copied into
+     * the request as they are. Unlike [execute], this waits for the upload and throws if it fails, so
+     * that the events can be kept and uploaded again later.
+     *
+     * The request carries only the credential stored with [session] in its batch params, since the
+     * authorization the events were recorded with is not stored.
+     */
+    @Throws(BraintreeException::class, IOException::class)
+    suspend fun upload(
+        context: Context,
+        events: List<String>,
+        session: AnalyticsSession,
+    ) {
+        val metadata = deviceInspector.getDeviceMetadata(
+            context = context,
+            configuration = null,
+            sessionId = session.sessionId,
+            integration = IntegrationType.fromString(session.integration)
+        ).copy(environment = session.environment, merchantId = session.merchantId)
+        val analyticsRequest = createFPTIRequestBody(
+            context = context,
+            metadata = metadata,
+            tokenizationKey = session.tokenizationKey,
+            authorizationFingerprint = session.authorizationFingerprint
+        ) { writer ->
+            events.forEach { writer.rawValue(it) }
         }
+        httpClient.post(
+            path = FPTI_ANALYTICS_URL,
+            data = analyticsRequest,
+            configuration = null,
+            authorization = null,
+        )
+    }
+
+    /**
+     * Creates the body of an FPTI request whose events are written by [writeEventParams]. The batch
+     * params are collected when the body is created; the events are written as the body is sent.
+     */
+    @Suppress("LongParameterList")
+    internal fun createFPTIRequestBody(
+        context: Context,
+        authorization: Authorization?,
+        configuration: Configuration?,
+        sessionId: String?,
+        integration: IntegrationType?,
+        writeEventParams: (Utf8JsonWriter) -> Unit,
+    ): EncodedJsonRequestBody {
+        val metadata = deviceInspector.getDeviceMetadata(
+            context = context,
+            configuration = configuration,
+            sessionId = sessionId,
+            integration = integration
+        )
+        return createFPTIRequestBody(
+            context = context,
+            metadata = metadata,
+            tokenizationKey = (authorization as? TokenizationKey)?.bearer,
+            authorizationFingerprint = (authorization as? ClientToken)?.bearer,
+            writeEventParams = writeEventParams
+        )
+    }
+
+    private fun createFPTIRequestBody(
+        context: Context,
+        metadata: DeviceMetadata,
+        tokenizationKey: String?,
+        authorizationFingerprint: String?,
+        writeEventParams: (Utf8JsonWriter) -> Unit,
+    ): EncodedJsonRequestBody {
+        val staticBatchParams = getStaticBatchParams(metadata)
+        val isVenmoInstalled = deviceInspector.isVenmoInstalled(context)
+        val isPayPalInstalled = deviceInspector.isPayPalInstalled()
 
-        val eventsContainerJSON = JSONObject()
-        eventsContainerJSON.put(FPTI_KEY_BATCH_PARAMS, batchParamsJSON)
+        return EncodedJsonRequestBody { writer ->
+            // Single-element "events" array required by FPTI formatting
+            writer.name(FPTI_KEY_EVENTS).beginArray().beginObject()
 
-        val eventParamsJSON = JSONArray()
-        for (event in events) {
-            eventParamsJSON.put(event)
-        }
-        eventsContainerJSON.put(FPTI_KEY_EVENT_PARAMS, eventParamsJSON)
+            writer.name(FPTI_KEY_BATCH_PARAMS).beginObject()
+                .rawMembers(staticBatchParams)
+                .opt(FPTI_BATCH_KEY_ENVIRONMENT, metadata.environment)
+                .opt(FPTI_BATCH_KEY_INTEGRATION_TYPE, metadata.integrationType?.stringValue)
+                .opt(FPTI_BATCH_KEY_MERCHANT_ID, metadata.merchantId)
+                .opt(FPTI_BATCH_KEY_SESSION_ID, metadata.sessionId)
+                .opt(FPTI_BATCH_KEY_VENMO_INSTALLED, isVenmoInstalled)
+                .opt(FPTI_BATCH_KEY_PAYPAL_INSTALLED, isPayPalInstalled)
+                .opt(FPTI_KEY_AUTH_FINGERPRINT, authorizationFingerprint)
+                .opt(FPTI_KEY_TOKENIZATION_KEY, tokenizationKey)
+                .endObject()
 
-        // Single-element "events" array required by FPTI formatting
-        val eventsArray = JSONArray(arrayOf(eventsContainerJSON))
-        return JSONObject().put(FPTI_KEY_EVENTS, eventsArray)
+            writer.name(FPTI_KEY_EVENT_PARAMS).beginArray()
+            writeEventParams(writer)
+            writer.endArray()
+
+            writer.endObject().endArray()
+        }
     }
 
-    private fun mapAnalyticsEventToFPTIEventJSON(event: AnalyticsEvent): JSONObject {
-        return JSONObject()
-            .put(FPTI_KEY_EVENT_NAME, event.name)
-            .put(FPTI_KEY_TIMESTAMP, event.timestamp)
-            .put(FPTI_KEY_IS_VAULT, event.isVaultRequest)
-            .put(FPTI_KEY_TENANT_NAME, "Braintree")
-            .putOpt(FPTI_KEY_CONTEXT_ID, event.contextId)
-            .putOpt(FPTI_KEY_LINK_TYPE, event.linkType)
-            .putOpt(FPTI_KEY_START_TIME, event.startTime)
-            .putOpt(FPTI_KEY_END_TIME, event.endTime)
-            .putOpt(FPTI_KEY_ENDPOINT, event.endpoint)
-            .putOpt(FPTI_KEY_MERCHANT_EXPERIMENT, event.experiment)
-            .putOpt(FPTI_KEY_URL, event.appSwitchUrl)
-            .putOpt(FPTI_KEY_SHOPPER_SESSION_ID, event.shopperSessionId)
-            .putOpt(FPTI_KEY_BUTTON_TYPE, event.buttonType)
-            .putOpt(FPTI_KEY_BUTTON_POSITION, event.buttonOrder)
-            .putOpt(FPTI_KEY_PAGE_TYPE, event.pageType)
-            .putOpt(FPTI_KEY_MERCHANT_ENABLED_APP_SWITCH, event.didEnablePayPalAppSwitch)
-            .putOpt(FPTI_KEY_PAYPAL_RECEIVED_APP_SWITCH_URL, event.didPayPalServerAttemptAppSwitch)
-            .putOpt(FPTI_KEY_ERROR_DESC, event.errorDescription)
-            .putOpt(FPTI_KEY_CONTEXT_TYPE, if (event.isVaultRequest) "BA-TOKEN" else "EC-TOKEN")
-            .putOpt(FPTI_KEY_PAYPAL_ATTEMPTED_APP_SWITCH, event.didSdkAttemptAppSwitch)
-            .putOpt(FPTI_KEY_FUNDING_SOURCE, event.fundingSource)
-            .putOpt(FPTI_KEY_UI_INTEGRATION_TYPE, event.uiType)
-            .putOpt(FPTI_KEY_IS_BILLING_AGREEMENT, event.shouldRequestBillingAgreement)
-            .putOpt(FPTI_KEY_BILLING_PLAN_TYPE, event.recurringBillingPlanType)
+    /**
+     * Encodes [event] as an event in an FPTI batch, to be stored and uploaded later with [upload].
+     */
+    fun encodeFPTIEvent(event: AnalyticsEvent): String =
+        Utf8JsonWriter.encodeToString { writeFPTIEvent(it, event) }
+
+    /**
+     * Writes [event] as an event in an FPTI batch.
+     */
+    internal fun writeFPTIEvent(writer: Utf8JsonWriter, event: AnalyticsEvent) {
+        writer.beginObject()
+            .name(FPTI_KEY_EVENT_NAME).value(event.name)
+            .name(FPTI_KEY_TIMESTAMP).value(event.timestamp)
+            .name(FPTI_KEY_IS_VAULT).value(event.isVaultRequest)
+            .name(FPTI_KEY_TENANT_NAME).value("Braintree")
+            .opt(FPTI_KEY_CONTEXT_ID, event.contextId)
+            .opt(FPTI_KEY_LINK_TYPE, event.linkType)
+            .opt(FPTI_KEY_START_TIME, event.startTime)
+            .opt(FPTI_KEY_END_TIME, event.endTime)
+            .opt(FPTI_KEY_ENDPOINT, event.endpoint)
+            .opt(FPTI_KEY_MERCHANT_EXPERIMENT, event.experiment)
+            .opt(FPTI_KEY_URL, event.appSwitchUrl)
+            .opt(FPTI_KEY_SHOPPER_SESSION_ID, event.shopperSessionId)
+            .opt(FPTI_KEY_BUTTON_TYPE, event.buttonType)
+            .opt(FPTI_KEY_BUTTON_POSITION, event.buttonOrder)
+            .opt(FPTI_KEY_PAGE_TYPE, event.pageType)
+            .opt(FPTI_KEY_MERCHANT_ENABLED_APP_SWITCH, event.didEnablePayPalAppSwitch)
+            .opt(FPTI_KEY_PAYPAL_RECEIVED_APP_SWITCH_URL, event.didPayPalServerAttemptAppSwitch)
+            .opt(FPTI_KEY_ERROR_DESC, event.errorDescription)
+            .opt(FPTI_KEY_CONTEXT_TYPE, if (event.isVaultRequest) "BA-TOKEN" else "EC-TOKEN")
+            .opt(FPTI_KEY_PAYPAL_ATTEMPTED_APP_SWITCH, event.didSdkAttemptAppSwitch)
+            .opt(FPTI_KEY_FUNDING_SOURCE, event.fundingSource)
+            .opt(FPTI_KEY_UI_INTEGRATION_TYPE, event.uiType)
+            .opt(FPTI_KEY_IS_BILLING_AGREEMENT, event.shouldRequestBillingAgreement)
+            .opt(FPTI_KEY_BILLING_PLAN_TYPE, event.recurringBillingPlanType)
+
+        event.phaseTimings?.let {
+            writer
+                .name(FPTI_KEY_DNS_DURATION).value(it.dnsDuration)
+                .name(FPTI_KEY_CONNECT_DURATION).value(it.connectDuration)
+                .name(FPTI_KEY_TLS_DURATION).value(it.tlsDuration)
+                .name(FPTI_KEY_TIME_TO_FIRST_BYTE).value(it.timeToFirstByte)
+                .name(FPTI_KEY_RESPONSE_BODY_DURATION).value(it.responseBodyDuration)
+                .name(FPTI_KEY_CONNECTION_REUSED).value(it.isConnectionReused)
+        }
+        event.latencySummary?.let {
+            writer
+                .name(FPTI_KEY_SAMPLE_COUNT).value(it.sampleCount.toLong())
+                .name(FPTI_KEY_LATENCY_P50).value(it.p50Millis)
+                .name(FPTI_KEY_LATENCY_P90).value(it.p90Millis)
+                .name(FPTI_KEY_LATENCY_P99).value(it.p99Millis)
+                .name(FPTI_KEY_LATENCY_MAX).value(it.maxMillis)
+                .name(FPTI_KEY_LATENCY_HISTOGRAM).value(it.buckets)
+            it.phases?.let { phases ->
+                writer
+                    .name(FPTI_KEY_PHASE_SAMPLE_COUNT).value(phases.sampleCount.toLong())
+                    .name(FPTI_KEY_DNS_DURATION).value(phases.meanDnsMillis)
+                    .name(FPTI_KEY_CONNECT_DURATION).value(phases.meanConnectMillis)
+                    .name(FPTI_KEY_TLS_DURATION).value(phases.meanTlsMillis)
+                    .name(FPTI_KEY_TIME_TO_FIRST_BYTE).value(phases.meanTimeToFirstByteMillis)
+                    .name(FPTI_KEY_RESPONSE_BODY_DURATION).value(phases.meanResponseBodyMillis)
+                    .name(FPTI_KEY_CONNECTION_REUSED_COUNT).value(phases.reusedConnectionCount.toLong())
+            }
+        }
+        writer.endObject()
     }
 
-    @Throws(JSONException::class)
-    private fun mapDeviceMetadataToFPTIBatchParamsJSON(metadata: DeviceMetadata): JSONObject {
-        val isVenmoInstalled =
-            deviceInspector.isVenmoInstalled(merchantRepository.applicationContext)
-        val isPayPalInstalled = deviceInspector.isPayPalInstalled()
-        return metadata.run {
-            JSONObject()
-                .put(FPTI_BATCH_KEY_APP_ID, appId)
-                .put(FPTI_BATCH_KEY_APP_NAME, appName)
-                .put(FPTI_BATCH_KEY_CLIENT_SDK_VERSION, clientSDKVersion)
-                .put(FPTI_BATCH_KEY_CLIENT_OS, clientOs)
-                .put(FPTI_BATCH_KEY_COMPONENT, component)
-                .put(FPTI_BATCH_KEY_DEVICE_MANUFACTURER, deviceManufacturer)
-                .put(FPTI_BATCH_KEY_DEVICE_MODEL, deviceModel)
-                .put(FPTI_BATCH_KEY_DROP_IN_SDK_VERSION, dropInSDKVersion)
-                .put(FPTI_BATCH_KEY_EVENT_SOURCE, eventSource)
-                .put(FPTI_BATCH_KEY_ENVIRONMENT, environment)
-                .put(FPTI_BATCH_KEY_INTEGRATION_TYPE, integrationType?.stringValue)
-                .put(FPTI_BATCH_KEY_IS_SIMULATOR, isSimulator)
-                .put(FPTI_BATCH_KEY_MERCHANT_APP_VERSION, merchantAppVersion)
-                .put(FPTI_BATCH_KEY_MERCHANT_ID, merchantId)
-                .put(FPTI_BATCH_KEY_PLATFORM, platform)
-                .put(FPTI_BATCH_KEY_SESSION_ID, sessionId)
-                .put(FPTI_BATCH_KEY_VENMO_INSTALLED, isVenmoInstalled)
-                .put(FPTI_BATCH_KEY_PAYPAL_INSTALLED, isPayPalInstalled)
+    /**
+     * Returns the encoded members of the batch params that are derived from the static fields of
+     * [metadata], without the enclosing braces.
+     */
+    private fun getStaticBatchParams(metadata: DeviceMetadata): ByteArray {
+        val staticMetadata = metadata.copy(
+            environment = null,
+            integrationType = null,
+            merchantId = null,
+            sessionId = null
+        )
+        staticBatchParams?.let { (cachedMetadata, members) ->
+            if (cachedMetadata == staticMetadata) return members
+        }
+        val encodedObject = Utf8JsonWriter.encodeToByteArray { writer ->
+            staticMetadata.run {
+                writer.beginObject()
+                    .opt(FPTI_BATCH_KEY_APP_ID, appId)
+                    .opt(FPTI_BATCH_KEY_APP_NAME, appName)
+                    .opt(FPTI_BATCH_KEY_CLIENT_SDK_VERSION, clientSDKVersion)
+                    .opt(FPTI_BATCH_KEY_CLIENT_OS, clientOs)
+                    .opt(FPTI_BATCH_KEY_COMPONENT, component)
+                    .opt(FPTI_BATCH_KEY_DEVICE_MANUFACTURER, deviceManufacturer)
+                    .opt(FPTI_BATCH_KEY_DEVICE_MODEL, deviceModel)
+                    .opt(FPTI_BATCH_KEY_DROP_IN_SDK_VERSION, dropInSDKVersion)
+                    .opt(FPTI_BATCH_KEY_EVENT_SOURCE, eventSource)
+                    .opt(FPTI_BATCH_KEY_IS_SIMULATOR, isSimulator)
+                    .opt(FPTI_BATCH_KEY_MERCHANT_APP_VERSION, merchantAppVersion)
+                    .opt(FPTI_BATCH_KEY_PLATFORM, platform)
+                    .opt(FPTI_BATCH_KEY_SPACE_KEY, "SKDUYK")
+                    .opt(FPTI_BATCH_KEY_PRODUCT_NAME, "BT_DCC")
+                    .endObject()
+            }
         }
+        // the space key and product name are always written, so the members are never empty
+        val members = encodedObject.copyOfRange(1, encodedObject.size - 1)
+        staticBatchParams = staticMetadata to members
+        return members
     }
 
     companion object {
         private const val FPTI_ANALYTICS_URL = "https://api-m.paypal.com/v1/tracking/batch/events"
 
-        private const val FPTI_KEY_CONTEXT_ID = "context_id"
-        private const val FPTI_KEY_IS_VAULT = "is_vault"
-        private const val FPTI_KEY_LINK_TYPE = "link_type"
-        private const val FPTI_KEY_TOKENIZATION_KEY = "tokenization_key"
-        private const val FPTI_KEY_AUTH_FINGERPRINT = "authorization_fingerprint"
-        private const val FPTI_KEY_EVENTS = "events"
-        private const val FPTI_KEY_BATCH_PARAMS = "batch_params"
-        private const val FPTI_KEY_EVENT_PARAMS = "event_params"
-        private const val FPTI_KEY_EVENT_NAME = "event_name"
-        private const val FPTI_KEY_TIMESTAMP = "t"
-        private const val FPTI_KEY_TENANT_NAME = "tenant_name"
-        private const val FPTI_KEY_START_TIME = "start_time"
-        private const val FPTI_KEY_END_TIME = "end_time"
-        private const val FPTI_KEY_ENDPOINT = "endpoint"
-        private const val FPTI_KEY_MERCHANT_EXPERIMENT = "experiment"
-        private const val FPTI_KEY_URL = "url"
-        private const val FPTI_KEY_SHOPPER_SESSION_ID = "shopper_session_id"
-        private const val FPTI_KEY_BUTTON_TYPE = "button_type"
-        private const val FPTI_KEY_BUTTON_POSITION = "button_position"
-        private const val FPTI_KEY_PAGE_TYPE = "page_type"
-        private const val FPTI_KEY_MERCHANT_ENABLED_APP_SWITCH = "merchant_enabled_app_switch"
-        private const val FPTI_KEY_PAYPAL_RECEIVED_APP_SWITCH_URL = "paypal_app_switch_url_received"
-        private const val FPTI_KEY_PAYPAL_ATTEMPTED_APP_SWITCH = "attempted_app_switch"
-        private const val FPTI_KEY_ERROR_DESC = "error_desc"
-        private const val FPTI_KEY_CONTEXT_TYPE = "context_type"
-        private const val FPTI_KEY_FUNDING_SOURCE = "funding_source"
-        private const val FPTI_KEY_UI_INTEGRATION_TYPE = "ui_type"
-        private const val FPTI_KEY_IS_BILLING_AGREEMENT = "is_billing_agreement"
-        private const val FPTI_KEY_BILLING_PLAN_TYPE = "billing_plan_type"
-
-        private const val FPTI_BATCH_KEY_VENMO_INSTALLED = "venmo_installed"
-        private const val FPTI_BATCH_KEY_PAYPAL_INSTALLED = "paypal_installed"
-        private const val FPTI_BATCH_KEY_APP_ID = "app_id"
-        private const val FPTI_BATCH_KEY_APP_NAME = "app_name"
-        private const val FPTI_BATCH_KEY_CLIENT_SDK_VERSION = "c_sdk_ver"
-        private const val FPTI_BATCH_KEY_CLIENT_OS = "client_os"
-        private const val FPTI_BATCH_KEY_COMPONENT = "comp"
-        private const val FPTI_BATCH_KEY_DEVICE_MANUFACTURER = "device_manufacturer"
-        private const val FPTI_BATCH_KEY_DEVICE_MODEL = "mobile_device_model"
-        private const val FPTI_BATCH_KEY_DROP_IN_SDK_VERSION = "drop_in_sdk_ver"
-        private const val FPTI_BATCH_KEY_EVENT_SOURCE = "event_source"
-        private const val FPTI_BATCH_KEY_ENVIRONMENT = "merchant_sdk_env"
-        private const val FPTI_BATCH_KEY_INTEGRATION_TYPE = "api_integration_type"
-        private const val FPTI_BATCH_KEY_IS_SIMULATOR = "is_simulator"
-        private const val FPTI_BATCH_KEY_MERCHANT_APP_VERSION = "mapv"
-        private const val FPTI_BATCH_KEY_MERCHANT_ID = "merchant_id"
-        private const val FPTI_BATCH_KEY_PLATFORM = "platform"
-        private const val FPTI_BATCH_KEY_SESSION_ID = "session_id"
-        private const val FPTI_BATCH_KEY_SPACE_KEY = "space_key"
-        private const val FPTI_BATCH_KEY_PRODUCT_NAME = "product_name"
+        private val FPTI_KEY_CONTEXT_ID = JsonName("context_id")
+        private val FPTI_KEY_IS_VAULT = JsonName("is_vault")
+        private val FPTI_KEY_LINK_TYPE = JsonName("link_type")
+        private val FPTI_KEY_TOKENIZATION_KEY = JsonName("tokenization_key")
+        private val FPTI_KEY_AUTH_FINGERPRINT = JsonName("authorization_fingerprint")
+        private val FPTI_KEY_EVENTS = JsonName("events")
+        private val FPTI_KEY_BATCH_PARAMS = JsonName("batch_params")
+        private val FPTI_KEY_EVENT_PARAMS = JsonName("event_params")
+        private val FPTI_KEY_EVENT_NAME = JsonName("event_name")
+        private val FPTI_KEY_TIMESTAMP = JsonName("t")
+        private val FPTI_KEY_TENANT_NAME = JsonName("tenant_name")
+        private val FPTI_KEY_START_TIME = JsonName("start_time")
+        private val FPTI_KEY_END_TIME = JsonName("end_time")
+        private val FPTI_KEY_ENDPOINT = JsonName("endpoint")
+        private val FPTI_KEY_MERCHANT_EXPERIMENT = JsonName("experiment")
+        private val FPTI_KEY_URL = JsonName("url")
+        private val FPTI_KEY_SHOPPER_SESSION_ID = JsonName("shopper_session_id")
+        private val FPTI_KEY_BUTTON_TYPE = JsonName("button_type")
+        private val FPTI_KEY_BUTTON_POSITION = JsonName("button_position")
+        private val FPTI_KEY_PAGE_TYPE = JsonName("page_type")
+        private val FPTI_KEY_MERCHANT_ENABLED_APP_SWITCH = JsonName("merchant_enabled_app_switch")
+        private val FPTI_KEY_PAYPAL_RECEIVED_APP_SWITCH_URL = JsonName("paypal_app_switch_url_received")
+        private val FPTI_KEY_PAYPAL_ATTEMPTED_APP_SWITCH = JsonName("attempted_app_switch")
+        private val FPTI_KEY_ERROR_DESC = JsonName("error_desc")
+        private val FPTI_KEY_CONTEXT_TYPE = JsonName("context_type")
+        private val FPTI_KEY_FUNDING_SOURCE = JsonName("funding_source")
+        private val FPTI_KEY_UI_INTEGRATION_TYPE = JsonName("ui_type")
+        private val FPTI_KEY_IS_BILLING_AGREEMENT = JsonName("is_billing_agreement")
+        private val FPTI_KEY_BILLING_PLAN_TYPE = JsonName("billing_plan_type")
+        private val FPTI_KEY_DNS_DURATION = JsonName("dns_duration")
+        private val FPTI_KEY_CONNECT_DURATION = JsonName("connect_duration")
+        private val FPTI_KEY_TLS_DURATION = JsonName("tls_duration")
+        private val FPTI_KEY_TIME_TO_FIRST_BYTE = JsonName("ttfb_duration")
+        private val FPTI_KEY_RESPONSE_BODY_DURATION = JsonName("response_body_duration")
+        private val FPTI_KEY_CONNECTION_REUSED = JsonName("connection_reused")
+        private val FPTI_KEY_SAMPLE_COUNT = JsonName("sample_count")
+        private val FPTI_KEY_LATENCY_P50 = JsonName("latency_p50")
+        private val FPTI_KEY_LATENCY_P90 = JsonName("latency_p90")
+        private val FPTI_KEY_LATENCY_P99 = JsonName("latency_p99")
+        private val FPTI_KEY_LATENCY_MAX = JsonName("latency_max")
+        private val FPTI_KEY_LATENCY_HISTOGRAM = JsonName("latency_histogram")
+        private val FPTI_KEY_PHASE_SAMPLE_COUNT = JsonName("phase_sample_count")
+        private val FPTI_KEY_CONNECTION_REUSED_COUNT = JsonName("connection_reused_count")
+
+        private val FPTI_BATCH_KEY_VENMO_INSTALLED = JsonName("venmo_installed")
+        private val FPTI_BATCH_KEY_PAYPAL_INSTALLED = JsonName("paypal_installed")
+        private val FPTI_BATCH_KEY_APP_ID = JsonName("app_id")
+        private val FPTI_BATCH_KEY_APP_NAME = JsonName("app_name")
+        private val FPTI_BATCH_KEY_CLIENT_SDK_VERSION = JsonName("c_sdk_ver")
+        private val FPTI_BATCH_KEY_CLIENT_OS = JsonName("client_os")
+        private val FPTI_BATCH_KEY_COMPONENT = JsonName("comp")
+        private val FPTI_BATCH_KEY_DEVICE_MANUFACTURER = JsonName("device_manufacturer")
+        private val FPTI_BATCH_KEY_DEVICE_MODEL = JsonName("mobile_device_model")
+        private val FPTI_BATCH_KEY_DROP_IN_SDK_VERSION = JsonName("drop_in_sdk_ver")
+        private val FPTI_BATCH_KEY_EVENT_SOURCE = JsonName("event_source")
+        private val FPTI_BATCH_KEY_ENVIRONMENT = JsonName("merchant_sdk_env")
+        private val FPTI_BATCH_KEY_INTEGRATION_TYPE = JsonName("api_integration_type")
+        private val FPTI_BATCH_KEY_IS_SIMULATOR = JsonName("is_simulator")
+        private val FPTI_BATCH_KEY_MERCHANT_APP_VERSION = JsonName("mapv")
+        private val FPTI_BATCH_KEY_MERCHANT_ID = JsonName("merchant_id")
+        private val FPTI_BATCH_KEY_PLATFORM = JsonName("platform")
+        private val FPTI_BATCH_KEY_SESSION_ID = JsonName("session_id")
+        private val FPTI_BATCH_KEY_SPACE_KEY = JsonName("space_key")
+        private val FPTI_BATCH_KEY_PRODUCT_NAME = JsonName("product_name")
     }
 }
@@ -1,10 +1,15 @@
 package com.braintreepayments.api.core
 
+import android.content.ComponentCallbacks2
 import androidx.annotation.RestrictTo
+import androidx.work.ExistingWorkPolicy
+import androidx.work.WorkManager
 import com.braintreepayments.api.sharedutils.Time
 import kotlinx.coroutines.CoroutineDispatcher
 import kotlinx.coroutines.CoroutineScope
 import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.Job
+import kotlinx.coroutines.delay
 import kotlinx.coroutines.launch
 import org.json.JSONException
 
@@ -18,13 +23,59 @@ class AnalyticsClient internal constructor(
     private val configurationLoader: ConfigurationLoader = ConfigurationLoader.instance,
     private val dispatcher: CoroutineDispatcher = Dispatchers.Main,
     private val coroutineScope: CoroutineScope = CoroutineScope(dispatcher),
+    private val merchantRepository: MerchantRepository = MerchantRepository.instance,
+    private val ioDispatcher: CoroutineDispatcher = Dispatchers.IO,
+    lazyAnalyticsEventLog: Lazy<AnalyticsEventLog> = lazy {
+        AnalyticsEventLog(AnalyticsDatabase.getInstance(merchantRepository.applicationContext))
+    },
+    lazyWorkManager: Lazy<WorkManager> = lazy { WorkManager.getInstance(merchantRepository.applicationContext) },
+    private val pendingEventRepository: AnalyticsEventRepository = AnalyticsEventRepository(),
+    private val flushPolicy: AnalyticsFlushPolicy = AnalyticsFlushPolicy(),
+    private val latencyHistogramRepository: LatencyHistogramRepository = LatencyHistogramRepository.instance,
 ) {
+    private val analyticsEventLog: AnalyticsEventLog by lazyAnalyticsEventLog
+    private val workManager: WorkManager by lazyWorkManager
+
+    // the state of the pending batch is only read and written by coroutines running on [dispatcher]
+    private var pendingEventCount = 0
+    private var oldestPendingEventTime = 0L
+    private var lastUploadTime: Long? = null
+    private var flushJob: Job? = null
+    private var scheduledFlushTime = 0L
+    // incremented whenever the pending batch is moved into the [AnalyticsEventLog]
+    private var pendingBatchGeneration = 0
+    private var latencyWindowJob: Job? = null
+
+    // the state of the events buffered for the [AnalyticsEventLog] is also confined to [dispatcher]
+    private var bufferedEventCount = 0
+    private var persistJob: Job? = null
+    private var isBackgroundCallbackRegistered = false
+
+    /**
+     * Moves the events held in memory into the [AnalyticsEventLog] when the app goes to the background,
+     * where its process may be killed before they are uploaded. It is only registered while this client
+     * holds events in memory, so that the application context does not keep the client alive.
+     */
+    private val backgroundCallback = object : ComponentCallbacks2 {
+        override fun onTrimMemory(level: Int) {
+            if (level >= ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN) {
+                coroutineScope.launch { persistEventsInMemory() }
+            }
+        }
+
+        override fun onConfigurationChanged(newConfig: android.content.res.Configuration) = Unit
+
+        @Deprecated("Deprecated in Java")
+        override fun onLowMemory() = Unit
+    }
 
     fun sendEvent(
         eventName: String,
         analyticsEventParams: AnalyticsEventParams = AnalyticsEventParams(),
         sendImmediately: Boolean = true,
     ) {
+        if (eventName == CoreAnalytics.API_REQUEST_LATENCY && recordLatency(analyticsEventParams)) return
+
         val event = AnalyticsEvent(
             name = eventName,
             timestamp = time.currentTime,
@@ -48,37 +99,246 @@ class AnalyticsClient internal constructor(
             didEnablePayPalAppSwitch = analyticsParamRepository.didEnablePayPalAppSwitch,
             didPayPalServerAttemptAppSwitch = analyticsParamRepository.didPayPalServerAttemptAppSwitch,
             didSdkAttemptAppSwitch = analyticsParamRepository.didSdkAttemptAppSwitch,
+            phaseTimings = analyticsEventParams.phaseTimings,
         )
         if (sendImmediately) {
+            pendingEventRepository.addEvent(event)
+            coroutineScope.launch { onEventPending() }
+        } else {
+            analyticsEventRepository.addEvent(event)
+            coroutineScope.launch { onEventBuffered() }
+        }
+    }
+
+    /**
+     * Counts the latency of a request in the histogram of its endpoint if the [flushPolicy] reports
+     * latencies as histograms, and opens a latency window if none is open.
+     *
+     * @return false if the latency is to be sent as an event of its own
+     */
+    private fun recordLatency(params: AnalyticsEventParams): Boolean {
+        if (flushPolicy.latencyReporting != LatencyReporting.HISTOGRAM) return false
+        val endpoint = params.endpoint ?: return false
+        val startTime = params.startTime ?: return false
+        val endTime = params.endTime ?: return false
+
+        val windowOpened = latencyHistogramRepository.record(
+            endpoint = endpoint,
+            latencyMillis = endTime - startTime,
+            phaseTimings = params.phaseTimings,
+            currentTime = time.currentTime
+        )
+        if (windowOpened) {
             coroutineScope.launch {
-                val configResult = configurationLoader.loadConfiguration()
-                if (configResult is ConfigurationLoaderResult.Success) {
-                    executeEventsApi(event, configResult.configuration)
+                // a window closed early by reportCrash leaves its job behind
+                latencyWindowJob?.cancel()
+                latencyWindowJob = coroutineScope.launch {
+                    delay(flushPolicy.latencyWindowMillis)
+                    closeLatencyWindow()
                 }
             }
+        }
+        return true
+    }
+
+    /**
+     * Buffers a summary event for each endpoint requested during the latency window and persists them
+     * with the other buffered events.
+     */
+    private fun closeLatencyWindow() {
+        latencyWindowJob = null
+        latencySummaryEvents().forEach { analyticsEventRepository.addEvent(it) }
+        launchPersistBufferedEvents()
+    }
+
+    private fun latencySummaryEvents(): List<AnalyticsEvent> {
+        val (windowStartTime, summaries) = latencyHistogramRepository.drain() ?: return emptyList()
+        val windowEndTime = time.currentTime
+        return summaries.map { (endpoint, summary) ->
+            AnalyticsEvent(
+                name = CoreAnalytics.API_REQUEST_LATENCY_HISTOGRAM,
+                timestamp = windowEndTime,
+                startTime = windowStartTime,
+                endTime = windowEndTime,
+                endpoint = endpoint,
+                latencySummary = summary
+            )
+        }
+    }
+
+    /**
+     * Counts an event buffered for the [AnalyticsEventLog] and writes the buffered events to the log
+     * once there are [AnalyticsFlushPolicy.maxBufferedEvents] of them or the oldest has been buffered
+     * for [AnalyticsFlushPolicy.maxBufferAgeMillis].
+     */
+    private fun onEventBuffered() {
+        if (++bufferedEventCount >= flushPolicy.maxBufferedEvents) {
+            launchPersistBufferedEvents()
+        } else if (persistJob?.isActive != true) {
+            persistJob = coroutineScope.launch {
+                delay(flushPolicy.maxBufferAgeMillis)
+                persistJob = null
+                launchPersistBufferedEvents()
+            }
+        }
+        updateBackgroundCallback()
+    }
+
+    private fun launchPersistBufferedEvents() {
+        persistJob?.cancel()
+        persistJob = null
+        bufferedEventCount = 0
+        updateBackgroundCallback()
+        coroutineScope.launch(ioDispatcher) { persistBufferedEvents() }
+    }
+
+    /**
+     * Moves the pending batch into the buffer and writes the buffer to the [AnalyticsEventLog] without
+     * waiting for the batch to be due.
+     */
+    private fun persistEventsInMemory() {
+        flushJob?.cancel()
+        flushJob = null
+        pendingEventCount = 0
+        pendingBatchGeneration++
+        pendingEventRepository.flushAndReturnEvents().forEach { analyticsEventRepository.addEvent(it) }
+        launchPersistBufferedEvents()
+    }
+
+    /**
+     * Registers the [backgroundCallback] while events are pending or buffered, and unregisters it once
+     * they have been uploaded or handed to the [AnalyticsEventLog].
+     */
+    private fun updateBackgroundCallback() {
+        val shouldRegister = pendingEventCount > 0 || bufferedEventCount > 0
+        if (shouldRegister == isBackgroundCallbackRegistered) return
+        try {
+            val applicationContext = merchantRepository.applicationContext
+            if (shouldRegister) {
+                applicationContext.registerComponentCallbacks(backgroundCallback)
+            } else {
+                applicationContext.unregisterComponentCallbacks(backgroundCallback)
+            }
+            isBackgroundCallbackRegistered = shouldRegister
+        } catch (e: Exception) {
+            // without an application context, events are uploaded when they are due
+        }
+    }
+
+    /**
+     * Moves the events buffered in memory into the [AnalyticsEventLog] and schedules their upload, so
+     * that they are not lost if the process is killed before an event is sent immediately. Events
+     * that cannot be written to the log are buffered in memory again.
+     */
+    private suspend fun persistBufferedEvents() {
+        val events = analyticsEventRepository.flushAndReturnEvents()
+        if (events.isEmpty()) return
+
+        val configResult = configurationLoader.loadConfiguration()
+        val configuration = (configResult as? ConfigurationLoaderResult.Success)?.configuration
+        try {
+            val authorization = merchantRepository.authorization
+            val session = AnalyticsSession(
+                sessionId = analyticsParamRepository.sessionId,
+                tokenizationKey = (authorization as? TokenizationKey)?.bearer,
+                authorizationFingerprint = (authorization as? ClientToken)?.bearer,
+                environment = configuration?.environment,
+                merchantId = configuration?.merchantId,
+                integration = merchantRepository.integrationType?.stringValue
+            )
+            analyticsEventLog.append(events.map { analyticsApi.encodeFPTIEvent(it) }, session)
+        } catch (e: Exception) {
+            events.forEach { analyticsEventRepository.addEvent(it) }
+            return
+        }
+
+        try {
+            // an upload that is already running may have read the log before these events were
+            // appended, so the new upload runs after it rather than being dropped
+            workManager.enqueueUniqueWork(
+                AnalyticsUploadWorker.WORK_NAME,
+                ExistingWorkPolicy.APPEND_OR_REPLACE,
+                AnalyticsUploadWorker.createWorkRequest()
+            )
+        } catch (e: Exception) {
+            // the events stay in the log and are uploaded with the next scheduled upload
+        }
+    }
+
+    /**
+     * Counts an event added to the pending batch and schedules the upload of the batch according to the
+     * [flushPolicy].
+     */
+    private fun onEventPending() {
+        addPendingEvents(count = 1)
+        updateBackgroundCallback()
+    }
+
+    private fun addPendingEvents(count: Int) {
+        val now = time.currentTime
+        if (pendingEventCount == 0) oldestPendingEventTime = now
+        pendingEventCount += count
+
+        val batchDueTime = if (pendingEventCount >= flushPolicy.maxBatchSize) {
+            now
         } else {
-            analyticsEventRepository.addEvent(event)
+            oldestPendingEventTime + flushPolicy.maxBatchAgeMillis
+        }
+        val flushTime = lastUploadTime?.let { maxOf(batchDueTime, it + flushPolicy.minUploadIntervalMillis) }
+            ?: batchDueTime
+
+        if (flushJob?.isActive == true) {
+            if (scheduledFlushTime <= flushTime) return
+            flushJob?.cancel()
+        }
+        scheduledFlushTime = flushTime
+        flushJob = coroutineScope.launch {
+            delay(flushTime - now)
+            flushPendingEvents()
         }
     }
 
+    private suspend fun flushPendingEvents() {
+        flushJob = null
+        val flushedEventCount = pendingEventCount
+        val generation = pendingBatchGeneration
+        pendingEventCount = 0
+        lastUploadTime = time.currentTime
+
+        val configResult = configurationLoader.loadConfiguration()
+        if (configResult is ConfigurationLoaderResult.Success) {
+            executeEventsApi(configuration = configResult.configuration)
+        } else if (generation == pendingBatchGeneration) {
+            // the events stay pending and are sent with the next batch, due maxBatchAgeMillis from now
+            addPendingEvents(flushedEventCount)
+        }
+        updateBackgroundCallback()
+    }
+
     fun reportCrash(configuration: Configuration?) {
         val event = AnalyticsEvent(
             name = "crash",
             timestamp = time.currentTime
         )
         try {
-            executeEventsApi(event, configuration)
+            executeEventsApi(configuration, latencySummaryEvents() + event)
         } catch (e: JSONException) { /* ignored */
         }
     }
 
+    /**
+     * Uploads the events buffered in memory and the pending batch, followed by [additionalEvents].
+     */
     private fun executeEventsApi(
-        event: AnalyticsEvent,
         configuration: Configuration?,
+        additionalEvents: List<AnalyticsEvent> = emptyList(),
     ) {
-        val events = analyticsEventRepository.flushAndReturnEvents().toMutableList()
-        events.add(event)
-        analyticsApi.execute(events, configuration)
+        val events = analyticsEventRepository.flushAndReturnEvents() +
+            pendingEventRepository.flushAndReturnEvents() +
+            additionalEvents
+        if (events.isNotEmpty()) {
+            analyticsApi.execute(events, configuration)
+        }
     }
 
     companion object {
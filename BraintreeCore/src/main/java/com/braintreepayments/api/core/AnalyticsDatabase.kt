@@ -0,0 +1,41 @@
+package com.braintreepayments.api.core
+
+import android.content.Context
+import androidx.annotation.RestrictTo
+import androidx.room.Database
+import androidx.room.Room
+import androidx.room.RoomDatabase
+import java.io.File
+
+/**
+ * Stores analytics events that have not been uploaded yet, so that they survive the process being
+ * killed, for instance while the customer is in a browser or another app to approve a payment.
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+@Database(entities = [AnalyticsEventBlob::class, AnalyticsSession::class], version = 1)
+abstract class AnalyticsDatabase : RoomDatabase() {
+
+    abstract fun analyticsEventBlobDao(): AnalyticsEventBlobDao
+
+    companion object {
+
+        private const val DATABASE_NAME = "braintree-analytics.db"
+
+        @Volatile
+        private var instance: AnalyticsDatabase? = null
+
+        /**
+         * Returns the database shared by every client in the process, creating it on first use.
+         */
+        fun getInstance(context: Context): AnalyticsDatabase {
+            return instance ?: synchronized(this) {
+                // kept out of backups, like the configuration cache, since the sessions hold credentials
+                instance ?: Room.databaseBuilder(
+                    context.applicationContext,
+                    AnalyticsDatabase::class.java,
+                    File(context.noBackupFilesDir, DATABASE_NAME).path
+                ).build().also { instance = it }
+            }
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.braintreepayments.api.core
 
+import com.braintreepayments.api.sharedutils.HttpPhaseTimings
+
 /**
  * DTO for analytics events. See also: [AnalyticsEventParams]
  * This class is internal to core module and is used in [AnalyticsClient] to construct the analytics
@@ -27,5 +29,7 @@ internal data class AnalyticsEvent(
     val didPayPalServerAttemptAppSwitch: Boolean? = null,
     val didSdkAttemptAppSwitch: Boolean? = null,
     val fundingSource: String? = null,
-    val uiType: String? = null
+    val uiType: String? = null,
+    val phaseTimings: HttpPhaseTimings? = null,
+    val latencySummary: LatencySummary? = null
 )
@@ -0,0 +1,21 @@
+package com.braintreepayments.api.core
+
+import androidx.annotation.RestrictTo
+import androidx.room.ColumnInfo
+import androidx.room.Entity
+import androidx.room.PrimaryKey
+
+/**
+ * An analytics event stored in the [AnalyticsEventLog] until it is uploaded.
+ *
+ * @property jsonString the event as it is sent in an FPTI batch.
+ * @property sessionId the session during which the event was recorded.
+ * @property id the position of the event in the log; events are uploaded in ascending order.
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+@Entity(tableName = "analytics_event_blob")
+data class AnalyticsEventBlob(
+    @ColumnInfo(name = "json_string") val jsonString: String,
+    @ColumnInfo(name = "session_id") val sessionId: String?,
+    @PrimaryKey(autoGenerate = true) @ColumnInfo(name = "_id") val id: Long = 0,
+)
@@ -0,0 +1,40 @@
+package com.braintreepayments.api.core
+
+import androidx.annotation.RestrictTo
+import androidx.room.Dao
+import androidx.room.Delete
+import androidx.room.Insert
+import androidx.room.OnConflictStrategy
+import androidx.room.Query
+
+@RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+@Dao
+interface AnalyticsEventBlobDao {
+
+    @Insert
+    fun insertEventBlobs(eventBlobs: List<AnalyticsEventBlob>)
+
+    @Query("SELECT * FROM analytics_event_blob ORDER BY _id LIMIT :limit")
+    fun getOldestEventBlobs(limit: Int): List<AnalyticsEventBlob>
+
+    @Delete
+    fun deleteEventBlobs(eventBlobs: List<AnalyticsEventBlob>)
+
+    @Query(
+        "DELETE FROM analytics_event_blob WHERE _id NOT IN " +
+            "(SELECT _id FROM analytics_event_blob ORDER BY _id DESC LIMIT :maxCount)"
+    )
+    fun deleteAllButNewestEventBlobs(maxCount: Int)
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    fun insertSession(session: AnalyticsSession)
+
+    @Query("SELECT * FROM analytics_session WHERE session_id = :sessionId")
+    fun getSession(sessionId: String): AnalyticsSession?
+
+    @Query(
+        "DELETE FROM analytics_session WHERE session_id NOT IN " +
+            "(SELECT session_id FROM analytics_event_blob WHERE session_id IS NOT NULL)"
+    )
+    fun deleteSessionsWithoutEventBlobs()
+}
@@ -0,0 +1,61 @@
+package com.braintreepayments.api.core
+
+/**
+ * A persistent, append-only log of analytics events that have not been uploaded yet.
+ *
+ * Events are appended in batches drained from the in-memory [AnalyticsEventRepository] and read back
+ * oldest first by the [AnalyticsUploadWorker]. The log holds at most [maxEvents] events; appending
+ * beyond that removes the oldest events. Each session that has events in the log keeps its
+ * [AnalyticsSession], so that its events are uploaded with the authorization they were recorded with.
+ */
+internal class AnalyticsEventLog(
+    private val database: AnalyticsDatabase,
+    private val maxEvents: Int = DEFAULT_MAX_EVENTS,
+) {
+
+    private val dao: AnalyticsEventBlobDao
+        get() = database.analyticsEventBlobDao()
+
+    /**
+     * Appends [events], JSON encoded events recorded during [session], to the end of the log.
+     */
+    fun append(events: List<String>, session: AnalyticsSession) {
+        if (events.isEmpty()) return
+        database.runInTransaction {
+            dao.insertSession(session)
+            dao.insertEventBlobs(events.map { AnalyticsEventBlob(it, session.sessionId) })
+            dao.deleteAllButNewestEventBlobs(maxEvents)
+            dao.deleteSessionsWithoutEventBlobs()
+        }
+    }
+
+    /**
+     * Returns at most [limit] of the oldest events in the log, oldest first.
+     */
+    fun readOldest(limit: Int): List<AnalyticsEventBlob> = dao.getOldestEventBlobs(limit)
+
+    /**
+     * Returns the session [sessionId] if the log holds events recorded during it.
+     */
+    fun readSession(sessionId: String): AnalyticsSession? = dao.getSession(sessionId)
+
+    /**
+     * Removes [events] from the log once they have been uploaded, along with sessions that no longer
+     * have events in the log.
+     */
+    fun remove(events: List<AnalyticsEventBlob>) {
+        database.runInTransaction {
+            dao.deleteEventBlobs(events)
+            dao.deleteSessionsWithoutEventBlobs()
+        }
+    }
+
+    companion object {
+
+        /**
+         * Enough for several sessions of funnel events that could not be uploaded, while keeping the
+         * log small on a device that stays offline.
+         */
+        private const val DEFAULT_MAX_EVENTS = 1_000
+    }
+}
@@ -1,6 +1,7 @@
 package com.braintreepayments.api.core
 
 import androidx.annotation.RestrictTo
+import com.braintreepayments.api.sharedutils.HttpPhaseTimings
 
 /**
  * DTO for analytics events. See also: [AnalyticsEvent]
@@ -20,6 +21,7 @@ import androidx.annotation.RestrictTo
  * @property buttonOrder The order or ranking in which payment buttons appear.
  * @property pageType The page or view that a button is displayed on.
  * @property errorDescription use this to provide more detail on a failure event.
+ * @property phaseTimings [HttpResponseTiming] network phase breakdown of the request.
  */
 @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
 data class AnalyticsEventParams @JvmOverloads constructor(
@@ -35,5 +37,6 @@ data class AnalyticsEventParams @JvmOverloads constructor(
     val buttonOrder: String? = null,
     val pageType: String? = null,
     val errorDescription: String? = null,
-    val uiType: String? = null
+    val uiType: String? = null,
+    val phaseTimings: HttpPhaseTimings? = null
 )
@@ -1,37 +1,81 @@
 package com.braintreepayments.api.core
 
+import java.util.concurrent.atomic.AtomicLong
+import java.util.concurrent.atomic.AtomicReferenceArray
+
 /**
  * This class is responsible for holding analytic events in memory that will be batched with other events.
+ *
+ * Events are held in a ring buffer of [capacity] slots that any thread may add to without locking. Once
+ * the buffer is full, each new event replaces the oldest buffered event, which is counted in
+ * [droppedEventCount].
  */
-internal class AnalyticsEventRepository {
+internal class AnalyticsEventRepository(
+    private val capacity: Int = DEFAULT_CAPACITY,
+) {
+
+    /**
+     * An event paired with the order in which it was added, so that a slot always keeps the newer of
+     * two events that race for it.
+     */
+    private class Slot(val sequence: Long, val event: AnalyticsEvent)
 
-    private val events: MutableList<AnalyticsEvent> = mutableListOf()
+    private val slots = AtomicReferenceArray<Slot?>(capacity)
+    private val nextSequence = AtomicLong()
+    private val droppedEvents = AtomicLong()
 
     /**
-     * Adds an event to the internal event buffer.
+     * The number of events replaced by newer events because the buffer was full.
+     */
+    val droppedEventCount: Long
+        get() = droppedEvents.get()
+
+    /**
+     * Adds an event to the internal event buffer, replacing the oldest event if the buffer is full.
      */
     fun addEvent(event: AnalyticsEvent) {
-        events.add(event)
+        val slot = Slot(nextSequence.getAndIncrement(), event)
+        val index = (slot.sequence % capacity).toInt()
+        while (true) {
+            val current = slots.get(index)
+            if (current != null && current.sequence > slot.sequence) {
+                // a newer event already took this slot while this one was being added
+                droppedEvents.incrementAndGet()
+                return
+            }
+            if (slots.compareAndSet(index, current, slot)) {
+                if (current != null) droppedEvents.incrementAndGet()
+                return
+            }
+        }
     }
 
     /**
      * Flushes the current event buffer and returns the accumulated events.
      *
-     * This function atomically clears the internal `events` list and returns a new list containing all the events that
-     * were previously in the buffer.
+     * Each buffered event is removed from the buffer atomically, so an event added while the buffer is
+     * being flushed is returned either by this flush or by the next one, never by both.
      *
-     * @return A new list containing all events that were previously in the buffer.
+     * @return A new list containing all events that were previously in the buffer, in the order they were
+     * added.
      */
     fun flushAndReturnEvents(): List<AnalyticsEvent> {
-        synchronized(events) {
-            val eventsToReturn = events.toList()
-            events.clear()
-            return eventsToReturn
+        val flushed = ArrayList<Slot>(capacity)
+        for (index in 0 until capacity) {
+            slots.getAndSet(index, null)?.let { flushed.add(it) }
         }
+        flushed.sortBy { it.sequence }
+        return flushed.map { it.event }
     }
 
     companion object {
 
+        /**
+         * The number of events held before the oldest events are dropped. Events are flushed with every
+         * event that is sent immediately, so only a session without one comes close to this.
+         */
+        private const val DEFAULT_CAPACITY = 256
+
         /**
          * Singleton instance of the AnalyticsParamRepository.
          */
@@ -0,0 +1,48 @@
+package com.braintreepayments.api.core
+
+/**
+ * Decides when the events [AnalyticsClient] sends immediately are uploaded. Rather than each event
+ * making its own request, events join a pending batch that is uploaded once it holds [maxBatchSize]
+ * events or its oldest event has waited [maxBatchAgeMillis], whichever comes first. Events that are
+ * not sent immediately are buffered in memory the same way before they are written to the
+ * [AnalyticsEventLog], so that each event does not cost a database transaction and an upload request.
+ *
+ * @property maxBatchSize the number of pending events that causes the batch to be uploaded without
+ * waiting for [maxBatchAgeMillis]
+ * @property maxBatchAgeMillis the longest an event waits for other events to join its batch
+ * @property minUploadIntervalMillis the shortest time between the start of two uploads, so that a burst
+ * of events is not sent as several full batches back to back
+ * @property maxBufferedEvents the number of buffered events that causes them to be written to the
+ * [AnalyticsEventLog] without waiting for [maxBufferAgeMillis]
+ * @property maxBufferAgeMillis the longest an event that is not sent immediately is buffered in memory
+ * before it is written to the [AnalyticsEventLog]
+ * @property latencyReporting how the [CoreAnalytics.API_REQUEST_LATENCY] events of network requests
+ * are sent
+ * @property latencyWindowMillis with [LatencyReporting.HISTOGRAM], how long latencies are collected
+ * before their summaries are sent
+ */
+internal data class AnalyticsFlushPolicy(
+    val maxBatchSize: Int = 50,
+    val maxBatchAgeMillis: Long = 5_000,
+    val minUploadIntervalMillis: Long = 1_000,
+    val maxBufferedEvents: Int = 20,
+    val maxBufferAgeMillis: Long = 10_000,
+    val latencyReporting: LatencyReporting = LatencyReporting.HISTOGRAM,
+    val latencyWindowMillis: Long = 60_000,
+)
+
+internal enum class LatencyReporting {
+
+    /**
+     * Each request is sent as an [CoreAnalytics.API_REQUEST_LATENCY] event with its start and end times
+     * and network phase timings.
+     */
+    PER_REQUEST,
+
+    /**
+     * Request latencies are counted in a [LatencyHistogram] per endpoint and sent as one
+     * [CoreAnalytics.API_REQUEST_LATENCY_HISTOGRAM] event per endpoint for each window, with the mean
+     * network phase timings of the requests.
+     */
+    HISTOGRAM,
+}
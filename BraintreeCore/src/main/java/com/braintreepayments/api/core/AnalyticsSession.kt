@@ -0,0 +1,30 @@
+package com.braintreepayments.api.core
+
+import androidx.annotation.RestrictTo
+import androidx.room.ColumnInfo
+import androidx.room.Entity
+import androidx.room.PrimaryKey
+
+/**
+ * What the [AnalyticsUploadWorker] needs to upload the events of a session stored in the
+ * [AnalyticsEventLog], kept for as long as the log holds events of the session. Only the credential
+ * sent in the FPTI batch params is kept, never the client token it came from.
+ *
+ * @property sessionId the session during which the events were recorded.
+ * @property tokenizationKey the tokenization key the events were recorded with, if any.
+ * @property authorizationFingerprint the authorization fingerprint of the client token the events were
+ * recorded with, if any.
+ * @property environment the environment of the configuration, if it was loaded.
+ * @property merchantId the merchant ID of the configuration, if it was loaded.
+ * @property integration the [IntegrationType] of the session, if known.
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+@Entity(tableName = "analytics_session")
+data class AnalyticsSession(
+    @PrimaryKey @ColumnInfo(name = "session_id") val sessionId: String,
+    @ColumnInfo(name = "tokenization_key") val tokenizationKey: String?,
+    @ColumnInfo(name = "authorization_fingerprint") val authorizationFingerprint: String?,
+    @ColumnInfo(name = "environment") val environment: String?,
+    @ColumnInfo(name = "merchant_id") val merchantId: String?,
+    @ColumnInfo(name = "integration") val integration: String?,
+)
@@ -0,0 +1,89 @@
+package com.braintreepayments.api.core
+
+import android.content.Context
+import androidx.work.Constraints
+import androidx.work.CoroutineWorker
+import androidx.work.NetworkType
+import androidx.work.OneTimeWorkRequest
+import androidx.work.WorkerParameters
+import java.util.concurrent.TimeUnit
+
+/**
+ * Uploads the events in the [AnalyticsEventLog] in batches of at most [MAX_BATCH_SIZE] events, sending
+ * one FPTI request per session and removing events from the log once they have been uploaded.
+ *
+ * Events are uploaded with the [AnalyticsSession] stored with them in the log, since the process
+ * running the upload may have been started only to run it, and may hold events of several sessions.
+ * The log is read until it is empty, so events appended while an upload runs are uploaded by it too.
+ */
+@Suppress("SwallowedException", "TooGenericExceptionCaught")
+internal class AnalyticsUploadWorker @JvmOverloads constructor(
+    context: Context,
+    params: WorkerParameters,
+    private val analyticsEventLog: AnalyticsEventLog = AnalyticsEventLog(AnalyticsDatabase.getInstance(context)),
+    // the process may have been started only to run this worker, before any BraintreeClient created
+    // the SdkComponent
+    private val analyticsApi: AnalyticsApi = AnalyticsApi(
+        deviceInspector = SdkComponent.create(context.applicationContext).deviceInspector
+    ),
+) : CoroutineWorker(context, params) {
+
+    override suspend fun doWork(): Result {
+        return try {
+            uploadEvents()
+            Result.success()
+        } catch (e: Exception) {
+            // events that could not be uploaded stay in the log for the next upload
+            if (runAttemptCount + 1 < MAX_RUN_ATTEMPTS) Result.retry() else Result.failure()
+        }
+    }
+
+    private suspend fun uploadEvents() {
+        do {
+            val batch = analyticsEventLog.readOldest(MAX_BATCH_SIZE)
+            batch.groupBy { it.sessionId }.forEach { (sessionId, events) ->
+                val session = sessionId?.let { analyticsEventLog.readSession(it) }
+                if (session != null && (session.tokenizationKey != null || session.authorizationFingerprint != null)) {
+                    analyticsApi.upload(
+                        context = applicationContext,
+                        events = events.map { it.jsonString },
+                        session = session
+                    )
+                }
+                // events without a credential can never be uploaded, so they are dropped
+                analyticsEventLog.remove(events)
+            }
+        } while (batch.isNotEmpty())
+    }
+
+    companion object {
+
+        const val WORK_NAME = "uploadAnalytics"
+
+        /**
+         * The most events sent in one FPTI request.
+         */
+        const val MAX_BATCH_SIZE = 50
+
+        /**
+         * How long events wait to be batched with later events before they are uploaded.
+         */
+        private const val UPLOAD_DELAY_SECONDS = 30L
+
+        private const val MAX_RUN_ATTEMPTS = 5
+
+        /**
+         * Creates a request to upload the [AnalyticsEventLog] once the device has a network connection
+         * and [UPLOAD_DELAY_SECONDS] have passed.
+         */
+        fun createWorkRequest(): OneTimeWorkRequest {
+            val constraints = Constraints.Builder()
+                .setRequiredNetworkType(NetworkType.CONNECTED)
+                .build()
+            return OneTimeWorkRequest.Builder(AnalyticsUploadWorker::class.java)
+                .setConstraints(constraints)
+                .setInitialDelay(UPLOAD_DELAY_SECONDS, TimeUnit.SECONDS)
+                .build()
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.braintreepayments.api.core
 
 import androidx.annotation.RestrictTo
+import com.braintreepayments.api.sharedutils.ResponseBodyDecoder
 import org.json.JSONException
 import org.json.JSONObject
 
@@ -26,7 +27,7 @@ class ApiClient(
 
         val responseBody = braintreeClient.sendPOST(
             url = url,
-            data = paymentMethod.buildJSON().toString(),
+            data = paymentMethod.buildJSON(),
         )
 
         val response = parseResponseToJSON(responseBody)
@@ -34,6 +35,29 @@ class ApiClient(
         return response
     }
 
+    /**
+     * Tokenizes [tokenizePayload] with GraphQL and reads the response with [decoder] as it streams from
+     * the network, without building a [JSONObject] for it.
+     */
+    suspend fun <T> tokenizeGraphQL(tokenizePayload: JSONObject, decoder: ResponseBodyDecoder<T>): T {
+        return braintreeClient.sendGraphQLPOST(tokenizePayload, decoder)
+    }
+
+    /**
+     * Tokenizes [paymentMethod] with the client API and reads the response with [decoder] as it streams
+     * from the network, without building a [JSONObject] for it.
+     */
+    suspend fun <T> tokenizeREST(paymentMethod: PaymentMethod, decoder: ResponseBodyDecoder<T>): T {
+        val url = versionedPath("$PAYMENT_METHOD_ENDPOINT/${paymentMethod.apiPath}")
+        paymentMethod.sessionId = analyticsParamRepository.sessionId
+
+        return braintreeClient.sendPOST(
+            url = url,
+            data = paymentMethod.buildJSON(),
+            decoder = decoder,
+        )
+    }
+
     private fun parseResponseToJSON(responseBody: String?): JSONObject? =
         responseBody?.let {
             try {
@@ -4,8 +4,12 @@ import android.content.Context
 import android.content.pm.ActivityInfo
 import android.net.Uri
 import androidx.annotation.RestrictTo
+import com.braintreepayments.api.sharedutils.HttpResponse
 import com.braintreepayments.api.sharedutils.HttpResponseTiming
+import com.braintreepayments.api.sharedutils.HttpStatusException
 import com.braintreepayments.api.sharedutils.ManifestValidator
+import com.braintreepayments.api.sharedutils.ResponseBodyDecoder
+import com.braintreepayments.api.sharedutils.TimeoutBudget
 import kotlinx.coroutines.CoroutineDispatcher
 import kotlinx.coroutines.CoroutineScope
 import kotlinx.coroutines.Dispatchers
@@ -27,7 +31,7 @@ class BraintreeClient internal constructor(
     appLinkReturnUri: Uri?,
     deepLinkFallbackUrlScheme: String? = null,
     sdkComponent: SdkComponent = SdkComponent.create(applicationContext),
-    private val httpClient: BraintreeHttpClient = BraintreeHttpClient(),
+    private val httpClient: BraintreeHttpClient = BraintreeHttpClient(timeoutBudget = TimeoutBudget.GENEROUS),
     private val graphQLClient: BraintreeGraphQLClient = BraintreeGraphQLClient(),
     private val configurationLoader: ConfigurationLoader = ConfigurationLoader.instance,
     private val manifestValidator: ManifestValidator = ManifestValidator(),
@@ -35,6 +39,7 @@ class BraintreeClient internal constructor(
     private val analyticsClient: AnalyticsClient = AnalyticsClient(),
     private val dispatcher: CoroutineDispatcher = Dispatchers.Main,
     private val coroutineScope: CoroutineScope = CoroutineScope(dispatcher),
+    private val networkPerformanceReporter: NetworkPerformanceReporter = NetworkPerformanceReporter.instance,
 ) {
 
     private val crashReporter: CrashReporter
@@ -104,13 +109,21 @@ class BraintreeClient internal constructor(
     /**
      * Retrieve Braintree configuration.
      *
+     * A configuration fetch is reported to the [NetworkPerformanceListener] by the caller that started
+     * it; callers that joined it or were served from the cache receive no timing. Its analytics event
+     * is sent by [ConfigurationLoader].
+     *
      * @param callback [ConfigurationCallback]
      */
     suspend fun getConfiguration(): Configuration {
         val configResult = configurationLoader.loadConfiguration()
         when (configResult) {
             is ConfigurationLoaderResult.Success -> {
-                configResult.timing?.let { sendAnalyticsTimingEvent("/v1/configuration", it) }
+                val timing = configResult.timing
+                val statusCode = configResult.statusCode
+                if (timing != null && statusCode != null) {
+                    networkPerformanceReporter.report("/v1/configuration", statusCode, timing)
+                }
                 return configResult.configuration
             }
 
@@ -134,11 +147,13 @@ class BraintreeClient internal constructor(
      */
     suspend fun sendGET(url: String): String {
         val configuration = getConfiguration()
-        val response = httpClient.get(
-            path = url,
-            configuration = configuration,
-            authorization = merchantRepository.authorization
-        )
+        val response = reportingNetworkPerformance(cleanEndpoint(url)) {
+            httpClient.get(
+                path = url,
+                configuration = configuration,
+                authorization = merchantRepository.authorization
+            )
+        }
 
         sendAnalyticsTimingEvent(url, response.timing)
         return response.body ?: throw IOException("Response body is null")
@@ -154,46 +169,114 @@ class BraintreeClient internal constructor(
         additionalHeaders: Map<String, String> = emptyMap(),
     ): String {
         val configuration = getConfiguration()
-        val response = httpClient.post(
-            path = url,
-            data = data,
-            configuration = configuration,
-            authorization = merchantRepository.authorization,
-            additionalHeaders = additionalHeaders
-        )
+        val response = reportingNetworkPerformance(cleanEndpoint(url)) {
+            httpClient.post(
+                path = url,
+                data = data,
+                configuration = configuration,
+                authorization = merchantRepository.authorization,
+                additionalHeaders = additionalHeaders
+            )
+        }
         sendAnalyticsTimingEvent(url, response.timing)
         return response.body ?: throw IOException("Response body is null")
     }
 
     /**
+     * Sends [data] as the request body, written into the connection while the request is sent instead
+     * of being serialized to a [String] first.
+     *
      * @suppress
      */
-    suspend fun sendGraphQLPOST(json: JSONObject): String {
+    suspend fun sendPOST(
+        url: String,
+        data: JSONObject,
+        additionalHeaders: Map<String, String> = emptyMap(),
+    ): String {
         val configuration = getConfiguration()
-        val response = graphQLClient.post(
-            data = json.toString(),
-            configuration = configuration,
-            authorization = merchantRepository.authorization
-        )
+        val response = reportingNetworkPerformance(cleanEndpoint(url)) {
+            httpClient.post(
+                path = url,
+                data = data,
+                configuration = configuration,
+                authorization = merchantRepository.authorization,
+                additionalHeaders = additionalHeaders
+            )
+        }
+        sendAnalyticsTimingEvent(url, response.timing)
+        return response.body ?: throw IOException("Response body is null")
+    }
 
-        val query = json.optString(GraphQLConstants.Keys.QUERY)
-        val queryDiscardHolder = query.replace(Regex("^[^\\(]*"), "")
-        val finalQuery = query.replace(queryDiscardHolder, "")
-        val params = AnalyticsEventParams(
-            startTime = response.timing.startTime,
-            endTime = response.timing.endTime,
-            endpoint = finalQuery
-        )
+    /**
+     * Sends [data] as the request body, written into the connection while the request is sent, and
+     * reads the body of a successful response with [decoder] as it streams from the network, instead of
+     * returning it as a [String].
+     *
+     * @suppress
+     */
+    suspend fun <T> sendPOST(
+        url: String,
+        data: JSONObject,
+        decoder: ResponseBodyDecoder<T>,
+        additionalHeaders: Map<String, String> = emptyMap(),
+    ): T {
+        val configuration = getConfiguration()
+        val response = reportingNetworkPerformance(cleanEndpoint(url), { it.statusCode }, { it.timing }) {
+            httpClient.post(
+                path = url,
+                data = data,
+                configuration = configuration,
+                authorization = merchantRepository.authorization,
+                decoder = decoder,
+                additionalHeaders = additionalHeaders
+            )
+        }
+        sendAnalyticsTimingEvent(url, response.timing)
+        return response.body
+    }
 
-        sendAnalyticsEvent(
-            eventName = CoreAnalytics.API_REQUEST_LATENCY,
-            params = params,
-            sendImmediately = false
-        )
+    /**
+     * @suppress
+     */
+    suspend fun sendGraphQLPOST(json: JSONObject): String {
+        val configuration = getConfiguration()
+        val endpoint = graphQLEndpoint(json)
 
+        val response = reportingNetworkPerformance(endpoint) {
+            graphQLClient.post(
+                data = json,
+                configuration = configuration,
+                authorization = merchantRepository.authorization
+            )
+        }
+
+        sendGraphQLTimingEvent(endpoint, response.timing)
         return response.body ?: throw IOException("Response body is null")
     }
 
+    /**
+     * Reads the body of a successful response with [decoder] as it streams from the network, instead of
+     * returning it as a [String].
+     *
+     * @suppress
+     */
+    suspend fun <T> sendGraphQLPOST(json: JSONObject, decoder: ResponseBodyDecoder<T>): T {
+        val configuration = getConfiguration()
+        val endpoint = graphQLEndpoint(json)
+
+        val response = reportingNetworkPerformance(endpoint, { it.statusCode }, { it.timing }) {
+            graphQLClient.post(
+                data = json,
+                configuration = configuration,
+                authorization = merchantRepository.authorization,
+                decoder = decoder
+            )
+        }
+
+        sendGraphQLTimingEvent(endpoint, response.timing)
+        return response.body
+    }
+
     /**
      * @suppress
      */
@@ -233,18 +316,79 @@ class BraintreeClient internal constructor(
         return launchesBrowserSwitchAsNewTask
     }
 
-    private fun sendAnalyticsTimingEvent(endpoint: String, timing: HttpResponseTiming) {
-        var cleanedPath = endpoint.replace(Regex("/merchants/([A-Za-z0-9]+)/client_api"), "")
-        cleanedPath = cleanedPath.replace(
+    /**
+     * Runs [request], reporting its outcome to the merchant's [NetworkPerformanceListener] whether the
+     * server responded successfully or with an error status, or the request failed before a response
+     * was received. Only the total duration is known for such a failure.
+     */
+    private inline fun reportingNetworkPerformance(
+        endpoint: String,
+        request: () -> HttpResponse
+    ): HttpResponse = reportingNetworkPerformance(endpoint, { it.statusCode }, { it.timing }, request)
+
+    private inline fun <R> reportingNetworkPerformance(
+        endpoint: String,
+        statusCode: (R) -> Int,
+        timing: (R) -> HttpResponseTiming,
+        request: () -> R
+    ): R {
+        val startTime = System.currentTimeMillis()
+        try {
+            val response = request()
+            networkPerformanceReporter.report(endpoint, statusCode(response), timing(response))
+            return response
+        } catch (e: HttpStatusException) {
+            networkPerformanceReporter.report(endpoint, e.statusCode, e.timing)
+            throw e
+        } catch (e: IOException) {
+            networkPerformanceReporter.report(
+                endpoint = endpoint,
+                statusCode = NetworkPerformanceReporter.NO_RESPONSE,
+                timing = HttpResponseTiming(startTime, System.currentTimeMillis()),
+                exception = e
+            )
+            throw e
+        }
+    }
+
+    /**
+     * Returns the operation name of a GraphQL request, dropping its variable declarations and
+     * selection set.
+     */
+    private fun graphQLEndpoint(json: JSONObject): String {
+        val query = json.optString(GraphQLConstants.Keys.QUERY)
+        val queryDiscardHolder = query.replace(Regex("^[^\\(]*"), "")
+        return query.replace(queryDiscardHolder, "")
+    }
+
+    private fun sendGraphQLTimingEvent(endpoint: String, timing: HttpResponseTiming) {
+        sendAnalyticsEvent(
+            eventName = CoreAnalytics.API_REQUEST_LATENCY,
+            params = AnalyticsEventParams(
+                startTime = timing.startTime,
+                endTime = timing.endTime,
+                endpoint = endpoint,
+                phaseTimings = timing.phases
+            ),
+            sendImmediately = false
+        )
+    }
+
+    private fun cleanEndpoint(endpoint: String): String {
+        val cleanedPath = endpoint.replace(Regex("/merchants/([A-Za-z0-9]+)/client_api"), "")
+        return cleanedPath.replace(
             Regex("payment_methods/.*/three_d_secure"), "payment_methods/three_d_secure"
         )
+    }
 
+    private fun sendAnalyticsTimingEvent(endpoint: String, timing: HttpResponseTiming) {
         sendAnalyticsEvent(
             eventName = CoreAnalytics.API_REQUEST_LATENCY,
             params = AnalyticsEventParams(
                 startTime = timing.startTime,
                 endTime = timing.endTime,
-                endpoint = cleanedPath
+                endpoint = cleanEndpoint(endpoint),
+                phaseTimings = timing.phases
             ),
             sendImmediately = false
         )
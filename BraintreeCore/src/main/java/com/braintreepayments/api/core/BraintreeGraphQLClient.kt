@@ -1,39 +1,70 @@
 package com.braintreepayments.api.core
 
+import com.braintreepayments.api.sharedutils.DecodedHttpResponse
+import com.braintreepayments.api.sharedutils.HttpCallMode
 import com.braintreepayments.api.sharedutils.HttpClient
 import com.braintreepayments.api.sharedutils.HttpResponse
+import com.braintreepayments.api.sharedutils.JSONObjectRequestBody
 import com.braintreepayments.api.sharedutils.Method
 import com.braintreepayments.api.sharedutils.OkHttpRequest
+import com.braintreepayments.api.sharedutils.ResponseBodyDecoder
+import com.braintreepayments.api.sharedutils.TimeoutBudget
+import org.json.JSONObject
 import java.util.Locale
 
 internal class BraintreeGraphQLClient(
-    private val httpClient: HttpClient = HttpClient(),
+    private val httpClient: HttpClient = HttpClient(HttpCallMode.NON_BLOCKING),
+    private val timeoutBudget: TimeoutBudget? = TimeoutBudget.GENEROUS,
 ) {
 
     /**
+     * Sends [data] as the request body, written into the connection while the request is sent.
+     *
      * @throws BraintreeException if authorization is invalid
      * @throws Exception if the network request fails
      */
     suspend fun post(
-        data: String,
+        data: JSONObject,
         configuration: Configuration,
         authorization: Authorization,
     ): HttpResponse {
+        return httpClient.sendRequest(buildRequest(data, configuration, authorization))
+    }
+
+    /**
+     * Reads the body of a successful response with [decoder] as it streams from the network.
+     *
+     * @throws BraintreeException if authorization is invalid
+     * @throws Exception if the network request fails or the response body cannot be decoded
+     */
+    suspend fun <T> post(
+        data: JSONObject,
+        configuration: Configuration,
+        authorization: Authorization,
+        decoder: ResponseBodyDecoder<T>,
+    ): DecodedHttpResponse<T> {
+        return httpClient.sendRequest(buildRequest(data, configuration, authorization), decoder)
+    }
+
+    private fun buildRequest(
+        data: JSONObject,
+        configuration: Configuration,
+        authorization: Authorization,
+    ): OkHttpRequest {
         if (authorization is InvalidAuthorization) {
             val message = authorization.errorMessage
             throw BraintreeException(message)
         }
 
-        val request = OkHttpRequest(
-            method = Method.Post(data),
+        return OkHttpRequest(
+            method = Method.PostJson(JSONObjectRequestBody(data)),
             url = configuration.graphQLUrl,
             headers = mapOf(
                 "User-Agent" to "braintree/android/" + BuildConfig.VERSION_NAME,
                 "Authorization" to String.format(Locale.US, "Bearer %s", authorization.bearer),
                 "Braintree-Version" to GraphQLConstants.Headers.API_VERSION
-            )
+            ),
+            timeoutBudget = timeoutBudget
         )
-
-        return httpClient.sendRequest(request)
     }
 }
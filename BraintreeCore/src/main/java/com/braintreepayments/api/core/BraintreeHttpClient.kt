@@ -1,27 +1,49 @@
 package com.braintreepayments.api.core
 
 import androidx.core.net.toUri
+import com.braintreepayments.api.sharedutils.DecodedHttpResponse
+import com.braintreepayments.api.sharedutils.EncodedJsonRequestBody
+import com.braintreepayments.api.sharedutils.HttpCallMode
 import com.braintreepayments.api.sharedutils.HttpClient
 import com.braintreepayments.api.sharedutils.HttpResponse
+import com.braintreepayments.api.sharedutils.JSONObjectRequestBody
 import com.braintreepayments.api.sharedutils.Method
 import com.braintreepayments.api.sharedutils.OkHttpRequest
+import com.braintreepayments.api.sharedutils.RequestCompression
+import com.braintreepayments.api.sharedutils.RequestPriority
+import com.braintreepayments.api.sharedutils.ResponseBodyDecoder
+import com.braintreepayments.api.sharedutils.TimeoutBudget
 import org.json.JSONObject
 
 /**
  * Network request class that handles Braintree request specifics and threading.
+ *
+ * @property timeoutBudget bounds for the adaptive timeouts of every request sent by this client, or
+ * `null` for the fixed timeouts of the shared HTTP client.
+ * @property priority how urgently every request sent by this client is scheduled.
+ * @property compression how the bodies of POST requests sent by this client are compressed, or `null`
+ * to send them uncompressed. Only set this for endpoints known to accept compressed request bodies.
  */
 internal class BraintreeHttpClient(
-    private val httpClient: HttpClient = HttpClient(),
+    private val httpClient: HttpClient = HttpClient(HttpCallMode.NON_BLOCKING),
+    private val timeoutBudget: TimeoutBudget? = null,
+    private val priority: RequestPriority = RequestPriority.USER_BLOCKING,
+    private val compression: RequestCompression? = null,
 ) {
 
     /**
      * Make a HTTP GET request to Braintree using the base url, path and authorization provided.
      * If the path is a full url, it will be used instead of the previously provided url.
+     *
+     * Pass [hedging] only for idempotent requests: a request that goes unanswered for the
+     * [RequestHedging.hedgeDelay] is sent again on a new connection, and the first response wins.
      */
     suspend fun get(
         path: String,
         configuration: Configuration?,
         authorization: Authorization?,
+        additionalHeaders: Map<String, String> = emptyMap(),
+        hedging: RequestHedging? = null,
     ): HttpResponse {
 
         validateAuthorization(authorization)
@@ -39,10 +61,17 @@ internal class BraintreeHttpClient(
         val request = OkHttpRequest(
             method = Method.Get,
             url = url,
-            headers = assembleHeaders(authorization)
+            headers = assembleHeaders(authorization, additionalHeaders),
+            timeoutBudget = timeoutBudget,
+            priority = priority
         )
 
-        return httpClient.sendRequest(request)
+        if (hedging == null) {
+            return httpClient.sendRequest(request)
+        }
+        return httpClient.sendHedgedRequest(request, hedging.hedgeDelay()).also { response ->
+            hedging.recordResponseTime(response.timing.endTime - response.timing.startTime)
+        }
     }
 
     /**
@@ -56,9 +85,6 @@ internal class BraintreeHttpClient(
         authorization: Authorization?,
         additionalHeaders: Map<String, String> = emptyMap(),
     ): HttpResponse {
-
-        validateAuthorization(authorization)
-
         val requestBody =
             if (authorization is ClientToken) {
                 JSONObject(data)
@@ -67,18 +93,96 @@ internal class BraintreeHttpClient(
             } else {
                 data
             }
+        val request =
+            buildPostRequest(path, Method.Post(requestBody), configuration, authorization, additionalHeaders)
+        return httpClient.sendRequest(request)
+    }
 
-        val url = assembleUrl(path, configuration)
-
-        val request = OkHttpRequest(
-            method = Method.Post(requestBody),
-            url = url,
-            headers = assembleHeaders(authorization, additionalHeaders)
-        )
+    /**
+     * Make a HTTP POST request to Braintree whose JSON body is written into the connection while the
+     * request is sent. The client token fingerprint is added to [data] as it is written, so [data] is
+     * neither copied nor serialized to a [String].
+     * If the path is a full url, it will be used instead of the previously provided url.
+     */
+    suspend fun post(
+        path: String,
+        data: JSONObject,
+        configuration: Configuration?,
+        authorization: Authorization?,
+        additionalHeaders: Map<String, String> = emptyMap(),
+    ): HttpResponse {
+        val request =
+            buildPostRequest(path, jsonPostMethod(data, authorization), configuration, authorization, additionalHeaders)
+        return httpClient.sendRequest(request)
+    }
 
+    /**
+     * Make a HTTP POST request to Braintree whose JSON body is written into the connection as UTF-8
+     * bytes while the request is sent. The client token fingerprint is added to the top-level object of
+     * [data] as it is written.
+     * If the path is a full url, it will be used instead of the previously provided url.
+     */
+    suspend fun post(
+        path: String,
+        data: EncodedJsonRequestBody,
+        configuration: Configuration?,
+        authorization: Authorization?,
+        additionalHeaders: Map<String, String> = emptyMap(),
+    ): HttpResponse {
+        val method = Method.PostEncodedJson(data, fingerprintFields(authorization))
+        val request = buildPostRequest(path, method, configuration, authorization, additionalHeaders)
         return httpClient.sendRequest(request)
     }
 
+    /**
+     * Make a HTTP POST request to Braintree whose JSON body is written into the connection while the
+     * request is sent, and read the body of a successful response with [decoder] as it streams from the
+     * network.
+     * If the path is a full url, it will be used instead of the previously provided url.
+     */
+    suspend fun <T> post(
+        path: String,
+        data: JSONObject,
+        configuration: Configuration?,
+        authorization: Authorization?,
+        decoder: ResponseBodyDecoder<T>,
+        additionalHeaders: Map<String, String> = emptyMap(),
+    ): DecodedHttpResponse<T> {
+        val request =
+            buildPostRequest(path, jsonPostMethod(data, authorization), configuration, authorization, additionalHeaders)
+        return httpClient.sendRequest(request, decoder)
+    }
+
+    private fun jsonPostMethod(data: JSONObject, authorization: Authorization?): Method.PostJson =
+        Method.PostJson(JSONObjectRequestBody(data, fingerprintFields(authorization)))
+
+    private fun fingerprintFields(authorization: Authorization?): Map<String, String> =
+        if (authorization is ClientToken) {
+            mapOf(AUTHORIZATION_FINGERPRINT_KEY to authorization.authorizationFingerprint)
+        } else {
+            emptyMap()
+        }
+
+    private fun buildPostRequest(
+        path: String,
+        method: Method,
+        configuration: Configuration?,
+        authorization: Authorization?,
+        additionalHeaders: Map<String, String>,
+    ): OkHttpRequest {
+
+        validateAuthorization(authorization)
+
+        return OkHttpRequest(
+            method = method,
+            url = assembleUrl(path, configuration),
+            headers = assembleHeaders(authorization, additionalHeaders),
+            timeoutBudget = timeoutBudget,
+            priority = priority,
+            compression = compression
+        )
+    }
+
     private fun validateAuthorization(
         authorization: Authorization?,
     ) {
@@ -41,29 +41,72 @@ import kotlin.coroutines.cancellation.CancellationException
  * @property payPalUserAgreementUrl the PayPal app user agreement url.
  * @property supportedCardTypes a list of card types supported by the merchant.
  */
-@Suppress("DEPRECATION")
-class Configuration internal constructor(configurationString: String) {
+@Suppress("DEPRECATION", "LongParameterList")
+class Configuration internal constructor(
+    assetsUrl: String,
+    cardinalAuthenticationJwt: String?,
+    clientApiUrl: String,
+    environment: String,
+    isPayPalEnabled: Boolean,
+    isThreeDSecureEnabled: Boolean,
+    merchantAccountId: String?,
+    merchantId: String,
+    private val challenges: Set<String>,
+    cardConfiguration: Lazy<CardConfiguration>,
+    private val section: (key: String) -> JSONObject?,
+    configurationString: Lazy<String>,
+) {
+
+    internal constructor(configurationString: String) : this(
+        JSONObject(configurationString),
+        configurationString
+    )
+
+    private constructor(json: JSONObject, configurationString: String) : this(
+        assetsUrl = Json.optString(json, ASSETS_URL_KEY, ""),
+        cardinalAuthenticationJwt = Json.optString(json, CARDINAL_AUTHENTICATION_JWT, null),
+        clientApiUrl = json.getString(CLIENT_API_URL_KEY),
+        environment = json.getString(ENVIRONMENT_KEY),
+        isPayPalEnabled = json.optBoolean(PAYPAL_ENABLED_KEY, false),
+        isThreeDSecureEnabled = json.optBoolean(THREE_D_SECURE_ENABLED_KEY, false),
+        merchantAccountId = Json.optString(json, MERCHANT_ACCOUNT_ID_KEY, null),
+        merchantId = json.getString(MERCHANT_ID_KEY),
+        challenges = parseChallenges(json),
+        cardConfiguration = lazy { CardConfiguration(json.optJSONObject(CARD_KEY)) },
+        section = json::optJSONObject,
+        configurationString = lazyOf(configurationString),
+    )
 
     /**
      * @suppress
      */
     companion object {
-        private const val ASSETS_URL_KEY = "assetsUrl"
-        private const val BRAINTREE_API_KEY = "braintreeApi"
-        private const val CARDINAL_AUTHENTICATION_JWT = "cardinalAuthenticationJWT"
-        private const val CARD_KEY = "creditCards"
-        private const val CHALLENGES_KEY = "challenges"
-        private const val CLIENT_API_URL_KEY = "clientApiUrl"
-        private const val ENVIRONMENT_KEY = "environment"
-        private const val GOOGLE_PAY_KEY = "androidPay"
-        private const val GRAPHQL_KEY = "graphQL"
-        private const val MERCHANT_ACCOUNT_ID_KEY = "merchantAccountId"
-        private const val MERCHANT_ID_KEY = "merchantId"
-        private const val PAYPAL_ENABLED_KEY = "paypalEnabled"
-        private const val PAYPAL_KEY = "paypal"
-        private const val PAY_WITH_VENMO_KEY = "payWithVenmo"
-        private const val THREE_D_SECURE_ENABLED_KEY = "threeDSecureEnabled"
-        private const val VISA_CHECKOUT_KEY = "visaCheckout"
+        internal const val ASSETS_URL_KEY = "assetsUrl"
+        internal const val BRAINTREE_API_KEY = "braintreeApi"
+        internal const val CARDINAL_AUTHENTICATION_JWT = "cardinalAuthenticationJWT"
+        internal const val CARD_KEY = "creditCards"
+        internal const val CHALLENGES_KEY = "challenges"
+        internal const val CLIENT_API_URL_KEY = "clientApiUrl"
+        internal const val ENVIRONMENT_KEY = "environment"
+        internal const val GOOGLE_PAY_KEY = "androidPay"
+        internal const val GRAPHQL_KEY = "graphQL"
+        internal const val MERCHANT_ACCOUNT_ID_KEY = "merchantAccountId"
+        internal const val MERCHANT_ID_KEY = "merchantId"
+        internal const val PAYPAL_ENABLED_KEY = "paypalEnabled"
+        internal const val PAYPAL_KEY = "paypal"
+        internal const val PAY_WITH_VENMO_KEY = "payWithVenmo"
+        internal const val THREE_D_SECURE_ENABLED_KEY = "threeDSecureEnabled"
+        internal const val VISA_CHECKOUT_KEY = "visaCheckout"
+
+        internal fun parseChallenges(json: JSONObject): Set<String> {
+            val challenges = mutableSetOf<String>()
+            json.optJSONArray(CHALLENGES_KEY)?.let { challengesArray ->
+                for (i in 0 until challengesArray.length()) {
+                    challenges.add(challengesArray.optString(i, ""))
+                }
+            }
+            return challenges
+        }
 
         @JvmStatic
         @Throws(JSONException::class)
@@ -127,25 +170,32 @@ class Configuration internal constructor(configurationString: String) {
     }
 
     // region Public Properties
-    val assetsUrl: String
-    val cardinalAuthenticationJwt: String?
-    val clientApiUrl: String
-    val environment: String
-    val isCvvChallengePresent: Boolean
+    val assetsUrl: String = assetsUrl
+    val cardinalAuthenticationJwt: String? = cardinalAuthenticationJwt
+    val clientApiUrl: String = clientApiUrl
+    val environment: String = environment
+    val isCvvChallengePresent: Boolean = challenges.contains("cvv")
     val isGooglePayEnabled: Boolean
-    val isLocalPaymentEnabled: Boolean
-    val isPayPalEnabled: Boolean
-    val isPostalCodeChallengePresent: Boolean
-    val isThreeDSecureEnabled: Boolean
+        get() = googlePayConfiguration.isEnabled
+    val isLocalPaymentEnabled: Boolean = isPayPalEnabled // Local Payments are enabled when PayPal is enabled
+    val isPayPalEnabled: Boolean = isPayPalEnabled
+    val isPostalCodeChallengePresent: Boolean = challenges.contains("postal_code")
+    val isThreeDSecureEnabled: Boolean = isThreeDSecureEnabled
     val isVenmoEnabled: Boolean
+        get() = venmoConfiguration.isAccessTokenValid
     @Deprecated("Visa Checkout is no longer supported and this will be removed in the next major version.")
     val isVisaCheckoutEnabled: Boolean
-    val merchantAccountId: String?
-    val merchantId: String
+        get() = visaCheckoutConfiguration.isEnabled
+    val merchantAccountId: String? = merchantAccountId
+    val merchantId: String = merchantId
     val payPalDirectBaseUrl: String?
+        get() = payPalConfiguration.directBaseUrl
     val payPalPrivacyUrl: String?
+        get() = payPalConfiguration.privacyUrl
     val payPalUserAgreementUrl: String?
+        get() = payPalConfiguration.userAgreementUrl
     val supportedCardTypes: List<String>
+        get() = cardConfiguration.supportedCardTypes
     // endregion
 
     // region Internal Properties
@@ -155,12 +205,14 @@ class Configuration internal constructor(configurationString: String) {
      * @suppress
      */
     @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP) val braintreeApiAccessToken: String
+        get() = braintreeApiConfiguration.accessToken
 
     /**
      * @return the base url for accessing Braintree API.
      * @suppress
      */
     @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP) val braintreeApiUrl: String
+        get() = braintreeApiConfiguration.url
 
     /**
      * @return the authorization fingerprint to use for Google Payment, only allows tokenizing
@@ -168,108 +220,126 @@ class Configuration internal constructor(configurationString: String) {
      * @suppress
      */
     @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP) val googlePayAuthorizationFingerprint: String?
+        get() = googlePayConfiguration.googleAuthorizationFingerprint
 
     /**
      * @return the Google Pay display name to show to the user.
      * @suppress
      */
     @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP) val googlePayDisplayName: String
+        get() = googlePayConfiguration.displayName
 
     /**
      * @return the current Google Pay environment.
      * @suppress
      */
     @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP) val googlePayEnvironment: String?
+        get() = googlePayConfiguration.environment
 
     /**
      * @return the PayPal Client ID used by Google Pay.
      * @suppress
      */
     @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP) val googlePayPayPalClientId: String
+        get() = googlePayConfiguration.paypalClientId
 
     /**
      * @return a list of supported card networks for Google Pay.
      * @suppress
      */
     @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP) val googlePaySupportedNetworks: List<String>
+        get() = googlePayConfiguration.supportedNetworks
 
     /**
      * @return the GraphQL url.
      * @suppress
      */
     @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP) val graphQLUrl: String
+        get() = graphQLConfiguration.url
 
     /**
      * @return a boolean indicating whether Braintree API is enabled for this merchant.
      * @suppress
      */
     @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP) val isBraintreeApiEnabled: Boolean
+        get() = braintreeApiConfiguration.isEnabled
 
     /**
      * @return `true` if fraud device data collection should occur; `false` otherwise.
      * @suppress
      */
     @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP) val isFraudDataCollectionEnabled: Boolean
+        get() = cardConfiguration.isFraudDataCollectionEnabled
 
     /**
      * @return `true` if GraphQL is enabled for the merchant account; `false` otherwise.
      * @suppress
      */
     @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP) val isGraphQLEnabled: Boolean
+        get() = graphQLConfiguration.isEnabled
 
     /**
      * @return `true` if PayPal touch is currently disabled, `false` otherwise.
      * @suppress
      */
     @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP) val isPayPalTouchDisabled: Boolean
+        get() = payPalConfiguration.isTouchDisabled
 
     /**
      * @return the PayPal app client id.
      * @suppress
      */
     @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP) val payPalClientId: String?
+        get() = payPalConfiguration.clientId
 
     /**
      * @return the PayPal currency code.
      * @suppress
      */
     @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP) val payPalCurrencyIsoCode: String?
+        get() = payPalConfiguration.currencyIsoCode
 
     /**
      * @return the PayPal app display name.
      * @suppress
      */
     @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP) val payPalDisplayName: String?
+        get() = payPalConfiguration.displayName
 
     /**
      * @return the current environment for PayPal.
      * @suppress
      */
     @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP) val payPalEnvironment: String?
+        get() = payPalConfiguration.environment
 
     /**
      * @return the Access Token used by the Venmo app to tokenize on behalf of the merchant.
      * @suppress
      */
     @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP) val venmoAccessToken: String
+        get() = venmoConfiguration.accessToken
 
     /**
      * @return the Venmo environment used to handle this payment.
      * @suppress
      */
     @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP) val venmoEnvironment: String
+        get() = venmoConfiguration.environment
 
     /**
      * @return the Venmo merchant id used by the Venmo app to authorize payment.
      * @suppress
      */
     @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP) val venmoMerchantId: String
+        get() = venmoConfiguration.merchantId
 
     /**
      * @return a boolean indicating whether ECD is enabled for this Venmo merchant.
      * @suppress
      */
     @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP) val venmoEnrichedCustomerDataEnabled: Boolean
+        get() = venmoConfiguration.enrichedCustomerDataEnabled
 
     /**
      * @return the Visa Checkout API key configured in the Braintree Control Panel.
@@ -277,6 +347,7 @@ class Configuration internal constructor(configurationString: String) {
      */
     @Deprecated("Visa Checkout is no longer supported and this will be removed in the next major version.")
     @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP) val visaCheckoutApiKey: String
+        get() = visaCheckoutConfiguration.apiKey
 
     /**
      * @return the Visa Checkout External Client ID configured in the Braintree Control Panel.
@@ -284,6 +355,7 @@ class Configuration internal constructor(configurationString: String) {
      */
     @Deprecated("Visa Checkout is no longer supported and this will be removed in the next major version.")
     @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP) val visaCheckoutExternalClientId: String
+        get() = visaCheckoutConfiguration.externalClientId
 
     /**
      * @return the Visa Checkout supported networks enabled for the merchant account.
@@ -291,81 +363,21 @@ class Configuration internal constructor(configurationString: String) {
      */
     @Deprecated("Visa Checkout is no longer supported and this will be removed in the next major version.")
     @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP) val visaCheckoutSupportedNetworks: List<String>
+        get() = visaCheckoutConfiguration.acceptedCardBrands
 
-    private val braintreeApiConfiguration: BraintreeApiConfiguration
-    private val cardConfiguration: CardConfiguration
-    private val challenges: MutableSet<String>
-    private val configurationString: String
-    private val googlePayConfiguration: GooglePayConfiguration
-    private val graphQLConfiguration: GraphQLConfiguration
-    private val payPalConfiguration: PayPalConfiguration
-    private val venmoConfiguration: VenmoConfiguration
-    private val visaCheckoutConfiguration: VisaCheckoutConfiguration
-    // endregion
-
-    init {
-        this.configurationString = configurationString
-        val json = JSONObject(configurationString)
-        assetsUrl = Json.optString(json, ASSETS_URL_KEY, "")
-        clientApiUrl = json.getString(CLIENT_API_URL_KEY)
-
-        // parse json challenges
-        challenges = mutableSetOf()
-        json.optJSONArray(CHALLENGES_KEY)?.let { challengesArray ->
-            for (i in 0 until challengesArray.length()) {
-                challenges.add(challengesArray.optString(i, ""))
-            }
-        }
+    private val configurationString: String by configurationString
 
-        braintreeApiConfiguration = BraintreeApiConfiguration(json.optJSONObject(BRAINTREE_API_KEY))
-        cardConfiguration = CardConfiguration(json.optJSONObject(CARD_KEY))
-        cardinalAuthenticationJwt = Json.optString(json, CARDINAL_AUTHENTICATION_JWT, null)
-        environment = json.getString(ENVIRONMENT_KEY)
-        googlePayConfiguration = GooglePayConfiguration(json.optJSONObject(GOOGLE_PAY_KEY))
-        graphQLConfiguration = GraphQLConfiguration(json.optJSONObject(GRAPHQL_KEY))
-        isPayPalEnabled = json.optBoolean(PAYPAL_ENABLED_KEY, false)
-        isThreeDSecureEnabled = json.optBoolean(THREE_D_SECURE_ENABLED_KEY, false)
-        merchantAccountId = Json.optString(json, MERCHANT_ACCOUNT_ID_KEY, null)
-        merchantId = json.getString(MERCHANT_ID_KEY)
-        payPalConfiguration = PayPalConfiguration(json.optJSONObject(PAYPAL_KEY))
-        venmoConfiguration = VenmoConfiguration(json.optJSONObject(PAY_WITH_VENMO_KEY))
-        visaCheckoutConfiguration = VisaCheckoutConfiguration(json.optJSONObject(VISA_CHECKOUT_KEY))
-
-        isCvvChallengePresent = challenges.contains("cvv")
-        isGooglePayEnabled = googlePayConfiguration.isEnabled
-        isLocalPaymentEnabled = isPayPalEnabled // Local Payments are enabled when PayPal is enabled
-        isPostalCodeChallengePresent = challenges.contains("postal_code")
-        isVenmoEnabled = venmoConfiguration.isAccessTokenValid
-        isVisaCheckoutEnabled = visaCheckoutConfiguration.isEnabled
-        payPalDirectBaseUrl = payPalConfiguration.directBaseUrl
-        payPalPrivacyUrl = payPalConfiguration.privacyUrl
-        payPalUserAgreementUrl = payPalConfiguration.userAgreementUrl
-
-        braintreeApiAccessToken = braintreeApiConfiguration.accessToken
-        braintreeApiUrl = braintreeApiConfiguration.url
-        googlePayAuthorizationFingerprint = googlePayConfiguration.googleAuthorizationFingerprint
-        googlePayDisplayName = googlePayConfiguration.displayName
-        googlePayEnvironment = googlePayConfiguration.environment
-        googlePayPayPalClientId = googlePayConfiguration.paypalClientId
-        googlePaySupportedNetworks = googlePayConfiguration.supportedNetworks
-        graphQLUrl = graphQLConfiguration.url
-        isBraintreeApiEnabled = braintreeApiConfiguration.isEnabled
-        isFraudDataCollectionEnabled = cardConfiguration.isFraudDataCollectionEnabled
-        isGraphQLEnabled = graphQLConfiguration.isEnabled
-        isPayPalTouchDisabled = payPalConfiguration.isTouchDisabled
-        payPalClientId = payPalConfiguration.clientId
-        payPalCurrencyIsoCode = payPalConfiguration.currencyIsoCode
-        payPalDisplayName = payPalConfiguration.displayName
-        payPalEnvironment = payPalConfiguration.environment
-        supportedCardTypes = cardConfiguration.supportedCardTypes
-        venmoAccessToken = venmoConfiguration.accessToken
-        venmoEnvironment = venmoConfiguration.environment
-        venmoMerchantId = venmoConfiguration.merchantId
-        venmoEnrichedCustomerDataEnabled = venmoConfiguration.enrichedCustomerDataEnabled
-        visaCheckoutApiKey = visaCheckoutConfiguration.apiKey
-        visaCheckoutExternalClientId = visaCheckoutConfiguration.externalClientId
-        visaCheckoutSupportedNetworks = visaCheckoutConfiguration.acceptedCardBrands
+    // Sub-configurations are parsed from their section the first time one of their properties is read.
+    private val braintreeApiConfiguration by lazy {
+        BraintreeApiConfiguration(section(BRAINTREE_API_KEY))
     }
+    private val cardConfiguration: CardConfiguration by cardConfiguration
+    private val googlePayConfiguration by lazy { GooglePayConfiguration(section(GOOGLE_PAY_KEY)) }
+    private val graphQLConfiguration by lazy { GraphQLConfiguration(section(GRAPHQL_KEY)) }
+    private val payPalConfiguration by lazy { PayPalConfiguration(section(PAYPAL_KEY)) }
+    private val venmoConfiguration by lazy { VenmoConfiguration(section(PAY_WITH_VENMO_KEY)) }
+    private val visaCheckoutConfiguration by lazy { VisaCheckoutConfiguration(section(VISA_CHECKOUT_KEY)) }
+    // endregion
 
     // region Public Methods
     /**
@@ -0,0 +1,75 @@
+package com.braintreepayments.api.core
+
+import kotlin.math.min
+import kotlin.random.Random
+
+/**
+ * Remembers failed configuration requests so that callers arriving shortly after a failure receive
+ * the same [ConfigurationLoaderResult.Failure] instead of retrying against a degraded network.
+ *
+ * After each consecutive failure for a cache key the next request is delayed by an exponentially
+ * growing interval, starting at [initialDelay] and capped at [maxDelay]. Each interval is randomized
+ * between half and all of its length so that clients which failed together do not retry together.
+ * A successful request clears the failures for its cache key.
+ */
+internal class ConfigurationBackoff(
+    private val initialDelay: Long = DEFAULT_INITIAL_DELAY,
+    private val maxDelay: Long = DEFAULT_MAX_DELAY,
+    private val random: Random = Random.Default,
+    private val currentTimeMillis: () -> Long = System::currentTimeMillis,
+) {
+
+    private val failures = mutableMapOf<String, State>()
+
+    /**
+     * Returns the backoff for [cacheKey] if its next request is not allowed yet, or `null`.
+     */
+    @Synchronized
+    fun getActiveBackoff(cacheKey: String): State? {
+        return failures[cacheKey]?.takeIf { currentTimeMillis() < it.retryAt }
+    }
+
+    /**
+     * Records a failed request for [cacheKey] and returns the resulting backoff.
+     */
+    @Synchronized
+    fun recordFailure(cacheKey: String, failure: ConfigurationLoaderResult.Failure): State {
+        val consecutiveFailures = (failures[cacheKey]?.consecutiveFailures ?: 0) + 1
+        val exponent = min(consecutiveFailures - 1, MAX_EXPONENT)
+        val delay = min(initialDelay shl exponent, maxDelay)
+        val jitteredDelay = delay / 2 + random.nextLong(delay / 2 + 1)
+        val now = currentTimeMillis()
+        return State(failure, consecutiveFailures, now, now + jitteredDelay).also {
+            failures[cacheKey] = it
+        }
+    }
+
+    /**
+     * Clears the failures recorded for [cacheKey].
+     */
+    @Synchronized
+    fun recordSuccess(cacheKey: String) {
+        failures.remove(cacheKey)
+    }
+
+    /**
+     * @property failure result of the last failed request, returned while the backoff is active.
+     * @property consecutiveFailures number of requests that failed since the last success.
+     * @property failedAt time in milliseconds of the last failure.
+     * @property retryAt time in milliseconds from which a new request is allowed.
+     */
+    class State(
+        val failure: ConfigurationLoaderResult.Failure,
+        val consecutiveFailures: Int,
+        val failedAt: Long,
+        val retryAt: Long,
+    )
+
+    companion object {
+        private const val DEFAULT_INITIAL_DELAY = 1_000L
+        private const val DEFAULT_MAX_DELAY = 60_000L
+
+        // keeps the shift well inside a Long; the delay is capped at maxDelay long before this
+        private const val MAX_EXPONENT = 30
+    }
+}
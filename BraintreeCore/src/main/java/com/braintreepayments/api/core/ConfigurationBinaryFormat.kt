@@ -0,0 +1,164 @@
+package com.braintreepayments.api.core
+
+import com.braintreepayments.api.sharedutils.Json
+import org.json.JSONException
+import org.json.JSONObject
+import java.io.DataOutputStream
+import java.nio.BufferUnderflowException
+import java.nio.ByteBuffer
+
+/**
+ * Versioned binary encoding of [Configuration] used by [ConfigurationStore].
+ *
+ * Top-level fields are length-prefixed, and the environments and card types Braintree commonly returns
+ * are written as a one byte index into [ENVIRONMENTS] and [CARD_TYPES]. The remaining sections are kept
+ * as length-prefixed JSON that [Configuration] only parses when one of their properties is read.
+ *
+ * Any change to the layout must increment [VERSION]; [decode] returns `null` for other versions so the
+ * caller can fall back to JSON.
+ */
+internal object ConfigurationBinaryFormat {
+
+    const val VERSION: Byte = 1
+
+    private const val NULL_LENGTH = -1
+    private const val NOT_INTERNED: Byte = -1
+    private const val FLAG_PAYPAL_ENABLED = 1
+    private const val FLAG_THREE_D_SECURE_ENABLED = 2
+
+    private val ENVIRONMENTS = listOf("production", "sandbox", "development", "qa", "test")
+    private val CARD_TYPES = listOf(
+        "American Express",
+        "Diners Club",
+        "Discover",
+        "Hiper",
+        "Hipercard",
+        "JCB",
+        "Maestro",
+        "MasterCard",
+        "UnionPay",
+        "Visa"
+    )
+
+    private val JSON_SECTION_KEYS = listOf(
+        Configuration.BRAINTREE_API_KEY,
+        Configuration.GOOGLE_PAY_KEY,
+        Configuration.GRAPHQL_KEY,
+        Configuration.PAYPAL_KEY,
+        Configuration.PAY_WITH_VENMO_KEY,
+        Configuration.VISA_CHECKOUT_KEY
+    )
+
+    /**
+     * Writes [configurationJson] to [output] in the current [VERSION].
+     *
+     * @throws JSONException if [configurationJson] is not a valid configuration
+     */
+    @Throws(JSONException::class)
+    fun encode(configurationJson: String, output: DataOutputStream) {
+        val json = JSONObject(configurationJson)
+        output.writeByte(VERSION.toInt())
+        output.writeInterned(json.getString(Configuration.ENVIRONMENT_KEY), ENVIRONMENTS)
+        output.writeNullableString(Json.optString(json, Configuration.ASSETS_URL_KEY, ""))
+        output.writeNullableString(Json.optString(json, Configuration.CARDINAL_AUTHENTICATION_JWT, null))
+        output.writeNullableString(json.getString(Configuration.CLIENT_API_URL_KEY))
+        output.writeNullableString(Json.optString(json, Configuration.MERCHANT_ACCOUNT_ID_KEY, null))
+        output.writeNullableString(json.getString(Configuration.MERCHANT_ID_KEY))
+
+        var flags = 0
+        if (json.optBoolean(Configuration.PAYPAL_ENABLED_KEY, false)) flags = flags or FLAG_PAYPAL_ENABLED
+        if (json.optBoolean(Configuration.THREE_D_SECURE_ENABLED_KEY, false)) {
+            flags = flags or FLAG_THREE_D_SECURE_ENABLED
+        }
+        output.writeByte(flags)
+
+        val challenges = Configuration.parseChallenges(json)
+        output.writeInt(challenges.size)
+        challenges.forEach { output.writeNullableString(it) }
+
+        val cardConfiguration = CardConfiguration(json.optJSONObject(Configuration.CARD_KEY))
+        output.writeBoolean(cardConfiguration.isFraudDataCollectionEnabled)
+        output.writeInt(cardConfiguration.supportedCardTypes.size)
+        cardConfiguration.supportedCardTypes.forEach { output.writeInterned(it, CARD_TYPES) }
+
+        JSON_SECTION_KEYS.forEach { key ->
+            output.writeNullableString(json.optJSONObject(key)?.toString())
+        }
+    }
+
+    /**
+     * Reads a [Configuration] written by [encode] from [buffer]. [configurationString] supplies the
+     * value returned by [Configuration.toJson].
+     *
+     * @return the decoded [Configuration], or `null` if it was written with a different [VERSION]
+     * @throws BufferUnderflowException if [buffer] ends before the configuration does
+     */
+    fun decode(buffer: ByteBuffer, configurationString: Lazy<String>): Configuration? {
+        if (buffer.get() != VERSION) return null
+
+        val environment = buffer.readInterned(ENVIRONMENTS)
+        val assetsUrl = buffer.readNullableString().orEmpty()
+        val cardinalAuthenticationJwt = buffer.readNullableString()
+        val clientApiUrl = buffer.readNullableString().orEmpty()
+        val merchantAccountId = buffer.readNullableString()
+        val merchantId = buffer.readNullableString().orEmpty()
+        val flags = buffer.get().toInt()
+        val challenges = List(buffer.readCount()) { buffer.readNullableString().orEmpty() }.toSet()
+        val isFraudDataCollectionEnabled = buffer.get() != 0.toByte()
+        val supportedCardTypes = List(buffer.readCount()) { buffer.readInterned(CARD_TYPES) }
+        val sections = JSON_SECTION_KEYS.associateWith { buffer.readNullableBytes() }
+
+        return Configuration(
+            assetsUrl = assetsUrl,
+            cardinalAuthenticationJwt = cardinalAuthenticationJwt,
+            clientApiUrl = clientApiUrl,
+            environment = environment,
+            isPayPalEnabled = (flags and FLAG_PAYPAL_ENABLED) != 0,
+            isThreeDSecureEnabled = (flags and FLAG_THREE_D_SECURE_ENABLED) != 0,
+            merchantAccountId = merchantAccountId,
+            merchantId = merchantId,
+            challenges = challenges,
+            cardConfiguration = lazyOf(CardConfiguration(supportedCardTypes, isFraudDataCollectionEnabled)),
+            section = { key -> sections[key]?.let { JSONObject(String(it, Charsets.UTF_8)) } },
+            configurationString = configurationString
+        )
+    }
+
+    internal fun DataOutputStream.writeNullableString(value: String?) {
+        if (value == null) {
+            writeInt(NULL_LENGTH)
+        } else {
+            val bytes = value.toByteArray(Charsets.UTF_8)
+            writeInt(bytes.size)
+            write(bytes)
+        }
+    }
+
+    private fun DataOutputStream.writeInterned(value: String, table: List<String>) {
+        val index = table.indexOf(value)
+        writeByte(index)
+        if (index == -1) writeNullableString(value)
+    }
+
+    private fun ByteBuffer.readCount(): Int {
+        val count = int
+        if (count < 0 || count > remaining()) throw BufferUnderflowException()
+        return count
+    }
+
+    private fun ByteBuffer.readNullableBytes(): ByteArray? {
+        val length = int
+        if (length == NULL_LENGTH) return null
+        if (length < 0 || length > remaining()) throw BufferUnderflowException()
+        return ByteArray(length).also { get(it) }
+    }
+
+    internal fun ByteBuffer.readNullableString(): String? {
+        return readNullableBytes()?.let { String(it, Charsets.UTF_8) }
+    }
+
+    private fun ByteBuffer.readInterned(table: List<String>): String {
+        val index = get()
+        return if (index == NOT_INTERNED) readNullableString().orEmpty() else table[index.toInt()]
+    }
+}
@@ -2,55 +2,202 @@ package com.braintreepayments.api.core
 
 import android.content.Context
 import com.braintreepayments.api.sharedutils.BraintreeSharedPreferences
+import kotlinx.coroutines.CoroutineDispatcher
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.Job
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.withContext
+import org.json.JSONException
+import java.io.File
+import java.util.concurrent.ConcurrentHashMap
 import java.util.concurrent.TimeUnit
 
+/**
+ * Two-tier cache for [Configuration]. Parsed configurations are held in memory for the lifetime of the
+ * process; the copy in [ConfigurationStore] is only read and decoded on a cold start, on [ioDispatcher]
+ * so that callers on the main thread do not wait on the disk.
+ *
+ * A configuration expires after the `Cache-Control: max-age` it was served with, or [TIME_TO_LIVE] if
+ * the server sent none. An expired configuration that carries an `ETag` or `Last-Modified` validator
+ * can be revalidated with [getRevalidationHeaders] and [revalidateConfiguration] instead of being
+ * downloaded and parsed again.
+ *
+ * Earlier SDK versions kept configurations in [BraintreeSharedPreferences]. Those entries are moved
+ * into [configurationStore] once, on [ioDispatcher] when the cache is created; disk reads wait for the
+ * move to finish, so reading never writes.
+ */
 internal class ConfigurationCache(
-    private val sharedPreferences: BraintreeSharedPreferences
+    private val sharedPreferences: BraintreeSharedPreferences,
+    private val configurationStore: ConfigurationStore,
+    private val ioDispatcher: CoroutineDispatcher = Dispatchers.IO,
+    coroutineScope: CoroutineScope = CoroutineScope(ioDispatcher),
 ) {
 
-    fun getConfiguration(cacheKey: String): String? {
-        return getConfiguration(cacheKey, System.currentTimeMillis())
+    private val memoryCache = ConcurrentHashMap<String, CachedConfiguration>()
+
+    private val legacyMigration: Job = coroutineScope.launch { migrateLegacyEntries() }
+
+    /**
+     * Returns the parsed [Configuration] for [cacheKey] if it has not expired, or `null`.
+     */
+    suspend fun getCachedConfiguration(
+        cacheKey: String,
+        currentTimeMillis: Long = System.currentTimeMillis()
+    ): Configuration? {
+        return getConfigurationYoungerThan(cacheKey, 0, currentTimeMillis)
     }
 
-    fun getConfiguration(cacheKey: String, currentTimeMillis: Long): String? {
-        val timestampKey = "${cacheKey}_timestamp"
-        if (sharedPreferences.containsKey(timestampKey)) {
-            val timeInCache = currentTimeMillis - sharedPreferences.getLong(timestampKey)
-            if (timeInCache < TIME_TO_LIVE) {
-                return sharedPreferences.getString(cacheKey, "")
-            }
-        }
-        return null
+    /**
+     * Returns the parsed [Configuration] for [cacheKey] if it has not expired, or expired less than
+     * [maxStaleness] milliseconds ago; otherwise `null`.
+     */
+    suspend fun getStaleConfiguration(
+        cacheKey: String,
+        maxStaleness: Long,
+        currentTimeMillis: Long = System.currentTimeMillis()
+    ): Configuration? {
+        return getConfigurationYoungerThan(cacheKey, maxStaleness, currentTimeMillis)
+    }
+
+    /**
+     * Returns the conditional request headers that revalidate the configuration cached for [cacheKey],
+     * or an empty map if there is none or it was served without validators.
+     */
+    suspend fun getRevalidationHeaders(cacheKey: String): Map<String, String> {
+        return getEntry(cacheKey)?.cacheHeaders?.toRevalidationHeaders().orEmpty()
+    }
+
+    /**
+     * Marks the configuration cached for [cacheKey] as fresh again after the server answered a
+     * conditional request with `304 Not Modified`, updating it with the response [cacheHeaders].
+     *
+     * @return the revalidated configuration, or `null` if it is no longer cached.
+     */
+    suspend fun revalidateConfiguration(
+        cacheKey: String,
+        cacheHeaders: ConfigurationCacheHeaders,
+        currentTimeMillis: Long = System.currentTimeMillis()
+    ): Configuration? {
+        val cachedConfiguration = getEntry(cacheKey) ?: return null
+        val updatedHeaders = cachedConfiguration.cacheHeaders.updatedWith(cacheHeaders)
+        memoryCache[cacheKey] =
+            CachedConfiguration(cachedConfiguration.configuration, currentTimeMillis, updatedHeaders)
+        configurationStore.revalidate(cacheKey, currentTimeMillis, updatedHeaders)
+        return cachedConfiguration.configuration
     }
 
-    fun saveConfiguration(configuration: Configuration, cacheKey: String) {
-        saveConfiguration(configuration, cacheKey, System.currentTimeMillis())
+    fun saveConfiguration(
+        configuration: Configuration,
+        cacheKey: String,
+        cacheHeaders: ConfigurationCacheHeaders = ConfigurationCacheHeaders.NONE
+    ) {
+        saveConfiguration(configuration, cacheKey, System.currentTimeMillis(), cacheHeaders)
     }
 
     fun saveConfiguration(
         configuration: Configuration,
         cacheKey: String,
-        currentTimeMillis: Long
+        currentTimeMillis: Long,
+        cacheHeaders: ConfigurationCacheHeaders = ConfigurationCacheHeaders.NONE
     ) {
-        val timestampKey = "${cacheKey}_timestamp"
-        sharedPreferences.putStringAndLong(
-            cacheKey,
-            configuration.toJson(),
-            timestampKey,
-            currentTimeMillis
+        memoryCache[cacheKey] = CachedConfiguration(configuration, currentTimeMillis, cacheHeaders)
+        configurationStore.put(cacheKey, configuration, currentTimeMillis, cacheHeaders)
+    }
+
+    /**
+     * Trims [configurationStore] to its maximum size once the configurations of earlier SDK versions
+     * have been moved into it.
+     */
+    suspend fun compact() {
+        legacyMigration.join()
+        configurationStore.compact()
+    }
+
+    /**
+     * Returns the configuration for [cacheKey] if it expired less than [maxStaleness] milliseconds
+     * ago, or has not expired.
+     */
+    private suspend fun getConfigurationYoungerThan(
+        cacheKey: String,
+        maxStaleness: Long,
+        currentTimeMillis: Long
+    ): Configuration? {
+        val cachedConfiguration = getEntry(cacheKey) ?: return null
+        val timeToLive = cachedConfiguration.cacheHeaders.maxAge ?: TIME_TO_LIVE
+        return cachedConfiguration.configuration.takeIf {
+            currentTimeMillis - cachedConfiguration.timestamp < timeToLive + maxStaleness
+        }
+    }
+
+    private suspend fun getEntry(cacheKey: String): CachedConfiguration? {
+        return memoryCache[cacheKey]
+            ?: withContext(ioDispatcher) { loadFromDisk(cacheKey) }?.also { memoryCache[cacheKey] = it }
+    }
+
+    private suspend fun loadFromDisk(cacheKey: String): CachedConfiguration? {
+        legacyMigration.join()
+        val storedConfiguration = configurationStore.get(cacheKey) ?: return null
+        return CachedConfiguration(
+            storedConfiguration.configuration,
+            storedConfiguration.timestamp,
+            storedConfiguration.cacheHeaders
         )
     }
 
+    /**
+     * Moves every configuration left in [BraintreeSharedPreferences] by earlier SDK versions into
+     * [configurationStore].
+     */
+    private fun migrateLegacyEntries() {
+        sharedPreferences.getKeys()
+            .filter { it.endsWith(TIMESTAMP_SUFFIX) }
+            .forEach { migrateLegacyEntry(it.removeSuffix(TIMESTAMP_SUFFIX)) }
+    }
+
+    /**
+     * Copies the configuration an earlier SDK version saved for [cacheKey] into [configurationStore]
+     * and removes it from [BraintreeSharedPreferences].
+     */
+    private fun migrateLegacyEntry(cacheKey: String) {
+        val timestampKey = "$cacheKey$TIMESTAMP_SUFFIX"
+        val json = sharedPreferences.getString(cacheKey, null)
+        val timestamp = sharedPreferences.getLong(timestampKey)
+        sharedPreferences.remove(listOf(cacheKey, timestampKey))
+
+        if (json == null || configurationStore.contains(cacheKey)) {
+            return
+        }
+        val configuration = try {
+            Configuration.fromJson(json)
+        } catch (e: JSONException) {
+            return
+        }
+        configurationStore.put(cacheKey, configuration, timestamp)
+    }
+
+    private class CachedConfiguration(
+        val configuration: Configuration,
+        val timestamp: Long,
+        val cacheHeaders: ConfigurationCacheHeaders
+    )
+
     companion object {
         private val TIME_TO_LIVE = TimeUnit.MINUTES.toMillis(5)
+        private const val TIMESTAMP_SUFFIX = "_timestamp"
+        private const val STORE_DIRECTORY = "com.braintreepayments.api.configuration"
 
         @Volatile
         private var INSTANCE: ConfigurationCache? = null
         fun getInstance(context: Context): ConfigurationCache =
             INSTANCE ?: synchronized(this) {
                 INSTANCE ?: ConfigurationCache(
-                    BraintreeSharedPreferences.getInstance(context)
-                ).also { INSTANCE = it }
+                    BraintreeSharedPreferences.getInstance(context),
+                    ConfigurationStore(File(context.noBackupFilesDir, STORE_DIRECTORY))
+                ).also { configurationCache ->
+                    INSTANCE = configurationCache
+                    CoroutineScope(Dispatchers.IO).launch { configurationCache.compact() }
+                }
             }
     }
 }
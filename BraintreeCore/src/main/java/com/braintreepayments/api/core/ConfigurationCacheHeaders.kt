@@ -0,0 +1,57 @@
+package com.braintreepayments.api.core
+
+import com.braintreepayments.api.sharedutils.HttpResponse
+import java.util.concurrent.TimeUnit
+
+/**
+ * HTTP caching headers sent with a configuration: the `ETag` and `Last-Modified` validators used to
+ * revalidate it once it expires, and the `Cache-Control: max-age` the server allows it to be used for.
+ *
+ * @property maxAge time to live in milliseconds, or `null` to use the SDK default.
+ */
+internal data class ConfigurationCacheHeaders(
+    val etag: String? = null,
+    val lastModified: String? = null,
+    val maxAge: Long? = null,
+) {
+
+    /**
+     * Returns the conditional request headers that revalidate a configuration saved with these
+     * headers, or an empty map if it has no validators.
+     */
+    fun toRevalidationHeaders(): Map<String, String> = buildMap {
+        etag?.let { put(IF_NONE_MATCH, it) }
+        lastModified?.let { put(IF_MODIFIED_SINCE, it) }
+    }
+
+    /**
+     * Returns these headers updated with the [newer] headers of a `304 Not Modified` response. Headers
+     * the `304` omits keep their previous value.
+     */
+    fun updatedWith(newer: ConfigurationCacheHeaders) = ConfigurationCacheHeaders(
+        etag = newer.etag ?: etag,
+        lastModified = newer.lastModified ?: lastModified,
+        maxAge = newer.maxAge ?: maxAge
+    )
+
+    companion object {
+        val NONE = ConfigurationCacheHeaders()
+
+        private const val IF_NONE_MATCH = "If-None-Match"
+        private const val IF_MODIFIED_SINCE = "If-Modified-Since"
+        private val MAX_AGE = Regex("""(?:^|,)\s*max-age\s*=\s*"?(\d+)"?""", RegexOption.IGNORE_CASE)
+
+        /**
+         * Reads the caching headers of a configuration [response].
+         */
+        fun from(response: HttpResponse) = ConfigurationCacheHeaders(
+            etag = response.header("ETag"),
+            lastModified = response.header("Last-Modified"),
+            maxAge = response.header("Cache-Control")
+                ?.let { MAX_AGE.find(it) }
+                ?.groupValues?.get(1)
+                ?.toLongOrNull()
+                ?.let { TimeUnit.SECONDS.toMillis(it) }
+        )
+    }
+}
@@ -2,13 +2,55 @@ package com.braintreepayments.api.core
 
 import android.net.Uri
 import android.util.Base64
+import com.braintreepayments.api.sharedutils.HttpResponse
+import com.braintreepayments.api.sharedutils.RequestPriority
+import com.braintreepayments.api.sharedutils.TimeoutBudget
+import kotlinx.coroutines.CompletableDeferred
+import kotlinx.coroutines.CoroutineDispatcher
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.CoroutineStart
+import kotlinx.coroutines.Deferred
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.async
 import org.json.JSONException
 import java.io.IOException
+import java.net.HttpURLConnection
+import java.util.concurrent.TimeUnit
 
 internal class ConfigurationLoader(
-    private val httpClient: BraintreeHttpClient = BraintreeHttpClient(),
+    private val httpClient: BraintreeHttpClient = BraintreeHttpClient(
+        timeoutBudget = TimeoutBudget.STANDARD,
+        priority = RequestPriority.PREFETCH
+    ),
     private val merchantRepository: MerchantRepository = MerchantRepository.instance,
     private val configurationCache: ConfigurationCache = ConfigurationCacheProvider().configurationCache,
+    dispatcher: CoroutineDispatcher = Dispatchers.IO,
+
+    /**
+     * Scope that owns in-flight configuration requests. It is independent of any caller so that
+     * cancelling one caller does not cancel a request other callers are waiting on.
+     */
+    private val coroutineScope: CoroutineScope = CoroutineScope(SupervisorJob() + dispatcher),
+
+    /**
+     * How long after expiry a cached configuration may still be returned by [loadConfiguration]
+     * while a fresh copy is fetched in the background. `0` always waits for the network once the
+     * cached configuration has expired.
+     */
+    private val maxStaleness: Long = DEFAULT_MAX_STALENESS,
+
+    /**
+     * Failed configuration requests, used to answer callers with the last failure instead of retrying
+     * until the backoff for their authorization has elapsed.
+     */
+    private val backoff: ConfigurationBackoff = ConfigurationBackoff(),
+
+    /**
+     * Hedging for the idempotent configuration GET, so that a request stalled on a bad connection is
+     * raced by a second attempt instead of waiting for the read timeout. `null` disables hedging.
+     */
+    private val hedging: RequestHedging? = RequestHedging(),
 
     /**
      * TODO: AnalyticsClient must be lazy due to the circular dependency between ConfigurationLoader and AnalyticsClient
@@ -20,12 +62,20 @@ internal class ConfigurationLoader(
 ) {
     private val analyticsClient: AnalyticsClient by lazyAnalyticsClient
 
+    /**
+     * Configuration requests currently in flight, keyed by cache key. Guarded by its own monitor.
+     */
+    private val inFlightRequests = mutableMapOf<String, Deferred<ConfigurationLoaderResult>>()
+
     /**
      * Loads configuration using the authorization from [MerchantRepository].
      * Sends analytics on successful API fetch.
+     *
+     * An expired configuration that is at most [maxStaleness] old is returned immediately and
+     * refreshed in the background.
      */
     suspend fun loadConfiguration(): ConfigurationLoaderResult {
-        return loadConfiguration(merchantRepository.authorization, sendAnalytics = true)
+        return loadConfiguration(merchantRepository.authorization, sendAnalytics = true, allowStale = true)
     }
 
     /**
@@ -34,12 +84,13 @@ internal class ConfigurationLoader(
      * outside the normal SDK lifecycle.
      */
     suspend fun loadConfiguration(authorization: Authorization): ConfigurationLoaderResult {
-        return loadConfiguration(authorization, sendAnalytics = false)
+        return loadConfiguration(authorization, sendAnalytics = false, allowStale = false)
     }
 
     private suspend fun loadConfiguration(
         authorization: Authorization,
-        sendAnalytics: Boolean
+        sendAnalytics: Boolean,
+        allowStale: Boolean
     ): ConfigurationLoaderResult {
         if (authorization is InvalidAuthorization) {
             val clientSDKSetupURL =
@@ -54,25 +105,125 @@ internal class ConfigurationLoader(
             .build()
             .toString()
 
-        val cachedConfig = getCachedConfiguration(authorization, configUrl)
+        val cacheKey = createCacheKey(authorization, configUrl)
+        val cachedConfig = configurationCache.getCachedConfiguration(cacheKey)
         if (cachedConfig != null) {
             return ConfigurationLoaderResult.Success(cachedConfig)
         }
 
-        return executeConfigurationApi(configUrl, authorization, sendAnalytics)
+        if (allowStale && maxStaleness > 0) {
+            val staleConfig = configurationCache.getStaleConfiguration(cacheKey, maxStaleness)
+            if (staleConfig != null) {
+                requestConfiguration(cacheKey, configUrl, authorization, sendAnalytics)
+                return ConfigurationLoaderResult.Success(staleConfig)
+            }
+        }
+
+        val (request, startedByCaller) = requestConfiguration(cacheKey, configUrl, authorization, sendAnalytics)
+        val result = request.await()
+        // only the caller that started the request receives its timing, so that one fetch is reported once
+        return if (!startedByCaller && result is ConfigurationLoaderResult.Success) {
+            result.copy(timing = null, statusCode = null)
+        } else {
+            result
+        }
+    }
+
+    /**
+     * Joins the configuration request already in flight for [cacheKey], or starts one. Concurrent
+     * callers for the same authorization and config URL share a single network request and result;
+     * analytics for that request follow the [sendAnalytics] flag of the caller that started it.
+     *
+     * While [backoff] is active for [cacheKey] no request is started and the last failure is returned.
+     *
+     * @return the request, and whether this call started it
+     */
+    private fun requestConfiguration(
+        cacheKey: String,
+        configUrl: String,
+        authorization: Authorization,
+        sendAnalytics: Boolean
+    ): Pair<Deferred<ConfigurationLoaderResult>, Boolean> {
+        val (request, started) = synchronized(inFlightRequests) {
+            val activeBackoff = backoff.getActiveBackoff(cacheKey)
+            inFlightRequests[cacheKey]?.let { it to false }
+                ?: activeBackoff?.let { CompletableDeferred<ConfigurationLoaderResult>(it.failure) to false }
+                ?: startRequest(cacheKey, configUrl, authorization, sendAnalytics).let {
+                    inFlightRequests[cacheKey] = it
+                    it to true
+                }
+        }
+        request.start()
+        return request to started
+    }
+
+    private fun startRequest(
+        cacheKey: String,
+        configUrl: String,
+        authorization: Authorization,
+        sendAnalytics: Boolean
+    ): Deferred<ConfigurationLoaderResult> {
+        return coroutineScope.async(start = CoroutineStart.LAZY) {
+            val result = executeConfigurationApi(cacheKey, configUrl, authorization, sendAnalytics)
+            when (result) {
+                is ConfigurationLoaderResult.Success -> backoff.recordSuccess(cacheKey)
+                is ConfigurationLoaderResult.Failure -> {
+                    val state = backoff.recordFailure(cacheKey, result)
+                    sendBackoffEvent(state, sendAnalytics)
+                }
+            }
+            result
+        }.also { deferred ->
+            deferred.invokeOnCompletion {
+                synchronized(inFlightRequests) {
+                    if (inFlightRequests[cacheKey] === deferred) {
+                        inFlightRequests.remove(cacheKey)
+                    }
+                }
+            }
+        }
     }
 
+    /**
+     * Fetches the configuration. When a cached configuration has expired but carries validators, the
+     * request is conditional and a `304 Not Modified` response extends the cached configuration
+     * without downloading or parsing it again.
+     */
     private suspend fun executeConfigurationApi(
+        cacheKey: String,
         configUrl: String,
         authorization: Authorization,
         sendAnalytics: Boolean
     ): ConfigurationLoaderResult {
         try {
-            val response = httpClient.get(
+            var response = httpClient.get(
                 path = configUrl,
                 configuration = null,
-                authorization = authorization
+                authorization = authorization,
+                additionalHeaders = configurationCache.getRevalidationHeaders(cacheKey),
+                hedging = hedging
             )
+            if (response.statusCode == HttpURLConnection.HTTP_NOT_MODIFIED) {
+                val revalidatedConfiguration = configurationCache.revalidateConfiguration(
+                    cacheKey,
+                    ConfigurationCacheHeaders.from(response)
+                )
+                if (revalidatedConfiguration != null) {
+                    sendLatencyEvent(response, sendAnalytics)
+                    return ConfigurationLoaderResult.Success(
+                        revalidatedConfiguration,
+                        response.timing,
+                        response.statusCode
+                    )
+                }
+                // the cached configuration was evicted while the request was in flight
+                response = httpClient.get(
+                    path = configUrl,
+                    configuration = null,
+                    authorization = authorization,
+                    hedging = hedging
+                )
+            }
 
             val responseBody = response.body ?: run {
                 return ConfigurationLoaderResult.Failure(
@@ -83,19 +234,13 @@ internal class ConfigurationLoader(
             val timing = response.timing
             try {
                 val configuration = Configuration.fromJson(responseBody)
-                saveConfigurationToCache(configuration, authorization, configUrl)
-                if (sendAnalytics) {
-                    analyticsClient.sendEvent(
-                        eventName = CoreAnalytics.API_REQUEST_LATENCY,
-                        analyticsEventParams = AnalyticsEventParams(
-                            startTime = timing.startTime,
-                            endTime = timing.endTime,
-                            endpoint = "/v1/configuration"
-                        ),
-                        sendImmediately = false
-                    )
-                }
-                return ConfigurationLoaderResult.Success(configuration, timing)
+                configurationCache.saveConfiguration(
+                    configuration,
+                    cacheKey,
+                    ConfigurationCacheHeaders.from(response)
+                )
+                sendLatencyEvent(response, sendAnalytics)
+                return ConfigurationLoaderResult.Success(configuration, timing, response.statusCode)
             } catch (jsonException: JSONException) {
                 return ConfigurationLoaderResult.Failure(jsonException)
             }
@@ -107,29 +252,38 @@ internal class ConfigurationLoader(
         }
     }
 
-    private fun saveConfigurationToCache(
-        configuration: Configuration,
-        authorization: Authorization,
-        configUrl: String
-    ) {
-        val cacheKey = createCacheKey(authorization, configUrl)
-        configurationCache.saveConfiguration(configuration, cacheKey)
+    private fun sendLatencyEvent(response: HttpResponse, sendAnalytics: Boolean) {
+        if (!sendAnalytics) return
+        val timing = response.timing
+        analyticsClient.sendEvent(
+            eventName = CoreAnalytics.API_REQUEST_LATENCY,
+            analyticsEventParams = AnalyticsEventParams(
+                startTime = timing.startTime,
+                endTime = timing.endTime,
+                endpoint = "/v1/configuration",
+                phaseTimings = timing.phases
+            ),
+            sendImmediately = false
+        )
     }
 
-    private fun getCachedConfiguration(
-        authorization: Authorization,
-        configUrl: String
-    ): Configuration? {
-        val cacheKey = createCacheKey(authorization, configUrl)
-        val cachedConfigResponse = configurationCache.getConfiguration(cacheKey) ?: return null
-        return try {
-            Configuration.fromJson(cachedConfigResponse)
-        } catch (e: JSONException) {
-            null
-        }
+    private fun sendBackoffEvent(state: ConfigurationBackoff.State, sendAnalytics: Boolean) {
+        if (!sendAnalytics) return
+        analyticsClient.sendEvent(
+            eventName = CoreAnalytics.CONFIGURATION_BACKOFF,
+            analyticsEventParams = AnalyticsEventParams(
+                startTime = state.failedAt,
+                endTime = state.retryAt,
+                endpoint = "/v1/configuration",
+                errorDescription = "${state.consecutiveFailures} consecutive failures: ${state.failure.error.message}"
+            ),
+            sendImmediately = false
+        )
     }
 
     companion object {
+        private val DEFAULT_MAX_STALENESS = TimeUnit.HOURS.toMillis(1)
+
         private fun createCacheKey(authorization: Authorization, configUrl: String): String {
             return Base64.encodeToString("$configUrl${authorization.bearer}".toByteArray(), 0)
         }
@@ -7,9 +7,15 @@ import com.braintreepayments.api.sharedutils.HttpResponseTiming
  */
 internal sealed class ConfigurationLoaderResult {
 
+    /**
+     * @property timing timing of the configuration request, or `null` if no request was made
+     * @property statusCode HTTP status code of the configuration request, or `null` if no request was
+     * made. A cached configuration revalidated by the server is loaded with `304`.
+     */
     data class Success(
         val configuration: Configuration,
-        val timing: HttpResponseTiming? = null
+        val timing: HttpResponseTiming? = null,
+        val statusCode: Int? = null
     ) : ConfigurationLoaderResult()
 
     data class Failure(val error: Exception) : ConfigurationLoaderResult()
@@ -0,0 +1,254 @@
+package com.braintreepayments.api.core
+
+import com.braintreepayments.api.core.ConfigurationBinaryFormat.readNullableString
+import com.braintreepayments.api.core.ConfigurationBinaryFormat.writeNullableString
+import org.json.JSONException
+import java.io.DataOutputStream
+import java.io.File
+import java.io.IOException
+import java.nio.BufferUnderflowException
+import java.nio.ByteBuffer
+import java.security.MessageDigest
+
+/**
+ * Bounded on-disk store for cached configurations, kept in its own [directory] instead of the
+ * shared SDK preferences file.
+ *
+ * An entry file holds the save time, the [ConfigurationCacheHeaders] the configuration was served
+ * with, the configuration JSON and the same configuration in [ConfigurationBinaryFormat]. Entries are
+ * read with a single read and decoded from the binary form; the JSON is only decoded when
+ * [Configuration.toJson] is called, or to rebuild the configuration when the entry was written with a
+ * different binary format version.
+ *
+ * Each entry is a file named after the SHA-256 digest of its cache key, so file names have a fixed
+ * length and never contain authorization material. At most [maxEntries] entries are kept; when a new
+ * entry is saved the least recently used ones are deleted. Recency survives process restarts through
+ * each file's last-modified time.
+ */
+internal class ConfigurationStore(
+    private val directory: File,
+    private val maxEntries: Int = DEFAULT_MAX_ENTRIES,
+    private val currentTimeMillis: () -> Long = System::currentTimeMillis,
+) {
+
+    /**
+     * Entry files keyed by digest, in access order. Loaded from [directory] on first use.
+     */
+    private val entries = LinkedHashMap<String, File>(maxEntries, LOAD_FACTOR, true)
+    private var isIndexLoaded = false
+
+    /**
+     * Returns the entry saved for [cacheKey], or `null` if there is none or it cannot be read.
+     */
+    @Synchronized
+    fun get(cacheKey: String): StoredConfiguration? {
+        loadIndex()
+        val digest = digest(cacheKey)
+        val file = entries[digest] ?: return null
+        return try {
+            val buffer = ByteBuffer.wrap(file.readBytes())
+            val header = decodeHeader(buffer)
+            StoredConfiguration(decodeConfiguration(buffer), header.timestamp, header.cacheHeaders).also {
+                file.setLastModified(currentTimeMillis())
+            }
+        } catch (e: IOException) {
+            remove(digest)
+            null
+        } catch (e: BufferUnderflowException) {
+            remove(digest)
+            null
+        } catch (e: IndexOutOfBoundsException) {
+            remove(digest)
+            null
+        } catch (e: JSONException) {
+            remove(digest)
+            null
+        }
+    }
+
+    /**
+     * Saves [configuration] for [cacheKey], replacing any previous entry, and evicts the least recently
+     * used entries above [maxEntries].
+     */
+    @Synchronized
+    fun put(
+        cacheKey: String,
+        configuration: Configuration,
+        timestamp: Long,
+        cacheHeaders: ConfigurationCacheHeaders = ConfigurationCacheHeaders.NONE
+    ) {
+        loadIndex()
+        val digest = digest(cacheKey)
+        val written = writeEntry(digest) { output ->
+            val json = configuration.toJson()
+            val jsonBytes = json.toByteArray(Charsets.UTF_8)
+            encodeHeader(output, timestamp, cacheHeaders)
+            output.writeInt(jsonBytes.size)
+            output.write(jsonBytes)
+            ConfigurationBinaryFormat.encode(json, output)
+        }
+        if (written) {
+            entries[digest] = File(directory, digest)
+            trimToSize()
+        }
+    }
+
+    /**
+     * Replaces the save time and [ConfigurationCacheHeaders] of the entry saved for [cacheKey], as
+     * after a `304 Not Modified` response. The configuration itself is copied unchanged, without
+     * being decoded or encoded again.
+     *
+     * @return `false` if there is no entry for [cacheKey] or it cannot be read.
+     */
+    @Synchronized
+    fun revalidate(cacheKey: String, timestamp: Long, cacheHeaders: ConfigurationCacheHeaders): Boolean {
+        loadIndex()
+        val digest = digest(cacheKey)
+        val file = entries[digest] ?: return false
+        val written = try {
+            val buffer = ByteBuffer.wrap(file.readBytes())
+            decodeHeader(buffer)
+            writeEntry(digest) { output ->
+                encodeHeader(output, timestamp, cacheHeaders)
+                output.write(buffer.array(), buffer.position(), buffer.remaining())
+            }
+        } catch (e: IOException) {
+            false
+        } catch (e: BufferUnderflowException) {
+            false
+        }
+        if (!written) {
+            remove(digest)
+        }
+        return written
+    }
+
+    /**
+     * Returns `true` if an entry is saved for [cacheKey].
+     */
+    @Synchronized
+    fun contains(cacheKey: String): Boolean {
+        loadIndex()
+        return entries.containsKey(digest(cacheKey))
+    }
+
+    /**
+     * Deletes leftover temporary files and evicts the least recently used entries above [maxEntries].
+     */
+    @Synchronized
+    fun compact() {
+        loadIndex()
+        directory.listFiles { file -> file.name.endsWith(TEMP_SUFFIX) }?.forEach { it.delete() }
+        trimToSize()
+    }
+
+    private fun loadIndex() {
+        if (isIndexLoaded) return
+        isIndexLoaded = true
+        directory.listFiles { file -> file.isFile && !file.name.endsWith(TEMP_SUFFIX) }
+            ?.sortedBy { it.lastModified() }
+            ?.forEach { entries[it.name] = it }
+    }
+
+    /**
+     * Writes the entry file for [digest] through a temporary file, so a reader never sees a partially
+     * written entry. Returns `false` if the entry could not be written.
+     */
+    private fun writeEntry(digest: String, write: (DataOutputStream) -> Unit): Boolean {
+        val file = File(directory, digest)
+        val tempFile = File(directory, "$digest$TEMP_SUFFIX")
+        return try {
+            directory.mkdirs()
+            DataOutputStream(tempFile.outputStream().buffered()).use(write)
+            if (!tempFile.renameTo(file)) {
+                throw IOException("Unable to write configuration to $file")
+            }
+            file.setLastModified(currentTimeMillis())
+            true
+        } catch (e: IOException) {
+            tempFile.delete()
+            false
+        } catch (e: JSONException) {
+            tempFile.delete()
+            false
+        }
+    }
+
+    private fun trimToSize() {
+        val iterator = entries.entries.iterator()
+        while (entries.size > maxEntries && iterator.hasNext()) {
+            iterator.next().value.delete()
+            iterator.remove()
+        }
+    }
+
+    private fun encodeHeader(
+        output: DataOutputStream,
+        timestamp: Long,
+        cacheHeaders: ConfigurationCacheHeaders
+    ) {
+        output.writeInt(FILE_VERSION)
+        output.writeLong(timestamp)
+        output.writeLong(cacheHeaders.maxAge ?: NO_MAX_AGE)
+        output.writeNullableString(cacheHeaders.etag)
+        output.writeNullableString(cacheHeaders.lastModified)
+    }
+
+    /**
+     * Reads the entry header and leaves [buffer] positioned at the configuration JSON.
+     */
+    private fun decodeHeader(buffer: ByteBuffer): EntryHeader {
+        if (buffer.int != FILE_VERSION) throw IOException("Unsupported configuration entry version")
+        val timestamp = buffer.long
+        val maxAge = buffer.long.takeIf { it != NO_MAX_AGE }
+        val etag = buffer.readNullableString()
+        val lastModified = buffer.readNullableString()
+        return EntryHeader(timestamp, ConfigurationCacheHeaders(etag, lastModified, maxAge))
+    }
+
+    private fun decodeConfiguration(buffer: ByteBuffer): Configuration {
+        val jsonLength = buffer.int
+        if (jsonLength < 0 || jsonLength > buffer.remaining()) throw BufferUnderflowException()
+        val jsonBytes = ByteArray(jsonLength).also { buffer.get(it) }
+        val json = lazy { String(jsonBytes, Charsets.UTF_8) }
+        val configuration = ConfigurationBinaryFormat.decode(buffer, json)
+            ?: Configuration.fromJson(json.value)
+        return configuration
+    }
+
+    private fun remove(digest: String) {
+        entries.remove(digest)?.delete()
+    }
+
+    private class EntryHeader(
+        val timestamp: Long,
+        val cacheHeaders: ConfigurationCacheHeaders
+    )
+
+    /**
+     * A configuration, the time it was saved and the [ConfigurationCacheHeaders] it was served with.
+     */
+    class StoredConfiguration(
+        val configuration: Configuration,
+        val timestamp: Long,
+        val cacheHeaders: ConfigurationCacheHeaders = ConfigurationCacheHeaders.NONE
+    )
+
+    companion object {
+        /**
+         * Layout version of entry files. Entries written with another version are treated as
+         * unreadable and dropped.
+         */
+        private const val FILE_VERSION = 2
+        private const val NO_MAX_AGE = -1L
+        private const val DEFAULT_MAX_ENTRIES = 10
+        private const val LOAD_FACTOR = 0.75f
+        private const val TEMP_SUFFIX = ".tmp"
+
+        private fun digest(cacheKey: String): String {
+            return MessageDigest.getInstance("SHA-256")
+                .digest(cacheKey.toByteArray(Charsets.UTF_8))
+                .joinToString("") { "%02x".format(it) }
+        }
+    }
+}
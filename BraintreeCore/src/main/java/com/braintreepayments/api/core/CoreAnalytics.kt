@@ -2,4 +2,6 @@ package com.braintreepayments.api.core
 
 internal object CoreAnalytics {
     const val API_REQUEST_LATENCY = "core:api-request-latency"
+    const val API_REQUEST_LATENCY_HISTOGRAM = "core:api-request-latency-histogram"
+    const val CONFIGURATION_BACKOFF = "core:configuration-backoff"
 }
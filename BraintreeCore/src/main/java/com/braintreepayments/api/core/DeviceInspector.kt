@@ -1,11 +1,14 @@
 package com.braintreepayments.api.core
 
+import android.content.BroadcastReceiver
 import android.content.ComponentName
 import android.content.Context
 import android.content.Intent
+import android.content.IntentFilter
 import android.content.pm.PackageManager
 import android.os.Build
 import androidx.annotation.RestrictTo
+import androidx.core.content.ContextCompat
 import com.braintreepayments.api.sharedutils.AppHelper
 import com.braintreepayments.api.sharedutils.SignatureVerifier
 
@@ -19,32 +22,60 @@ class DeviceInspector(
     private val signatureVerifier: SignatureVerifier = SignatureVerifier(),
 ) {
 
+    /**
+     * The metadata that does not change while the process runs, collected with the first call to
+     * [getDeviceMetadata] so that later calls make no PackageManager calls.
+     */
+    @Volatile
+    private var staticDeviceMetadata: DeviceMetadata? = null
+
+    /**
+     * Whether each app looked up by [isAppInstalled] is installed, keyed by package name. An entry is
+     * removed when its package is added or removed. Guarded by itself.
+     */
+    private val installedApps = HashMap<String, Boolean>()
+
+    @Volatile
+    private var isPackageChangeReceiverRegistered = false
+
+    private val packageChangeReceiver = object : BroadcastReceiver() {
+        override fun onReceive(context: Context, intent: Intent) {
+            val packageName = intent.data?.schemeSpecificPart ?: return
+            synchronized(installedApps) { installedApps.remove(packageName) }
+        }
+    }
+
     internal fun getDeviceMetadata(
         context: Context?,
         configuration: Configuration?,
         sessionId: String?,
         integration: IntegrationType?
     ): DeviceMetadata {
-        return DeviceMetadata(
-            appId = context?.packageName,
-            appName = getAppName(context),
-            clientSDKVersion = BuildConfig.VERSION_NAME,
-            clientOs = getAPIVersion(),
-            component = "braintreeclientsdk",
-            deviceManufacturer = Build.MANUFACTURER,
-            deviceModel = Build.MODEL,
-            dropInSDKVersion = dropInVersion,
+        val staticMetadata = staticDeviceMetadata?.takeIf { it.appId == context?.packageName }
+            ?: createStaticDeviceMetadata(context).also { staticDeviceMetadata = it }
+        return staticMetadata.copy(
             environment = configuration?.environment,
-            eventSource = "mobile-native",
             integrationType = integration,
-            isSimulator = isDeviceEmulator,
-            merchantAppVersion = getAppVersion(context),
             merchantId = configuration?.merchantId,
-            platform = "Android",
             sessionId = sessionId
         )
     }
 
+    private fun createStaticDeviceMetadata(context: Context?) = DeviceMetadata(
+        appId = context?.packageName,
+        appName = getAppName(context),
+        clientSDKVersion = BuildConfig.VERSION_NAME,
+        clientOs = getAPIVersion(),
+        component = "braintreeclientsdk",
+        deviceManufacturer = Build.MANUFACTURER,
+        deviceModel = Build.MODEL,
+        dropInSDKVersion = dropInVersion,
+        eventSource = "mobile-native",
+        isSimulator = isDeviceEmulator,
+        merchantAppVersion = getAppVersion(context),
+        platform = "Android"
+    )
+
     // Analytics payload no longer sends appInstalled info.
     // Leaving logic for upcoming PaymentReady API implementation.
     /**
@@ -60,11 +91,39 @@ class DeviceInspector(
     }
 
     fun isPayPalInstalled(): Boolean {
-        return appHelper.isAppInstalled(context, PAYPAL_APP_PACKAGE)
+        return isAppInstalled(context, PAYPAL_APP_PACKAGE)
     }
 
     fun isVenmoInstalled(context: Context): Boolean {
-        return appHelper.isAppInstalled(context, VENMO_APP_PACKAGE)
+        return isAppInstalled(context, VENMO_APP_PACKAGE)
+    }
+
+    /**
+     * Looks up whether [packageName] is installed once, and again only after the package has been added
+     * or removed.
+     */
+    private fun isAppInstalled(context: Context, packageName: String): Boolean {
+        registerPackageChangeReceiver()
+        // the lookup is made while holding the lock, so a package change received during the lookup
+        // removes its result instead of being overwritten by it
+        synchronized(installedApps) {
+            return installedApps.getOrPut(packageName) { appHelper.isAppInstalled(context, packageName) }
+        }
+    }
+
+    private fun registerPackageChangeReceiver() {
+        if (isPackageChangeReceiverRegistered) return
+        synchronized(packageChangeReceiver) {
+            if (isPackageChangeReceiverRegistered) return
+            val filter = IntentFilter().apply {
+                addAction(Intent.ACTION_PACKAGE_ADDED)
+                addAction(Intent.ACTION_PACKAGE_REMOVED)
+                addDataScheme("package")
+            }
+            // package broadcasts are only sent by the system, so the receiver does not need to be protected
+            ContextCompat.registerReceiver(context, packageChangeReceiver, filter, ContextCompat.RECEIVER_EXPORTED)
+            isPackageChangeReceiverRegistered = true
+        }
     }
 
     private val isDeviceEmulator: Boolean
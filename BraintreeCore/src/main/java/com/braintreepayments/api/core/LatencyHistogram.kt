@@ -0,0 +1,126 @@
+package com.braintreepayments.api.core
+
+/**
+ * Counts request latencies in fixed log-linear buckets, in the manner of an HDR histogram, so that
+ * recording a sample only increments a counter. Latencies below [LINEAR_LIMIT_MILLIS] have a bucket
+ * each; above it, every power of two is split into [SUB_BUCKET_COUNT] buckets, which keeps each
+ * bucket within 12.5% of the latencies it holds. Latencies above [MAX_TRACKABLE_MILLIS] are counted
+ * in the last bucket.
+ *
+ * This class is not thread-safe; see [LatencyHistogramRepository].
+ */
+internal class LatencyHistogram {
+
+    private val counts = IntArray(BUCKET_COUNT)
+
+    var sampleCount = 0
+        private set
+
+    var maxMillis = 0L
+        private set
+
+    fun record(latencyMillis: Long) {
+        val latency = latencyMillis.coerceAtLeast(0)
+        counts[bucketIndex(latency)]++
+        sampleCount++
+        if (latency > maxMillis) maxMillis = latency
+    }
+
+    fun reset() {
+        counts.fill(0)
+        sampleCount = 0
+        maxMillis = 0
+    }
+
+    fun summarize(phases: PhaseTimingSummary? = null) = LatencySummary(
+        sampleCount = sampleCount,
+        p50Millis = valueAtPercentile(50),
+        p90Millis = valueAtPercentile(90),
+        p99Millis = valueAtPercentile(99),
+        maxMillis = maxMillis,
+        buckets = encodeBuckets(),
+        phases = phases
+    )
+
+    /**
+     * Returns the highest latency of the bucket that holds the sample at [percentile], capped at the
+     * highest latency recorded, or 0 if no samples were recorded.
+     */
+    fun valueAtPercentile(percentile: Int): Long {
+        if (sampleCount == 0) return 0
+        val rank = maxOf(1, (sampleCount.toLong() * percentile + PERCENT - 1) / PERCENT)
+        var seen = 0L
+        for (index in counts.indices) {
+            seen += counts[index]
+            if (seen >= rank) return minOf(bucketUpperBound(index), maxMillis)
+        }
+        return maxMillis
+    }
+
+    /**
+     * Returns the non-empty buckets as `lowerBound:count` pairs separated by commas, where
+     * `lowerBound` is the lowest latency in milliseconds the bucket holds.
+     */
+    fun encodeBuckets(): String = buildString {
+        for (index in counts.indices) {
+            if (counts[index] == 0) continue
+            if (isNotEmpty()) append(',')
+            append(bucketLowerBound(index)).append(':').append(counts[index])
+        }
+    }
+
+    companion object {
+
+        private const val SUB_BUCKET_BITS = 3
+        private const val SUB_BUCKET_COUNT = 1 shl SUB_BUCKET_BITS
+        private const val LINEAR_LIMIT_MILLIS = 2L * SUB_BUCKET_COUNT
+        private const val LINEAR_LIMIT_EXPONENT = SUB_BUCKET_BITS + 1
+        private const val MAX_EXPONENT = 16
+        private const val PERCENT = 100
+
+        const val MAX_TRACKABLE_MILLIS = (1L shl (MAX_EXPONENT + 1)) - 1
+        val BUCKET_COUNT = LINEAR_LIMIT_MILLIS.toInt() +
+            (MAX_EXPONENT - LINEAR_LIMIT_EXPONENT + 1) * SUB_BUCKET_COUNT
+
+        fun bucketIndex(latencyMillis: Long): Int {
+            val latency = latencyMillis.coerceAtMost(MAX_TRACKABLE_MILLIS)
+            if (latency < LINEAR_LIMIT_MILLIS) return latency.toInt()
+            val exponent = Long.SIZE_BITS - 1 - java.lang.Long.numberOfLeadingZeros(latency)
+            val subBucket = (latency shr (exponent - SUB_BUCKET_BITS)).toInt() - SUB_BUCKET_COUNT
+            return LINEAR_LIMIT_MILLIS.toInt() + (exponent - LINEAR_LIMIT_EXPONENT) * SUB_BUCKET_COUNT + subBucket
+        }
+
+        fun bucketLowerBound(index: Int): Long {
+            if (index < LINEAR_LIMIT_MILLIS) return index.toLong()
+            val offset = index - LINEAR_LIMIT_MILLIS.toInt()
+            val exponent = offset / SUB_BUCKET_COUNT + LINEAR_LIMIT_EXPONENT
+            val subBucket = offset % SUB_BUCKET_COUNT
+            return (SUB_BUCKET_COUNT + subBucket).toLong() shl (exponent - SUB_BUCKET_BITS)
+        }
+
+        fun bucketUpperBound(index: Int): Long =
+            if (index == BUCKET_COUNT - 1) MAX_TRACKABLE_MILLIS else bucketLowerBound(index + 1) - 1
+    }
+}
+
+/**
+ * The summary of the latencies of the requests to one endpoint during one window, sent in place of
+ * an [AnalyticsEvent] per request.
+ *
+ * @property sampleCount the number of requests
+ * @property p50Millis the median latency
+ * @property p90Millis the 90th percentile latency
+ * @property p99Millis the 99th percentile latency
+ * @property maxMillis the highest latency
+ * @property buckets the histogram, encoded by [LatencyHistogram.encodeBuckets]
+ * @property phases the mean network phase timings of the requests, or null if none had phase timings
+ */
+internal data class LatencySummary(
+    val sampleCount: Int,
+    val p50Millis: Long,
+    val p90Millis: Long,
+    val p99Millis: Long,
+    val maxMillis: Long,
+    val buckets: String,
+    val phases: PhaseTimingSummary? = null,
+)
@@ -0,0 +1,71 @@
+package com.braintreepayments.api.core
+
+import com.braintreepayments.api.sharedutils.HttpPhaseTimings
+
+/**
+ * Holds a [LatencyHistogram] and [PhaseTimingTotals] per endpoint for the current latency window. They
+ * are kept and reset between windows, so that recording a latency does not allocate once an endpoint
+ * has been seen.
+ *
+ * One window is shared by every [AnalyticsClient] in the process: the client whose latency opens the
+ * window is the one that closes it.
+ */
+internal class LatencyHistogramRepository {
+
+    private val lock = Any()
+    private val endpoints = HashMap<String, EndpointLatencies>()
+    private var windowStartTime: Long? = null
+
+    /**
+     * Records a request to [endpoint] that took [latencyMillis], broken down into [phaseTimings] when
+     * they were measured.
+     *
+     * @return true if the latency opened a new window, which the caller closes with [drain]
+     */
+    fun record(
+        endpoint: String,
+        latencyMillis: Long,
+        phaseTimings: HttpPhaseTimings?,
+        currentTime: Long,
+    ): Boolean = synchronized(lock) {
+        val latencies = endpoints.getOrPut(endpoint) { EndpointLatencies() }
+        latencies.histogram.record(latencyMillis)
+        phaseTimings?.let { latencies.phaseTotals.record(it) }
+        if (windowStartTime != null) return false
+        windowStartTime = currentTime
+        true
+    }
+
+    /**
+     * Closes the current window and returns the start time of the window with a summary for each
+     * endpoint that received requests during it, or null if no latencies were recorded.
+     */
+    fun drain(): Pair<Long, Map<String, LatencySummary>>? = synchronized(lock) {
+        val startTime = windowStartTime ?: return null
+        windowStartTime = null
+        val summaries = endpoints
+            .filterValues { it.histogram.sampleCount > 0 }
+            .mapValues { (_, latencies) -> latencies.summarize() }
+        startTime to summaries
+    }
+
+    private class EndpointLatencies {
+        val histogram = LatencyHistogram()
+        val phaseTotals = PhaseTimingTotals()
+
+        fun summarize(): LatencySummary {
+            val summary = histogram.summarize(phaseTotals.summarize())
+            histogram.reset()
+            phaseTotals.reset()
+            return summary
+        }
+    }
+
+    companion object {
+
+        /**
+         * Singleton instance of the LatencyHistogramRepository.
+         */
+        val instance: LatencyHistogramRepository by lazy { LatencyHistogramRepository() }
+    }
+}
@@ -0,0 +1,18 @@
+package com.braintreepayments.api.core
+
+/**
+ * Entry point for observing the performance of network requests made by the Braintree SDK.
+ */
+object NetworkPerformance {
+
+    /**
+     * Sets the [NetworkPerformanceListener] notified for every completed SDK network request, replacing
+     * any previous listener. Pass `null` to stop receiving metrics.
+     *
+     * @param listener [NetworkPerformanceListener]
+     */
+    @JvmStatic
+    fun setListener(listener: NetworkPerformanceListener?) {
+        NetworkPerformanceReporter.instance.listener = listener
+    }
+}
@@ -0,0 +1,15 @@
+package com.braintreepayments.api.core
+
+/**
+ * Listener notified once for every network request the Braintree SDK completes. Register it with
+ * [NetworkPerformance.setListener] to feed SDK latency into your own monitoring.
+ *
+ * Callbacks are delivered on a dedicated background thread, never on the main thread.
+ */
+fun interface NetworkPerformanceListener {
+
+    /**
+     * @param metrics [NetworkRequestMetrics] for the completed request
+     */
+    fun onRequestCompleted(metrics: NetworkRequestMetrics)
+}
@@ -0,0 +1,60 @@
+package com.braintreepayments.api.core
+
+import com.braintreepayments.api.sharedutils.HttpResponseTiming
+import java.io.IOException
+import java.util.concurrent.Executor
+import java.util.concurrent.Executors
+
+/**
+ * Delivers [NetworkRequestMetrics] to the merchant's [NetworkPerformanceListener] off the main thread.
+ * Nothing is allocated for a request unless a listener is registered.
+ */
+internal class NetworkPerformanceReporter(
+    private val executor: Executor = Executors.newSingleThreadExecutor(),
+) {
+
+    @Volatile
+    var listener: NetworkPerformanceListener? = null
+
+    /**
+     * Reports a request that received a response with [statusCode], or that failed with [exception]
+     * before a response was received, in which case [statusCode] is [NO_RESPONSE].
+     */
+    fun report(
+        endpoint: String,
+        statusCode: Int,
+        timing: HttpResponseTiming,
+        exception: IOException? = null,
+    ) {
+        val listener = listener ?: return
+        val phases = timing.phases
+        val metrics = NetworkRequestMetrics(
+            endpoint = endpoint,
+            statusCode = statusCode,
+            duration = timing.endTime - timing.startTime,
+            dnsDuration = phases?.dnsDuration ?: 0,
+            connectDuration = phases?.connectDuration ?: 0,
+            tlsDuration = phases?.tlsDuration ?: 0,
+            timeToFirstByte = phases?.timeToFirstByte ?: 0,
+            responseBodyDuration = phases?.responseBodyDuration ?: 0,
+            requestBytes = phases?.requestBytes ?: 0,
+            responseBytes = phases?.responseBytes ?: 0,
+            isConnectionReused = phases?.isConnectionReused ?: false,
+            exception = exception,
+        )
+        executor.execute { listener.onRequestCompleted(metrics) }
+    }
+
+    companion object {
+
+        /**
+         * The status code reported for a request that failed before a response was received.
+         */
+        const val NO_RESPONSE = 0
+
+        /**
+         * Singleton instance of the NetworkPerformanceReporter.
+         */
+        val instance: NetworkPerformanceReporter by lazy { NetworkPerformanceReporter() }
+    }
+}
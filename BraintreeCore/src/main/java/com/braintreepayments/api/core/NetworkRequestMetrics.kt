@@ -0,0 +1,41 @@
+package com.braintreepayments.api.core
+
+import java.io.IOException
+
+/**
+ * Performance metrics for a single network request made by the Braintree SDK.
+ *
+ * Durations are in milliseconds. Phases that did not happen for a request are reported as `0`, for
+ * example DNS, connect and TLS when [isConnectionReused] is `true`.
+ *
+ * @property endpoint The requested endpoint with merchant and payment method identifiers removed, or
+ * the operation name for GraphQL requests.
+ * @property statusCode The HTTP status code of the response, or `0` if the request failed before a
+ * response was received.
+ * @property duration Total time from sending the request to reading the full response, or to the
+ * request failing.
+ * @property dnsDuration Time spent resolving the host name.
+ * @property connectDuration Time spent establishing the connection, including the TLS handshake.
+ * @property tlsDuration Time spent on the TLS handshake.
+ * @property timeToFirstByte Time from the request being sent to the response headers arriving.
+ * @property responseBodyDuration Time spent downloading the response body.
+ * @property requestBytes Number of request body bytes sent.
+ * @property responseBytes Number of response body bytes received.
+ * @property isConnectionReused `true` if the request was sent on an already open connection.
+ * @property exception The exception that failed the request before a response was received, such as
+ * a timeout or a DNS or TLS failure, or `null` if a response was received.
+ */
+data class NetworkRequestMetrics(
+    val endpoint: String,
+    val statusCode: Int,
+    val duration: Long,
+    val dnsDuration: Long,
+    val connectDuration: Long,
+    val tlsDuration: Long,
+    val timeToFirstByte: Long,
+    val responseBodyDuration: Long,
+    val requestBytes: Long,
+    val responseBytes: Long,
+    val isConnectionReused: Boolean,
+    val exception: IOException? = null,
+)
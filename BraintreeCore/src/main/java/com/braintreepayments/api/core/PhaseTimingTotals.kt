@@ -0,0 +1,81 @@
+package com.braintreepayments.api.core
+
+import com.braintreepayments.api.sharedutils.HttpPhaseTimings
+
+/**
+ * Sums the network phase timings of the requests to one endpoint during a latency window, so that
+ * the [LatencySummary] of the endpoint keeps the phase breakdown that [LatencyReporting.PER_REQUEST]
+ * events carry. Recording a request only adds to counters.
+ *
+ * This class is not thread-safe; see [LatencyHistogramRepository].
+ */
+internal class PhaseTimingTotals {
+
+    private var sampleCount = 0
+    private var dnsMillis = 0L
+    private var connectMillis = 0L
+    private var tlsMillis = 0L
+    private var timeToFirstByteMillis = 0L
+    private var responseBodyMillis = 0L
+    private var reusedConnectionCount = 0
+
+    fun record(phaseTimings: HttpPhaseTimings) {
+        sampleCount++
+        dnsMillis += phaseTimings.dnsDuration
+        connectMillis += phaseTimings.connectDuration
+        tlsMillis += phaseTimings.tlsDuration
+        timeToFirstByteMillis += phaseTimings.timeToFirstByte
+        responseBodyMillis += phaseTimings.responseBodyDuration
+        if (phaseTimings.isConnectionReused) reusedConnectionCount++
+    }
+
+    fun reset() {
+        sampleCount = 0
+        dnsMillis = 0
+        connectMillis = 0
+        tlsMillis = 0
+        timeToFirstByteMillis = 0
+        responseBodyMillis = 0
+        reusedConnectionCount = 0
+    }
+
+    /**
+     * Returns the mean phase timings of the recorded requests, or null if no request had phase
+     * timings.
+     */
+    fun summarize(): PhaseTimingSummary? {
+        if (sampleCount == 0) return null
+        return PhaseTimingSummary(
+            sampleCount = sampleCount,
+            meanDnsMillis = dnsMillis / sampleCount,
+            meanConnectMillis = connectMillis / sampleCount,
+            meanTlsMillis = tlsMillis / sampleCount,
+            meanTimeToFirstByteMillis = timeToFirstByteMillis / sampleCount,
+            meanResponseBodyMillis = responseBodyMillis / sampleCount,
+            reusedConnectionCount = reusedConnectionCount
+        )
+    }
+}
+
+/**
+ * The mean network phase timings of the requests to one endpoint during one window. Phases that did
+ * not happen for a request, such as DNS on a reused connection, count as 0.
+ *
+ * @property sampleCount the number of requests that had phase timings
+ * @property meanDnsMillis the mean time spent resolving the host name
+ * @property meanConnectMillis the mean time spent establishing the connection, including TLS
+ * @property meanTlsMillis the mean time spent on the TLS handshake
+ * @property meanTimeToFirstByteMillis the mean time from the request being written to the response
+ * headers arriving
+ * @property meanResponseBodyMillis the mean time spent downloading the response body
+ * @property reusedConnectionCount the number of requests sent on an already established connection
+ */
+internal data class PhaseTimingSummary(
+    val sampleCount: Int,
+    val meanDnsMillis: Long,
+    val meanConnectMillis: Long,
+    val meanTlsMillis: Long,
+    val meanTimeToFirstByteMillis: Long,
+    val meanResponseBodyMillis: Long,
+    val reusedConnectionCount: Int,
+)
@@ -0,0 +1,45 @@
+package com.braintreepayments.api.core
+
+import com.braintreepayments.api.sharedutils.LatencyWindow
+
+/**
+ * Decides how long an idempotent request may go unanswered before [BraintreeHttpClient] sends a
+ * second, hedged attempt on a new connection.
+ *
+ * With a [fixedDelay] every request is hedged after that delay. Otherwise the delay is the 90th
+ * percentile of the most recent response times, kept between [minDelay] and [maxDelay], so that only
+ * about one request in ten is hedged; [defaultDelay] is used until enough responses have been seen.
+ */
+internal class RequestHedging(
+    private val fixedDelay: Long? = null,
+    private val defaultDelay: Long = DEFAULT_DELAY,
+    private val minDelay: Long = DEFAULT_MIN_DELAY,
+    private val maxDelay: Long = DEFAULT_MAX_DELAY,
+) {
+
+    private val responseTimes = LatencyWindow()
+
+    /**
+     * Returns the delay in milliseconds after which a request should be hedged.
+     */
+    fun hedgeDelay(): Long {
+        fixedDelay?.let { return it }
+        if (responseTimes.sampleCount < MIN_SAMPLES) return defaultDelay
+        return responseTimes.percentile(PERCENTILE)?.coerceIn(minDelay, maxDelay) ?: defaultDelay
+    }
+
+    /**
+     * Records the [responseTime] in milliseconds of a completed request.
+     */
+    fun recordResponseTime(responseTime: Long) {
+        responseTimes.record(responseTime)
+    }
+
+    companion object {
+        private const val MIN_SAMPLES = 5
+        private const val PERCENTILE = 90
+        private const val DEFAULT_DELAY = 3_000L
+        private const val DEFAULT_MIN_DELAY = 500L
+        private const val DEFAULT_MAX_DELAY = 10_000L
+    }
+}
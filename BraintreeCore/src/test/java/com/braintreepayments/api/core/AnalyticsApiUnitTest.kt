@@ -1,5 +1,8 @@
 package com.braintreepayments.api.core
 
+import android.content.Context
+import com.braintreepayments.api.sharedutils.EncodedJsonRequestBody
+import com.braintreepayments.api.sharedutils.HttpPhaseTimings
 import io.mockk.coEvery
 import io.mockk.coVerify
 import io.mockk.every
@@ -14,6 +17,8 @@ import org.json.JSONObject
 import org.junit.Before
 import org.junit.Test
 import kotlin.test.assertEquals
+import kotlin.test.assertFailsWith
+import kotlin.test.assertFalse
 
 @OptIn(ExperimentalCoroutinesApi::class)
 class AnalyticsApiUnitTest {
@@ -142,8 +147,8 @@ class AnalyticsApiUnitTest {
         coVerify {
             httpClient.post(
                 path = "https://api-m.paypal.com/v1/tracking/batch/events",
-                data = withArg {
-                    assertEquals(JSONObject(expectedJson).toString(), JSONObject(it).toString())
+                data = withArg<EncodedJsonRequestBody> {
+                    assertEquals(JSONObject(expectedJson).toString(), JSONObject(it.encodeToString()).toString())
                 },
                 configuration = null,
                 authorization = clientToken
@@ -169,8 +174,8 @@ class AnalyticsApiUnitTest {
         coVerify {
             httpClient.post(
                 path = "https://api-m.paypal.com/v1/tracking/batch/events",
-                data = withArg {
-                    assertEquals(JSONObject(expectedJson).toString(), JSONObject(it).toString())
+                data = withArg<EncodedJsonRequestBody> {
+                    assertEquals(JSONObject(expectedJson).toString(), JSONObject(it.encodeToString()).toString())
                 },
                 configuration = null,
                 authorization = tokenizationKey
@@ -178,11 +183,116 @@ class AnalyticsApiUnitTest {
         }
     }
 
+    @Test
+    fun `when event has phase timings, execute includes the phase breakdown in event params`() = runTest {
+        every { merchantRepository.authorization } returns tokenizationKey
+        val event = tokenizationKeyEvent.copy(
+            phaseTimings = HttpPhaseTimings(
+                dnsDuration = 5,
+                connectDuration = 45,
+                tlsDuration = 30,
+                timeToFirstByte = 100,
+                responseBodyDuration = 10,
+                isConnectionReused = false
+            )
+        )
+
+        val testDispatcher = StandardTestDispatcher(testScheduler)
+        val testScope = TestScope(testDispatcher)
+        sut = createAnalyticsApi(testDispatcher, testScope)
+
+        sut.execute(listOf(event), configuration)
+        advanceUntilIdle()
+
+        coVerify {
+            httpClient.post(
+                path = any(),
+                data = withArg<EncodedJsonRequestBody> {
+                    val eventParams = JSONObject(it.encodeToString()).getJSONArray("events").getJSONObject(0)
+                        .getJSONArray("event_params").getJSONObject(0)
+                    assertEquals(5L, eventParams.getLong("dns_duration"))
+                    assertEquals(45L, eventParams.getLong("connect_duration"))
+                    assertEquals(30L, eventParams.getLong("tls_duration"))
+                    assertEquals(100L, eventParams.getLong("ttfb_duration"))
+                    assertEquals(10L, eventParams.getLong("response_body_duration"))
+                    assertEquals(false, eventParams.getBoolean("connection_reused"))
+                },
+                configuration = null,
+                authorization = tokenizationKey
+            )
+        }
+    }
+
+    @Test
+    fun `when event has a latency summary, encodeFPTIEvent includes the summary in event params`() {
+        val event = AnalyticsEvent(
+            name = CoreAnalytics.API_REQUEST_LATENCY_HISTOGRAM,
+            timestamp = 60_123L,
+            startTime = 123,
+            endTime = 60_123,
+            endpoint = "/v1/configuration",
+            latencySummary = LatencySummary(
+                sampleCount = 3,
+                p50Millis = 111,
+                p90Millis = 255,
+                p99Millis = 255,
+                maxMillis = 250,
+                buckets = "104:1,112:1,240:1"
+            )
+        )
+
+        val eventParams = JSONObject(createAnalyticsApi().encodeFPTIEvent(event))
+
+        assertEquals("/v1/configuration", eventParams.getString("endpoint"))
+        assertEquals(3, eventParams.getInt("sample_count"))
+        assertEquals(111L, eventParams.getLong("latency_p50"))
+        assertEquals(255L, eventParams.getLong("latency_p90"))
+        assertEquals(255L, eventParams.getLong("latency_p99"))
+        assertEquals(250L, eventParams.getLong("latency_max"))
+        assertEquals("104:1,112:1,240:1", eventParams.getString("latency_histogram"))
+    }
+
+    @Test
+    fun `when a latency summary has phase timings, encodeFPTIEvent includes the mean phase timings`() {
+        val event = AnalyticsEvent(
+            name = CoreAnalytics.API_REQUEST_LATENCY_HISTOGRAM,
+            timestamp = 60_123L,
+            endpoint = "/v1/configuration",
+            latencySummary = LatencySummary(
+                sampleCount = 2,
+                p50Millis = 100,
+                p90Millis = 200,
+                p99Millis = 200,
+                maxMillis = 200,
+                buckets = "96:1,192:1",
+                phases = PhaseTimingSummary(
+                    sampleCount = 2,
+                    meanDnsMillis = 10,
+                    meanConnectMillis = 30,
+                    meanTlsMillis = 20,
+                    meanTimeToFirstByteMillis = 90,
+                    meanResponseBodyMillis = 5,
+                    reusedConnectionCount = 1
+                )
+            )
+        )
+
+        val eventParams = JSONObject(createAnalyticsApi().encodeFPTIEvent(event))
+
+        assertEquals(2, eventParams.getInt("phase_sample_count"))
+        assertEquals(10L, eventParams.getLong("dns_duration"))
+        assertEquals(30L, eventParams.getLong("connect_duration"))
+        assertEquals(20L, eventParams.getLong("tls_duration"))
+        assertEquals(90L, eventParams.getLong("ttfb_duration"))
+        assertEquals(5L, eventParams.getLong("response_body_duration"))
+        assertEquals(1, eventParams.getInt("connection_reused_count"))
+    }
+
     @Test
     fun `when httpClient post throws UnknownHostException, execute does not crash`() = runTest {
         every { merchantRepository.authorization } returns tokenizationKey
         coEvery {
-            httpClient.post(any(), any(), any(), any())
+            httpClient.post(any(), any<EncodedJsonRequestBody>(), any(), any())
         } throws UnknownHostException("Unable to resolve host \"api-m.paypal.com\"")
 
         val testDispatcher = StandardTestDispatcher(testScheduler)
@@ -197,7 +307,7 @@ class AnalyticsApiUnitTest {
     fun `when httpClient post throws CancellationException, execute does not crash`() = runTest {
         every { merchantRepository.authorization } returns tokenizationKey
         coEvery {
-            httpClient.post(any(), any(), any(), any())
+            httpClient.post(any(), any<EncodedJsonRequestBody>(), any(), any())
         } throws kotlin.coroutines.cancellation.CancellationException("cancelled")
 
         val testDispatcher = StandardTestDispatcher(testScheduler)
@@ -208,6 +318,88 @@ class AnalyticsApiUnitTest {
         advanceUntilIdle()
     }
 
+    @Test
+    fun `when execute is called with another configuration, the batch params reflect the new configuration`() =
+    runTest {
+        val otherConfiguration = mockk<Configuration>()
+        every { deviceInspector.getDeviceMetadata(any(), otherConfiguration, any(), any()) } returns
+            deviceMetadata.copy(environment = "production", merchantId = "other-merchant-id")
+        every { merchantRepository.authorization } returns tokenizationKey
+        val testDispatcher = StandardTestDispatcher(testScheduler)
+        sut = createAnalyticsApi(testDispatcher, TestScope(testDispatcher))
+
+        sut.execute(listOf(tokenizationKeyEvent), configuration)
+        sut.execute(listOf(tokenizationKeyEvent), otherConfiguration)
+        advanceUntilIdle()
+
+        val payloads = mutableListOf<EncodedJsonRequestBody>()
+        coVerify(exactly = 2) { httpClient.post(any(), capture(payloads), any(), any()) }
+        val (first, second) = payloads.map {
+            JSONObject(it.encodeToString()).getJSONArray("events").getJSONObject(0).getJSONObject("batch_params")
+        }
+        assertEquals("environment", first.getString("merchant_sdk_env"))
+        assertEquals("merchant-id", first.getString("merchant_id"))
+        assertEquals("production", second.getString("merchant_sdk_env"))
+        assertEquals("other-merchant-id", second.getString("merchant_id"))
+        assertEquals(first.getString("app_id"), second.getString("app_id"))
+        assertEquals(first.length(), second.length())
+    }
+
+    @Test
+    fun `when upload is called, stored events are posted with the metadata of their session`() = runTest {
+        val context = mockk<Context>()
+        val storedEvent = JSONObject().put("event_name", "stored-event")
+        val session = AnalyticsSession(
+            sessionId = "stored-session-id",
+            tokenizationKey = "stored-tokenization-key",
+            authorizationFingerprint = null,
+            environment = "production",
+            merchantId = "stored-merchant-id",
+            integration = integrationType.stringValue
+        )
+        every {
+            deviceInspector.getDeviceMetadata(context, null, "stored-session-id", integrationType)
+        } returns deviceMetadata.copy(sessionId = "stored-session-id")
+        every { deviceInspector.isVenmoInstalled(context) } returns false
+        sut = createAnalyticsApi()
+
+        sut.upload(
+            context = context,
+            events = listOf(storedEvent.toString()),
+            session = session
+        )
+
+        coVerify {
+            httpClient.post(
+                path = "https://api-m.paypal.com/v1/tracking/batch/events",
+                data = withArg<EncodedJsonRequestBody> {
+                    val batch = JSONObject(it.encodeToString()).getJSONArray("events").getJSONObject(0)
+                    val batchParams = batch.getJSONObject("batch_params")
+                    assertEquals("stored-session-id", batchParams.getString("session_id"))
+                    assertEquals("production", batchParams.getString("merchant_sdk_env"))
+                    assertEquals("stored-merchant-id", batchParams.getString("merchant_id"))
+                    assertEquals("stored-tokenization-key", batchParams.getString("tokenization_key"))
+                    assertFalse(batchParams.has("authorization_fingerprint"))
+                    assertEquals(storedEvent.toString(), batch.getJSONArray("event_params").getJSONObject(0).toString())
+                },
+                configuration = null,
+                authorization = null
+            )
+        }
+    }
+
+    @Test
+    fun `when httpClient post throws, upload throws`() = runTest {
+        every { deviceInspector.getDeviceMetadata(any(), any(), any(), any()) } returns deviceMetadata
+        coEvery { httpClient.post(any(), any<EncodedJsonRequestBody>(), any(), any()) } throws UnknownHostException("offline")
+        sut = createAnalyticsApi()
+        val session = AnalyticsSession("session-id", "tokenization-key", null, null, null, null)
+
+        assertFailsWith<UnknownHostException> {
+            sut.upload(mockk(relaxed = true), listOf("{}"), session)
+        }
+    }
+
     @Suppress("LongMethod")
     private fun getExpectedJson(authorization: Authorization): String {
         return when (authorization) {
@@ -1,16 +1,29 @@
 package com.braintreepayments.api.core
 
+import android.content.ComponentCallbacks2
+import android.content.Context
+import android.database.sqlite.SQLiteException
+import androidx.work.ExistingWorkPolicy
+import androidx.work.OneTimeWorkRequest
+import androidx.work.WorkManager
 import com.braintreepayments.api.core.Configuration.Companion.fromJson
 import com.braintreepayments.api.paypal.PayPalRecurringBillingPlanType
+import com.braintreepayments.api.sharedutils.HttpPhaseTimings
 import com.braintreepayments.api.sharedutils.Time
 import com.braintreepayments.api.testutils.Fixtures
+import io.mockk.MockKMatcherScope
+import io.mockk.coEvery
 import io.mockk.every
 import io.mockk.mockk
+import io.mockk.slot
 import io.mockk.verify
 import kotlinx.coroutines.ExperimentalCoroutinesApi
 import kotlinx.coroutines.test.StandardTestDispatcher
+import kotlinx.coroutines.test.TestDispatcher
 import kotlinx.coroutines.test.TestScope
+import kotlinx.coroutines.test.advanceTimeBy
 import kotlinx.coroutines.test.advanceUntilIdle
+import kotlinx.coroutines.test.runCurrent
 import kotlinx.coroutines.test.runTest
 import org.junit.Before
 import org.junit.Test
@@ -181,6 +194,371 @@ class AnalyticsClientUnitTest {
         }
     }
 
+    @OptIn(ExperimentalCoroutinesApi::class)
+    @Test
+    fun `when an event is buffered, buffered events are persisted and an upload is scheduled`() =
+    runTest {
+        val analyticsEventLog = mockk<AnalyticsEventLog>(relaxed = true)
+        val workManager = mockk<WorkManager>(relaxed = true)
+        val merchantRepository = mockk<MerchantRepository>(relaxed = true)
+        val eventJSON = "{\"event_name\":\"$eventName\"}"
+        every { analyticsEventRepository.flushAndReturnEvents() } returns listOf(expectedAnalyticsEvent)
+        every { analyticsApi.encodeFPTIEvent(expectedAnalyticsEvent) } returns eventJSON
+        every { analyticsParamRepository.sessionId } returns "session-id"
+        every { merchantRepository.authorization } returns Authorization.fromString(Fixtures.TOKENIZATION_KEY)
+        every { merchantRepository.integrationType } returns IntegrationType.CUSTOM
+
+        val testDispatcher = StandardTestDispatcher(testScheduler)
+        val sut = createAnalyticsClient(testDispatcher, merchantRepository, analyticsEventLog, workManager)
+
+        sut.sendEvent(
+            eventName = eventName,
+            analyticsEventParams = analyticsEventParams,
+            sendImmediately = false
+        )
+        advanceUntilIdle()
+
+        val expectedSession = AnalyticsSession(
+            sessionId = "session-id",
+            tokenizationKey = Fixtures.TOKENIZATION_KEY,
+            authorizationFingerprint = null,
+            environment = configuration.environment,
+            merchantId = configuration.merchantId,
+            integration = IntegrationType.CUSTOM.stringValue
+        )
+        verify { analyticsEventLog.append(listOf(eventJSON), expectedSession) }
+        verify {
+            workManager.enqueueUniqueWork(
+                AnalyticsUploadWorker.WORK_NAME,
+                ExistingWorkPolicy.APPEND_OR_REPLACE,
+                any<OneTimeWorkRequest>()
+            )
+        }
+    }
+
+    @OptIn(ExperimentalCoroutinesApi::class)
+    @Test
+    fun `when events are persisted with a client token, only its authorization fingerprint is stored`() = runTest {
+        val analyticsEventLog = mockk<AnalyticsEventLog>(relaxed = true)
+        val merchantRepository = mockk<MerchantRepository>(relaxed = true)
+        val clientToken = Authorization.fromString(Fixtures.BASE64_CLIENT_TOKEN) as ClientToken
+        every { analyticsEventRepository.flushAndReturnEvents() } returns listOf(expectedAnalyticsEvent)
+        every { merchantRepository.authorization } returns clientToken
+        val sut = createAnalyticsClient(
+            StandardTestDispatcher(testScheduler),
+            merchantRepository = merchantRepository,
+            analyticsEventLog = analyticsEventLog
+        )
+
+        sut.sendEvent(eventName, sendImmediately = false)
+        advanceUntilIdle()
+
+        verify {
+            analyticsEventLog.append(
+                any(),
+                match { it.authorizationFingerprint == clientToken.bearer && it.tokenizationKey == null }
+            )
+        }
+    }
+
+    @OptIn(ExperimentalCoroutinesApi::class)
+    @Test
+    fun `when fewer than maxBufferedEvents are buffered, they are persisted together after maxBufferAge`() =
+    runTest {
+        val analyticsEventLog = mockk<AnalyticsEventLog>(relaxed = true)
+        every { analyticsEventRepository.flushAndReturnEvents() } returns listOf(expectedAnalyticsEvent)
+        val flushPolicy = AnalyticsFlushPolicy(maxBufferedEvents = 3, maxBufferAgeMillis = 10_000)
+        val sut = createAnalyticsClient(
+            StandardTestDispatcher(testScheduler),
+            analyticsEventLog = analyticsEventLog,
+            flushPolicy = flushPolicy
+        )
+
+        sut.sendEvent(eventName, sendImmediately = false)
+        runCurrent()
+        advanceTimeBy(5_000)
+        sut.sendEvent(eventName, sendImmediately = false)
+        runCurrent()
+
+        verify(exactly = 0) { analyticsEventLog.append(any(), any()) }
+
+        advanceTimeBy(5_001)
+
+        verify(exactly = 1) { analyticsEventLog.append(any(), any()) }
+    }
+
+    @OptIn(ExperimentalCoroutinesApi::class)
+    @Test
+    fun `when maxBufferedEvents are buffered, they are persisted without waiting for maxBufferAge`() = runTest {
+        val analyticsEventLog = mockk<AnalyticsEventLog>(relaxed = true)
+        every { analyticsEventRepository.flushAndReturnEvents() } returns listOf(expectedAnalyticsEvent)
+        val flushPolicy = AnalyticsFlushPolicy(maxBufferedEvents = 3, maxBufferAgeMillis = 10_000)
+        val sut = createAnalyticsClient(
+            StandardTestDispatcher(testScheduler),
+            analyticsEventLog = analyticsEventLog,
+            flushPolicy = flushPolicy
+        )
+
+        repeat(3) { sut.sendEvent(eventName, sendImmediately = false) }
+        runCurrent()
+
+        verify(exactly = 1) { analyticsEventLog.append(any(), any()) }
+
+        advanceUntilIdle()
+
+        verify(exactly = 1) { analyticsEventLog.append(any(), any()) }
+    }
+
+    @OptIn(ExperimentalCoroutinesApi::class)
+    @Test
+    fun `when buffered events cannot be persisted, they are buffered in memory again`() = runTest {
+        val analyticsEventLog = mockk<AnalyticsEventLog>()
+        val workManager = mockk<WorkManager>(relaxed = true)
+        every { analyticsEventRepository.flushAndReturnEvents() } returns listOf(expectedAnalyticsEvent)
+        every { analyticsEventLog.append(any(), any()) } throws SQLiteException("disk I/O error")
+
+        val testDispatcher = StandardTestDispatcher(testScheduler)
+        val sut = createAnalyticsClient(testDispatcher, mockk(relaxed = true), analyticsEventLog, workManager)
+
+        sut.sendEvent(
+            eventName = eventName,
+            analyticsEventParams = analyticsEventParams,
+            sendImmediately = false
+        )
+        advanceUntilIdle()
+
+        verify(exactly = 2) { analyticsEventRepository.addEvent(expectedAnalyticsEvent) }
+        verify(exactly = 0) { workManager.enqueueUniqueWork(any(), any(), any<OneTimeWorkRequest>()) }
+    }
+
+    @OptIn(ExperimentalCoroutinesApi::class)
+    @Test
+    fun `when events are sent immediately, they are uploaded together once the oldest has waited maxBatchAge`() =
+    runTest {
+        every { time.currentTime } answers { testScheduler.currentTime }
+        val flushPolicy = AnalyticsFlushPolicy(maxBatchSize = 10, maxBatchAgeMillis = 5_000)
+        val sut = createAnalyticsClient(StandardTestDispatcher(testScheduler), flushPolicy = flushPolicy)
+
+        sut.sendEvent("event-1")
+        runCurrent()
+        advanceTimeBy(4_000)
+        sut.sendEvent("event-2")
+        runCurrent()
+
+        verify(exactly = 0) { analyticsApi.execute(any(), any()) }
+
+        advanceTimeBy(1_001)
+
+        verify(exactly = 1) { analyticsApi.execute(any(), any()) }
+        verify { analyticsApi.execute(eventsNamed("event-1", "event-2"), configuration) }
+    }
+
+    @OptIn(ExperimentalCoroutinesApi::class)
+    @Test
+    fun `when the configuration cannot be loaded, the pending batch is uploaded maxBatchAge later`() = runTest {
+        every { time.currentTime } answers { testScheduler.currentTime }
+        configurationLoader = mockk()
+        coEvery { configurationLoader.loadConfiguration() } returnsMany listOf(
+            ConfigurationLoaderResult.Failure(IOException("offline")),
+            ConfigurationLoaderResult.Success(configuration)
+        )
+        val flushPolicy = AnalyticsFlushPolicy(maxBatchAgeMillis = 5_000)
+        val sut = createAnalyticsClient(StandardTestDispatcher(testScheduler), flushPolicy = flushPolicy)
+
+        sut.sendEvent("event-1")
+        runCurrent()
+        advanceTimeBy(5_001)
+
+        verify(exactly = 0) { analyticsApi.execute(any(), any()) }
+
+        advanceTimeBy(5_000)
+
+        verify(exactly = 1) { analyticsApi.execute(eventsNamed("event-1"), configuration) }
+    }
+
+    @OptIn(ExperimentalCoroutinesApi::class)
+    @Test
+    fun `when the app goes to the background, the pending batch is moved into the event log`() = runTest {
+        val applicationContext = mockk<Context>(relaxed = true)
+        val merchantRepository = mockk<MerchantRepository>(relaxed = true)
+        val analyticsEventLog = mockk<AnalyticsEventLog>(relaxed = true)
+        val backgroundCallback = slot<ComponentCallbacks2>()
+        every { merchantRepository.applicationContext } returns applicationContext
+        every { applicationContext.registerComponentCallbacks(capture(backgroundCallback)) } returns Unit
+        every { analyticsEventRepository.flushAndReturnEvents() } returns listOf(expectedAnalyticsEvent)
+        val sut = createAnalyticsClient(
+            StandardTestDispatcher(testScheduler),
+            merchantRepository = merchantRepository,
+            analyticsEventLog = analyticsEventLog
+        )
+
+        sut.sendEvent("event-1")
+        runCurrent()
+        backgroundCallback.captured.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN)
+        advanceUntilIdle()
+
+        verify { analyticsEventRepository.addEvent(match { it.name == "event-1" }) }
+        verify { analyticsEventLog.append(any(), any()) }
+        verify { applicationContext.unregisterComponentCallbacks(backgroundCallback.captured) }
+        verify(exactly = 0) { analyticsApi.execute(any(), any()) }
+    }
+
+    @OptIn(ExperimentalCoroutinesApi::class)
+    @Test
+    fun `once the pending batch is uploaded, the background callback is unregistered`() = runTest {
+        val applicationContext = mockk<Context>(relaxed = true)
+        val merchantRepository = mockk<MerchantRepository>(relaxed = true)
+        every { merchantRepository.applicationContext } returns applicationContext
+        val sut = createAnalyticsClient(StandardTestDispatcher(testScheduler), merchantRepository)
+
+        sut.sendEvent("event-1")
+        runCurrent()
+
+        verify(exactly = 1) { applicationContext.registerComponentCallbacks(any()) }
+        verify(exactly = 0) { applicationContext.unregisterComponentCallbacks(any()) }
+
+        advanceUntilIdle()
+
+        verify { analyticsApi.execute(eventsNamed("event-1"), configuration) }
+        verify(exactly = 1) { applicationContext.unregisterComponentCallbacks(any()) }
+    }
+
+    @OptIn(ExperimentalCoroutinesApi::class)
+    @Test
+    fun `when the pending batch is full, it is uploaded no sooner than minUploadInterval after the last upload`() =
+    runTest {
+        every { time.currentTime } answers { testScheduler.currentTime }
+        val flushPolicy = AnalyticsFlushPolicy(maxBatchSize = 2, minUploadIntervalMillis = 1_000)
+        val sut = createAnalyticsClient(StandardTestDispatcher(testScheduler), flushPolicy = flushPolicy)
+
+        sut.sendEvent("event-1")
+        sut.sendEvent("event-2")
+        runCurrent()
+
+        verify { analyticsApi.execute(eventsNamed("event-1", "event-2"), configuration) }
+
+        sut.sendEvent("event-3")
+        sut.sendEvent("event-4")
+        runCurrent()
+
+        verify(exactly = 1) { analyticsApi.execute(any(), any()) }
+
+        advanceTimeBy(1_001)
+
+        verify { analyticsApi.execute(eventsNamed("event-3", "event-4"), configuration) }
+    }
+
+    @OptIn(ExperimentalCoroutinesApi::class)
+    @Test
+    fun `when latencies are aggregated, a histogram event per endpoint is buffered once the window closes`() =
+    runTest {
+        every { time.currentTime } answers { testScheduler.currentTime }
+        val flushPolicy = AnalyticsFlushPolicy(latencyWindowMillis = 60_000)
+        val sut = createAnalyticsClient(StandardTestDispatcher(testScheduler), flushPolicy = flushPolicy)
+
+        sut.sendLatencyEvent("/v1/configuration", 100)
+        sut.sendLatencyEvent("/v1/configuration", 250)
+        sut.sendLatencyEvent("TokenizeCreditCard", 40)
+        runCurrent()
+        advanceTimeBy(59_000)
+
+        verify(exactly = 0) { analyticsEventRepository.addEvent(any()) }
+
+        advanceTimeBy(1_001)
+
+        verify {
+            analyticsEventRepository.addEvent(match {
+                it.name == CoreAnalytics.API_REQUEST_LATENCY_HISTOGRAM &&
+                    it.endpoint == "/v1/configuration" &&
+                    it.startTime == 0L && it.endTime == 60_000L &&
+                    it.latencySummary?.sampleCount == 2 && it.latencySummary?.maxMillis == 250L
+            })
+        }
+        verify {
+            analyticsEventRepository.addEvent(match {
+                it.endpoint == "TokenizeCreditCard" && it.latencySummary?.sampleCount == 1
+            })
+        }
+        verify(exactly = 2) { analyticsEventRepository.addEvent(any()) }
+    }
+
+    @OptIn(ExperimentalCoroutinesApi::class)
+    @Test
+    fun `when latencies are aggregated, the histogram event carries the mean phase timings`() = runTest {
+        every { time.currentTime } answers { testScheduler.currentTime }
+        val sut = createAnalyticsClient(StandardTestDispatcher(testScheduler))
+
+        sut.sendLatencyEvent(
+            "/v1/configuration",
+            200,
+            HttpPhaseTimings(dnsDuration = 20, connectDuration = 60, tlsDuration = 40, timeToFirstByte = 100)
+        )
+        sut.sendLatencyEvent(
+            "/v1/configuration",
+            100,
+            HttpPhaseTimings(timeToFirstByte = 80, isConnectionReused = true)
+        )
+        advanceUntilIdle()
+
+        verify {
+            analyticsEventRepository.addEvent(match {
+                it.latencySummary?.phases == PhaseTimingSummary(
+                    sampleCount = 2,
+                    meanDnsMillis = 10,
+                    meanConnectMillis = 30,
+                    meanTlsMillis = 20,
+                    meanTimeToFirstByteMillis = 90,
+                    meanResponseBodyMillis = 0,
+                    reusedConnectionCount = 1
+                )
+            })
+        }
+    }
+
+    @OptIn(ExperimentalCoroutinesApi::class)
+    @Test
+    fun `when latencies are reported per request, each latency is buffered as its own event`() = runTest {
+        val flushPolicy = AnalyticsFlushPolicy(latencyReporting = LatencyReporting.PER_REQUEST)
+        val sut = createAnalyticsClient(StandardTestDispatcher(testScheduler), flushPolicy = flushPolicy)
+
+        sut.sendLatencyEvent("/v1/configuration", 100)
+        sut.sendLatencyEvent("/v1/configuration", 250)
+        advanceUntilIdle()
+
+        verify(exactly = 2) {
+            analyticsEventRepository.addEvent(match {
+                it.name == CoreAnalytics.API_REQUEST_LATENCY && it.latencySummary == null
+            })
+        }
+    }
+
+    @OptIn(ExperimentalCoroutinesApi::class)
+    @Test
+    fun `when reportCrash is called, aggregated latencies are sent with the crash event`() = runTest {
+        val sut = createAnalyticsClient(StandardTestDispatcher(testScheduler))
+
+        sut.sendLatencyEvent("/v1/configuration", 100)
+        sut.reportCrash(configuration)
+
+        verify {
+            analyticsApi.execute(
+                eventsNamed(CoreAnalytics.API_REQUEST_LATENCY_HISTOGRAM, "crash"),
+                configuration
+            )
+        }
+    }
+
+    @OptIn(ExperimentalCoroutinesApi::class)
+    @Test
+    fun `when reportCrash is called, pending events are sent with the crash event`() = runTest {
+        val sut = createAnalyticsClient(StandardTestDispatcher(testScheduler))
+
+        sut.sendEvent("pending-event")
+        sut.reportCrash(configuration)
+
+        verify { analyticsApi.execute(eventsNamed("pending-event", "crash"), configuration) }
+    }
+
     @Test
     fun `when reportCrash is called, the events api is executed`() {
         val expectedCrashEvent = AnalyticsEvent(
@@ -197,4 +575,45 @@ class AnalyticsClientUnitTest {
             )
         }
     }
+
+    @OptIn(ExperimentalCoroutinesApi::class)
+    private fun createAnalyticsClient(
+        testDispatcher: TestDispatcher,
+        merchantRepository: MerchantRepository = mockk(relaxed = true),
+        analyticsEventLog: AnalyticsEventLog = mockk(relaxed = true),
+        workManager: WorkManager = mockk(relaxed = true),
+        flushPolicy: AnalyticsFlushPolicy = AnalyticsFlushPolicy(),
+    ) = AnalyticsClient(
+        analyticsApi = analyticsApi,
+        analyticsParamRepository = analyticsParamRepository,
+        analyticsEventRepository = analyticsEventRepository,
+        time = time,
+        configurationLoader = configurationLoader,
+        dispatcher = testDispatcher,
+        coroutineScope = TestScope(testDispatcher),
+        merchantRepository = merchantRepository,
+        ioDispatcher = testDispatcher,
+        lazyAnalyticsEventLog = lazyOf(analyticsEventLog),
+        lazyWorkManager = lazyOf(workManager),
+        flushPolicy = flushPolicy,
+        latencyHistogramRepository = LatencyHistogramRepository(),
+    )
+
+    private fun AnalyticsClient.sendLatencyEvent(
+        endpoint: String,
+        latencyMillis: Long,
+        phaseTimings: HttpPhaseTimings? = null,
+    ) = sendEvent(
+        eventName = CoreAnalytics.API_REQUEST_LATENCY,
+        analyticsEventParams = AnalyticsEventParams(
+            startTime = 1_000,
+            endTime = 1_000 + latencyMillis,
+            endpoint = endpoint,
+            phaseTimings = phaseTimings
+        ),
+        sendImmediately = false
+    )
+
+    private fun MockKMatcherScope.eventsNamed(vararg names: String) =
+        match<List<AnalyticsEvent>> { events -> events.map { it.name } == names.toList() }
 }
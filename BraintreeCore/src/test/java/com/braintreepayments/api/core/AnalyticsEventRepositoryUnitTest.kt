@@ -3,6 +3,9 @@ package com.braintreepayments.api.core
 import io.mockk.mockk
 import org.junit.Before
 import org.junit.Test
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.atomic.AtomicBoolean
+import kotlin.concurrent.thread
 import kotlin.test.assertEquals
 
 class AnalyticsEventRepositoryUnitTest {
@@ -44,4 +47,61 @@ class AnalyticsEventRepositoryUnitTest {
 
         assertEquals(emptyList(), result)
     }
+
+    @Test
+    fun `when more events are added than the capacity, the oldest events are dropped and counted`() {
+        sut = AnalyticsEventRepository(capacity = 3)
+        val events = List(5) { AnalyticsEvent(name = "event-$it", timestamp = it.toLong()) }
+
+        events.forEach { sut.addEvent(it) }
+
+        assertEquals(events.takeLast(3), sut.flushAndReturnEvents())
+        assertEquals(2L, sut.droppedEventCount)
+    }
+
+    @Test
+    fun `when events are added after a flush, they are returned in the order they were added`() {
+        sut = AnalyticsEventRepository(capacity = 3)
+        val events = List(4) { AnalyticsEvent(name = "event-$it", timestamp = it.toLong()) }
+        sut.addEvent(events[0])
+        sut.flushAndReturnEvents()
+
+        events.drop(1).forEach { sut.addEvent(it) }
+
+        assertEquals(events.drop(1), sut.flushAndReturnEvents())
+        assertEquals(0L, sut.droppedEventCount)
+    }
+
+    @Test
+    fun `when events are added and flushed from many threads, every event is either flushed once or dropped`() {
+        sut = AnalyticsEventRepository(capacity = 64)
+        val producerCount = 8
+        val eventsPerProducer = 10_000
+        val start = CountDownLatch(1)
+        val producersDone = AtomicBoolean(false)
+        val flushed = mutableListOf<AnalyticsEvent>()
+
+        val producers = List(producerCount) { producer ->
+            thread {
+                start.await()
+                repeat(eventsPerProducer) {
+                    sut.addEvent(AnalyticsEvent(name = "event-$producer-$it", timestamp = it.toLong()))
+                }
+            }
+        }
+        val flusher = thread {
+            start.await()
+            while (!producersDone.get()) {
+                flushed += sut.flushAndReturnEvents()
+            }
+        }
+        start.countDown()
+        producers.forEach { it.join() }
+        producersDone.set(true)
+        flusher.join()
+        flushed += sut.flushAndReturnEvents()
+
+        assertEquals(flushed.size, flushed.toSet().size)
+        assertEquals((producerCount * eventsPerProducer).toLong(), flushed.size + sut.droppedEventCount)
+    }
 }
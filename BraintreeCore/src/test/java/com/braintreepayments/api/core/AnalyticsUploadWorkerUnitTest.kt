@@ -0,0 +1,147 @@
+package com.braintreepayments.api.core
+
+import android.content.Context
+import androidx.test.core.app.ApplicationProvider
+import androidx.work.Data
+import androidx.work.ListenableWorker
+import androidx.work.NetworkType
+import androidx.work.WorkerParameters
+import com.braintreepayments.api.testutils.Fixtures
+import io.mockk.coEvery
+import io.mockk.coVerify
+import io.mockk.every
+import io.mockk.mockk
+import io.mockk.verify
+import kotlinx.coroutines.test.runTest
+import org.json.JSONObject
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import java.io.IOException
+import java.util.concurrent.TimeUnit
+import kotlin.test.assertEquals
+
+@RunWith(RobolectricTestRunner::class)
+class AnalyticsUploadWorkerUnitTest {
+
+    private lateinit var context: Context
+    private val analyticsEventLog = mockk<AnalyticsEventLog>(relaxed = true)
+    private val analyticsApi = mockk<AnalyticsApi>(relaxed = true)
+    private val workerParameters = mockk<WorkerParameters>(relaxed = true)
+
+    @Before
+    fun setUp() {
+        context = ApplicationProvider.getApplicationContext()
+        every { workerParameters.runAttemptCount } returns 0
+        every { analyticsEventLog.readSession(any()) } answers { session(firstArg()) }
+    }
+
+    @Test
+    fun `createWorkRequest requires a network connection and delays the upload`() {
+        val workSpec = AnalyticsUploadWorker.createWorkRequest().workSpec
+
+        assertEquals(NetworkType.CONNECTED, workSpec.constraints.requiredNetworkType)
+        assertEquals(TimeUnit.SECONDS.toMillis(30), workSpec.initialDelay)
+        assertEquals(Data.EMPTY, workSpec.input)
+    }
+
+    @Test
+    fun `doWork uploads one batch per session with its stored session and removes the uploaded events`() = runTest {
+        val session1Events = listOf(eventBlob(1, "session-1"), eventBlob(3, "session-1"))
+        val session2Events = listOf(eventBlob(2, "session-2"))
+        every { analyticsEventLog.readOldest(AnalyticsUploadWorker.MAX_BATCH_SIZE) } returnsMany listOf(
+            listOf(session1Events[0], session2Events[0], session1Events[1]),
+            emptyList()
+        )
+
+        val result = createWorker().doWork()
+
+        assertEquals(ListenableWorker.Result.success(), result)
+        coVerify {
+            analyticsApi.upload(
+                context = any(),
+                events = match { events -> events.map { JSONObject(it).getInt("t") } == listOf(1, 3) },
+                session = session("session-1")
+            )
+        }
+        coVerify { analyticsApi.upload(any(), match { it.size == 1 }, session("session-2")) }
+        verify { analyticsEventLog.remove(session1Events) }
+        verify { analyticsEventLog.remove(session2Events) }
+    }
+
+    @Test
+    fun `doWork reads the log until it is empty`() = runTest {
+        val fullBatch = List(AnalyticsUploadWorker.MAX_BATCH_SIZE) { eventBlob(it.toLong(), "session-id") }
+        every { analyticsEventLog.readOldest(AnalyticsUploadWorker.MAX_BATCH_SIZE) } returnsMany listOf(
+            fullBatch,
+            listOf(eventBlob(100, "session-id")),
+            emptyList()
+        )
+
+        createWorker().doWork()
+
+        verify(exactly = 3) { analyticsEventLog.readOldest(AnalyticsUploadWorker.MAX_BATCH_SIZE) }
+        coVerify(exactly = 2) { analyticsApi.upload(any(), any(), any()) }
+    }
+
+    @Test
+    fun `when the session of events is not in the log, doWork removes them without uploading them`() = runTest {
+        val events = listOf(eventBlob(1, "session-id"))
+        every { analyticsEventLog.readOldest(any()) } returnsMany listOf(events, emptyList())
+        every { analyticsEventLog.readSession("session-id") } returns null
+
+        val result = createWorker().doWork()
+
+        assertEquals(ListenableWorker.Result.success(), result)
+        coVerify(exactly = 0) { analyticsApi.upload(any(), any(), any()) }
+        verify { analyticsEventLog.remove(events) }
+    }
+
+    @Test
+    fun `when a session has no credential, doWork removes its events without uploading them`() = runTest {
+        val events = listOf(eventBlob(1, "session-id"))
+        every { analyticsEventLog.readOldest(any()) } returnsMany listOf(events, emptyList())
+        every { analyticsEventLog.readSession("session-id") } returns
+            session("session-id").copy(tokenizationKey = null)
+
+        createWorker().doWork()
+
+        coVerify(exactly = 0) { analyticsApi.upload(any(), any(), any()) }
+        verify { analyticsEventLog.remove(events) }
+    }
+
+    @Test
+    fun `when an upload fails, doWork retries and keeps the events in the log`() = runTest {
+        every { analyticsEventLog.readOldest(any()) } returns listOf(eventBlob(1, "session-id"))
+        coEvery { analyticsApi.upload(any(), any(), any()) } throws IOException("offline")
+
+        val result = createWorker().doWork()
+
+        assertEquals(ListenableWorker.Result.retry(), result)
+        verify(exactly = 0) { analyticsEventLog.remove(any()) }
+    }
+
+    @Test
+    fun `when an upload fails on the last attempt, doWork fails`() = runTest {
+        every { workerParameters.runAttemptCount } returns 4
+        every { analyticsEventLog.readOldest(any()) } returns listOf(eventBlob(1, "session-id"))
+        coEvery { analyticsApi.upload(any(), any(), any()) } throws IOException("offline")
+
+        assertEquals(ListenableWorker.Result.failure(), createWorker().doWork())
+    }
+
+    private fun createWorker() = AnalyticsUploadWorker(context, workerParameters, analyticsEventLog, analyticsApi)
+
+    private fun session(sessionId: String) = AnalyticsSession(
+        sessionId = sessionId,
+        tokenizationKey = Fixtures.TOKENIZATION_KEY,
+        authorizationFingerprint = null,
+        environment = "sandbox",
+        merchantId = "merchant-id",
+        integration = IntegrationType.CUSTOM.stringValue
+    )
+
+    private fun eventBlob(id: Long, sessionId: String) =
+        AnalyticsEventBlob(jsonString = "{\"event_name\":\"event-$id\",\"t\":$id}", sessionId = sessionId, id = id)
+}
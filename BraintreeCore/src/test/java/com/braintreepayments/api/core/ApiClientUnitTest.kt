@@ -1,6 +1,7 @@
 package com.braintreepayments.api.core
 
 import com.braintreepayments.api.card.Card
+import com.braintreepayments.api.sharedutils.ResponseBodyDecoder
 import com.braintreepayments.api.testutils.Fixtures
 import com.braintreepayments.api.testutils.MockkBraintreeClientBuilder
 import io.mockk.*
@@ -44,7 +45,7 @@ class ApiClientUnitTest {
             .build()
 
         every { analyticsParamRepository.sessionId } returns "session-id"
-        val bodySlot = slot<String>()
+        val bodySlot = slot<JSONObject>()
         coEvery {
             braintreeClient.sendPOST(
                 url = any<String>(),
@@ -66,11 +67,11 @@ class ApiClientUnitTest {
         coVerify {
             braintreeClient.sendPOST(
                 url = any<String>(),
-                data = any<String>(),
+                data = any<JSONObject>(),
             )
         }
 
-        val data = JSONObject(bodySlot.captured).getJSONObject("_meta")
+        val data = bodySlot.captured.getJSONObject("_meta")
         assertEquals("session-id", data.getString("sessionId"))
     }
 
@@ -92,7 +93,7 @@ class ApiClientUnitTest {
         coVerify(inverse = true) {
             braintreeClient.sendPOST(
                 url = any<String>(),
-                data = any<String>(),
+                data = any<JSONObject>(),
             )
         }
         assertEquals(card.buildJSONForGraphQL().toString(), graphQLBodySlot.captured.toString())
@@ -129,11 +130,39 @@ class ApiClientUnitTest {
         coVerify {
             braintreeClient.sendPOST(
                 url = any<String>(),
-                data = any<String>(),
+                data = any<JSONObject>(),
             )
         }
     }
 
+    @Test
+    fun `when tokenizeREST is called with a decoder, the decoded response is returned`() = runTest(testDispatcher) {
+        val braintreeClient = MockkBraintreeClientBuilder().build()
+        every { analyticsParamRepository.sessionId } returns "session-id"
+        val decoder = ResponseBodyDecoder { "fake-nonce" }
+        coEvery {
+            braintreeClient.sendPOST(url = "/v1/payment_methods/credit_cards", data = any(), decoder = decoder)
+        } returns "fake-nonce"
+
+        val sut = ApiClient(braintreeClient, analyticsParamRepository)
+        val card = Card()
+
+        assertEquals("fake-nonce", sut.tokenizeREST(card, decoder))
+        assertEquals("session-id", card.sessionId)
+    }
+
+    @Test
+    fun `when tokenizeGraphQL is called with a decoder, the decoded response is returned`() = runTest(testDispatcher) {
+        val braintreeClient = MockkBraintreeClientBuilder().build()
+        val decoder = ResponseBodyDecoder { "fake-nonce" }
+        val tokenizePayload = Card().buildJSONForGraphQL()
+        coEvery { braintreeClient.sendGraphQLPOST(tokenizePayload, decoder) } returns "fake-nonce"
+
+        val sut = ApiClient(braintreeClient, analyticsParamRepository)
+
+        assertEquals("fake-nonce", sut.tokenizeGraphQL(tokenizePayload, decoder))
+    }
+
     @Test
     fun `when versionedPath is called, the given path is prefixed with v1`() {
         assertEquals("/v1/test/path", ApiClient.versionedPath("test/path"))
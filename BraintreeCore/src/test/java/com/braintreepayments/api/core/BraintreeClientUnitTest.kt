@@ -7,9 +7,12 @@ import androidx.fragment.app.FragmentActivity
 import androidx.test.core.app.ApplicationProvider
 import androidx.work.testing.WorkManagerTestInitHelper
 import com.braintreepayments.api.BrowserSwitchClient
+import com.braintreepayments.api.sharedutils.DecodedHttpResponse
 import com.braintreepayments.api.sharedutils.HttpResponse
 import com.braintreepayments.api.sharedutils.HttpResponseTiming
+import com.braintreepayments.api.sharedutils.HttpStatusException
 import com.braintreepayments.api.sharedutils.ManifestValidator
+import com.braintreepayments.api.sharedutils.ResponseBodyDecoder
 import com.braintreepayments.api.testutils.Fixtures
 import io.mockk.coEvery
 import io.mockk.coVerify
@@ -17,6 +20,9 @@ import io.mockk.every
 import io.mockk.mockk
 import io.mockk.verify
 import kotlinx.coroutines.ExperimentalCoroutinesApi
+import kotlinx.coroutines.async
+import kotlinx.coroutines.awaitAll
+import kotlinx.coroutines.delay
 import kotlinx.coroutines.test.StandardTestDispatcher
 import kotlinx.coroutines.test.TestScope
 import kotlinx.coroutines.test.advanceUntilIdle
@@ -30,6 +36,7 @@ import org.junit.Before
 import org.junit.Test
 import org.junit.runner.RunWith
 import org.robolectric.RobolectricTestRunner
+import java.net.SocketTimeoutException
 
 @OptIn(ExperimentalCoroutinesApi::class)
 @RunWith(RobolectricTestRunner::class)
@@ -47,6 +54,7 @@ class BraintreeClientUnitTest {
     private lateinit var browserSwitchClient: BrowserSwitchClient
     private lateinit var expectedAuthException: BraintreeException
     private lateinit var merchantRepository: MerchantRepository
+    private lateinit var networkPerformanceReporter: NetworkPerformanceReporter
     private lateinit var testScope: TestScope
     private val testDispatcher = StandardTestDispatcher()
 
@@ -64,6 +72,7 @@ class BraintreeClientUnitTest {
         manifestValidator = mockk(relaxed = true)
         browserSwitchClient = mockk(relaxed = true)
         merchantRepository = mockk(relaxed = true)
+        networkPerformanceReporter = mockk(relaxed = true)
 
         testScope = TestScope(testDispatcher)
 
@@ -291,7 +300,7 @@ class BraintreeClientUnitTest {
         coEvery {
             braintreeHttpClient.post(
                 path = any(),
-                data = any(),
+                data = any<String>(),
                 configuration = any(),
                 authorization = any(),
                 additionalHeaders = emptyMap()
@@ -314,7 +323,7 @@ class BraintreeClientUnitTest {
         coVerify {
             braintreeHttpClient.post(
                 path = any(),
-                data = any(),
+                data = any<String>(),
                 configuration = any(),
                 authorization = any(),
                 additionalHeaders = emptyMap()
@@ -334,7 +343,7 @@ class BraintreeClientUnitTest {
         coEvery {
             braintreeHttpClient.post(
                 path = any(),
-                data = any(),
+                data = any<String>(),
                 configuration = any(),
                 authorization = any(),
                 additionalHeaders = headers
@@ -358,7 +367,7 @@ class BraintreeClientUnitTest {
         coVerify {
             braintreeHttpClient.post(
                 path = any(),
-                data = any(),
+                data = any<String>(),
                 configuration = any(),
                 authorization = any(),
                 additionalHeaders = headers
@@ -394,10 +403,11 @@ class BraintreeClientUnitTest {
             .configuration(configuration)
             .build()
 
+        val json = JSONObject()
         val mockResponse = HttpResponse(body = "{}", timing = HttpResponseTiming(0, 0))
         coEvery {
             braintreeGraphQLClient.post(
-                "{}",
+                json,
                 configuration,
                 authorization
             )
@@ -409,12 +419,12 @@ class BraintreeClientUnitTest {
             testScope = testScope
         )
 
-        val response = sut.sendGraphQLPOST(JSONObject())
+        val response = sut.sendGraphQLPOST(json)
         advanceUntilIdle()
 
         coVerify {
             braintreeGraphQLClient.post(
-                "{}",
+                json,
                 configuration,
                 authorization
             )
@@ -581,6 +591,221 @@ class BraintreeClientUnitTest {
         verify(exactly = 0) { merchantRepository.appLinkReturnUri = null }
     }
 
+    @Test
+    fun `when sendPOST succeeds, reports network performance for the cleaned endpoint`() = runTest(testDispatcher) {
+        val configuration = mockk<Configuration>(relaxed = true)
+        val configurationLoader = MockkConfigurationLoaderBuilder()
+            .configuration(configuration)
+            .build()
+
+        val timing = HttpResponseTiming(10, 30)
+        val url = "/merchants/merchant-id/client_api/v1/payment_methods/credit_cards"
+        coEvery {
+            braintreeHttpClient.post(url, "{}", configuration, authorization, emptyMap())
+        } returns HttpResponse(body = "{}", timing = timing, statusCode = 201)
+
+        val sut = createBraintreeClient(
+            configurationLoader = configurationLoader,
+            testDispatcher = testDispatcher,
+            testScope = testScope
+        )
+        sut.sendPOST(url, "{}")
+
+        verify {
+            networkPerformanceReporter.report("/v1/payment_methods/credit_cards", 201, timing)
+        }
+    }
+
+    @Test
+    fun `when sendGET receives an error status, reports network performance and rethrows`() = runTest(testDispatcher) {
+        val configuration = mockk<Configuration>(relaxed = true)
+        val configurationLoader = MockkConfigurationLoaderBuilder()
+            .configuration(configuration)
+            .build()
+
+        val timing = HttpResponseTiming(10, 30)
+        val exception = HttpStatusException(422, timing, "Unprocessable Entity")
+        coEvery {
+            braintreeHttpClient.get("sample-url", configuration, authorization)
+        } throws exception
+
+        val sut = createBraintreeClient(
+            configurationLoader = configurationLoader,
+            testDispatcher = testDispatcher,
+            testScope = testScope
+        )
+
+        try {
+            sut.sendGET("sample-url")
+            fail("Must throw an exception")
+        } catch (e: HttpStatusException) {
+            assertSame(exception, e)
+        }
+        verify { networkPerformanceReporter.report("sample-url", 422, timing) }
+    }
+
+    @Test
+    fun `when sendGET fails before a response is received, reports the failure and rethrows`() =
+    runTest(testDispatcher) {
+        val configuration = mockk<Configuration>(relaxed = true)
+        val configurationLoader = MockkConfigurationLoaderBuilder()
+            .configuration(configuration)
+            .build()
+
+        val exception = SocketTimeoutException("timeout")
+        coEvery { braintreeHttpClient.get("sample-url", configuration, authorization) } throws exception
+
+        val sut = createBraintreeClient(
+            configurationLoader = configurationLoader,
+            testDispatcher = testDispatcher,
+            testScope = testScope
+        )
+
+        try {
+            sut.sendGET("sample-url")
+            fail("Must throw an exception")
+        } catch (e: SocketTimeoutException) {
+            assertSame(exception, e)
+        }
+        verify {
+            networkPerformanceReporter.report(
+                endpoint = "sample-url",
+                statusCode = NetworkPerformanceReporter.NO_RESPONSE,
+                timing = match { it.endTime >= it.startTime && it.phases == null },
+                exception = exception
+            )
+        }
+    }
+
+    @Test
+    fun `when getConfiguration is called concurrently, the configuration fetch is reported once`() =
+    runTest(testDispatcher) {
+        val configurationCache = mockk<ConfigurationCache>(relaxed = true)
+        coEvery { configurationCache.getCachedConfiguration(any(), any()) } returns null
+        coEvery { configurationCache.getStaleConfiguration(any(), any(), any()) } returns null
+        coEvery { configurationCache.getRevalidationHeaders(any()) } returns emptyMap()
+        val configurationHttpClient = mockk<BraintreeHttpClient>()
+        coEvery { configurationHttpClient.get(any(), any(), any(), any(), any()) } coAnswers {
+            delay(1000)
+            HttpResponse(Fixtures.CONFIGURATION_WITH_ENVIRONMENT, HttpResponseTiming(0, 10))
+        }
+        val configurationLoader = ConfigurationLoader(
+            httpClient = configurationHttpClient,
+            merchantRepository = MerchantRepository.instance,
+            configurationCache = configurationCache,
+            dispatcher = testDispatcher,
+            hedging = null,
+            lazyAnalyticsClient = lazyOf(analyticsClient)
+        )
+
+        val sut = createBraintreeClient(
+            configurationLoader = configurationLoader,
+            testDispatcher = testDispatcher,
+            testScope = testScope
+        )
+        List(3) { async { sut.getConfiguration() } }.awaitAll()
+        testScope.advanceUntilIdle()
+
+        coVerify(exactly = 1) { configurationHttpClient.get(any(), any(), any(), any(), any()) }
+        verify(exactly = 1) { networkPerformanceReporter.report("/v1/configuration", 200, any()) }
+        verify(exactly = 1) { analyticsClient.sendEvent(CoreAnalytics.API_REQUEST_LATENCY, any(), any()) }
+    }
+
+    @Test
+    fun `when the configuration is revalidated, getConfiguration reports the 304 status`() = runTest(testDispatcher) {
+        val configuration = Configuration.fromJson(Fixtures.CONFIGURATION_WITH_ENVIRONMENT)
+        val timing = HttpResponseTiming(10, 30)
+        val configurationLoader = mockk<ConfigurationLoader>()
+        coEvery {
+            configurationLoader.loadConfiguration()
+        } returns ConfigurationLoaderResult.Success(configuration, timing, 304)
+
+        val sut = createBraintreeClient(
+            configurationLoader = configurationLoader,
+            testDispatcher = testDispatcher,
+            testScope = testScope
+        )
+        sut.getConfiguration()
+
+        verify { networkPerformanceReporter.report("/v1/configuration", 304, timing) }
+    }
+
+    @Test
+    fun `when sendGraphQLPOST succeeds, reports network performance for the query name`() = runTest(testDispatcher) {
+        val configuration = mockk<Configuration>(relaxed = true)
+        val configurationLoader = MockkConfigurationLoaderBuilder()
+            .configuration(configuration)
+            .build()
+
+        val timing = HttpResponseTiming(10, 30)
+        val json = JSONObject().put("query", "mutation TokenizeCreditCard(\$input: TokenizeCreditCardInput!) {}")
+        coEvery {
+            braintreeGraphQLClient.post(json, configuration, authorization)
+        } returns HttpResponse(body = "{}", timing = timing)
+
+        val sut = createBraintreeClient(
+            configurationLoader = configurationLoader,
+            testDispatcher = testDispatcher,
+            testScope = testScope
+        )
+        sut.sendGraphQLPOST(json)
+
+        verify { networkPerformanceReporter.report("mutation TokenizeCreditCard", 200, timing) }
+    }
+
+    @Test
+    fun `when sendPOST is called with a decoder, returns the decoded body and reports network performance`() =
+        runTest(testDispatcher) {
+        val configuration = mockk<Configuration>(relaxed = true)
+        val configurationLoader = MockkConfigurationLoaderBuilder()
+            .configuration(configuration)
+            .build()
+
+        val timing = HttpResponseTiming(10, 30)
+        val decoder = ResponseBodyDecoder { "fake-nonce" }
+        val url = "/merchants/merchant-id/client_api/v1/payment_methods/credit_cards"
+        val json = JSONObject()
+        coEvery {
+            braintreeHttpClient.post(url, json, configuration, authorization, decoder, emptyMap())
+        } returns DecodedHttpResponse(body = "fake-nonce", timing = timing, statusCode = 201)
+
+        val sut = createBraintreeClient(
+            configurationLoader = configurationLoader,
+            testDispatcher = testDispatcher,
+            testScope = testScope
+        )
+
+        assertEquals("fake-nonce", sut.sendPOST(url, json, decoder))
+        verify {
+            networkPerformanceReporter.report("/v1/payment_methods/credit_cards", 201, timing)
+        }
+    }
+
+    @Test
+    fun `when sendGraphQLPOST is called with a decoder, returns the decoded body and reports network performance`() =
+        runTest(testDispatcher) {
+        val configuration = mockk<Configuration>(relaxed = true)
+        val configurationLoader = MockkConfigurationLoaderBuilder()
+            .configuration(configuration)
+            .build()
+
+        val timing = HttpResponseTiming(10, 30)
+        val decoder = ResponseBodyDecoder { "fake-nonce" }
+        val json = JSONObject().put("query", "mutation TokenizeCreditCard(\$input: TokenizeCreditCardInput!) {}")
+        coEvery {
+            braintreeGraphQLClient.post(json, configuration, authorization, decoder)
+        } returns DecodedHttpResponse(body = "fake-nonce", timing = timing)
+
+        val sut = createBraintreeClient(
+            configurationLoader = configurationLoader,
+            testDispatcher = testDispatcher,
+            testScope = testScope
+        )
+
+        assertEquals("fake-nonce", sut.sendGraphQLPOST(json, decoder))
+        verify { networkPerformanceReporter.report("mutation TokenizeCreditCard", 200, timing) }
+    }
+
     private fun createBraintreeClient(
         configurationLoader: ConfigurationLoader = mockk(),
         appLinkReturnUri: Uri? = Uri.parse("https://example.com"),
@@ -601,6 +826,7 @@ class BraintreeClientUnitTest {
         configurationLoader = configurationLoader,
         merchantRepository = merchantRepository,
         dispatcher = testDispatcher ?: kotlinx.coroutines.Dispatchers.Main,
-        coroutineScope = testScope ?: kotlinx.coroutines.CoroutineScope(kotlinx.coroutines.Dispatchers.Main)
+        coroutineScope = testScope ?: kotlinx.coroutines.CoroutineScope(kotlinx.coroutines.Dispatchers.Main),
+        networkPerformanceReporter = networkPerformanceReporter
     )
 }
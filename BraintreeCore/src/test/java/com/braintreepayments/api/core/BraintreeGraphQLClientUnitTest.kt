@@ -1,5 +1,6 @@
 package com.braintreepayments.api.core
 
+import android.util.JsonWriter
 import com.braintreepayments.api.sharedutils.HttpClient
 import com.braintreepayments.api.sharedutils.HttpResponse
 import com.braintreepayments.api.sharedutils.HttpResponseTiming
@@ -11,11 +12,13 @@ import io.mockk.mockk
 import io.mockk.slot
 import kotlinx.coroutines.ExperimentalCoroutinesApi
 import kotlinx.coroutines.test.runTest
+import org.json.JSONObject
 import org.junit.Assert.assertEquals
 import org.junit.Before
 import org.junit.Test
 import org.junit.runner.RunWith
 import org.robolectric.RobolectricTestRunner
+import java.io.StringWriter
 import kotlin.test.assertFailsWith
 import kotlin.test.assertTrue
 
@@ -42,7 +45,7 @@ class BraintreeGraphQLClientUnitTest {
         every { config.graphQLUrl } returns "https://graphql.example.com"
 
         val exception = assertFailsWith<BraintreeException> {
-            sut.post("{}", config, invalidAuth)
+            sut.post(JSONObject(), config, invalidAuth)
         }
         assertEquals("bad auth", exception.message)
     }
@@ -57,11 +60,13 @@ class BraintreeGraphQLClientUnitTest {
         val mockResponse = HttpResponse(body = "{}", timing = HttpResponseTiming(0, 0))
         coEvery { httpClient.sendRequest(capture(slot)) } returns mockResponse
 
-        val response = sut.post("{\"query\":\"test\"}", config, auth)
+        val response = sut.post(JSONObject().put("query", "test"), config, auth)
 
         val req = slot.captured
-        assertTrue(req.method is Method.Post)
-        assertEquals("{\"query\":\"test\"}", (req.method as Method.Post).body)
+        assertTrue(req.method is Method.PostJson)
+        val body = StringWriter()
+        JsonWriter(body).use { (req.method as Method.PostJson).body.writeTo(it) }
+        assertEquals("{\"query\":\"test\"}", body.toString())
         assertEquals("https://graphql.example.com", req.url)
         assertEquals("braintree/android/" + BuildConfig.VERSION_NAME, req.headers["User-Agent"])
         assertEquals("Bearer token123", req.headers["Authorization"])
@@ -1,19 +1,31 @@
 package com.braintreepayments.api.core
 
+import android.util.JsonWriter
+import com.braintreepayments.api.sharedutils.DecodedHttpResponse
 import com.braintreepayments.api.sharedutils.HttpClient
+import com.braintreepayments.api.sharedutils.EncodedJsonRequestBody
 import com.braintreepayments.api.sharedutils.HttpResponse
 import com.braintreepayments.api.sharedutils.HttpResponseTiming
+import com.braintreepayments.api.sharedutils.JsonName
 import com.braintreepayments.api.sharedutils.Method
 import com.braintreepayments.api.sharedutils.OkHttpRequest
+import com.braintreepayments.api.sharedutils.RequestCompression
+import com.braintreepayments.api.sharedutils.RequestPriority
+import com.braintreepayments.api.sharedutils.ResponseBodyDecoder
+import com.braintreepayments.api.sharedutils.TimeoutBudget
 import com.braintreepayments.api.testutils.Fixtures
 import com.braintreepayments.api.testutils.FixturesHelper
 import io.mockk.coEvery
+import io.mockk.coVerify
 import io.mockk.every
 import io.mockk.mockk
 import io.mockk.slot
+import io.mockk.verify
 import kotlinx.coroutines.test.runTest
 import org.json.JSONException
+import org.json.JSONObject
 import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
 import org.junit.Assert.assertNull
 import org.junit.Assert.assertTrue
 import org.junit.Assert.fail
@@ -21,6 +33,7 @@ import org.junit.Before
 import org.junit.Test
 import org.junit.runner.RunWith
 import org.robolectric.RobolectricTestRunner
+import java.io.StringWriter
 
 @RunWith(RobolectricTestRunner::class)
 class BraintreeHttpClientUnitTest {
@@ -147,6 +160,80 @@ class BraintreeHttpClientUnitTest {
 
     // POST method tests
 
+    @Test
+    fun `when get is called with additional headers, headers are included in request`() = runTest {
+        val tokenizationKey = TokenizationKey(Fixtures.TOKENIZATION_KEY)
+        val requestSlot = slot<OkHttpRequest>()
+        val mockResponse = HttpResponse(body = "{}", timing = HttpResponseTiming(0, 0))
+        coEvery { httpClient.sendRequest(capture(requestSlot)) } returns mockResponse
+
+        sut.get("v1/configuration", configuration, tokenizationKey, mapOf("If-None-Match" to "\"etag\""))
+
+        val request = requestSlot.captured
+        assertEquals("\"etag\"", request.headers["If-None-Match"])
+        assertEquals(Fixtures.TOKENIZATION_KEY, request.headers["Client-Key"])
+    }
+
+    @Test
+    fun `when get is called with hedging, a hedged request is sent and its response time recorded`() = runTest {
+        val tokenizationKey = TokenizationKey(Fixtures.TOKENIZATION_KEY)
+        val hedging = mockk<RequestHedging>(relaxed = true)
+        every { hedging.hedgeDelay() } returns 750L
+        val requestSlot = slot<OkHttpRequest>()
+        val mockResponse = HttpResponse(body = "{}", timing = HttpResponseTiming(100, 400))
+        coEvery { httpClient.sendHedgedRequest(capture(requestSlot), 750L) } returns mockResponse
+
+        val response = sut.get("v1/configuration", configuration, tokenizationKey, hedging = hedging)
+
+        assertEquals(mockResponse, response)
+        assertEquals("https://api.braintreegateway.com/v1/configuration", requestSlot.captured.url)
+        verify { hedging.recordResponseTime(300L) }
+        coVerify(exactly = 0) { httpClient.sendRequest(any()) }
+    }
+
+    @Test
+    fun `when the client has a timeout budget, requests carry it`() = runTest {
+        val tokenizationKey = TokenizationKey(Fixtures.TOKENIZATION_KEY)
+        val requestSlot = slot<OkHttpRequest>()
+        val mockResponse = HttpResponse(body = "{}", timing = HttpResponseTiming(0, 0))
+        coEvery { httpClient.sendRequest(capture(requestSlot)) } returns mockResponse
+
+        val analyticsHttpClient = BraintreeHttpClient(httpClient, TimeoutBudget.SHORT)
+        analyticsHttpClient.post("v1/tracking/batch/events", "{}", configuration, tokenizationKey)
+
+        assertEquals(TimeoutBudget.SHORT, requestSlot.captured.timeoutBudget)
+    }
+
+    @Test
+    fun `requests carry the priority of the client and default to user blocking`() = runTest {
+        val tokenizationKey = TokenizationKey(Fixtures.TOKENIZATION_KEY)
+        val requests = mutableListOf<OkHttpRequest>()
+        val mockResponse = HttpResponse(body = "{}", timing = HttpResponseTiming(0, 0))
+        coEvery { httpClient.sendRequest(capture(requests)) } returns mockResponse
+
+        BraintreeHttpClient(httpClient, priority = RequestPriority.BACKGROUND)
+            .post("v1/tracking/batch/events", "{}", configuration, tokenizationKey)
+        sut.post("v1/payment_methods/credit_cards", "{}", configuration, tokenizationKey)
+
+        assertEquals(RequestPriority.BACKGROUND, requests[0].priority)
+        assertEquals(RequestPriority.USER_BLOCKING, requests[1].priority)
+    }
+
+    @Test
+    fun `post requests carry the compression of the client and default to uncompressed`() = runTest {
+        val tokenizationKey = TokenizationKey(Fixtures.TOKENIZATION_KEY)
+        val requests = mutableListOf<OkHttpRequest>()
+        val mockResponse = HttpResponse(body = "{}", timing = HttpResponseTiming(0, 0))
+        coEvery { httpClient.sendRequest(capture(requests)) } returns mockResponse
+
+        BraintreeHttpClient(httpClient, compression = RequestCompression.GZIP)
+            .post("v1/tracking/batch/events", "{}", configuration, tokenizationKey)
+        sut.post("v1/payment_methods/credit_cards", "{}", configuration, tokenizationKey)
+
+        assertEquals(RequestCompression.GZIP, requests[0].compression)
+        assertNull(requests[1].compression)
+    }
+
     @Test
     fun `when post is called with TokenizationKey, correct request is sent`() = runTest {
         val tokenizationKey = TokenizationKey(Fixtures.TOKENIZATION_KEY)
@@ -166,6 +253,25 @@ class BraintreeHttpClientUnitTest {
         assertEquals(mockResponse, response)
     }
 
+    @Test
+    fun `when post is called with a decoder, the same request is sent and the decoded response returned`() = runTest {
+        val clientToken = Authorization.fromString(
+            FixturesHelper.base64Encode(Fixtures.CLIENT_TOKEN)
+        ) as ClientToken
+        val decoder = ResponseBodyDecoder { "fake-nonce" }
+        val requestSlot = slot<OkHttpRequest>()
+        val decodedResponse = DecodedHttpResponse("fake-nonce", HttpResponseTiming(0, 0))
+        coEvery { httpClient.sendRequest(capture(requestSlot), decoder) } returns decodedResponse
+
+        val response = sut.post("v1/payment_methods", JSONObject(), configuration, clientToken, decoder)
+
+        val request = requestSlot.captured
+        assertEquals("https://api.braintreegateway.com/v1/payment_methods", request.url)
+        val postBody = JSONObject((request.method as Method.PostJson).writtenBody())
+        assertEquals(clientToken.authorizationFingerprint, postBody.getString("authorizationFingerprint"))
+        assertEquals(decodedResponse, response)
+    }
+
     @Test
     fun `when post is called with ClientToken, authorization fingerprint is added to request body`() = runTest {
         val clientToken = Authorization.fromString(
@@ -186,6 +292,49 @@ class BraintreeHttpClientUnitTest {
         assertEquals(mockResponse, response)
     }
 
+    @Test
+    fun `when post is called with a JSONObject and ClientToken, fingerprint is written into the body`() = runTest {
+        val clientToken = Authorization.fromString(
+            FixturesHelper.base64Encode(Fixtures.CLIENT_TOKEN)
+        ) as ClientToken
+        val requestSlot = slot<OkHttpRequest>()
+        val mockResponse = HttpResponse(body = "{}", timing = HttpResponseTiming(0, 0))
+        coEvery { httpClient.sendRequest(capture(requestSlot)) } returns mockResponse
+        val data = JSONObject().put("creditCard", JSONObject().put("number", "4111111111111111"))
+
+        val response = sut.post("v1/payment_methods", data, configuration, clientToken)
+
+        val request = requestSlot.captured
+        val postBody = JSONObject((request.method as Method.PostJson).writtenBody())
+        assertEquals(clientToken.authorizationFingerprint, postBody.getString("authorizationFingerprint"))
+        assertEquals("4111111111111111", postBody.getJSONObject("creditCard").getString("number"))
+        assertFalse(data.has("authorizationFingerprint"))
+        assertEquals("Bearer ${clientToken.bearer}", request.headers["Authorization"])
+        assertEquals(mockResponse, response)
+    }
+
+    @Test
+    fun `when post is called with an EncodedJsonRequestBody and ClientToken, fingerprint is added to the body`() =
+    runTest {
+        val clientToken = Authorization.fromString(
+            FixturesHelper.base64Encode(Fixtures.CLIENT_TOKEN)
+        ) as ClientToken
+        val requestSlot = slot<OkHttpRequest>()
+        val mockResponse = HttpResponse(body = "{}", timing = HttpResponseTiming(0, 0))
+        coEvery { httpClient.sendRequest(capture(requestSlot)) } returns mockResponse
+        val data = EncodedJsonRequestBody { it.name(JsonName("events")).beginArray().endArray() }
+
+        val response = sut.post("https://example.com/events", data, configuration, clientToken)
+
+        val postMethod = requestSlot.captured.method as Method.PostEncodedJson
+        assertEquals(data, postMethod.body)
+        assertEquals(
+            mapOf("authorizationFingerprint" to clientToken.authorizationFingerprint),
+            postMethod.additionalFields
+        )
+        assertEquals(mockResponse, response)
+    }
+
     @Test
     fun `when post is called with additional headers, headers are included in request`() = runTest {
         val tokenizationKey = TokenizationKey(Fixtures.TOKENIZATION_KEY)
@@ -305,4 +454,10 @@ class BraintreeHttpClientUnitTest {
         assertNull(request.headers["Client-Key"])
         assertEquals(mockResponse, response)
     }
+
+    private fun Method.PostJson.writtenBody(): String {
+        val out = StringWriter()
+        JsonWriter(out).use { body.writeTo(it) }
+        return out.toString()
+    }
 }
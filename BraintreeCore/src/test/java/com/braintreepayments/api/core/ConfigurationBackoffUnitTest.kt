@@ -0,0 +1,82 @@
+package com.braintreepayments.api.core
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNull
+import org.junit.Assert.assertSame
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import java.io.IOException
+import kotlin.random.Random
+
+class ConfigurationBackoffUnitTest {
+
+    private var currentTime = 0L
+    private val failure = ConfigurationLoaderResult.Failure(IOException("offline"))
+
+    @Test
+    fun `getActiveBackoff returns null when no request has failed`() {
+        assertNull(createBackoff().getActiveBackoff("cacheKey"))
+    }
+
+    @Test
+    fun `getActiveBackoff returns the last failure until the retry time`() {
+        val sut = createBackoff()
+        val state = sut.recordFailure("cacheKey", failure)
+
+        currentTime = state.retryAt - 1
+        assertSame(failure, sut.getActiveBackoff("cacheKey")?.failure)
+
+        currentTime = state.retryAt
+        assertNull(sut.getActiveBackoff("cacheKey"))
+    }
+
+    @Test
+    fun `recordFailure doubles the delay for each consecutive failure up to maxDelay`() {
+        val sut = createBackoff(random = MaxRandom)
+
+        val delays = List(5) { sut.recordFailure("cacheKey", failure).let { it.retryAt - it.failedAt } }
+
+        assertEquals(listOf(1_000L, 2_000L, 4_000L, 8_000L, 10_000L), delays)
+    }
+
+    @Test
+    fun `recordFailure randomizes each delay between half and all of its length`() {
+        repeat(100) { seed ->
+            val state = createBackoff(random = Random(seed)).recordFailure("cacheKey", failure)
+
+            assertTrue(state.retryAt - state.failedAt in 500L..1_000L)
+        }
+    }
+
+    @Test
+    fun `recordFailure tracks cache keys independently`() {
+        val sut = createBackoff()
+        sut.recordFailure("first", failure)
+        sut.recordFailure("first", failure)
+
+        assertEquals(1, sut.recordFailure("second", failure).consecutiveFailures)
+        assertNull(sut.getActiveBackoff("third"))
+    }
+
+    @Test
+    fun `recordSuccess clears the backoff`() {
+        val sut = createBackoff()
+        sut.recordFailure("cacheKey", failure)
+        sut.recordSuccess("cacheKey")
+
+        assertNull(sut.getActiveBackoff("cacheKey"))
+        assertEquals(1, sut.recordFailure("cacheKey", failure).consecutiveFailures)
+    }
+
+    private fun createBackoff(random: Random = Random(0)) = ConfigurationBackoff(
+        initialDelay = 1_000L,
+        maxDelay = 10_000L,
+        random = random,
+        currentTimeMillis = { currentTime }
+    )
+
+    private object MaxRandom : Random() {
+        override fun nextBits(bitCount: Int) = 0
+        override fun nextLong(until: Long) = until - 1
+    }
+}
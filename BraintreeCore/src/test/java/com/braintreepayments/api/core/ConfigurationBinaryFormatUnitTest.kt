@@ -0,0 +1,141 @@
+package com.braintreepayments.api.core
+
+import com.braintreepayments.api.testutils.Fixtures
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertNull
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import java.io.ByteArrayOutputStream
+import java.io.DataOutputStream
+import java.nio.BufferUnderflowException
+import java.nio.ByteBuffer
+
+@RunWith(RobolectricTestRunner::class)
+@Suppress("DEPRECATION")
+class ConfigurationBinaryFormatUnitTest {
+
+    @Test
+    fun `decode restores every property of the encoded configuration`() {
+        listOf(
+            Fixtures.CONFIGURATION_WITH_ACCESS_TOKEN,
+            Fixtures.CONFIGURATION_WITH_CARDINAL_AUTHENTICATION_JWT,
+            Fixtures.CONFIGURATION_WITH_CUSTOM_PAYPAL,
+            Fixtures.CONFIGURATION_WITH_GOOGLE_PAY,
+            Fixtures.CONFIGURATION_WITH_GRAPHQL,
+            Fixtures.CONFIGURATION_WITH_LIVE_PAYPAL,
+            Fixtures.CONFIGURATION_WITH_MULTIPLE_CHALLENGES,
+            Fixtures.CONFIGURATION_WITH_PAY_WITH_VENMO_ECD_ENABLED,
+            Fixtures.CONFIGURATION_WITH_SUPPORTED_CARD_TYPES,
+            Fixtures.CONFIGURATION_WITH_THREE_D_SECURE,
+            Fixtures.CONFIGURATION_WITH_VISA_CHECKOUT,
+        ).forEach { json ->
+            val expected = Configuration.fromJson(json)
+            val actual = roundTrip(json)
+
+            assertEquals(describe(expected), describe(actual))
+        }
+    }
+
+    @Test
+    fun `decode restores environments and card types that are not interned`() {
+        val json = """
+            {
+              "clientApiUrl": "client_api_url",
+              "environment": "custom",
+              "merchantId": "merchant_id",
+              "creditCards": { "supportedCardTypes": ["Visa", "Elo"] }
+            }
+        """
+
+        val configuration = roundTrip(json)
+
+        assertEquals("custom", configuration.environment)
+        assertEquals(listOf("Visa", "Elo"), configuration.supportedCardTypes)
+    }
+
+    @Test
+    fun `decode returns null when the configuration was written with another version`() {
+        val buffer = ByteBuffer.wrap(byteArrayOf((ConfigurationBinaryFormat.VERSION + 1).toByte()))
+
+        assertNull(ConfigurationBinaryFormat.decode(buffer, lazyOf("")))
+    }
+
+    @Test(expected = BufferUnderflowException::class)
+    fun `decode throws when the encoded configuration is truncated`() {
+        val bytes = encode(Fixtures.CONFIGURATION_WITH_GOOGLE_PAY)
+
+        ConfigurationBinaryFormat.decode(ByteBuffer.wrap(bytes.copyOf(bytes.size / 2)), lazyOf(""))
+    }
+
+    @Test
+    fun `decode does not read the configuration json until toJson is called`() {
+        val json = lazy { Fixtures.CONFIGURATION_WITH_GOOGLE_PAY }
+
+        val configuration = ConfigurationBinaryFormat.decode(
+            ByteBuffer.wrap(encode(Fixtures.CONFIGURATION_WITH_GOOGLE_PAY)),
+            json
+        )!!
+        configuration.isGooglePayEnabled
+
+        assertFalse(json.isInitialized())
+        assertEquals(Fixtures.CONFIGURATION_WITH_GOOGLE_PAY, configuration.toJson())
+    }
+
+    private fun encode(json: String): ByteArray {
+        val bytes = ByteArrayOutputStream()
+        DataOutputStream(bytes).use { ConfigurationBinaryFormat.encode(json, it) }
+        return bytes.toByteArray()
+    }
+
+    private fun roundTrip(json: String): Configuration {
+        return ConfigurationBinaryFormat.decode(ByteBuffer.wrap(encode(json)), lazyOf(json))!!
+    }
+
+    private fun describe(configuration: Configuration) = listOf(
+        configuration.assetsUrl,
+        configuration.braintreeApiAccessToken,
+        configuration.braintreeApiUrl,
+        configuration.cardinalAuthenticationJwt,
+        configuration.clientApiUrl,
+        configuration.environment,
+        configuration.googlePayAuthorizationFingerprint,
+        configuration.googlePayDisplayName,
+        configuration.googlePayEnvironment,
+        configuration.googlePayPayPalClientId,
+        configuration.googlePaySupportedNetworks,
+        configuration.graphQLUrl,
+        configuration.isBraintreeApiEnabled,
+        configuration.isCvvChallengePresent,
+        configuration.isFraudDataCollectionEnabled,
+        configuration.isGooglePayEnabled,
+        configuration.isGraphQLEnabled,
+        configuration.isLocalPaymentEnabled,
+        configuration.isPayPalEnabled,
+        configuration.isPayPalTouchDisabled,
+        configuration.isPostalCodeChallengePresent,
+        configuration.isThreeDSecureEnabled,
+        configuration.isVenmoEnabled,
+        configuration.isVisaCheckoutEnabled,
+        configuration.isGraphQLFeatureEnabled(GraphQLConstants.Features.TOKENIZE_CREDIT_CARDS),
+        configuration.merchantAccountId,
+        configuration.merchantId,
+        configuration.payPalClientId,
+        configuration.payPalCurrencyIsoCode,
+        configuration.payPalDirectBaseUrl,
+        configuration.payPalDisplayName,
+        configuration.payPalEnvironment,
+        configuration.payPalPrivacyUrl,
+        configuration.payPalUserAgreementUrl,
+        configuration.supportedCardTypes,
+        configuration.venmoAccessToken,
+        configuration.venmoEnrichedCustomerDataEnabled,
+        configuration.venmoEnvironment,
+        configuration.venmoMerchantId,
+        configuration.visaCheckoutApiKey,
+        configuration.visaCheckoutExternalClientId,
+        configuration.visaCheckoutSupportedNetworks,
+        configuration.toJson(),
+    )
+}
@@ -0,0 +1,68 @@
+package com.braintreepayments.api.core
+
+import com.braintreepayments.api.sharedutils.HttpResponse
+import com.braintreepayments.api.sharedutils.HttpResponseTiming
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNull
+import org.junit.Test
+
+class ConfigurationCacheHeadersUnitTest {
+
+    @Test
+    fun `from reads validators and max-age from the response headers`() {
+        val response = HttpResponse(
+            timing = HttpResponseTiming(0, 0),
+            headers = mapOf(
+                "etag" to "W/\"abc\"",
+                "last-modified" to "Wed, 21 Oct 2026 07:28:00 GMT",
+                "cache-control" to "private, max-age=300, must-revalidate"
+            )
+        )
+
+        assertEquals(
+            ConfigurationCacheHeaders("W/\"abc\"", "Wed, 21 Oct 2026 07:28:00 GMT", 300_000L),
+            ConfigurationCacheHeaders.from(response)
+        )
+    }
+
+    @Test
+    fun `from ignores s-maxage and malformed max-age directives`() {
+        listOf("s-maxage=60", "max-age=soon", "no-cache").forEach { cacheControl ->
+            val response = HttpResponse(
+                timing = HttpResponseTiming(0, 0),
+                headers = mapOf("cache-control" to cacheControl)
+            )
+
+            assertNull(ConfigurationCacheHeaders.from(response).maxAge)
+        }
+    }
+
+    @Test
+    fun `from returns NONE when the response has no caching headers`() {
+        assertEquals(
+            ConfigurationCacheHeaders.NONE,
+            ConfigurationCacheHeaders.from(HttpResponse(timing = HttpResponseTiming(0, 0)))
+        )
+    }
+
+    @Test
+    fun `toRevalidationHeaders returns conditional request headers for each validator`() {
+        val cacheHeaders = ConfigurationCacheHeaders("\"abc\"", "Wed, 21 Oct 2026 07:28:00 GMT")
+
+        assertEquals(
+            mapOf("If-None-Match" to "\"abc\"", "If-Modified-Since" to "Wed, 21 Oct 2026 07:28:00 GMT"),
+            cacheHeaders.toRevalidationHeaders()
+        )
+        assertEquals(emptyMap<String, String>(), ConfigurationCacheHeaders.NONE.toRevalidationHeaders())
+    }
+
+    @Test
+    fun `updatedWith keeps headers the newer response omits`() {
+        val cacheHeaders = ConfigurationCacheHeaders("\"abc\"", "yesterday", 1_000L)
+
+        assertEquals(
+            ConfigurationCacheHeaders("\"abc\"", "today", 1_000L),
+            cacheHeaders.updatedWith(ConfigurationCacheHeaders(lastModified = "today"))
+        )
+    }
+}
@@ -5,8 +5,13 @@ import com.braintreepayments.api.core.Configuration.Companion.fromJson
 import com.braintreepayments.api.sharedutils.BraintreeSharedPreferences
 import org.robolectric.RobolectricTestRunner
 import io.mockk.*
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.test.runTest
 import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNotSame
 import org.junit.Assert.assertNull
+import org.junit.Assert.assertSame
+import org.junit.Before
 import org.junit.Test
 import org.junit.runner.RunWith
 import java.util.concurrent.TimeUnit
@@ -15,48 +20,259 @@ import java.util.concurrent.TimeUnit
 class ConfigurationCacheUnitTest {
 
     private var braintreeSharedPreferences: BraintreeSharedPreferences = mockk(relaxed = true)
+    private var configurationStore: ConfigurationStore = mockk(relaxed = true)
+
+    @Before
+    fun setUp() {
+        every { braintreeSharedPreferences.getKeys() } returns emptySet()
+    }
 
     @Test
-    fun `when saveConfiguration is called, configuration is saved to shared preferences`() {
+    fun `when saveConfiguration is called, configuration is saved to the configuration store`() {
         val configuration = fromJson(Fixtures.CONFIGURATION_WITHOUT_ACCESS_TOKEN)
-        val sut = ConfigurationCache(braintreeSharedPreferences)
+        val sut = ConfigurationCache(braintreeSharedPreferences, configurationStore)
         sut.saveConfiguration(configuration, "cacheKey", 123L)
         verify {
-            braintreeSharedPreferences.putStringAndLong(
-                "cacheKey",
-                configuration.toJson(),
-                "cacheKey_timestamp",
-                123L
-            )
+            configurationStore.put("cacheKey", configuration, 123L)
         }
+        verify(exactly = 0) { braintreeSharedPreferences.putStringAndLong(any(), any(), any(), any()) }
     }
 
     @Test
-    fun `when cache entry has not expired, getConfiguration returns the cached configuration`() {
+    fun `when stored entry has not expired, getCachedConfiguration returns the stored configuration`() = runTest {
         val configuration = fromJson(Fixtures.CONFIGURATION_WITHOUT_ACCESS_TOKEN)
-        every { braintreeSharedPreferences.containsKey("cacheKey_timestamp") } returns true
-        every { braintreeSharedPreferences.getLong("cacheKey_timestamp") } returns 0L
-        every { braintreeSharedPreferences.getString("cacheKey", "") } returns configuration.toJson()
+        every {
+            configurationStore.get("cacheKey")
+        } returns ConfigurationStore.StoredConfiguration(configuration, 0L)
 
-        val sut = ConfigurationCache(braintreeSharedPreferences)
-        sut.saveConfiguration(configuration, "cacheKey", 0)
+        val sut = ConfigurationCache(braintreeSharedPreferences, configurationStore)
 
         assertEquals(
             configuration.toJson(),
-            sut.getConfiguration("cacheKey", TimeUnit.MINUTES.toMillis(5) - 1)
+            sut.getCachedConfiguration("cacheKey", TimeUnit.MINUTES.toMillis(5) - 1)?.toJson()
         )
     }
 
     @Test
-    fun `when cache entry has expired, getConfiguration returns null`() {
+    fun `when stored entry has expired, getCachedConfiguration returns null`() = runTest {
         val configuration = fromJson(Fixtures.CONFIGURATION_WITHOUT_ACCESS_TOKEN)
-        every { braintreeSharedPreferences.containsKey("cacheKey_timestamp") } returns true
-        every { braintreeSharedPreferences.getLong("cacheKey_timestamp") } returns TimeUnit.MINUTES.toMillis(5)
-        every { braintreeSharedPreferences.getString("cacheKey", "") } returns configuration.toJson()
+        every {
+            configurationStore.get("cacheKey")
+        } returns ConfigurationStore.StoredConfiguration(configuration, TimeUnit.MINUTES.toMillis(5))
+
+        val sut = ConfigurationCache(braintreeSharedPreferences, configurationStore)
+
+        assertNull(sut.getCachedConfiguration("cacheKey", TimeUnit.MINUTES.toMillis(20)))
+    }
 
-        val sut = ConfigurationCache(braintreeSharedPreferences)
+    @Test
+    fun `when configuration was saved in this process, getCachedConfiguration returns it without reading the store`() =
+    runTest {
+        val configuration = fromJson(Fixtures.CONFIGURATION_WITHOUT_ACCESS_TOKEN)
+
+        val sut = ConfigurationCache(braintreeSharedPreferences, configurationStore)
         sut.saveConfiguration(configuration, "cacheKey", 0)
 
-        assertNull(sut.getConfiguration("cacheKey", TimeUnit.MINUTES.toMillis(20)))
+        assertSame(configuration, sut.getCachedConfiguration("cacheKey", TimeUnit.MINUTES.toMillis(5) - 1))
+        verify(exactly = 0) { configurationStore.get(any()) }
+    }
+
+    @Test
+    fun `when configuration is only in the configuration store, getCachedConfiguration reads it once`() = runTest {
+        val configuration = fromJson(Fixtures.CONFIGURATION_WITHOUT_ACCESS_TOKEN)
+        every {
+            configurationStore.get("cacheKey")
+        } returns ConfigurationStore.StoredConfiguration(configuration, 0L)
+
+        val sut = ConfigurationCache(braintreeSharedPreferences, configurationStore)
+        val first = sut.getCachedConfiguration("cacheKey", 1)
+        val second = sut.getCachedConfiguration("cacheKey", 2)
+
+        assertEquals(configuration.toJson(), first?.toJson())
+        assertSame(first, second)
+        verify(exactly = 1) { configurationStore.get("cacheKey") }
+    }
+
+    @Test
+    fun `when configuration is not in memory, getCachedConfiguration reads the store on the io dispatcher`() = runTest {
+        val configuration = fromJson(Fixtures.CONFIGURATION_WITHOUT_ACCESS_TOKEN)
+        val testThread = Thread.currentThread()
+        var storeThread: Thread? = null
+        every { configurationStore.get("cacheKey") } answers {
+            storeThread = Thread.currentThread()
+            ConfigurationStore.StoredConfiguration(configuration, 0L)
+        }
+
+        val sut = ConfigurationCache(braintreeSharedPreferences, configurationStore, Dispatchers.IO)
+        sut.getCachedConfiguration("cacheKey", 1)
+
+        assertNotSame(testThread, storeThread)
+    }
+
+    @Test
+    fun `when in-memory configuration has expired, getCachedConfiguration returns null`() = runTest {
+        val configuration = fromJson(Fixtures.CONFIGURATION_WITHOUT_ACCESS_TOKEN)
+
+        val sut = ConfigurationCache(braintreeSharedPreferences, configurationStore)
+        sut.saveConfiguration(configuration, "cacheKey", 0)
+
+        assertNull(sut.getCachedConfiguration("cacheKey", TimeUnit.MINUTES.toMillis(5)))
+    }
+
+    @Test
+    fun `when configuration expired less than maxStaleness ago, getStaleConfiguration returns it`() = runTest {
+        val configuration = fromJson(Fixtures.CONFIGURATION_WITHOUT_ACCESS_TOKEN)
+
+        val sut = ConfigurationCache(braintreeSharedPreferences, configurationStore)
+        sut.saveConfiguration(configuration, "cacheKey", 0)
+
+        assertSame(
+            configuration,
+            sut.getStaleConfiguration("cacheKey", TimeUnit.HOURS.toMillis(1), TimeUnit.MINUTES.toMillis(30))
+        )
+    }
+
+    @Test
+    fun `when configuration expired more than maxStaleness ago, getStaleConfiguration returns null`() = runTest {
+        val configuration = fromJson(Fixtures.CONFIGURATION_WITHOUT_ACCESS_TOKEN)
+
+        val sut = ConfigurationCache(braintreeSharedPreferences, configurationStore)
+        sut.saveConfiguration(configuration, "cacheKey", 0)
+
+        assertNull(
+            sut.getStaleConfiguration("cacheKey", TimeUnit.MINUTES.toMillis(10), TimeUnit.MINUTES.toMillis(15))
+        )
+    }
+
+    @Test
+    fun `when an expired configuration is only in the configuration store, getStaleConfiguration returns it`() =
+    runTest {
+        val configuration = fromJson(Fixtures.CONFIGURATION_WITHOUT_ACCESS_TOKEN)
+        every {
+            configurationStore.get("cacheKey")
+        } returns ConfigurationStore.StoredConfiguration(configuration, 0L)
+
+        val sut = ConfigurationCache(braintreeSharedPreferences, configurationStore)
+
+        assertNull(sut.getCachedConfiguration("cacheKey", TimeUnit.MINUTES.toMillis(10)))
+        assertEquals(
+            configuration.toJson(),
+            sut.getStaleConfiguration("cacheKey", TimeUnit.HOURS.toMillis(1), TimeUnit.MINUTES.toMillis(10))?.toJson()
+        )
+    }
+
+    @Test
+    fun `when the configuration was saved with a max-age, getCachedConfiguration uses it as time to live`() = runTest {
+        val configuration = fromJson(Fixtures.CONFIGURATION_WITHOUT_ACCESS_TOKEN)
+        val cacheHeaders = ConfigurationCacheHeaders(maxAge = TimeUnit.MINUTES.toMillis(30))
+
+        val sut = ConfigurationCache(braintreeSharedPreferences, configurationStore)
+        sut.saveConfiguration(configuration, "cacheKey", 0, cacheHeaders)
+
+        assertSame(configuration, sut.getCachedConfiguration("cacheKey", TimeUnit.MINUTES.toMillis(20)))
+        assertNull(sut.getCachedConfiguration("cacheKey", TimeUnit.MINUTES.toMillis(30)))
+        verify { configurationStore.put("cacheKey", configuration, 0L, cacheHeaders) }
+    }
+
+    @Test
+    fun `getRevalidationHeaders returns conditional headers for the saved validators`() = runTest {
+        val configuration = fromJson(Fixtures.CONFIGURATION_WITHOUT_ACCESS_TOKEN)
+
+        val sut = ConfigurationCache(braintreeSharedPreferences, configurationStore)
+        sut.saveConfiguration(configuration, "cacheKey", 0, ConfigurationCacheHeaders(etag = "\"v1\""))
+
+        assertEquals(mapOf("If-None-Match" to "\"v1\""), sut.getRevalidationHeaders("cacheKey"))
+    }
+
+    @Test
+    fun `getRevalidationHeaders returns an empty map when nothing is cached`() = runTest {
+        every { configurationStore.get("cacheKey") } returns null
+
+        val sut = ConfigurationCache(braintreeSharedPreferences, configurationStore)
+
+        assertEquals(emptyMap<String, String>(), sut.getRevalidationHeaders("cacheKey"))
+    }
+
+    @Test
+    fun `revalidateConfiguration makes an expired configuration fresh without saving it again`() = runTest {
+        val configuration = fromJson(Fixtures.CONFIGURATION_WITHOUT_ACCESS_TOKEN)
+
+        val sut = ConfigurationCache(braintreeSharedPreferences, configurationStore)
+        sut.saveConfiguration(configuration, "cacheKey", 0, ConfigurationCacheHeaders(etag = "\"v1\""))
+        val now = TimeUnit.MINUTES.toMillis(10)
+        val revalidated = sut.revalidateConfiguration("cacheKey", ConfigurationCacheHeaders(maxAge = 60_000), now)
+
+        val expectedHeaders = ConfigurationCacheHeaders(etag = "\"v1\"", maxAge = 60_000)
+        assertSame(configuration, revalidated)
+        assertSame(configuration, sut.getCachedConfiguration("cacheKey", now + 59_999))
+        verify { configurationStore.revalidate("cacheKey", now, expectedHeaders) }
+        verify(exactly = 1) { configurationStore.put(any(), any(), any(), any()) }
+    }
+
+    @Test
+    fun `revalidateConfiguration returns null when the configuration is no longer cached`() = runTest {
+        every { configurationStore.get("cacheKey") } returns null
+
+        val sut = ConfigurationCache(braintreeSharedPreferences, configurationStore)
+
+        assertNull(sut.revalidateConfiguration("cacheKey", ConfigurationCacheHeaders.NONE, 0))
+        verify(exactly = 0) { configurationStore.revalidate(any(), any(), any()) }
+    }
+
+    @Test
+    fun `when configuration is only in shared preferences, it is moved to the store before it is read`() = runTest {
+        val configuration = fromJson(Fixtures.CONFIGURATION_WITHOUT_ACCESS_TOKEN)
+        val movedConfiguration = slot<Configuration>()
+        every { braintreeSharedPreferences.getKeys() } returns setOf("cacheKey", "cacheKey_timestamp")
+        every { braintreeSharedPreferences.getLong("cacheKey_timestamp") } returns 0L
+        every { braintreeSharedPreferences.getString("cacheKey", null) } returns configuration.toJson()
+        every { configurationStore.contains("cacheKey") } returns false
+        every { configurationStore.put("cacheKey", capture(movedConfiguration), 0L) } just Runs
+        every { configurationStore.get("cacheKey") } answers {
+            movedConfiguration.takeIf { it.isCaptured }
+                ?.let { ConfigurationStore.StoredConfiguration(it.captured, 0L) }
+        }
+
+        val sut = ConfigurationCache(braintreeSharedPreferences, configurationStore)
+
+        assertEquals(configuration.toJson(), sut.getCachedConfiguration("cacheKey", 1)?.toJson())
+        verify { braintreeSharedPreferences.remove(listOf("cacheKey", "cacheKey_timestamp")) }
+    }
+
+    @Test
+    fun `getCachedConfiguration does not write to shared preferences or the configuration store`() = runTest {
+        every { configurationStore.get("cacheKey") } returns null
+
+        val sut = ConfigurationCache(braintreeSharedPreferences, configurationStore)
+
+        assertNull(sut.getCachedConfiguration("cacheKey", 1))
+        verify(exactly = 0) { braintreeSharedPreferences.remove(any()) }
+        verify(exactly = 0) { configurationStore.put(any(), any(), any(), any()) }
+    }
+
+    @Test
+    fun `on creation, every shared preferences configuration is moved to the configuration store once`() = runTest {
+        every {
+            braintreeSharedPreferences.getKeys()
+        } returns setOf("first", "first_timestamp", "second", "second_timestamp", "venmoKey")
+        every { braintreeSharedPreferences.getString("first", null) } returns Fixtures.CONFIGURATION_WITH_ACCESS_TOKEN
+        every { braintreeSharedPreferences.getString("second", null) } returns Fixtures.CONFIGURATION_WITH_GOOGLE_PAY
+        every { braintreeSharedPreferences.getLong(any()) } returns 7L
+        every { configurationStore.contains(any()) } returns false
+
+        val sut = ConfigurationCache(braintreeSharedPreferences, configurationStore)
+        sut.compact()
+        sut.getCachedConfiguration("first", 8)
+        sut.getCachedConfiguration("second", 8)
+
+        verifyOrder {
+            configurationStore.put("first", match { it.toJson() == Fixtures.CONFIGURATION_WITH_ACCESS_TOKEN }, 7L)
+            configurationStore.put("second", match { it.toJson() == Fixtures.CONFIGURATION_WITH_GOOGLE_PAY }, 7L)
+            configurationStore.compact()
+        }
+        verify(exactly = 1) { braintreeSharedPreferences.getKeys() }
+        verify(exactly = 1) { braintreeSharedPreferences.remove(listOf("first", "first_timestamp")) }
+        verify(exactly = 1) { braintreeSharedPreferences.remove(listOf("second", "second_timestamp")) }
+        verify(exactly = 0) { braintreeSharedPreferences.remove(match { "venmoKey" in it }) }
     }
 }
@@ -5,10 +5,18 @@ import com.braintreepayments.api.sharedutils.HttpResponse
 import com.braintreepayments.api.sharedutils.HttpResponseTiming
 import com.braintreepayments.api.testutils.Fixtures
 import io.mockk.coEvery
+import io.mockk.coVerify
 import io.mockk.every
 import io.mockk.mockk
 import io.mockk.verify
+import kotlinx.coroutines.CoroutineDispatcher
 import kotlinx.coroutines.ExperimentalCoroutinesApi
+import kotlinx.coroutines.async
+import kotlinx.coroutines.awaitAll
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.test.StandardTestDispatcher
+import kotlinx.coroutines.test.advanceUntilIdle
+import kotlinx.coroutines.test.UnconfinedTestDispatcher
 import kotlinx.coroutines.test.runTest
 import org.json.JSONException
 import org.junit.Before
@@ -16,7 +24,10 @@ import org.junit.Test
 import org.junit.runner.RunWith
 import org.robolectric.RobolectricTestRunner
 import java.io.IOException
+import java.util.concurrent.TimeUnit
 import kotlin.test.assertEquals
+import kotlin.test.assertNotSame
+import kotlin.test.assertSame
 import kotlin.test.assertTrue
 
 @OptIn(ExperimentalCoroutinesApi::class)
@@ -34,6 +45,9 @@ class ConfigurationLoaderUnitTest {
     @Before
     fun setUp() {
         every { merchantRepository.authorization } returns authorization
+        coEvery { configurationCache.getCachedConfiguration(any(), any()) } returns null
+        coEvery { configurationCache.getStaleConfiguration(any(), any(), any()) } returns null
+        coEvery { configurationCache.getRevalidationHeaders(any()) } returns emptyMap()
     }
 
     @Test
@@ -147,12 +161,14 @@ class ConfigurationLoaderUnitTest {
         )
         every { authorization.configUrl } returns "https://example.com/config"
         every { authorization.bearer } returns "bearer"
-        every { configurationCache.getConfiguration(cacheKey) } returns Fixtures.CONFIGURATION_WITH_ACCESS_TOKEN
+        val cachedConfiguration = Configuration.fromJson(Fixtures.CONFIGURATION_WITH_ACCESS_TOKEN)
+        coEvery { configurationCache.getCachedConfiguration(cacheKey, any()) } returns cachedConfiguration
 
         sut = createConfigurationLoader()
         val configResult = sut.loadConfiguration()
 
-        assertTrue(configResult is ConfigurationLoaderResult.Success)
+        assertEquals(cachedConfiguration, (configResult as ConfigurationLoaderResult.Success).configuration)
+        coVerify(exactly = 0) { braintreeHttpClient.get(any(), any(), any()) }
     }
 
     @Test
@@ -209,10 +225,314 @@ class ConfigurationLoaderUnitTest {
         assertEquals("Configuration responseBody is null", failure.error.message)
     }
 
-    private fun createConfigurationLoader() = ConfigurationLoader(
+    @Test
+    fun `when loadConfiguration is called concurrently, a single configuration request is made`() = runTest {
+        every { authorization.configUrl } returns "https://example.com/config"
+        every { authorization.bearer } returns "bearer"
+
+        val mockResponse = HttpResponse(Fixtures.CONFIGURATION_WITH_ACCESS_TOKEN, HttpResponseTiming(0, 10))
+        coEvery {
+            braintreeHttpClient.get("https://example.com/config?configVersion=3", null, authorization)
+        } coAnswers {
+            delay(1000)
+            mockResponse
+        }
+
+        sut = createConfigurationLoader(StandardTestDispatcher(testScheduler))
+        val results = List(5) { async { sut.loadConfiguration() } }.awaitAll()
+
+        coVerify(exactly = 1) { braintreeHttpClient.get(any(), any(), any()) }
+        verify(exactly = 1) { analyticsClient.sendEvent(any(), any(), any()) }
+        val configurations = results.map { (it as ConfigurationLoaderResult.Success).configuration }
+        assertTrue(configurations.all { it === configurations.first() })
+    }
+
+    @Test
+    fun `when loadConfiguration is called concurrently, only the caller that started the request gets its timing`() =
+        runTest {
+        every { authorization.configUrl } returns "https://example.com/config"
+        val timing = HttpResponseTiming(0, 10)
+        coEvery { braintreeHttpClient.get(any(), any(), any()) } coAnswers {
+            delay(1000)
+            HttpResponse(Fixtures.CONFIGURATION_WITH_ACCESS_TOKEN, timing)
+        }
+
+        sut = createConfigurationLoader(StandardTestDispatcher(testScheduler))
+        val results = List(5) { async { sut.loadConfiguration() } }.awaitAll()
+            .map { it as ConfigurationLoaderResult.Success }
+
+        assertEquals(timing, results.first().timing)
+        assertEquals(200, results.first().statusCode)
+        assertTrue(results.drop(1).all { it.timing == null && it.statusCode == null })
+    }
+
+    @Test
+    fun `when a stale configuration is returned, the result has no timing`() = runTest {
+        every { authorization.configUrl } returns "https://example.com/config"
+        val staleConfiguration = Configuration.fromJson(Fixtures.CONFIGURATION_WITH_ACCESS_TOKEN)
+        coEvery { configurationCache.getStaleConfiguration(any(), any(), any()) } returns staleConfiguration
+        coEvery {
+            braintreeHttpClient.get(any(), any(), any())
+        } returns HttpResponse(Fixtures.CONFIGURATION_WITHOUT_ACCESS_TOKEN, HttpResponseTiming(0, 10))
+
+        sut = createConfigurationLoader(StandardTestDispatcher(testScheduler))
+        val configResult = sut.loadConfiguration() as ConfigurationLoaderResult.Success
+
+        assertEquals(null, configResult.timing)
+        assertEquals(null, configResult.statusCode)
+    }
+
+    @Test
+    fun `when a concurrent configuration request completes, the next load starts a new request`() = runTest {
+        every { authorization.configUrl } returns "https://example.com/config"
+
+        val mockResponse = HttpResponse(Fixtures.CONFIGURATION_WITH_ACCESS_TOKEN, HttpResponseTiming(0, 10))
+        coEvery { braintreeHttpClient.get(any(), any(), any()) } returns mockResponse
+
+        sut = createConfigurationLoader(StandardTestDispatcher(testScheduler))
+        sut.loadConfiguration()
+        sut.loadConfiguration()
+
+        coVerify(exactly = 2) { braintreeHttpClient.get(any(), any(), any()) }
+    }
+
+    @Test
+    fun `when only a stale configuration is cached, loadConfiguration returns it and refreshes in the background`() =
+        runTest {
+        every { authorization.configUrl } returns "https://example.com/config"
+        val staleConfiguration = Configuration.fromJson(Fixtures.CONFIGURATION_WITH_ACCESS_TOKEN)
+        coEvery { configurationCache.getStaleConfiguration(any(), any(), any()) } returns staleConfiguration
+
+        val mockResponse = HttpResponse(Fixtures.CONFIGURATION_WITHOUT_ACCESS_TOKEN, HttpResponseTiming(0, 10))
+        coEvery { braintreeHttpClient.get(any(), any(), any()) } returns mockResponse
+
+        sut = createConfigurationLoader(StandardTestDispatcher(testScheduler))
+        val configResult = sut.loadConfiguration()
+
+        assertSame(staleConfiguration, (configResult as ConfigurationLoaderResult.Success).configuration)
+        coVerify(exactly = 0) { braintreeHttpClient.get(any(), any(), any()) }
+
+        advanceUntilIdle()
+        coVerify(exactly = 1) { braintreeHttpClient.get(any(), any(), any()) }
+        verify { configurationCache.saveConfiguration(ofType(Configuration::class), any()) }
+    }
+
+    @Test
+    fun `when maxStaleness is zero, loadConfiguration waits for a fresh configuration`() = runTest {
+        every { authorization.configUrl } returns "https://example.com/config"
+        val staleConfiguration = Configuration.fromJson(Fixtures.CONFIGURATION_WITH_ACCESS_TOKEN)
+        coEvery { configurationCache.getStaleConfiguration(any(), any(), any()) } returns staleConfiguration
+
+        val mockResponse = HttpResponse(Fixtures.CONFIGURATION_WITHOUT_ACCESS_TOKEN, HttpResponseTiming(0, 10))
+        coEvery { braintreeHttpClient.get(any(), any(), any()) } returns mockResponse
+
+        sut = createConfigurationLoader(maxStaleness = 0)
+        val configResult = sut.loadConfiguration()
+
+        assertNotSame(staleConfiguration, (configResult as ConfigurationLoaderResult.Success).configuration)
+        coVerify(exactly = 1) { braintreeHttpClient.get(any(), any(), any()) }
+    }
+
+    @Test
+    fun `when loading a standalone authorization, loadConfiguration does not return a stale configuration`() =
+        runTest {
+        every { authorization.configUrl } returns "https://example.com/config"
+        val staleConfiguration = Configuration.fromJson(Fixtures.CONFIGURATION_WITH_ACCESS_TOKEN)
+        coEvery { configurationCache.getStaleConfiguration(any(), any(), any()) } returns staleConfiguration
+
+        val mockResponse = HttpResponse(Fixtures.CONFIGURATION_WITHOUT_ACCESS_TOKEN, HttpResponseTiming(0, 10))
+        coEvery { braintreeHttpClient.get(any(), any(), any()) } returns mockResponse
+
+        sut = createConfigurationLoader()
+        val configResult = sut.loadConfiguration(authorization)
+
+        assertNotSame(staleConfiguration, (configResult as ConfigurationLoaderResult.Success).configuration)
+        coVerify(exactly = 1) { braintreeHttpClient.get(any(), any(), any()) }
+    }
+
+    @Test
+    fun `when the server sends caching headers, the configuration is saved with them`() = runTest {
+        every { authorization.configUrl } returns "https://example.com/config"
+        val mockResponse = HttpResponse(
+            body = Fixtures.CONFIGURATION_WITH_ACCESS_TOKEN,
+            timing = HttpResponseTiming(0, 10),
+            headers = mapOf("etag" to "\"v1\"", "cache-control" to "private, max-age=600")
+        )
+        coEvery { braintreeHttpClient.get(any(), any(), any(), any()) } returns mockResponse
+
+        sut = createConfigurationLoader()
+        sut.loadConfiguration()
+
+        verify {
+            configurationCache.saveConfiguration(
+                ofType(Configuration::class),
+                any(),
+                ConfigurationCacheHeaders(etag = "\"v1\"", maxAge = TimeUnit.MINUTES.toMillis(10))
+            )
+        }
+    }
+
+    @Test
+    fun `when an expired configuration has validators, loadConfiguration sends a conditional request`() = runTest {
+        every { authorization.configUrl } returns "https://example.com/config"
+        val revalidationHeaders = mapOf("If-None-Match" to "\"v1\"")
+        coEvery { configurationCache.getRevalidationHeaders(any()) } returns revalidationHeaders
+        val mockResponse = HttpResponse(Fixtures.CONFIGURATION_WITH_ACCESS_TOKEN, HttpResponseTiming(0, 10))
+        coEvery { braintreeHttpClient.get(any(), any(), any(), any()) } returns mockResponse
+
+        sut = createConfigurationLoader()
+        sut.loadConfiguration()
+
+        coVerify { braintreeHttpClient.get("https://example.com/config?configVersion=3", null, authorization, revalidationHeaders) }
+    }
+
+    @Test
+    fun `when the server responds 304, loadConfiguration revalidates the cached configuration without parsing`() =
+        runTest {
+        every { authorization.configUrl } returns "https://example.com/config"
+        val cachedConfiguration = Configuration.fromJson(Fixtures.CONFIGURATION_WITH_ACCESS_TOKEN)
+        coEvery { configurationCache.revalidateConfiguration(any(), any(), any()) } returns cachedConfiguration
+        val notModifiedResponse = HttpResponse(
+            timing = HttpResponseTiming(0, 10),
+            statusCode = 304,
+            headers = mapOf("cache-control" to "max-age=60")
+        )
+        coEvery { braintreeHttpClient.get(any(), any(), any(), any()) } returns notModifiedResponse
+
+        sut = createConfigurationLoader()
+        val configResult = sut.loadConfiguration()
+
+        assertSame(cachedConfiguration, (configResult as ConfigurationLoaderResult.Success).configuration)
+        assertEquals(304, configResult.statusCode)
+        coVerify {
+            configurationCache.revalidateConfiguration(
+                any(),
+                ConfigurationCacheHeaders(maxAge = TimeUnit.MINUTES.toMillis(1)),
+                any()
+            )
+        }
+        verify(exactly = 0) { configurationCache.saveConfiguration(any(), any(), any<ConfigurationCacheHeaders>()) }
+        verify { analyticsClient.sendEvent(CoreAnalytics.API_REQUEST_LATENCY, any(), false) }
+    }
+
+    @Test
+    fun `when the server responds 304 but the cached configuration is gone, loadConfiguration fetches it again`() =
+        runTest {
+        every { authorization.configUrl } returns "https://example.com/config"
+        coEvery { configurationCache.getRevalidationHeaders(any()) } returns mapOf("If-None-Match" to "\"v1\"")
+        coEvery { configurationCache.revalidateConfiguration(any(), any(), any()) } returns null
+        coEvery {
+            braintreeHttpClient.get(any(), any(), any(), mapOf("If-None-Match" to "\"v1\""))
+        } returns HttpResponse(timing = HttpResponseTiming(0, 10), statusCode = 304)
+        coEvery {
+            braintreeHttpClient.get(any(), any(), any(), emptyMap())
+        } returns HttpResponse(Fixtures.CONFIGURATION_WITH_ACCESS_TOKEN, HttpResponseTiming(0, 10))
+
+        sut = createConfigurationLoader()
+        val configResult = sut.loadConfiguration()
+
+        assertTrue(configResult is ConfigurationLoaderResult.Success)
+        coVerify(exactly = 2) { braintreeHttpClient.get(any(), any(), any(), any()) }
+    }
+
+    @Test
+    fun `when a configuration request fails, loads during the backoff return the failure without a request`() =
+        runTest {
+        every { authorization.configUrl } returns "https://example.com/config"
+        coEvery { braintreeHttpClient.get(any(), any(), any(), any()) } throws IOException("offline")
+
+        sut = createConfigurationLoader()
+        val first = sut.loadConfiguration()
+        val second = sut.loadConfiguration()
+
+        assertSame(first, second)
+        coVerify(exactly = 1) { braintreeHttpClient.get(any(), any(), any(), any()) }
+        verify {
+            analyticsClient.sendEvent(
+                CoreAnalytics.CONFIGURATION_BACKOFF,
+                match { it.endpoint == "/v1/configuration" && it.endTime!! > it.startTime!! },
+                false
+            )
+        }
+    }
+
+    @Test
+    fun `when the backoff has elapsed, loadConfiguration makes a new request`() = runTest {
+        every { authorization.configUrl } returns "https://example.com/config"
+        var currentTime = 0L
+        val backoff = ConfigurationBackoff(initialDelay = 1_000L, currentTimeMillis = { currentTime })
+        coEvery { braintreeHttpClient.get(any(), any(), any(), any()) } throws IOException("offline")
+
+        sut = createConfigurationLoader(backoff = backoff)
+        sut.loadConfiguration()
+        currentTime = 1_000L
+        coEvery {
+            braintreeHttpClient.get(any(), any(), any(), any())
+        } returns HttpResponse(Fixtures.CONFIGURATION_WITH_ACCESS_TOKEN, HttpResponseTiming(0, 10))
+        val configResult = sut.loadConfiguration()
+
+        assertTrue(configResult is ConfigurationLoaderResult.Success)
+        coVerify(exactly = 2) { braintreeHttpClient.get(any(), any(), any(), any()) }
+    }
+
+    @Test
+    fun `when loads wait on a failing request, they share its failure and a single request is made`() = runTest {
+        every { authorization.configUrl } returns "https://example.com/config"
+        coEvery { braintreeHttpClient.get(any(), any(), any(), any()) } coAnswers {
+            delay(1000)
+            throw IOException("offline")
+        }
+
+        sut = createConfigurationLoader(StandardTestDispatcher(testScheduler))
+        val results = List(5) { async { sut.loadConfiguration() } }.awaitAll()
+
+        assertTrue(results.all { it === results.first() && it is ConfigurationLoaderResult.Failure })
+        coVerify(exactly = 1) { braintreeHttpClient.get(any(), any(), any(), any()) }
+    }
+
+    @Test
+    fun `when a stale configuration is served during the backoff, no background request is made`() = runTest {
+        every { authorization.configUrl } returns "https://example.com/config"
+        coEvery { braintreeHttpClient.get(any(), any(), any(), any()) } throws IOException("offline")
+
+        sut = createConfigurationLoader()
+        sut.loadConfiguration()
+        val staleConfiguration = Configuration.fromJson(Fixtures.CONFIGURATION_WITH_ACCESS_TOKEN)
+        coEvery { configurationCache.getStaleConfiguration(any(), any(), any()) } returns staleConfiguration
+        val configResult = sut.loadConfiguration()
+
+        assertSame(staleConfiguration, (configResult as ConfigurationLoaderResult.Success).configuration)
+        coVerify(exactly = 1) { braintreeHttpClient.get(any(), any(), any(), any()) }
+    }
+
+    @Test
+    fun `when hedging is configured, loadConfiguration sends a hedged configuration request`() = runTest {
+        every { authorization.configUrl } returns "https://example.com/config"
+        val hedging = RequestHedging(fixedDelay = 1_000L)
+        coEvery {
+            braintreeHttpClient.get(any(), any(), any(), any(), hedging)
+        } returns HttpResponse(Fixtures.CONFIGURATION_WITH_ACCESS_TOKEN, HttpResponseTiming(0, 10))
+
+        sut = createConfigurationLoader(hedging = hedging)
+        val configResult = sut.loadConfiguration()
+
+        assertTrue(configResult is ConfigurationLoaderResult.Success)
+        coVerify { braintreeHttpClient.get("https://example.com/config?configVersion=3", null, authorization, any(), hedging) }
+    }
+
+    private fun createConfigurationLoader(
+        dispatcher: CoroutineDispatcher = UnconfinedTestDispatcher(),
+        maxStaleness: Long = TimeUnit.HOURS.toMillis(1),
+        backoff: ConfigurationBackoff = ConfigurationBackoff(),
+        hedging: RequestHedging? = null
+    ) = ConfigurationLoader(
         httpClient = braintreeHttpClient,
         merchantRepository = merchantRepository,
         configurationCache = configurationCache,
+        dispatcher = dispatcher,
+        maxStaleness = maxStaleness,
+        backoff = backoff,
+        hedging = hedging,
         lazyAnalyticsClient = lazy { analyticsClient }
     )
 }
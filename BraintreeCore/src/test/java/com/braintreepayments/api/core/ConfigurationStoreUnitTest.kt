@@ -0,0 +1,189 @@
+package com.braintreepayments.api.core
+
+import com.braintreepayments.api.testutils.Fixtures
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertNotNull
+import org.junit.Assert.assertNull
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.junit.rules.TemporaryFolder
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import java.io.DataInputStream
+import java.io.DataOutputStream
+import java.io.File
+
+@RunWith(RobolectricTestRunner::class)
+class ConfigurationStoreUnitTest {
+
+    @get:Rule
+    val temporaryFolder = TemporaryFolder()
+
+    private lateinit var directory: File
+    private var currentTime = 1_000L
+    private val configuration = Configuration.fromJson(Fixtures.CONFIGURATION_WITH_GOOGLE_PAY)
+
+    @Before
+    fun setUp() {
+        directory = File(temporaryFolder.root, "configuration")
+    }
+
+    @Test
+    fun `put then get returns the saved configuration and timestamp`() {
+        val sut = createStore()
+        sut.put("cacheKey", configuration, 123L)
+
+        val storedConfiguration = sut.get("cacheKey")
+
+        assertEquals(configuration.toJson(), storedConfiguration?.configuration?.toJson())
+        assertTrue(storedConfiguration?.configuration?.isGooglePayEnabled == true)
+        assertEquals(123L, storedConfiguration?.timestamp)
+    }
+
+    @Test
+    fun `put then get returns the saved cache headers`() {
+        val cacheHeaders = ConfigurationCacheHeaders("\"v1\"", "Wed, 21 Oct 2026 07:28:00 GMT", 60_000L)
+        createStore().put("cacheKey", configuration, 0L, cacheHeaders)
+
+        assertEquals(cacheHeaders, createStore().get("cacheKey")?.cacheHeaders)
+    }
+
+    @Test
+    fun `revalidate replaces the timestamp and cache headers and keeps the configuration`() {
+        createStore().put("cacheKey", configuration, 0L, ConfigurationCacheHeaders(etag = "\"v1\""))
+        val cacheHeaders = ConfigurationCacheHeaders(etag = "\"v1\"", maxAge = 60_000L)
+
+        assertTrue(createStore().revalidate("cacheKey", 42L, cacheHeaders))
+
+        val storedConfiguration = createStore().get("cacheKey")
+        assertEquals(42L, storedConfiguration?.timestamp)
+        assertEquals(cacheHeaders, storedConfiguration?.cacheHeaders)
+        assertEquals(configuration.toJson(), storedConfiguration?.configuration?.toJson())
+        assertTrue(storedConfiguration?.configuration?.isGooglePayEnabled == true)
+    }
+
+    @Test
+    fun `revalidate returns false for an unknown cache key`() {
+        assertFalse(createStore().revalidate("unknown", 0L, ConfigurationCacheHeaders.NONE))
+    }
+
+    @Test
+    fun `get drops an entry written with another file version`() {
+        createStore().put("cacheKey", configuration, 0L)
+        val entryFile = directory.listFiles()!!.single()
+        val bytes = entryFile.readBytes()
+        bytes[3] = (bytes[3] + 1).toByte()
+        entryFile.writeBytes(bytes)
+
+        assertNull(createStore().get("cacheKey"))
+        assertFalse(entryFile.exists())
+    }
+
+    @Test
+    fun `get rebuilds the configuration from json when the binary format version differs`() {
+        val json = configuration.toJson().toByteArray(Charsets.UTF_8)
+        createStore().put("cacheKey", configuration, 0L)
+        val entryFile = directory.listFiles()!!.single()
+        val fileVersion = DataInputStream(entryFile.inputStream()).use { it.readInt() }
+        DataOutputStream(entryFile.outputStream()).use { output ->
+            output.writeInt(fileVersion)
+            output.writeLong(9L)
+            output.writeLong(-1L)
+            output.writeInt(-1)
+            output.writeInt(-1)
+            output.writeInt(json.size)
+            output.write(json)
+            output.writeByte(ConfigurationBinaryFormat.VERSION + 1)
+        }
+
+        val storedConfiguration = createStore().get("cacheKey")
+
+        assertEquals(9L, storedConfiguration?.timestamp)
+        assertEquals("test", storedConfiguration?.configuration?.environment)
+        assertTrue(storedConfiguration?.configuration?.isGooglePayEnabled == true)
+    }
+
+    @Test
+    fun `put names the entry file with a fixed length digest of the cache key`() {
+        val sut = createStore()
+        sut.put("aHR0cHM6Ly9leGFtcGxlLmNvbS9jb25maWc/Y29uZmlnVmVyc2lvbj0zYmVhcmVy\n", configuration, 0L)
+
+        val fileNames = directory.list()!!.toList()
+
+        assertEquals(1, fileNames.size)
+        assertTrue(fileNames.single().matches(Regex("[0-9a-f]{64}")))
+    }
+
+    @Test
+    fun `get returns null for an unknown cache key`() {
+        assertNull(createStore().get("unknown"))
+    }
+
+    @Test
+    fun `entries are read back by a new store instance`() {
+        createStore().put("cacheKey", configuration, 5L)
+
+        assertEquals(5L, createStore().get("cacheKey")?.timestamp)
+    }
+
+    @Test
+    fun `put evicts the least recently used entry above maxEntries`() {
+        val sut = createStore(maxEntries = 2)
+        sut.put("first", configuration, 0L)
+        sut.put("second", configuration, 0L)
+        sut.get("first")
+        sut.put("third", configuration, 0L)
+
+        assertNotNull(sut.get("first"))
+        assertNull(sut.get("second"))
+        assertNotNull(sut.get("third"))
+        assertEquals(2, directory.list()!!.size)
+    }
+
+    @Test
+    fun `least recently used order survives a new store instance`() {
+        val firstStore = createStore(maxEntries = 2)
+        firstStore.put("first", configuration, 0L)
+        currentTime += 1_000
+        firstStore.put("second", configuration, 0L)
+        currentTime += 1_000
+        firstStore.get("first")
+
+        val secondStore = createStore(maxEntries = 2)
+        secondStore.put("third", configuration, 0L)
+
+        assertTrue(secondStore.contains("first"))
+        assertFalse(secondStore.contains("second"))
+    }
+
+    @Test
+    fun `compact trims entries above maxEntries and removes temporary files`() {
+        val largeStore = createStore(maxEntries = 5)
+        repeat(5) { largeStore.put("key$it", configuration, 0L) }
+        File(directory, "leftover.tmp").writeText("partial")
+
+        createStore(maxEntries = 3).compact()
+
+        assertEquals(3, directory.list()!!.size)
+        assertFalse(File(directory, "leftover.tmp").exists())
+    }
+
+    @Test
+    fun `get drops an entry that cannot be read`() {
+        val sut = createStore()
+        sut.put("cacheKey", configuration, 0L)
+        directory.listFiles()!!.single().writeBytes(byteArrayOf(1, 2))
+
+        assertNull(createStore().get("cacheKey"))
+        assertFalse(createStore().contains("cacheKey"))
+    }
+
+    private fun createStore(maxEntries: Int = 10) = ConfigurationStore(
+        directory = directory,
+        maxEntries = maxEntries,
+        currentTimeMillis = { currentTime }
+    )
+}
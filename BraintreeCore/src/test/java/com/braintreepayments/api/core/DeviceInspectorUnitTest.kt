@@ -8,8 +8,11 @@ import android.content.pm.PackageManager
 import android.content.res.Configuration
 import android.content.res.Resources
 import android.net.ConnectivityManager
+import android.net.Uri
 import android.os.Build
 import android.os.Build.VERSION
+import android.os.Looper
+import androidx.test.core.app.ApplicationProvider
 import com.braintreepayments.api.sharedutils.AppHelper
 import com.braintreepayments.api.sharedutils.SignatureVerifier
 import com.braintreepayments.api.testutils.Fixtures
@@ -21,11 +24,13 @@ import io.mockk.verify
 import org.json.JSONException
 import org.junit.Assert.assertEquals
 import org.junit.Assert.assertFalse
+import org.junit.Assert.assertNull
 import org.junit.Assert.assertTrue
 import org.junit.Before
 import org.junit.Test
 import org.junit.runner.RunWith
 import org.robolectric.RobolectricTestRunner
+import org.robolectric.Shadows.shadowOf
 import org.robolectric.util.ReflectionHelpers
 
 @RunWith(RobolectricTestRunner::class)
@@ -368,6 +373,36 @@ class DeviceInspectorUnitTest {
         assertEquals("integration_merchant_id", metadata.merchantId)
     }
 
+    @Test
+    fun `getDeviceMetadata looks up the app name and version only once`() {
+        sut.getDeviceMetadata(context, btConfiguration, "session-id", IntegrationType.CUSTOM)
+        val metadata = sut.getDeviceMetadata(context, null, "other-session-id", null)
+
+        verify(exactly = 1) { packageManager.getApplicationInfo("com.sample.app", 0) }
+        verify(exactly = 1) { packageManager.getPackageInfo("com.sample.app", 0) }
+        assertEquals("other-session-id", metadata.sessionId)
+        assertNull(metadata.environment)
+        assertNull(metadata.merchantId)
+        assertNull(metadata.integrationType)
+    }
+
+    @Test
+    fun `isPayPalInstalled looks up the PayPal app again only after its package is added or removed`() {
+        val applicationContext = ApplicationProvider.getApplicationContext<Context>()
+        sut = DeviceInspector(applicationContext, appHelper, signatureVerifier)
+        every {
+            appHelper.isAppInstalled(applicationContext, "com.paypal.android.p2pmobile")
+        } returnsMany listOf(false, true)
+
+        assertFalse(sut.isPayPalInstalled())
+        sendPackageBroadcast(applicationContext, Intent.ACTION_PACKAGE_ADDED, "com.venmo")
+        assertFalse(sut.isPayPalInstalled())
+        sendPackageBroadcast(applicationContext, Intent.ACTION_PACKAGE_ADDED, "com.paypal.android.p2pmobile")
+        assertTrue(sut.isPayPalInstalled())
+
+        verify(exactly = 2) { appHelper.isAppInstalled(applicationContext, "com.paypal.android.p2pmobile") }
+    }
+
     @Test
     fun `isPayPalInstalled returns true when appHelper reports PayPal app installed`() {
         every { appHelper.isAppInstalled(context, "com.paypal.android.p2pmobile") } returns true
@@ -427,4 +462,9 @@ class DeviceInspectorUnitTest {
 
         assertTrue(sut.isVenmoAppSwitchAvailable(context))
     }
+
+    private fun sendPackageBroadcast(context: Context, action: String, packageName: String) {
+        context.sendBroadcast(Intent(action, Uri.parse("package:$packageName")))
+        shadowOf(Looper.getMainLooper()).idle()
+    }
 }
@@ -0,0 +1,58 @@
+package com.braintreepayments.api.core
+
+import com.braintreepayments.api.sharedutils.HttpPhaseTimings
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertNull
+import org.junit.Assert.assertTrue
+import org.junit.Test
+
+class LatencyHistogramRepositoryUnitTest {
+
+    private val sut = LatencyHistogramRepository()
+
+    @Test
+    fun `record opens a window on the first latency only`() {
+        assertTrue(sut.record("/v1/configuration", 100, null, currentTime = 1_000))
+        assertFalse(sut.record("/v1/configuration", 200, null, currentTime = 2_000))
+    }
+
+    @Test
+    fun `drain returns the window start time with a summary per endpoint, including mean phase timings`() {
+        sut.record("/v1/configuration", 200, HttpPhaseTimings(dnsDuration = 20, timeToFirstByte = 100), 1_000)
+        sut.record("/v1/configuration", 100, HttpPhaseTimings(timeToFirstByte = 60, isConnectionReused = true), 2_000)
+        sut.record("TokenizeCreditCard", 40, null, 3_000)
+
+        val (windowStartTime, summaries) = sut.drain()!!
+
+        assertEquals(1_000L, windowStartTime)
+        val configurationSummary = summaries.getValue("/v1/configuration")
+        assertEquals(2, configurationSummary.sampleCount)
+        assertEquals(
+            PhaseTimingSummary(
+                sampleCount = 2,
+                meanDnsMillis = 10,
+                meanConnectMillis = 0,
+                meanTlsMillis = 0,
+                meanTimeToFirstByteMillis = 80,
+                meanResponseBodyMillis = 0,
+                reusedConnectionCount = 1
+            ),
+            configurationSummary.phases
+        )
+        assertNull(summaries.getValue("TokenizeCreditCard").phases)
+    }
+
+    @Test
+    fun `drain resets the window, and endpoints without new latencies are left out of the next one`() {
+        sut.record("/v1/configuration", 100, HttpPhaseTimings(dnsDuration = 20), 1_000)
+        sut.drain()
+
+        assertNull(sut.drain())
+
+        assertTrue(sut.record("TokenizeCreditCard", 40, null, 70_000))
+        val (windowStartTime, summaries) = sut.drain()!!
+        assertEquals(70_000L, windowStartTime)
+        assertEquals(setOf("TokenizeCreditCard"), summaries.keys)
+    }
+}
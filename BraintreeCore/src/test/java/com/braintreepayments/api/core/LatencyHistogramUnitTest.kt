@@ -0,0 +1,51 @@
+package com.braintreepayments.api.core
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Test
+
+class LatencyHistogramUnitTest {
+
+    @Test
+    fun `every latency falls within its bucket, and buckets above 16 ms span at most an eighth of their latencies`() {
+        for (latency in 0L..LatencyHistogram.MAX_TRACKABLE_MILLIS) {
+            val index = LatencyHistogram.bucketIndex(latency)
+            val lowerBound = LatencyHistogram.bucketLowerBound(index)
+            val upperBound = LatencyHistogram.bucketUpperBound(index)
+            assertTrue("$latency in [$lowerBound, $upperBound]", latency in lowerBound..upperBound)
+            assertTrue("bucket of $latency", (upperBound - lowerBound + 1) * 8 <= maxOf(lowerBound, 8))
+        }
+        assertEquals(LatencyHistogram.BUCKET_COUNT - 1, LatencyHistogram.bucketIndex(Long.MAX_VALUE))
+    }
+
+    @Test
+    fun `valueAtPercentile returns the upper bound of the bucket holding the sample, capped at the max`() {
+        val sut = LatencyHistogram()
+        (1L..100L).forEach { sut.record(it) }
+
+        assertEquals(100, sut.sampleCount)
+        assertEquals(51L, sut.valueAtPercentile(50))
+        assertEquals(95L, sut.valueAtPercentile(90))
+        assertEquals(100L, sut.valueAtPercentile(99))
+        assertEquals(100L, sut.maxMillis)
+    }
+
+    @Test
+    fun `summarize encodes only non-empty buckets, and reset clears the histogram`() {
+        val sut = LatencyHistogram()
+        sut.record(5)
+        sut.record(5)
+        sut.record(100)
+        sut.record(-3)
+
+        val summary = sut.summarize()
+        sut.reset()
+
+        assertEquals("0:1,5:2,96:1", summary.buckets)
+        assertEquals(4, summary.sampleCount)
+        assertEquals(100L, summary.maxMillis)
+        assertEquals(0, sut.sampleCount)
+        assertEquals("", sut.encodeBuckets())
+        assertEquals(0L, sut.valueAtPercentile(50))
+    }
+}
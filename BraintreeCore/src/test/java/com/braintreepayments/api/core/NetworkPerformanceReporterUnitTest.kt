@@ -0,0 +1,88 @@
+package com.braintreepayments.api.core
+
+import com.braintreepayments.api.sharedutils.HttpPhaseTimings
+import com.braintreepayments.api.sharedutils.HttpResponseTiming
+import io.mockk.mockk
+import org.junit.Test
+import java.net.UnknownHostException
+import java.util.concurrent.Executor
+import kotlin.test.assertEquals
+import kotlin.test.assertNull
+import kotlin.test.assertSame
+
+class NetworkPerformanceReporterUnitTest {
+
+    private val executedRunnables = mutableListOf<Runnable>()
+    private val executor = Executor { executedRunnables.add(it) }
+
+    private val sut = NetworkPerformanceReporter(executor)
+
+    @Test
+    fun `when no listener is registered, report does not dispatch anything`() {
+        sut.report("/v1/configuration", 200, HttpResponseTiming(0, 10))
+
+        assertEquals(0, executedRunnables.size)
+    }
+
+    @Test
+    fun `when a listener is registered, report delivers metrics on the executor`() {
+        var metrics: NetworkRequestMetrics? = null
+        sut.listener = NetworkPerformanceListener { metrics = it }
+        val phases = HttpPhaseTimings(
+            dnsDuration = 1,
+            connectDuration = 2,
+            tlsDuration = 3,
+            timeToFirstByte = 4,
+            responseBodyDuration = 5,
+            requestBytes = 6,
+            responseBytes = 7,
+            isConnectionReused = false
+        )
+
+        sut.report("/v1/payment_methods/credit_cards", 201, HttpResponseTiming(100, 150, phases))
+
+        assertNull(metrics)
+        executedRunnables.single().run()
+        assertEquals(
+            NetworkRequestMetrics(
+                endpoint = "/v1/payment_methods/credit_cards",
+                statusCode = 201,
+                duration = 50,
+                dnsDuration = 1,
+                connectDuration = 2,
+                tlsDuration = 3,
+                timeToFirstByte = 4,
+                responseBodyDuration = 5,
+                requestBytes = 6,
+                responseBytes = 7,
+                isConnectionReused = false
+            ),
+            metrics
+        )
+    }
+
+    @Test
+    fun `when a request fails before a response, report delivers the exception with no status code`() {
+        var metrics: NetworkRequestMetrics? = null
+        sut.listener = NetworkPerformanceListener { metrics = it }
+        val exception = UnknownHostException("api.braintreegateway.com")
+
+        sut.report("/v1/configuration", NetworkPerformanceReporter.NO_RESPONSE, HttpResponseTiming(100, 160), exception)
+        executedRunnables.single().run()
+
+        assertEquals(0, metrics?.statusCode)
+        assertEquals(60L, metrics?.duration)
+        assertSame(exception, metrics?.exception)
+    }
+
+    @Test
+    fun `setListener registers the listener on the shared reporter`() {
+        val listener = mockk<NetworkPerformanceListener>()
+
+        NetworkPerformance.setListener(listener)
+        assertEquals(listener, NetworkPerformanceReporter.instance.listener)
+
+        NetworkPerformance.setListener(null)
+        assertNull(NetworkPerformanceReporter.instance.listener)
+    }
+}
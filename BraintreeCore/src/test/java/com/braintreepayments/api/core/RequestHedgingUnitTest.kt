@@ -0,0 +1,53 @@
+package com.braintreepayments.api.core
+
+import org.junit.Assert.assertEquals
+import org.junit.Test
+
+class RequestHedgingUnitTest {
+
+    @Test
+    fun `hedgeDelay returns the fixed delay when one is configured`() {
+        val sut = RequestHedging(fixedDelay = 250L)
+        repeat(10) { sut.recordResponseTime(5_000L) }
+
+        assertEquals(250L, sut.hedgeDelay())
+    }
+
+    @Test
+    fun `hedgeDelay returns the default delay until enough response times are recorded`() {
+        val sut = RequestHedging(defaultDelay = 3_000L)
+        repeat(4) { sut.recordResponseTime(100L) }
+
+        assertEquals(3_000L, sut.hedgeDelay())
+    }
+
+    @Test
+    fun `hedgeDelay returns the 90th percentile of recorded response times`() {
+        val sut = RequestHedging(minDelay = 0L, maxDelay = 10_000L)
+        (1..10).shuffled().forEach { sut.recordResponseTime(it * 100L) }
+
+        assertEquals(1_000L, sut.hedgeDelay())
+    }
+
+    @Test
+    fun `hedgeDelay only considers the most recent response times`() {
+        val sut = RequestHedging(minDelay = 0L, maxDelay = 10_000L)
+        repeat(32) { sut.recordResponseTime(9_000L) }
+        repeat(32) { sut.recordResponseTime(400L) }
+
+        assertEquals(400L, sut.hedgeDelay())
+    }
+
+    @Test
+    fun `hedgeDelay keeps the percentile between the minimum and maximum delay`() {
+        val fast = RequestHedging(minDelay = 500L, maxDelay = 10_000L)
+        val slow = RequestHedging(minDelay = 500L, maxDelay = 10_000L)
+        repeat(10) {
+            fast.recordResponseTime(50L)
+            slow.recordResponseTime(29_000L)
+        }
+
+        assertEquals(500L, fast.hedgeDelay())
+        assertEquals(10_000L, slow.hedgeDelay())
+    }
+}
@@ -1,8 +1,11 @@
 package com.braintreepayments.api.card
 
 import android.os.Parcelable
+import android.util.JsonReader
 import androidx.annotation.RestrictTo
 import com.braintreepayments.api.sharedutils.Json
+import com.braintreepayments.api.sharedutils.JsonReaderExtensions.nextStringOrNull
+import com.braintreepayments.api.sharedutils.JsonReaderExtensions.readObject
 import kotlinx.parcelize.Parcelize
 import org.json.JSONObject
 
@@ -35,17 +38,52 @@ data class AuthenticationInsight internal constructor(
                 Json.optString(json, GRAPHQL_REGULATION_ENVIRONMENT_KEY, "")
             } else {
                 Json.optString(json, REST_REGULATION_ENVIRONMENT_KEY, "")
-            }.let { environmentKey ->
-                environmentKey.lowercase().let {
-                    if ("psdtwo" == it) {
-                        "psd2"
-                    } else {
-                        it
+            }.let { normalizeRegulationEnvironment(it) }
+
+            return AuthenticationInsight(regulationEnv)
+        }
+
+        /**
+         * Reads an authentication insight from the next value of [reader], with the same defaults as
+         * [fromJson].
+         */
+        @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+        @JvmStatic
+        fun fromJsonReader(reader: JsonReader): AuthenticationInsight? {
+            var graphQLRegulationEnvironment: String? = null
+            var hasGraphQLRegulationEnvironment = false
+            var restRegulationEnvironment: String? = null
+
+            val isPresent = reader.readObject { name ->
+                when (name) {
+                    GRAPHQL_REGULATION_ENVIRONMENT_KEY -> {
+                        hasGraphQLRegulationEnvironment = true
+                        graphQLRegulationEnvironment = reader.nextStringOrNull()
                     }
+                    REST_REGULATION_ENVIRONMENT_KEY -> restRegulationEnvironment = reader.nextStringOrNull()
+                    else -> reader.skipValue()
                 }
             }
+            if (!isPresent) {
+                return null
+            }
 
-            return AuthenticationInsight(regulationEnv)
+            val regulationEnv = if (hasGraphQLRegulationEnvironment) {
+                graphQLRegulationEnvironment
+            } else {
+                restRegulationEnvironment
+            }
+            return AuthenticationInsight(normalizeRegulationEnvironment(regulationEnv.orEmpty()))
+        }
+
+        private fun normalizeRegulationEnvironment(regulationEnvironment: String): String {
+            return regulationEnvironment.lowercase().let {
+                if ("psdtwo" == it) {
+                    "psd2"
+                } else {
+                    it
+                }
+            }
         }
     }
 }
@@ -1,8 +1,11 @@
 package com.braintreepayments.api.card
 
 import android.os.Parcelable
+import android.util.JsonReader
 import androidx.annotation.RestrictTo
 import com.braintreepayments.api.sharedutils.Json
+import com.braintreepayments.api.sharedutils.JsonReaderExtensions.nextStringOrNull
+import com.braintreepayments.api.sharedutils.JsonReaderExtensions.readObject
 import kotlinx.parcelize.Parcelize
 import org.json.JSONObject
 
@@ -68,6 +71,53 @@ data class BinData internal constructor(
             )
         }
 
+        /**
+         * Reads BIN data from the next value of [reader], with the same defaults as [fromJson].
+         */
+        @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+        @JvmStatic
+        fun fromJsonReader(reader: JsonReader): BinData {
+            var prepaid = BinType.Unknown
+            var healthcare = BinType.Unknown
+            var debit = BinType.Unknown
+            var durbinRegulated = BinType.Unknown
+            var commercial = BinType.Unknown
+            var payroll = BinType.Unknown
+            var issuingBank = ""
+            var countryOfIssuance = ""
+            var productId = ""
+
+            reader.readObject { name ->
+                when (name) {
+                    PREPAID_KEY -> prepaid = reader.nextBinType()
+                    HEALTHCARE_KEY -> healthcare = reader.nextBinType()
+                    DEBIT_KEY -> debit = reader.nextBinType()
+                    DURBIN_REGULATED_KEY -> durbinRegulated = reader.nextBinType()
+                    COMMERCIAL_KEY -> commercial = reader.nextBinType()
+                    PAYROLL_KEY -> payroll = reader.nextBinType()
+                    ISSUING_BANK_KEY -> issuingBank = reader.nextStringOrNull() ?: BinType.Unknown.name
+                    COUNTRY_OF_ISSUANCE_KEY -> countryOfIssuance = reader.nextStringOrNull() ?: BinType.Unknown.name
+                    PRODUCT_ID_KEY -> productId = reader.nextStringOrNull() ?: BinType.Unknown.name
+                    else -> reader.skipValue()
+                }
+            }
+
+            return BinData(
+                prepaid = prepaid,
+                healthcare = healthcare,
+                debit = debit,
+                durbinRegulated = durbinRegulated,
+                commercial = commercial,
+                payroll = payroll,
+                issuingBank = issuingBank,
+                countryOfIssuance = countryOfIssuance,
+                productId = productId
+            )
+        }
+
+        private fun JsonReader.nextBinType(): BinType =
+            BinType.fromString(nextStringOrNull() ?: BinType.Unknown.name)
+
         private fun convertNullToUnknown(json: JSONObject, key: String): String {
             return if (json.has(key) && json.isNull(key)) {
                 BinType.Unknown.name
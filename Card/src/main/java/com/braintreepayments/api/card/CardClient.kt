@@ -1,19 +1,15 @@
 package com.braintreepayments.api.card
 
 import android.content.Context
-import com.braintreepayments.api.card.CardNonce.Companion.fromJSON
 import com.braintreepayments.api.core.AnalyticsEventParams
 import com.braintreepayments.api.core.AnalyticsParamRepository
 import com.braintreepayments.api.core.ApiClient
 import com.braintreepayments.api.core.BraintreeClient
-import com.braintreepayments.api.core.BraintreeException
 import com.braintreepayments.api.core.GraphQLConstants
 import kotlinx.coroutines.CoroutineDispatcher
 import kotlinx.coroutines.CoroutineScope
 import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.launch
-import org.json.JSONException
-import org.json.JSONObject
 import kotlin.coroutines.cancellation.CancellationException
 
 /**
@@ -82,37 +78,23 @@ class CardClient internal constructor(
                     GraphQLConstants.Features.TOKENIZE_CREDIT_CARDS
                 )
 
-            val tokenizationResponse = if (shouldTokenizeViaGraphQL) {
+            // the nonce is read straight from the response stream; GraphQL errors surface as a BraintreeException
+            val cardNonce = if (shouldTokenizeViaGraphQL) {
                 card.sessionId = analyticsParamRepository.sessionId
                 val tokenizePayload = card.buildJSONForGraphQL()
-                apiClient.tokenizeGraphQL(tokenizePayload)
+                apiClient.tokenizeGraphQL(tokenizePayload, CardNonceReader)
             } else {
-                apiClient.tokenizeREST(card)
+                apiClient.tokenizeREST(card, CardNonceReader)
             }
 
-            handleTokenizeResponse(tokenizationResponse)
+            braintreeClient.sendAnalyticsEvent(CardAnalytics.CARD_TOKENIZE_SUCCEEDED)
+            CardResult.Success(cardNonce)
         } catch (e: Exception) {
             if (e is CancellationException) throw e
             tokenizeFailure(e)
         }
     }
 
-    private fun handleTokenizeResponse(tokenizationResponse: JSONObject): CardResult {
-        return if (tokenizationResponse.has("errors") &&
-            tokenizationResponse.getJSONArray(GraphQLConstants.Keys.ERRORS).length() > 0
-        ) {
-            tokenizeFailure(BraintreeException(tokenizationResponse.toString()))
-        } else {
-            try {
-                val cardNonce = fromJSON(tokenizationResponse)
-                braintreeClient.sendAnalyticsEvent(CardAnalytics.CARD_TOKENIZE_SUCCEEDED)
-                CardResult.Success(cardNonce)
-            } catch (e: JSONException) {
-                tokenizeFailure(e)
-            }
-        }
-    }
-
     private fun tokenizeFailure(error: Exception): CardResult.Failure {
         braintreeClient.sendAnalyticsEvent(
             CardAnalytics.CARD_TOKENIZE_FAILED,
@@ -1,11 +1,14 @@
 package com.braintreepayments.api.card
 
+import android.util.JsonReader
 import androidx.annotation.RestrictTo
+import com.braintreepayments.api.core.BraintreeException
 import com.braintreepayments.api.core.PaymentMethodNonce
 import com.braintreepayments.api.sharedutils.Json
 import kotlinx.parcelize.Parcelize
 import org.json.JSONException
 import org.json.JSONObject
+import java.io.IOException
 
 /**
  * [PaymentMethodNonce] representing a credit or debit card.
@@ -65,6 +68,20 @@ constructor(
             }
         }
 
+        /**
+         * Read card nonce from a tokenization response as it streams from the network, without building
+         * a [JSONObject] for it. Accepts the same response shapes as [fromJSON].
+         *
+         * @param reader reader positioned at the start of the response
+         * @return [CardNonce]
+         * @throws BraintreeException if the response carries GraphQL errors
+         * @throws JSONException if nonce could not be parsed successfully
+         */
+        @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+        @Throws(IOException::class, JSONException::class)
+        @JvmStatic
+        fun fromJsonReader(reader: JsonReader): CardNonce = CardNonceReader.decode(reader)
+
         private fun isGraphQLTokenizationResponse(inputJSON: JSONObject): Boolean {
             return inputJSON.has(DATA_KEY)
         }
@@ -0,0 +1,234 @@
+package com.braintreepayments.api.card
+
+import android.util.JsonReader
+import android.util.JsonToken
+import com.braintreepayments.api.core.BraintreeException
+import com.braintreepayments.api.core.GraphQLConstants
+import com.braintreepayments.api.sharedutils.JsonReaderExtensions.nextBooleanOrFallback
+import com.braintreepayments.api.sharedutils.JsonReaderExtensions.nextJsonValue
+import com.braintreepayments.api.sharedutils.JsonReaderExtensions.nextStringOrNull
+import com.braintreepayments.api.sharedutils.JsonReaderExtensions.readObject
+import com.braintreepayments.api.sharedutils.ResponseBodyDecoder
+import org.json.JSONArray
+import org.json.JSONException
+import org.json.JSONObject
+
+/**
+ * Reads a [CardNonce] from a tokenization response as it streams from the network, accepting the
+ * same GraphQL, RESTful and plain JSON shapes as [CardNonce.fromJSON] without building a
+ * [JSONObject] for the response.
+ *
+ * Keys may arrive in any order, so the fields of each shape are collected while the response is read
+ * and the nonce is built once it has been read completely.
+ */
+internal object CardNonceReader : ResponseBodyDecoder<CardNonce> {
+
+    /**
+     * @throws BraintreeException if the response carries GraphQL errors
+     * @throws JSONException if a nonce could not be read from the response
+     */
+    override fun decode(reader: JsonReader): CardNonce {
+        return try {
+            readTokenizeResponse(reader)
+        } catch (e: IllegalStateException) {
+            throw JSONException(e.message)
+        }
+    }
+
+    private fun readTokenizeResponse(reader: JsonReader): CardNonce {
+        val plainFields = PlainCardFields()
+        var graphQLFields: GraphQLCardFields? = null
+        var restFields: PlainCardFields? = null
+        var hasRestResource = false
+        var errors: JSONArray? = null
+
+        reader.readObject { name ->
+            when (name) {
+                CardNonce.DATA_KEY -> graphQLFields = readGraphQLData(reader)
+                CardNonce.API_RESOURCE_KEY -> {
+                    hasRestResource = true
+                    restFields = readFirstRestResource(reader)
+                }
+                GraphQLConstants.Keys.ERRORS -> errors = reader.nextJsonValue() as? JSONArray
+                else -> plainFields.read(name, reader)
+            }
+        }
+
+        errors?.takeIf { it.length() > 0 }?.let {
+            throw BraintreeException(JSONObject().put(GraphQLConstants.Keys.ERRORS, it).toString())
+        }
+        graphQLFields?.let { return it.toCardNonce() }
+        if (hasRestResource) {
+            return restFields?.toCardNonce() ?: throw JSONException("No value for $PAYMENT_METHOD_NONCE_KEY")
+        }
+        return plainFields.toCardNonce()
+    }
+
+    private fun readGraphQLData(reader: JsonReader): GraphQLCardFields {
+        val fields = GraphQLCardFields()
+        reader.readObject { name ->
+            if (name == GRAPHQL_TOKENIZE_CREDIT_CARD_KEY) {
+                fields.hasPayload = reader.readObject { payloadName -> fields.read(payloadName, reader) }
+            } else {
+                reader.skipValue()
+            }
+        }
+        return fields
+    }
+
+    private fun readFirstRestResource(reader: JsonReader): PlainCardFields? {
+        if (reader.peek() != JsonToken.BEGIN_ARRAY) {
+            reader.skipValue()
+            return null
+        }
+        reader.beginArray()
+        val fields = if (reader.hasNext()) {
+            PlainCardFields().also { fields -> reader.readObject { name -> fields.read(name, reader) } }
+        } else {
+            null
+        }
+        while (reader.hasNext()) {
+            reader.skipValue()
+        }
+        reader.endArray()
+        return fields
+    }
+
+    /**
+     * Reads the flat string values of a card details object, plus its BIN data when present.
+     */
+    private fun readCardDetails(reader: JsonReader): CardDetails? {
+        val values = mutableMapOf<String, String?>()
+        var binData: BinData? = null
+        val isPresent = reader.readObject { name ->
+            when {
+                name == BinData.BIN_DATA_KEY -> binData = BinData.fromJsonReader(reader)
+                reader.peek() == JsonToken.BEGIN_OBJECT || reader.peek() == JsonToken.BEGIN_ARRAY ->
+                    reader.skipValue()
+                else -> values[name] = reader.nextStringOrNull()
+            }
+        }
+        return if (isPresent) CardDetails(values, binData ?: BinData.fromJson(null)) else null
+    }
+
+    /**
+     * Fields of a plain or RESTful tokenization response.
+     */
+    private class PlainCardFields {
+        var nonce: String? = null
+        var isDefault = false
+        var details: CardDetails? = null
+        var binData: BinData = BinData.fromJson(null)
+        var authenticationInsight: AuthenticationInsight? = null
+
+        fun read(name: String, reader: JsonReader) {
+            when (name) {
+                PAYMENT_METHOD_NONCE_KEY -> nonce = reader.nextRequiredString()
+                PAYMENT_METHOD_DEFAULT_KEY -> isDefault = reader.nextBooleanOrFallback(false)
+                CARD_DETAILS_KEY -> details = readCardDetails(reader)
+                BinData.BIN_DATA_KEY -> binData = BinData.fromJsonReader(reader)
+                AUTHENTICATION_INSIGHT_KEY -> authenticationInsight = AuthenticationInsight.fromJsonReader(reader)
+                else -> reader.skipValue()
+            }
+        }
+
+        fun toCardNonce(): CardNonce {
+            val nonce = nonce ?: throw JSONException("No value for $PAYMENT_METHOD_NONCE_KEY")
+            val details = details ?: throw JSONException("No value for $CARD_DETAILS_KEY")
+            return CardNonce(
+                string = nonce,
+                isDefault = isDefault,
+                cardType = details.required(CARD_TYPE_KEY),
+                lastTwo = details.required(LAST_TWO_KEY),
+                lastFour = details.required(LAST_FOUR_KEY),
+                bin = details.optional(BIN_KEY, ""),
+                binData = binData,
+                authenticationInsight = authenticationInsight,
+                expirationMonth = details.optional(EXPIRATION_MONTH_KEY, ""),
+                expirationYear = details.optional(EXPIRATION_YEAR_KEY, ""),
+                cardholderName = details.optional(CARDHOLDER_NAME_KEY, "")
+            )
+        }
+    }
+
+    /**
+     * Fields of the `tokenizeCreditCard` payload of a GraphQL tokenization response.
+     */
+    private class GraphQLCardFields {
+        var hasPayload = false
+        var token: String? = null
+        var creditCard: CardDetails? = null
+        var authenticationInsight: AuthenticationInsight? = null
+
+        fun read(name: String, reader: JsonReader) {
+            when (name) {
+                TOKEN_KEY -> token = reader.nextRequiredString()
+                GRAPHQL_CREDIT_CARD_KEY -> creditCard = readCardDetails(reader)
+                AUTHENTICATION_INSIGHT_KEY -> authenticationInsight = AuthenticationInsight.fromJsonReader(reader)
+                else -> reader.skipValue()
+            }
+        }
+
+        fun toCardNonce(): CardNonce {
+            if (!hasPayload) {
+                throw JSONException("Failed to parse GraphQL response JSON")
+            }
+            val creditCard = creditCard ?: throw JSONException("No value for $GRAPHQL_CREDIT_CARD_KEY")
+            val token = token ?: throw JSONException("No value for $TOKEN_KEY")
+            val lastFour = creditCard.optional(GRAPHQL_LAST_FOUR_KEY, "")
+            return CardNonce(
+                string = token,
+                isDefault = false,
+                cardType = creditCard.optional(GRAPHQL_BRAND_KEY, "Unknown"),
+                lastTwo = if (lastFour.length < LAST_FOUR) "" else lastFour.substring(LAST_TWO_INDEX),
+                lastFour = lastFour,
+                bin = creditCard.optional(BIN_KEY, ""),
+                binData = creditCard.binData,
+                authenticationInsight = authenticationInsight,
+                expirationMonth = creditCard.optional(EXPIRATION_MONTH_KEY, ""),
+                expirationYear = creditCard.optional(EXPIRATION_YEAR_KEY, ""),
+                cardholderName = creditCard.optional(CARDHOLDER_NAME_KEY, "")
+            )
+        }
+    }
+
+    private class CardDetails(private val values: Map<String, String?>, val binData: BinData) {
+
+        /**
+         * Returns the value of [key], reading a JSON `null` as `"null"` like [JSONObject.getString].
+         */
+        fun required(key: String): String {
+            if (key !in values) {
+                throw JSONException("No value for $key")
+            }
+            return values[key] ?: JSONObject.NULL.toString()
+        }
+
+        fun optional(key: String, fallback: String): String = values[key] ?: fallback
+    }
+
+    /**
+     * Reads the value of a required key, where a JSON `null` reads as `"null"` like [JSONObject.getString].
+     */
+    private fun JsonReader.nextRequiredString(): String = nextStringOrNull() ?: JSONObject.NULL.toString()
+
+    private const val PAYMENT_METHOD_NONCE_KEY = "nonce"
+    private const val PAYMENT_METHOD_DEFAULT_KEY = "default"
+
+    private const val TOKEN_KEY = "token"
+    private const val GRAPHQL_TOKENIZE_CREDIT_CARD_KEY = "tokenizeCreditCard"
+    private const val GRAPHQL_CREDIT_CARD_KEY = "creditCard"
+    private const val GRAPHQL_BRAND_KEY = "brand"
+    private const val GRAPHQL_LAST_FOUR_KEY = "last4"
+    private const val CARD_DETAILS_KEY = "details"
+    private const val CARD_TYPE_KEY = "cardType"
+    private const val LAST_TWO_KEY = "lastTwo"
+    private const val LAST_FOUR_KEY = "lastFour"
+    private const val BIN_KEY = "bin"
+    private const val AUTHENTICATION_INSIGHT_KEY = "authenticationInsight"
+    private const val EXPIRATION_MONTH_KEY = "expirationMonth"
+    private const val EXPIRATION_YEAR_KEY = "expirationYear"
+    private const val CARDHOLDER_NAME_KEY = "cardholderName"
+    private const val LAST_FOUR = 4
+    private const val LAST_TWO_INDEX = 2
+}
@@ -5,6 +5,7 @@ import com.braintreepayments.api.core.AnalyticsParamRepository
 import com.braintreepayments.api.core.ApiClient
 import com.braintreepayments.api.core.BraintreeException
 import com.braintreepayments.api.core.Configuration
+import com.braintreepayments.api.sharedutils.ResponseBodyDecoder
 import com.braintreepayments.api.testutils.Fixtures
 import com.braintreepayments.api.testutils.MockkApiClientBuilder
 import com.braintreepayments.api.testutils.MockkBraintreeClientBuilder
@@ -110,7 +111,7 @@ class CardClientUnitTest {
 
         coVerifyOrder {
             card.sessionId = "session-id"
-            apiClient.tokenizeGraphQL(any())
+            apiClient.tokenizeGraphQL(any(), any<ResponseBodyDecoder<CardNonce>>())
         }
     }
 
@@ -422,7 +423,7 @@ class CardClientUnitTest {
 
         apiClient = MockkApiClientBuilder().build()
         coEvery {
-            apiClient.tokenizeGraphQL(any())
+            apiClient.tokenizeGraphQL(any(), any<ResponseBodyDecoder<CardNonce>>())
         } throws kotlin.coroutines.cancellation.CancellationException("cancelled")
 
         val sut = CardClient(
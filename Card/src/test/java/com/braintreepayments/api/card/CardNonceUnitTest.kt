@@ -1,14 +1,19 @@
 package com.braintreepayments.api.card
 
 import android.os.Parcel
+import android.util.JsonReader
+import com.braintreepayments.api.core.BraintreeException
 import com.braintreepayments.api.testutils.Fixtures
 import kotlinx.parcelize.parcelableCreator
+import org.json.JSONArray
 import org.json.JSONException
 import org.json.JSONObject
 import org.junit.Test
 import org.junit.runner.RunWith
 import org.robolectric.RobolectricTestRunner
+import java.io.StringReader
 import kotlin.test.assertEquals
+import kotlin.test.assertFailsWith
 import kotlin.test.assertFalse
 import kotlin.test.assertNotNull
 import kotlin.test.assertNull
@@ -121,6 +126,60 @@ class CardNonceUnitTest {
         assertEquals(BinType.Unknown.name, cardNonce.binData.productId)
     }
 
+    @Test
+    fun `fromJsonReader reads the same values as fromJSON for every tokenization response shape`() {
+        listOf(
+            Fixtures.PAYMENT_METHOD_CARD,
+            Fixtures.PAYMENT_METHODS_RESPONSE_VISA_CREDIT_CARD,
+            Fixtures.GRAPHQL_RESPONSE_CREDIT_CARD,
+            Fixtures.GRAPHQL_RESPONSE_CREDIT_CARD_MISSING_VALUES,
+            Fixtures.GRAPHQL_RESPONSE_UNKNOWN_CREDIT_CARD,
+        ).forEach { json ->
+            val expected = CardNonce.fromJSON(JSONObject(json))
+            val actual = CardNonce.fromJsonReader(JsonReader(StringReader(json)))
+
+            assertEquals(describe(expected), describe(actual))
+        }
+    }
+
+    @Test
+    fun `fromJsonReader throws BraintreeException when the GraphQL response carries errors`() {
+        val json = """
+            {
+              "data": { "tokenizeCreditCard": null },
+              "errors": [{ "message": "Invalid card number" }]
+            }
+        """
+
+        val error = assertFailsWith<BraintreeException> {
+            CardNonce.fromJsonReader(JsonReader(StringReader(json)))
+        }
+        assertTrue(error.message!!.contains("Invalid card number"))
+    }
+
+    @Test
+    fun `fromJsonReader ignores an empty errors array`() {
+        val json = JSONObject(Fixtures.GRAPHQL_RESPONSE_CREDIT_CARD).put("errors", JSONArray()).toString()
+
+        val cardNonce = CardNonce.fromJsonReader(JsonReader(StringReader(json)))
+
+        assertEquals("3744a73e-b1ab-0dbd-85f0-c12a0a4bd3d1", cardNonce.string)
+    }
+
+    @Test
+    fun `fromJsonReader throws JSONException when the GraphQL response has no tokenizeCreditCard payload`() {
+        assertFailsWith<JSONException> {
+            CardNonce.fromJsonReader(JsonReader(StringReader("""{ "data": {} }""")))
+        }
+    }
+
+    @Test
+    fun `fromJsonReader throws JSONException when the card details are missing`() {
+        assertFailsWith<JSONException> {
+            CardNonce.fromJsonReader(JsonReader(StringReader("""{ "creditCards": [{ "nonce": "fake-nonce" }] }""")))
+        }
+    }
+
     @Test
     @Throws(JSONException::class)
     fun `created cardNonce from JSON with Visa credit card and parcels it correctly`() {
@@ -144,4 +203,18 @@ class CardNonceUnitTest {
         assertEquals(cardNonce.authenticationInsight?.regulationEnvironment,
             parceled.authenticationInsight?.regulationEnvironment)
     }
+
+    private fun describe(cardNonce: CardNonce) = listOf(
+        cardNonce.string,
+        cardNonce.isDefault,
+        cardNonce.cardType,
+        cardNonce.lastTwo,
+        cardNonce.lastFour,
+        cardNonce.bin,
+        cardNonce.binData,
+        cardNonce.authenticationInsight,
+        cardNonce.expirationMonth,
+        cardNonce.expirationYear,
+        cardNonce.cardholderName,
+    )
 }
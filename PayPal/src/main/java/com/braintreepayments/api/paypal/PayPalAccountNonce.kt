@@ -1,5 +1,6 @@
 package com.braintreepayments.api.paypal
 
+import android.util.JsonReader
 import androidx.annotation.RestrictTo
 import com.braintreepayments.api.core.PaymentMethodNonce
 import com.braintreepayments.api.core.PostalAddress
@@ -8,6 +9,7 @@ import com.braintreepayments.api.sharedutils.Json
 import kotlinx.parcelize.Parcelize
 import org.json.JSONException
 import org.json.JSONObject
+import java.io.IOException
 
 /**
  * [PaymentMethodNonce] representing a PayPal account.
@@ -166,5 +168,18 @@ data class PayPalAccountNonce internal constructor(
                 paymentId = paymentId
             )
         }
+
+        /**
+         * Read PayPal account nonce from a tokenization response as it streams from the network,
+         * without building a [JSONObject] for it. Accepts the same response shapes as [fromJSON].
+         *
+         * @param reader reader positioned at the start of the response
+         * @return [PayPalAccountNonce]
+         * @throws JSONException if nonce could not be parsed successfully
+         */
+        @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+        @Throws(IOException::class, JSONException::class)
+        @JvmStatic
+        fun fromJsonReader(reader: JsonReader): PayPalAccountNonce = PayPalAccountNonceReader.decode(reader)
     }
 }
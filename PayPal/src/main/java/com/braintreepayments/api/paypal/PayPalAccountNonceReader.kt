@@ -0,0 +1,229 @@
+package com.braintreepayments.api.paypal
+
+import android.util.JsonReader
+import android.util.JsonToken
+import com.braintreepayments.api.core.PostalAddress
+import com.braintreepayments.api.core.PostalAddressParser
+import com.braintreepayments.api.sharedutils.JsonReaderExtensions.nextBooleanOrFallback
+import com.braintreepayments.api.sharedutils.JsonReaderExtensions.nextJsonValue
+import com.braintreepayments.api.sharedutils.JsonReaderExtensions.nextStringOrNull
+import com.braintreepayments.api.sharedutils.JsonReaderExtensions.readObject
+import com.braintreepayments.api.sharedutils.ResponseBodyDecoder
+import org.json.JSONException
+import org.json.JSONObject
+
+/**
+ * Reads a [PayPalAccountNonce] from a tokenization response as it streams from the network, accepting
+ * the same RESTful and plain JSON shapes as [PayPalAccountNonce.fromJSON] without building a
+ * [JSONObject] for the response.
+ *
+ * Addresses and credit financing offers are small, so they are read into a [JSONObject] and handed to
+ * the existing parsers. A Google Pay `paymentMethodData` response carries the account as a JSON string
+ * and is passed to [PayPalAccountNonce.fromJSON] as it is.
+ */
+internal object PayPalAccountNonceReader : ResponseBodyDecoder<PayPalAccountNonce> {
+
+    /**
+     * @throws JSONException if a nonce could not be read from the response
+     */
+    override fun decode(reader: JsonReader): PayPalAccountNonce {
+        return try {
+            readTokenizeResponse(reader)
+        } catch (e: IllegalStateException) {
+            throw JSONException(e.message)
+        }
+    }
+
+    private fun readTokenizeResponse(reader: JsonReader): PayPalAccountNonce {
+        val plainFields = PayPalAccountFields()
+        var restFields: PayPalAccountFields? = null
+        var hasRestResource = false
+        var paymentMethodData: Any? = null
+
+        reader.readObject { name ->
+            when (name) {
+                PayPalAccountNonce.API_RESOURCE_KEY -> {
+                    hasRestResource = true
+                    restFields = readFirstRestResource(reader)
+                }
+                PAYMENT_METHOD_DATA_KEY -> paymentMethodData = reader.nextJsonValue()
+                else -> plainFields.read(name, reader)
+            }
+        }
+
+        if (hasRestResource) {
+            return restFields?.toPayPalAccountNonce() ?: throw JSONException("No value for $PAYMENT_METHOD_NONCE_KEY")
+        }
+        paymentMethodData?.let {
+            return PayPalAccountNonce.fromJSON(JSONObject().put(PAYMENT_METHOD_DATA_KEY, it))
+        }
+        return plainFields.toPayPalAccountNonce()
+    }
+
+    private fun readFirstRestResource(reader: JsonReader): PayPalAccountFields? {
+        if (reader.peek() != JsonToken.BEGIN_ARRAY) {
+            reader.skipValue()
+            return null
+        }
+        reader.beginArray()
+        val fields = if (reader.hasNext()) {
+            PayPalAccountFields().also { fields -> reader.readObject { name -> fields.read(name, reader) } }
+        } else {
+            null
+        }
+        while (reader.hasNext()) {
+            reader.skipValue()
+        }
+        reader.endArray()
+        return fields
+    }
+
+    /**
+     * Reads the next value into a [JSONObject], or returns `null` if it is not an object, as
+     * [JSONObject.optJSONObject] does.
+     */
+    private fun JsonReader.nextJSONObjectOrNull(): JSONObject? = nextJsonValue() as? JSONObject
+
+    /**
+     * Fields of a PayPal account in a plain or RESTful tokenization response.
+     */
+    private class PayPalAccountFields {
+        var nonce: String? = null
+        var isDefault = false
+        var authenticateUrl: String? = null
+        var details: PayPalAccountDetails? = null
+
+        fun read(name: String, reader: JsonReader) {
+            when (name) {
+                PAYMENT_METHOD_NONCE_KEY -> nonce = reader.nextStringOrNull() ?: JSONObject.NULL.toString()
+                PAYMENT_METHOD_DEFAULT_KEY -> isDefault = reader.nextBooleanOrFallback(false)
+                AUTHENTICATE_URL_KEY -> authenticateUrl = reader.nextStringOrNull()
+                DETAILS_KEY -> details = PayPalAccountDetails().takeIf { details ->
+                    reader.readObject { detailsName -> details.read(detailsName, reader) }
+                }
+                else -> reader.skipValue()
+            }
+        }
+
+        fun toPayPalAccountNonce(): PayPalAccountNonce {
+            val nonce = nonce ?: throw JSONException("No value for $PAYMENT_METHOD_NONCE_KEY")
+            val details = details ?: throw JSONException("No value for $DETAILS_KEY")
+            val payerInfo = details.payerInfo.takeIf { details.isPayerInfoReadable }
+            return PayPalAccountNonce(
+                string = nonce,
+                isDefault = isDefault,
+                clientMetadataId = details.clientMetadataId,
+                billingAddress = payerInfo?.billingAddress ?: PostalAddress(),
+                shippingAddress = payerInfo?.shippingAddress ?: PostalAddress(),
+                firstName = payerInfo?.firstName.orEmpty(),
+                lastName = payerInfo?.lastName.orEmpty(),
+                phone = payerInfo?.phone.orEmpty(),
+                email = details.email ?: payerInfo?.email,
+                payerId = payerInfo?.payerId.orEmpty(),
+                creditFinancing = details.creditFinancing,
+                authenticateUrl = authenticateUrl,
+                paymentId = details.paymentId
+            )
+        }
+    }
+
+    /**
+     * Fields of the `details` object of a PayPal account.
+     */
+    private class PayPalAccountDetails {
+        var email: String? = null
+        var clientMetadataId: String? = null
+        var paymentId: String? = null
+        var creditFinancing: PayPalCreditFinancing? = null
+        var payerInfo: PayerInfo? = null
+
+        /**
+         * [PayPalAccountNonce.fromJSON] ignores the payer info when the credit financing offer is not
+         * an object.
+         */
+        var isPayerInfoReadable = true
+
+        fun read(name: String, reader: JsonReader) {
+            when (name) {
+                EMAIL_KEY -> email = reader.nextStringOrNull()
+                CLIENT_METADATA_ID_KEY -> clientMetadataId = reader.nextStringOrNull()
+                PAYMENT_TOKEN_KEY -> paymentId = reader.nextStringOrNull()
+                CREDIT_FINANCING_KEY -> {
+                    val creditFinancingJson = reader.nextJSONObjectOrNull()
+                    if (creditFinancingJson == null) {
+                        isPayerInfoReadable = false
+                    } else {
+                        creditFinancing = PayPalCreditFinancing.fromJson(creditFinancingJson)
+                    }
+                }
+                PAYER_INFO_KEY -> payerInfo = readPayerInfo(reader)
+                else -> reader.skipValue()
+            }
+        }
+
+        private fun readPayerInfo(reader: JsonReader): PayerInfo? {
+            if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+                reader.skipValue()
+                return null
+            }
+            return PayerInfo().also { payerInfo -> reader.readObject { name -> payerInfo.read(name, reader) } }
+        }
+    }
+
+    /**
+     * Fields of the `payerInfo` object of a PayPal account.
+     */
+    private class PayerInfo {
+        var email: String? = null
+        var firstName: String? = null
+        var lastName: String? = null
+        var phone: String? = null
+        var payerId: String? = null
+        private var billingAddressJson: JSONObject? = null
+        private var accountAddressJson: JSONObject? = null
+        private var hasAccountAddress = false
+        private var shippingAddressJson: JSONObject? = null
+
+        val billingAddress: PostalAddress
+            get() = PostalAddressParser.fromJson(if (hasAccountAddress) accountAddressJson else billingAddressJson)
+
+        val shippingAddress: PostalAddress
+            get() = PostalAddressParser.fromJson(shippingAddressJson)
+
+        fun read(name: String, reader: JsonReader) {
+            when (name) {
+                EMAIL_KEY -> email = reader.nextStringOrNull()
+                FIRST_NAME_KEY -> firstName = reader.nextStringOrNull()
+                LAST_NAME_KEY -> lastName = reader.nextStringOrNull()
+                PHONE_KEY -> phone = reader.nextStringOrNull()
+                PAYER_ID_KEY -> payerId = reader.nextStringOrNull()
+                BILLING_ADDRESS_KEY -> billingAddressJson = reader.nextJSONObjectOrNull()
+                ACCOUNT_ADDRESS_KEY -> {
+                    hasAccountAddress = true
+                    accountAddressJson = reader.nextJSONObjectOrNull()
+                }
+                SHIPPING_ADDRESS_KEY -> shippingAddressJson = reader.nextJSONObjectOrNull()
+                else -> reader.skipValue()
+            }
+        }
+    }
+
+    private const val PAYMENT_METHOD_DATA_KEY = "paymentMethodData"
+    private const val PAYMENT_METHOD_NONCE_KEY = "nonce"
+    private const val PAYMENT_METHOD_DEFAULT_KEY = "default"
+    private const val AUTHENTICATE_URL_KEY = "authenticateUrl"
+
+    private const val CREDIT_FINANCING_KEY = "creditFinancingOffered"
+    private const val DETAILS_KEY = "details"
+    private const val EMAIL_KEY = "email"
+    private const val PAYER_INFO_KEY = "payerInfo"
+    private const val ACCOUNT_ADDRESS_KEY = "accountAddress"
+    private const val SHIPPING_ADDRESS_KEY = "shippingAddress"
+    private const val BILLING_ADDRESS_KEY = "billingAddress"
+    private const val FIRST_NAME_KEY = "firstName"
+    private const val LAST_NAME_KEY = "lastName"
+    private const val PHONE_KEY = "phone"
+    private const val PAYER_ID_KEY = "payerId"
+    private const val CLIENT_METADATA_ID_KEY = "correlationId"
+    private const val PAYMENT_TOKEN_KEY = "paymentToken"
+}
@@ -96,8 +96,7 @@ internal class PayPalInternalClient(
     }
 
     suspend fun tokenize(payPalAccount: PayPalAccount): PayPalAccountNonce {
-        val tokenizationResponse = apiClient.tokenizeREST(payPalAccount)
-        return PayPalAccountNonce.fromJSON(tokenizationResponse)
+        return apiClient.tokenizeREST(payPalAccount, PayPalAccountNonceReader)
     }
 
     @Suppress("LongMethod")
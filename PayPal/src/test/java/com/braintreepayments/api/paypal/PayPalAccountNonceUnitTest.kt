@@ -1,6 +1,7 @@
 package com.braintreepayments.api.paypal
 
 import android.os.Parcel
+import android.util.JsonReader
 import com.braintreepayments.api.testutils.Fixtures
 import kotlinx.parcelize.parcelableCreator
 import org.json.JSONException
@@ -13,6 +14,8 @@ import org.junit.Assert.assertTrue
 import org.junit.Test
 import org.junit.runner.RunWith
 import org.robolectric.RobolectricTestRunner
+import java.io.StringReader
+import kotlin.test.assertFailsWith
 
 @RunWith(RobolectricTestRunner::class)
 class PayPalAccountNonceUnitTest {
@@ -142,4 +145,57 @@ class PayPalAccountNonceUnitTest {
         assertEquals("94602", parceled.billingAddress.postalCode)
         assertEquals("US", parceled.billingAddress.countryCodeAlpha2)
     }
+
+    @Test
+    fun `fromJsonReader reads the same values as fromJSON for every tokenization response shape`() {
+        listOf(
+            Fixtures.PAYMENT_METHODS_PAYPAL_ACCOUNT,
+            Fixtures.PAYMENT_METHODS_PAYPAL_ACCOUNT_RESPONSE,
+            Fixtures.PAYMENT_METHODS_PAYPAL_ACCOUNT_RESPONSE_WITHOUT_CREDIT_FINANCING_DATA,
+            Fixtures.PAYMENT_METHODS_PAYPAL_ACCOUNT_RESPONSE_WITHOUT_ADDRESSES,
+            Fixtures.REPSONSE_GOOGLE_PAY_PAYPAL_ACCOUNT,
+        ).forEach { json ->
+            val expected = PayPalAccountNonce.fromJSON(JSONObject(json))
+            val actual = PayPalAccountNonce.fromJsonReader(JsonReader(StringReader(json)))
+
+            assertEquals(expected, actual)
+        }
+    }
+
+    @Test
+    fun `fromJsonReader ignores the payer info when the credit financing offer is not an object, like fromJSON`() {
+        val json = """
+            {
+              "nonce": "fake-nonce",
+              "details": {
+                "email": "paypalaccount@example.com",
+                "creditFinancingOffered": null,
+                "payerInfo": { "firstName": "John", "email": "payer@example.com" }
+              }
+            }
+        """
+
+        val expected = PayPalAccountNonce.fromJSON(JSONObject(json))
+        val actual = PayPalAccountNonce.fromJsonReader(JsonReader(StringReader(json)))
+
+        assertEquals(expected, actual)
+        assertEquals("", actual.firstName)
+        assertEquals("paypalaccount@example.com", actual.email)
+    }
+
+    @Test
+    fun `fromJsonReader throws JSONException when the details are missing`() {
+        assertFailsWith<JSONException> {
+            PayPalAccountNonce.fromJsonReader(
+                JsonReader(StringReader("""{ "paypalAccounts": [{ "nonce": "fake-nonce" }] }"""))
+            )
+        }
+    }
+
+    @Test
+    fun `fromJsonReader throws JSONException when the RESTful response has no accounts`() {
+        assertFailsWith<JSONException> {
+            PayPalAccountNonce.fromJsonReader(JsonReader(StringReader("""{ "paypalAccounts": [] }""")))
+        }
+    }
 }
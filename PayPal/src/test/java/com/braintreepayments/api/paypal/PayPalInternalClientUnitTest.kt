@@ -21,6 +21,7 @@ import com.braintreepayments.api.core.usecase.GetReturnLinkUseCase.ReturnLinkRes
 import com.braintreepayments.api.datacollector.DataCollector
 import com.braintreepayments.api.datacollector.DataCollectorInternalRequest
 import com.braintreepayments.api.paypal.PayPalAccountNonce.Companion.fromJSON
+import com.braintreepayments.api.sharedutils.ResponseBodyDecoder
 import com.braintreepayments.api.testutils.Fixtures
 import com.braintreepayments.api.testutils.MockkApiClientBuilder
 import com.braintreepayments.api.testutils.MockkBraintreeClientBuilder
@@ -787,14 +788,15 @@ class PayPalInternalClientUnitTest {
     fun `when tokenize is called, apiClient tokenizeREST is invoked with the payPalAccount`() = runTest(testDispatcher) {
         val payPalAccount = mockk<PayPalAccount>(relaxed = true)
         val apiClient = mockk<ApiClient>(relaxed = true)
-        coEvery { apiClient.tokenizeREST(any()) } returns
-            JSONObject(Fixtures.PAYMENT_METHODS_PAYPAL_ACCOUNT_RESPONSE)
+        coEvery {
+            apiClient.tokenizeREST(any(), any<ResponseBodyDecoder<PayPalAccountNonce>>())
+        } returns fromJSON(JSONObject(Fixtures.PAYMENT_METHODS_PAYPAL_ACCOUNT_RESPONSE))
 
         val sut = createSutWithMocks(apiClient = apiClient)
 
         sut.tokenize(payPalAccount)
 
-        coVerify { apiClient.tokenizeREST(eq(payPalAccount)) }
+        coVerify { apiClient.tokenizeREST(eq(payPalAccount), any<ResponseBodyDecoder<PayPalAccountNonce>>()) }
     }
 
     @Test
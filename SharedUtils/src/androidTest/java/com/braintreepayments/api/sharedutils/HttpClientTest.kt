@@ -2,19 +2,31 @@ package com.braintreepayments.api.sharedutils
 
 import android.os.Looper
 import androidx.test.internal.runner.junit4.AndroidJUnit4ClassRunner
+import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.ExperimentalCoroutinesApi
+import kotlinx.coroutines.cancelAndJoin
+import kotlinx.coroutines.launch
 import kotlinx.coroutines.test.runTest
+import kotlinx.coroutines.withContext
+import okhttp3.Call
+import okhttp3.EventListener
 import okhttp3.OkHttpClient
+import okhttp3.mockwebserver.Dispatcher
 import okhttp3.mockwebserver.MockResponse
 import okhttp3.mockwebserver.MockWebServer
+import okhttp3.mockwebserver.RecordedRequest
 import okhttp3.tls.HandshakeCertificates
 import okhttp3.tls.HeldCertificate
 import org.junit.After
+import org.junit.Assert.assertEquals
 import org.junit.Assert.assertFalse
 import org.junit.Assert.assertNotNull
+import org.junit.Assert.assertTrue
 import org.junit.Before
 import org.junit.Test
 import org.junit.runner.RunWith
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
 
 @OptIn(ExperimentalCoroutinesApi::class)
 @RunWith(AndroidJUnit4ClassRunner::class)
@@ -84,6 +96,121 @@ class HttpClientTest {
         )
     }
 
+    @Test
+    fun sendRequest_nonBlocking_cancellingCallerCancelsCall() = runTest {
+        val callCanceled = CountDownLatch(1)
+        val okHttpClient = OkHttpClient.Builder()
+            .sslSocketFactory(
+                clientCertificates.sslSocketFactory(),
+                clientCertificates.trustManager
+            )
+            .eventListener(object : EventListener() {
+                override fun canceled(call: Call) {
+                    callCanceled.countDown()
+                }
+            })
+            .build()
+
+        val sut = HttpClient(
+            callMode = HttpCallMode.NON_BLOCKING,
+            okHttpAsyncHttpClient = OkHttpAsyncHttpClient(okHttpClient)
+        )
+
+        mockWebServer.enqueue(
+            MockResponse().setBody("too late").setHeadersDelay(30, TimeUnit.SECONDS)
+        )
+        val url = mockWebServer.url("/stalled").toString()
+
+        val job = launch(Dispatchers.Default) {
+            sut.sendRequest(OkHttpRequest(url, Method.Get))
+        }
+        mockWebServer.takeRequest()
+        job.cancelAndJoin()
+
+        assertTrue(job.isCancelled)
+        assertTrue(callCanceled.await(5, TimeUnit.SECONDS))
+    }
+
+    @Test
+    fun sendHedgedRequest_whenFirstResponseStalls_returnsHedgedResponseOnNewConnection() = runTest {
+        val okHttpClient = OkHttpClient.Builder()
+            .sslSocketFactory(
+                clientCertificates.sslSocketFactory(),
+                clientCertificates.trustManager
+            )
+            .build()
+
+        val sut = HttpClient(
+            callMode = HttpCallMode.NON_BLOCKING,
+            okHttpAsyncHttpClient = OkHttpAsyncHttpClient(okHttpClient)
+        )
+
+        mockWebServer.enqueue(
+            MockResponse().setBody("stalled").setHeadersDelay(30, TimeUnit.SECONDS)
+        )
+        mockWebServer.enqueue(MockResponse().setBody("hedged"))
+        val url = mockWebServer.url("/configuration").toString()
+
+        val startTime = System.currentTimeMillis()
+        val response = withContext(Dispatchers.Default) {
+            sut.sendHedgedRequest(OkHttpRequest(url, Method.Get), hedgeDelay = 200)
+        }
+        val elapsedTime = System.currentTimeMillis() - startTime
+
+        assertEquals("hedged", response.body)
+        assertTrue("Hedged request took $elapsedTime ms", elapsedTime < TimeUnit.SECONDS.toMillis(10))
+        assertEquals(2, mockWebServer.requestCount)
+        mockWebServer.takeRequest()
+        assertEquals(0, mockWebServer.takeRequest().sequenceNumber)
+    }
+
+    @Test
+    fun sendRequest_userBlockingLatencyIsUnaffectedByBackgroundFlood() = runTest {
+        mockWebServer.dispatcher = object : Dispatcher() {
+            override fun dispatch(request: RecordedRequest): MockResponse = when (request.path) {
+                "/analytics" -> MockResponse().setBody("{}").setHeadersDelay(2, TimeUnit.SECONDS)
+                else -> MockResponse().setBody("tokenized")
+            }
+        }
+        // OkHttp's default dispatcher runs at most five requests per host at a time
+        val okHttpClient = OkHttpClient.Builder()
+            .sslSocketFactory(
+                clientCertificates.sslSocketFactory(),
+                clientCertificates.trustManager
+            )
+            .build()
+
+        val sut = HttpClient(
+            callMode = HttpCallMode.NON_BLOCKING,
+            okHttpAsyncHttpClient = OkHttpAsyncHttpClient(okHttpClient),
+            requestScheduler = RequestScheduler()
+        )
+
+        val analyticsRequest = OkHttpRequest(
+            url = mockWebServer.url("/analytics").toString(),
+            method = Method.Post("{}"),
+            priority = RequestPriority.BACKGROUND
+        )
+        val tokenizeRequest = OkHttpRequest(
+            url = mockWebServer.url("/tokenize").toString(),
+            method = Method.Post("{}"),
+            priority = RequestPriority.USER_BLOCKING
+        )
+
+        val analyticsFlood = List(20) {
+            launch(Dispatchers.Default) { sut.sendRequest(analyticsRequest) }
+        }
+        mockWebServer.takeRequest()
+
+        val startTime = System.currentTimeMillis()
+        val response = withContext(Dispatchers.Default) { sut.sendRequest(tokenizeRequest) }
+        val elapsedTime = System.currentTimeMillis() - startTime
+
+        assertEquals("tokenized", response.body)
+        assertTrue("Tokenize took $elapsedTime ms behind analytics", elapsedTime < 1_000)
+        analyticsFlood.forEach { it.cancelAndJoin() }
+    }
+
     @Test
     fun defaultConstructor_createsWorkingInstance() {
         val client = HttpClient()
@@ -6,13 +6,20 @@ import okhttp3.mockwebserver.MockResponse
 import okhttp3.mockwebserver.MockWebServer
 import okhttp3.tls.HandshakeCertificates
 import okhttp3.tls.HeldCertificate
+import okio.GzipSource
+import okio.buffer
+import org.json.JSONObject
 import org.junit.After
 import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNull
+import org.junit.Assert.assertThrows
 import org.junit.Assert.assertTrue
+import org.junit.Assert.fail
 import org.junit.Before
 import org.junit.Test
 import org.junit.runner.RunWith
 import java.io.IOException
+import java.util.concurrent.TimeUnit
 
 @RunWith(AndroidJUnit4ClassRunner::class)
 class OkHttpSynchronousHttpClientTest {
@@ -44,6 +51,7 @@ class OkHttpSynchronousHttpClientTest {
                     clientCertificates.sslSocketFactory(),
                     clientCertificates.trustManager
                 )
+                .addInterceptor(RequestCompressionInterceptor())
                 .build()
         )
     }
@@ -81,6 +89,115 @@ class OkHttpSynchronousHttpClientTest {
         assertEquals("application/json; charset=utf-8", recordedRequest.getHeader("Content-Type"))
     }
 
+    @Test
+    fun executeRequest_POST_writesJsonRequestBodyIntoTheRequest() {
+        mockWebServer.enqueue(MockResponse().setBody("post accepted").setResponseCode(200))
+        val url = mockWebServer.url("/submit").toString()
+        val json = JSONObject().put("creditCard", JSONObject().put("number", "4111111111111111"))
+        val body = JSONObjectRequestBody(json, mapOf("authorizationFingerprint" to "fingerprint"))
+        val request = OkHttpRequest(url, Method.PostJson(body))
+
+        val response = sut.executeRequest(request)
+
+        assertEquals("post accepted", response.body)
+
+        val recordedRequest = mockWebServer.takeRequest()
+        assertEquals("POST", recordedRequest.method)
+        assertEquals(
+            """{"creditCard":{"number":"4111111111111111"},"authorizationFingerprint":"fingerprint"}""",
+            recordedRequest.body.readUtf8()
+        )
+        assertEquals("application/json; charset=utf-8", recordedRequest.getHeader("Content-Type"))
+    }
+
+    @Test
+    fun executeRequest_POST_writesEncodedJsonRequestBodyIntoTheRequest() {
+        mockWebServer.enqueue(MockResponse().setBody("post accepted").setResponseCode(200))
+        val url = mockWebServer.url("/submit").toString()
+        val body = EncodedJsonRequestBody { writer ->
+            writer.name(JsonName("events")).beginArray().value("card:tokenize:started").endArray()
+        }
+        val request = OkHttpRequest(
+            url,
+            Method.PostEncodedJson(body, mapOf("authorization_fingerprint" to "fingerprint"))
+        )
+
+        val response = sut.executeRequest(request)
+
+        assertEquals("post accepted", response.body)
+
+        val recordedRequest = mockWebServer.takeRequest()
+        assertEquals(
+            """{"events":["card:tokenize:started"],"authorization_fingerprint":"fingerprint"}""",
+            recordedRequest.body.readUtf8()
+        )
+        assertEquals("application/json; charset=utf-8", recordedRequest.getHeader("Content-Type"))
+    }
+
+    @Test
+    fun executeRequest_POST_withCompression_sendsGzipEncodedBody() {
+        mockWebServer.enqueue(MockResponse().setBody("post accepted").setResponseCode(200))
+        val url = mockWebServer.url("/submit").toString()
+        val jsonBody = """{"event_name":"card:tokenize:started"}""".repeat(10)
+        val request = OkHttpRequest(url, Method.Post(jsonBody), compression = RequestCompression(minBodySize = 64))
+
+        sut.executeRequest(request)
+
+        val recordedRequest = mockWebServer.takeRequest()
+        assertEquals("gzip", recordedRequest.getHeader("Content-Encoding"))
+        assertEquals(jsonBody, GzipSource(recordedRequest.body).buffer().use { it.readUtf8() })
+    }
+
+    @Test
+    fun executeRequest_POST_withCompression_sendsBodyBelowThresholdUncompressed() {
+        mockWebServer.enqueue(MockResponse().setBody("post accepted").setResponseCode(200))
+        val url = mockWebServer.url("/submit").toString()
+        val jsonBody = """{"key":"value"}"""
+        val request = OkHttpRequest(url, Method.Post(jsonBody), compression = RequestCompression(minBodySize = 64))
+
+        sut.executeRequest(request)
+
+        val recordedRequest = mockWebServer.takeRequest()
+        assertNull(recordedRequest.getHeader("Content-Encoding"))
+        assertEquals(jsonBody, recordedRequest.body.readUtf8())
+    }
+
+    @Test
+    fun executeRequest_POST_withCompression_sendsLargeStreamedBodyGzipEncoded() {
+        mockWebServer.enqueue(MockResponse().setBody("post accepted").setResponseCode(200))
+        val url = mockWebServer.url("/submit").toString()
+        val json = JSONObject().put("events", "card:tokenize:started,".repeat(10))
+        val request = OkHttpRequest(
+            url,
+            Method.PostJson(JSONObjectRequestBody(json, emptyMap())),
+            compression = RequestCompression(minBodySize = 64)
+        )
+
+        sut.executeRequest(request)
+
+        val recordedRequest = mockWebServer.takeRequest()
+        assertEquals("gzip", recordedRequest.getHeader("Content-Encoding"))
+        assertEquals(json.toString(), GzipSource(recordedRequest.body).buffer().use { it.readUtf8() })
+    }
+
+    @Test
+    fun executeRequest_POST_withCompression_sendsSmallStreamedBodyUncompressed() {
+        mockWebServer.enqueue(MockResponse().setBody("post accepted").setResponseCode(200))
+        val url = mockWebServer.url("/submit").toString()
+        val json = JSONObject().put("key", "value")
+        val request = OkHttpRequest(
+            url,
+            Method.PostJson(JSONObjectRequestBody(json, emptyMap())),
+            compression = RequestCompression(minBodySize = 64)
+        )
+
+        sut.executeRequest(request)
+
+        val recordedRequest = mockWebServer.takeRequest()
+        assertNull(recordedRequest.getHeader("Content-Encoding"))
+        assertEquals(json.toString(), recordedRequest.body.readUtf8())
+    }
+
     @Test(expected = IOException::class)
     fun executeRequest_unsuccessfulResponse_throwsIOException() {
         mockWebServer.enqueue(MockResponse().setResponseCode(500).setBody("server error"))
@@ -90,6 +207,43 @@ class OkHttpSynchronousHttpClientTest {
         sut.executeRequest(request)
     }
 
+    @Test
+    fun executeRequest_withDecoder_readsResponseBodyAsItStreams() {
+        mockWebServer.enqueue(
+            MockResponse()
+                .setBody("""{"nonce":"fake-nonce","details":{"lastFour":"1111"}}""")
+                .throttleBody(8, 10, TimeUnit.MILLISECONDS)
+        )
+        val url = mockWebServer.url("/tokenize").toString()
+        val request = OkHttpRequest(url, Method.Post("{}"))
+
+        val response = sut.executeRequest(request) { reader ->
+            var nonce: String? = null
+            reader.beginObject()
+            while (reader.hasNext()) {
+                if (reader.nextName() == "nonce") nonce = reader.nextString() else reader.skipValue()
+            }
+            reader.endObject()
+            nonce
+        }
+
+        assertEquals("fake-nonce", response.body)
+        assertEquals(200, response.statusCode)
+    }
+
+    @Test
+    fun executeRequest_withDecoder_unsuccessfulResponse_throwsHttpStatusExceptionWithoutDecoding() {
+        mockWebServer.enqueue(MockResponse().setResponseCode(422).setBody("""{"error":"invalid"}"""))
+        val url = mockWebServer.url("/tokenize").toString()
+        val request = OkHttpRequest(url, Method.Post("{}"))
+
+        val exception = assertThrows(HttpStatusException::class.java) {
+            sut.executeRequest(request) { fail("decoder called for an unsuccessful response") }
+        }
+        assertEquals(422, exception.statusCode)
+        assertTrue(exception.message!!.contains("invalid"))
+    }
+
     @Test
     fun executeRequest_populatesResponseTiming() {
         mockWebServer.enqueue(MockResponse().setBody("timed").setResponseCode(200))
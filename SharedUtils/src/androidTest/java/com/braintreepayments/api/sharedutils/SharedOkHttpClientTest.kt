@@ -0,0 +1,97 @@
+package com.braintreepayments.api.sharedutils
+
+import androidx.test.internal.runner.junit4.AndroidJUnit4ClassRunner
+import kotlinx.coroutines.ExperimentalCoroutinesApi
+import kotlinx.coroutines.test.runTest
+import okhttp3.mockwebserver.MockResponse
+import okhttp3.mockwebserver.MockWebServer
+import okhttp3.tls.HandshakeCertificates
+import okhttp3.tls.HeldCertificate
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+
+@OptIn(ExperimentalCoroutinesApi::class)
+@RunWith(AndroidJUnit4ClassRunner::class)
+class SharedOkHttpClientTest {
+
+    private lateinit var mockWebServer: MockWebServer
+
+    @Before
+    fun setUp() {
+        val localhostCertificate = HeldCertificate.Builder()
+            .addSubjectAlternativeName("localhost")
+            .build()
+
+        val serverCertificates = HandshakeCertificates.Builder()
+            .heldCertificate(localhostCertificate)
+            .build()
+
+        val clientCertificates = HandshakeCertificates.Builder()
+            .addTrustedCertificate(localhostCertificate.certificate)
+            .build()
+
+        mockWebServer = MockWebServer()
+        mockWebServer.useHttps(serverCertificates.sslSocketFactory(), false)
+        mockWebServer.start()
+
+        // the SDK's shared client, trusting the local test certificate instead of the pinned ones
+        SharedOkHttpClient.resetForTesting {
+            it.sslSocketFactory(clientCertificates.sslSocketFactory(), clientCertificates.trustManager)
+        }
+    }
+
+    @After
+    fun tearDown() {
+        mockWebServer.shutdown()
+        SharedOkHttpClient.resetForTesting()
+    }
+
+    @Test
+    fun configurationRestAndGraphQLRequests_fromSeparateHttpClients_reuseOneConnection() = runTest {
+        // built as the configuration, REST and GraphQL clients in BraintreeCore build theirs
+        val configurationHttpClient = HttpClient(HttpCallMode.NON_BLOCKING)
+        val restHttpClient = HttpClient(HttpCallMode.NON_BLOCKING)
+        val graphQLHttpClient = HttpClient(HttpCallMode.NON_BLOCKING)
+
+        mockWebServer.enqueue(MockResponse().setBody("{\"clientApiUrl\":\"\"}"))
+        mockWebServer.enqueue(MockResponse().setBody("{\"creditCards\":[]}"))
+        mockWebServer.enqueue(MockResponse().setBody("{\"data\":{}}"))
+
+        configurationHttpClient.sendRequest(
+            OkHttpRequest(mockWebServer.url("/v1/configuration").toString(), Method.Get)
+        )
+        restHttpClient.sendRequest(
+            OkHttpRequest(mockWebServer.url("/v1/payment_methods/credit_cards").toString(), Method.Post("{}"))
+        )
+        graphQLHttpClient.sendRequest(
+            OkHttpRequest(mockWebServer.url("/graphql").toString(), Method.Post("{\"query\":\"\"}"))
+        )
+
+        // sequenceNumber is the index of a request on its connection, so 0, 1, 2 means one socket was used
+        assertEquals(0, mockWebServer.takeRequest().sequenceNumber)
+        assertEquals(1, mockWebServer.takeRequest().sequenceNumber)
+        assertEquals(2, mockWebServer.takeRequest().sequenceNumber)
+        assertEquals(1, SharedOkHttpClient.instance.connectionPool.connectionCount())
+    }
+
+    @Test
+    fun blockingAndNonBlockingHttpClients_shareTheConnectionPoolOfTheSharedInstance() = runTest {
+        val blockingHttpClient = HttpClient()
+        val nonBlockingHttpClient = HttpClient(HttpCallMode.NON_BLOCKING)
+
+        mockWebServer.enqueue(MockResponse().setBody("{}"))
+        mockWebServer.enqueue(MockResponse().setBody("{}"))
+
+        blockingHttpClient.sendRequest(OkHttpRequest(mockWebServer.url("/v1/configuration").toString(), Method.Get))
+        nonBlockingHttpClient.sendRequest(
+            OkHttpRequest(mockWebServer.url("/v1/tracking/batch/events").toString(), Method.Post("{}"))
+        )
+
+        assertEquals(0, mockWebServer.takeRequest().sequenceNumber)
+        assertEquals(1, mockWebServer.takeRequest().sequenceNumber)
+        assertEquals(1, SharedOkHttpClient.instance.connectionPool.connectionCount())
+    }
+}
@@ -0,0 +1,72 @@
+package com.braintreepayments.api.sharedutils
+
+import android.util.Log
+import androidx.test.internal.runner.junit4.AndroidJUnit4ClassRunner
+import androidx.test.platform.app.InstrumentationRegistry
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import org.junit.runner.RunWith
+import java.io.ByteArrayInputStream
+import java.io.InputStream
+import java.security.cert.CertificateFactory
+
+/**
+ * Compares reading the pinned certificates from the PEM source they are generated from, packaged as
+ * a test asset, against the build-time DER trust anchors in [TLSTrustAnchors]. Timings are written to
+ * logcat under the [TAG] tag.
+ */
+@RunWith(AndroidJUnit4ClassRunner::class)
+class TLSTrustAnchorsBenchmarkTest {
+
+    private val pemCertificates: ByteArray = InstrumentationRegistry.getInstrumentation().context.assets
+        .open(PEM_ASSET).use { it.readBytes() }
+
+    @Test
+    fun derTrustAnchors_containTheSameCertificatesAsPem() {
+        val fromPem = TLSSocketFactory(ByteArrayInputStream(pemCertificates))
+        val fromDer = TLSSocketFactory(TLSTrustAnchors.createCertificateInputStream())
+
+        assertEquals(
+            fromPem.trustManager.acceptedIssuers.map { it.subjectX500Principal }.toSet(),
+            fromDer.trustManager.acceptedIssuers.map { it.subjectX500Principal }.toSet()
+        )
+    }
+
+    @Test
+    fun benchmark_certificateParsing_derIsFasterThanPem() {
+        // warm up class loading and security providers so the first measured iteration is not penalized
+        parse(ByteArrayInputStream(pemCertificates))
+        parse(TLSTrustAnchors.createCertificateInputStream())
+
+        val pemNanos = medianNanos { parse(ByteArrayInputStream(pemCertificates)) }
+        val derNanos = medianNanos { parse(TLSTrustAnchors.createCertificateInputStream()) }
+        val socketFactoryNanos = medianNanos { TLSSocketFactory() }
+
+        Log.i(TAG, "Median certificate parsing: PEM ${pemNanos / NANOS_PER_MICRO} us, " +
+            "DER ${derNanos / NANOS_PER_MICRO} us; " +
+            "TLSSocketFactory construction ${socketFactoryNanos / NANOS_PER_MICRO} us")
+        assertTrue("DER took $derNanos ns, PEM took $pemNanos ns", derNanos < pemNanos)
+    }
+
+    private fun parse(certificateStream: InputStream) {
+        certificateStream.use { CertificateFactory.getInstance("X.509").generateCertificates(it) }
+    }
+
+    private fun medianNanos(block: () -> Unit): Long {
+        val samples = LongArray(ITERATIONS) {
+            val start = System.nanoTime()
+            block()
+            System.nanoTime() - start
+        }
+        samples.sort()
+        return samples[ITERATIONS / 2]
+    }
+
+    companion object {
+        private const val TAG = "TLSTrustAnchorsBenchmark"
+        private const val PEM_ASSET = "pinned_certificates.pem"
+        private const val ITERATIONS = 25
+        private const val NANOS_PER_MICRO = 1_000L
+    }
+}
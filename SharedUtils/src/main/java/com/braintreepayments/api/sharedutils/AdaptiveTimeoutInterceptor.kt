@@ -0,0 +1,48 @@
+package com.braintreepayments.api.sharedutils
+
+import okhttp3.Interceptor
+import okhttp3.Request
+import okhttp3.Response
+import java.io.IOException
+import java.util.concurrent.TimeUnit
+
+/**
+ * Records the response time of every request in [latencyEstimator], and gives requests tagged with a
+ * [TimeoutBudget] connect, read and write timeouts derived from the latency observed for their
+ * endpoint. Untagged requests keep the timeouts of the [okhttp3.OkHttpClient].
+ *
+ * Failed requests are recorded with the time they took to fail, so that a run of timeouts raises the
+ * estimate instead of letting it shrink. Cancelled requests are not recorded.
+ */
+internal class AdaptiveTimeoutInterceptor(
+    private val latencyEstimator: LatencyEstimator = LatencyEstimator.instance,
+) : Interceptor {
+
+    override fun intercept(chain: Interceptor.Chain): Response {
+        val request = chain.request()
+        val timedChain = request.tag(TimeoutBudget::class.java)?.let { timeoutBudget ->
+            val expectedLatency = latencyEstimator.estimate(request.url, LATENCY_PERCENTILE)
+            val timeout = timeoutBudget.timeoutFor(expectedLatency).toInt()
+            chain.withConnectTimeout(timeout, TimeUnit.MILLISECONDS)
+                .withReadTimeout(timeout, TimeUnit.MILLISECONDS)
+                .withWriteTimeout(timeout, TimeUnit.MILLISECONDS)
+        } ?: chain
+
+        val startTime = System.nanoTime()
+        try {
+            return timedChain.proceed(request).also { recordLatency(chain, request, startTime) }
+        } catch (e: IOException) {
+            recordLatency(chain, request, startTime)
+            throw e
+        }
+    }
+
+    private fun recordLatency(chain: Interceptor.Chain, request: Request, startTime: Long) {
+        if (chain.call().isCanceled()) return
+        latencyEstimator.record(request.url, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime))
+    }
+
+    companion object {
+        private const val LATENCY_PERCENTILE = 95
+    }
+}
@@ -44,6 +44,14 @@ class BraintreeSharedPreferences(
 
     fun getLong(key: String): Long = sharedPreferences.getLong(key, 0)
 
+    fun getKeys(): Set<String> = sharedPreferences.all.keys
+
+    fun remove(keys: Collection<String>) {
+        val editor = sharedPreferences.edit()
+        keys.forEach { editor.remove(it) }
+        editor.apply()
+    }
+
     fun putStringAndLong(
         stringKey: String,
         stringValue: String,
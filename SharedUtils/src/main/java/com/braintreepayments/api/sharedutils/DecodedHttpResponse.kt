@@ -0,0 +1,16 @@
+package com.braintreepayments.api.sharedutils
+
+import androidx.annotation.RestrictTo
+import java.net.HttpURLConnection
+
+/**
+ * A successful HTTP response whose body was read by a [ResponseBodyDecoder].
+ *
+ * @property body the decoded response body.
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+data class DecodedHttpResponse<T>(
+    val body: T,
+    val timing: HttpResponseTiming,
+    val statusCode: Int = HttpURLConnection.HTTP_OK,
+)
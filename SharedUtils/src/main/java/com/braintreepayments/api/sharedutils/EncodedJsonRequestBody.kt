@@ -0,0 +1,30 @@
+package com.braintreepayments.api.sharedutils
+
+import androidx.annotation.RestrictTo
+import java.io.IOException
+
+/**
+ * A JSON object request body that is written as UTF-8 bytes straight into the connection's sink while
+ * the request is sent, with a [Utf8JsonWriter].
+ *
+ * The body writes the members of its top-level object, without the braces, so that fields such as an
+ * authorization fingerprint can be added to the object as it is written.
+ *
+ * [writeMembers] may be called more than once if the request is retried or compressed, and must write
+ * the same JSON each time.
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+fun interface EncodedJsonRequestBody {
+
+    @Throws(IOException::class)
+    fun writeMembers(writer: Utf8JsonWriter)
+
+    /**
+     * Encodes this body into a [String], for a body that is inspected rather than sent.
+     */
+    fun encodeToString(): String = Utf8JsonWriter.encodeToString { writer ->
+        writer.beginObject()
+        writeMembers(writer)
+        writer.endObject()
+    }
+}
@@ -0,0 +1,21 @@
+package com.braintreepayments.api.sharedutils
+
+import androidx.annotation.RestrictTo
+
+/**
+ * How [HttpClient] executes requests.
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+enum class HttpCallMode {
+
+    /**
+     * Executes each request with a blocking call on the IO dispatcher.
+     */
+    BLOCKING,
+
+    /**
+     * Enqueues each request on OkHttp's dispatcher and suspends until it completes. Cancelling the
+     * calling coroutine cancels the request.
+     */
+    NON_BLOCKING,
+}
@@ -2,25 +2,109 @@ package com.braintreepayments.api.sharedutils
 
 import androidx.annotation.RestrictTo
 import kotlinx.coroutines.CoroutineDispatcher
+import kotlinx.coroutines.Deferred
 import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.async
+import kotlinx.coroutines.selects.select
+import kotlinx.coroutines.supervisorScope
 import kotlinx.coroutines.withContext
+import kotlinx.coroutines.withTimeoutOrNull
+import java.io.IOException
 
 @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
 class HttpClient internal constructor(
     private val okHttpSynchronousHttpClient: OkHttpSynchronousHttpClient = OkHttpSynchronousHttpClient(),
-    private val ioDispatcher: CoroutineDispatcher = Dispatchers.IO
+    private val ioDispatcher: CoroutineDispatcher = Dispatchers.IO,
+    private val callMode: HttpCallMode = HttpCallMode.BLOCKING,
+    private val okHttpAsyncHttpClient: OkHttpAsyncHttpClient = OkHttpAsyncHttpClient(),
+    private val requestScheduler: RequestScheduler = RequestScheduler.instance,
 ) {
 
     constructor() : this(
         okHttpSynchronousHttpClient = OkHttpSynchronousHttpClient(),
         ioDispatcher = Dispatchers.IO,
     )
+
+    constructor(callMode: HttpCallMode) : this(
+        okHttpSynchronousHttpClient = OkHttpSynchronousHttpClient(),
+        ioDispatcher = Dispatchers.IO,
+        callMode = callMode,
+        okHttpAsyncHttpClient = OkHttpAsyncHttpClient(),
+    )
+
     /**
+    * Sends [request] once its [OkHttpRequest.priority] allows it.
+    *
     * @throws Exception if the network request fails
     */
     suspend fun sendRequest(request: OkHttpRequest): HttpResponse {
-        return withContext(ioDispatcher) {
-            okHttpSynchronousHttpClient.executeRequest(request)
+        return requestScheduler.schedule(request.priority) {
+            when (callMode) {
+                HttpCallMode.BLOCKING -> withContext(ioDispatcher) {
+                    okHttpSynchronousHttpClient.executeRequest(request)
+                }
+
+                HttpCallMode.NON_BLOCKING -> okHttpAsyncHttpClient.executeRequest(request)
+            }
+        }
+    }
+
+    /**
+     * Sends [request] once its [OkHttpRequest.priority] allows it, and reads the body of a successful
+     * response with [decoder] as it streams from the network.
+     *
+     * @throws Exception if the network request fails or the response body cannot be decoded
+     */
+    suspend fun <T> sendRequest(request: OkHttpRequest, decoder: ResponseBodyDecoder<T>): DecodedHttpResponse<T> {
+        return requestScheduler.schedule(request.priority) {
+            when (callMode) {
+                HttpCallMode.BLOCKING -> withContext(ioDispatcher) {
+                    okHttpSynchronousHttpClient.executeRequest(request, decoder)
+                }
+
+                HttpCallMode.NON_BLOCKING -> okHttpAsyncHttpClient.executeRequest(request, decoder)
+            }
+        }
+    }
+
+    /**
+     * Sends an idempotent [request], and if no response has arrived after [hedgeDelay] milliseconds,
+     * sends it a second time on a new connection. The first successful response is returned and the
+     * other attempt is cancelled; if both attempts fail, the first failure is thrown.
+     *
+     * Hedged requests always use the non-blocking transport so that the losing attempt can be
+     * cancelled, whatever the [HttpCallMode] of this client.
+     *
+     * @throws IOException if every attempt fails
+     */
+    suspend fun sendHedgedRequest(request: OkHttpRequest, hedgeDelay: Long): HttpResponse =
+        requestScheduler.schedule(request.priority) { raceAttempts(request, hedgeDelay) }
+
+    private suspend fun raceAttempts(request: OkHttpRequest, hedgeDelay: Long): HttpResponse = supervisorScope {
+        val primary = async { okHttpAsyncHttpClient.executeRequest(request) }
+        if (withTimeoutOrNull(hedgeDelay) { primary.join() } != null) {
+            return@supervisorScope primary.await()
+        }
+        val hedge = async { okHttpAsyncHttpClient.executeRequest(request, newConnection = true) }
+        try {
+            awaitFirstSuccess(mutableListOf(primary, hedge))
+        } finally {
+            primary.cancel()
+            hedge.cancel()
+        }
+    }
+
+    private suspend fun awaitFirstSuccess(attempts: MutableList<Deferred<HttpResponse>>): HttpResponse {
+        var firstFailure: IOException? = null
+        while (true) {
+            val completed = select { attempts.forEach { attempt -> attempt.onJoin { attempt } } }
+            attempts.remove(completed)
+            try {
+                return completed.await()
+            } catch (e: IOException) {
+                firstFailure = firstFailure ?: e
+                if (attempts.isEmpty()) throw firstFailure
+            }
         }
     }
 }
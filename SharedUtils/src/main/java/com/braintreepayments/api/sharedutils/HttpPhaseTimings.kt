@@ -0,0 +1,30 @@
+package com.braintreepayments.api.sharedutils
+
+import androidx.annotation.RestrictTo
+
+/**
+ * Breakdown of a single HTTP exchange into its network phases, measured with a monotonic clock.
+ *
+ * Durations are in milliseconds. A phase that did not happen for this request is reported as `0`,
+ * for example DNS, connect and TLS when an existing pooled connection was reused.
+ *
+ * @property dnsDuration Time spent resolving the host name.
+ * @property connectDuration Time spent establishing the TCP connection, including the TLS handshake.
+ * @property tlsDuration Time spent on the TLS handshake.
+ * @property timeToFirstByte Time from the request being fully written to the response headers arriving.
+ * @property responseBodyDuration Time spent downloading the response body.
+ * @property requestBytes Number of request body bytes written.
+ * @property responseBytes Number of response body bytes read.
+ * @property isConnectionReused `true` if the request was sent on an already established connection.
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+data class HttpPhaseTimings(
+    val dnsDuration: Long = 0,
+    val connectDuration: Long = 0,
+    val tlsDuration: Long = 0,
+    val timeToFirstByte: Long = 0,
+    val responseBodyDuration: Long = 0,
+    val requestBytes: Long = 0,
+    val responseBytes: Long = 0,
+    val isConnectionReused: Boolean = false,
+)
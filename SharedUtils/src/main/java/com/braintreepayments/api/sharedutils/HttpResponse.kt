@@ -1,9 +1,21 @@
 package com.braintreepayments.api.sharedutils
 
 import androidx.annotation.RestrictTo
+import java.net.HttpURLConnection
 
+/**
+ * @property headers response headers keyed by lower case name; repeated headers are joined with ", ".
+ */
 @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
 data class HttpResponse(
     val body: String? = null,
-    val timing: HttpResponseTiming
-)
+    val timing: HttpResponseTiming,
+    val statusCode: Int = HttpURLConnection.HTTP_OK,
+    val headers: Map<String, String> = emptyMap(),
+) {
+
+    /**
+     * Returns the value of the response header [name], ignoring case, or `null` if it is absent.
+     */
+    fun header(name: String): String? = headers[name.lowercase()]
+}
@@ -2,8 +2,14 @@ package com.braintreepayments.api.sharedutils
 
 import androidx.annotation.RestrictTo
 
+/**
+ * Wall-clock start and end of an HTTP request, in milliseconds since the epoch.
+ *
+ * @property phases Per-phase breakdown of the request, or `null` if it was not recorded.
+ */
 @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
 data class HttpResponseTiming(
     var startTime: Long,
     var endTime: Long,
+    val phases: HttpPhaseTimings? = null,
 )
@@ -0,0 +1,17 @@
+package com.braintreepayments.api.sharedutils
+
+import androidx.annotation.RestrictTo
+import java.io.IOException
+
+/**
+ * Exception thrown when a server responds with an unsuccessful HTTP status code.
+ *
+ * @property statusCode The HTTP status code of the response.
+ * @property timing Timing of the request that produced the response.
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+class HttpStatusException(
+    val statusCode: Int,
+    val timing: HttpResponseTiming,
+    message: String,
+) : IOException(message)
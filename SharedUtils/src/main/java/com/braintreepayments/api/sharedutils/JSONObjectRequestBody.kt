@@ -0,0 +1,70 @@
+package com.braintreepayments.api.sharedutils
+
+import android.util.JsonWriter
+import androidx.annotation.RestrictTo
+import org.json.JSONArray
+import org.json.JSONObject
+
+/**
+ * Writes [json] as a [JsonRequestBody], adding [additionalFields] to the top-level object as it is
+ * written. An additional field replaces a top-level key of the same name, as [JSONObject.put] would,
+ * without copying or re-parsing [json].
+ *
+ * [json] must not be modified while the request is in flight.
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+class JSONObjectRequestBody(
+    private val json: JSONObject,
+    private val additionalFields: Map<String, String> = emptyMap(),
+) : JsonRequestBody {
+
+    override fun writeTo(writer: JsonWriter) {
+        writer.beginObject()
+        for (name in json.keys()) {
+            if (name !in additionalFields) {
+                writer.name(name)
+                writeValue(writer, json.opt(name))
+            }
+        }
+        for ((name, value) in additionalFields) {
+            writer.name(name).value(value)
+        }
+        writer.endObject()
+    }
+
+    private fun writeValue(writer: JsonWriter, value: Any?) {
+        when (value) {
+            is JSONObject -> {
+                writer.beginObject()
+                for (name in value.keys()) {
+                    writer.name(name)
+                    writeValue(writer, value.opt(name))
+                }
+                writer.endObject()
+            }
+            is JSONArray -> {
+                writer.beginArray()
+                for (index in 0 until value.length()) {
+                    writeValue(writer, value.opt(index))
+                }
+                writer.endArray()
+            }
+            is Boolean -> writer.value(value)
+            is Double, is Float -> writeDecimal(writer, (value as Number).toDouble())
+            is Number -> writer.value(value)
+            null, JSONObject.NULL -> writer.nullValue()
+            else -> writer.value(value.toString())
+        }
+    }
+
+    /**
+     * Writes whole numbers without a fraction, as [JSONObject.toString] does.
+     */
+    private fun writeDecimal(writer: JsonWriter, value: Double) {
+        if (value == value.toLong().toDouble()) {
+            writer.value(value.toLong())
+        } else {
+            writer.value(value)
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.braintreepayments.api.sharedutils
+
+import android.util.JsonReader
+import android.util.JsonToken
+import androidx.annotation.RestrictTo
+import org.json.JSONArray
+import org.json.JSONObject
+
+/**
+ * Helpers for [ResponseBodyDecoder] implementations that mirror the lenient reads of [Json] and
+ * [JSONObject].
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+object JsonReaderExtensions {
+
+    /**
+     * Returns the next value as a [String], or `null` if it is a JSON `null`. Numbers and booleans are
+     * returned in their JSON form, as [JSONObject.optString] does.
+     *
+     * @throws IllegalStateException if the next value is an object or an array
+     */
+    fun JsonReader.nextStringOrNull(): String? = when (peek()) {
+        JsonToken.NULL -> {
+            nextNull()
+            null
+        }
+        JsonToken.BOOLEAN -> nextBoolean().toString()
+        else -> nextString()
+    }
+
+    /**
+     * Returns the next value as a [Boolean], or [fallback] if it is neither a boolean nor the string
+     * `"true"` or `"false"`, as [JSONObject.optBoolean] does.
+     */
+    fun JsonReader.nextBooleanOrFallback(fallback: Boolean): Boolean = when (peek()) {
+        JsonToken.BOOLEAN -> nextBoolean()
+        JsonToken.STRING -> nextString().lowercase().toBooleanStrictOrNull() ?: fallback
+        else -> {
+            skipValue()
+            fallback
+        }
+    }
+
+    /**
+     * Reads the next object by calling [readValue] with each of its names, which must consume the
+     * value. Returns `false` without calling [readValue] if the next value is a JSON `null`.
+     */
+    inline fun JsonReader.readObject(readValue: (name: String) -> Unit): Boolean {
+        if (peek() == JsonToken.NULL) {
+            nextNull()
+            return false
+        }
+        beginObject()
+        while (hasNext()) {
+            readValue(nextName())
+        }
+        endObject()
+        return true
+    }
+
+    /**
+     * Reads the next value into its [JSONObject] representation: a [JSONObject], [JSONArray],
+     * [String], [Boolean], [Number] or [JSONObject.NULL]. Use it only for small sub-trees that are kept
+     * as JSON, such as error details.
+     */
+    fun JsonReader.nextJsonValue(): Any = when (peek()) {
+        JsonToken.BEGIN_OBJECT -> JSONObject().also { json ->
+            readObject { name -> json.put(name, nextJsonValue()) }
+        }
+        JsonToken.BEGIN_ARRAY -> JSONArray().also { json ->
+            beginArray()
+            while (hasNext()) {
+                json.put(nextJsonValue())
+            }
+            endArray()
+        }
+        JsonToken.BOOLEAN -> nextBoolean()
+        JsonToken.NUMBER -> nextString().let { it.toLongOrNull() ?: it.toDouble() }
+        JsonToken.NULL -> JSONObject.NULL.also { nextNull() }
+        else -> nextString()
+    }
+}
@@ -0,0 +1,19 @@
+package com.braintreepayments.api.sharedutils
+
+import android.util.JsonWriter
+import androidx.annotation.RestrictTo
+import java.io.IOException
+
+/**
+ * A JSON request body that is written straight into the connection's sink while the request is sent,
+ * instead of being serialized to a [String] and copied into a request body first.
+ *
+ * [writeTo] may be called more than once if the request is retried or compressed, and must write the
+ * same JSON each time.
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+fun interface JsonRequestBody {
+
+    @Throws(IOException::class)
+    fun writeTo(writer: JsonWriter)
+}
@@ -0,0 +1,71 @@
+package com.braintreepayments.api.sharedutils
+
+import okhttp3.HttpUrl
+
+/**
+ * Tracks response times per host and per endpoint (host and path) so that request timeouts can follow
+ * the latency actually observed instead of a single hard-coded value. Merchant IDs and payment method
+ * nonces are removed from the path, as in the endpoints reported to analytics, so that every merchant
+ * and nonce shares one endpoint.
+ *
+ * An endpoint estimate is used once the endpoint has [minSamples] response times; until then the
+ * estimate for its host is used. At most [maxWindows] hosts and endpoints are tracked, dropping the
+ * least recently used.
+ */
+internal class LatencyEstimator(
+    private val minSamples: Int = DEFAULT_MIN_SAMPLES,
+    private val maxWindows: Int = DEFAULT_MAX_WINDOWS,
+) {
+
+    private val windows = object : LinkedHashMap<String, LatencyWindow>(maxWindows, LOAD_FACTOR, true) {
+        override fun removeEldestEntry(eldest: MutableMap.MutableEntry<String, LatencyWindow>?): Boolean {
+            return size > maxWindows
+        }
+    }
+
+    /**
+     * Records the [latency] in milliseconds of a request to [url].
+     */
+    fun record(url: HttpUrl, latency: Long) {
+        val (hostWindow, endpointWindow) = synchronized(windows) {
+            windows.getOrPut(url.host) { LatencyWindow() } to
+                windows.getOrPut(endpointKey(url)) { LatencyWindow() }
+        }
+        hostWindow.record(latency)
+        endpointWindow.record(latency)
+    }
+
+    /**
+     * Returns the [percentile] response time in milliseconds for requests to [url], or `null` if
+     * neither its endpoint nor its host has enough recorded response times.
+     */
+    fun estimate(url: HttpUrl, percentile: Int): Long? {
+        val (hostWindow, endpointWindow) = synchronized(windows) {
+            windows[url.host] to windows[endpointKey(url)]
+        }
+        return listOfNotNull(endpointWindow, hostWindow)
+            .firstOrNull { it.sampleCount >= minSamples }
+            ?.percentile(percentile)
+    }
+
+    companion object {
+        private const val DEFAULT_MIN_SAMPLES = 5
+        private const val DEFAULT_MAX_WINDOWS = 64
+        private const val LOAD_FACTOR = 0.75f
+
+        private val MERCHANT_PATH = Regex("/merchants/([A-Za-z0-9]+)/client_api")
+        private val THREE_D_SECURE_PATH = Regex("payment_methods/.*/three_d_secure")
+
+        private fun endpointKey(url: HttpUrl): String {
+            val path = url.encodedPath
+                .replace(MERCHANT_PATH, "")
+                .replace(THREE_D_SECURE_PATH, "payment_methods/three_d_secure")
+            return "${url.host}$path"
+        }
+
+        /**
+         * Estimator shared by every request sent through [SharedOkHttpClient].
+         */
+        val instance: LatencyEstimator by lazy { LatencyEstimator() }
+    }
+}
@@ -0,0 +1,42 @@
+package com.braintreepayments.api.sharedutils
+
+import androidx.annotation.RestrictTo
+
+/**
+ * Fixed-size window over the most recent latencies of a request, in milliseconds, answering
+ * percentile queries. Once [size] latencies have been recorded, each new one replaces the oldest.
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+class LatencyWindow(private val size: Int = DEFAULT_SIZE) {
+
+    private val latencies = LongArray(size)
+    private var recordedCount = 0
+
+    /**
+     * Number of latencies in the window, at most [size].
+     */
+    val sampleCount: Int
+        @Synchronized get() = minOf(recordedCount, size)
+
+    @Synchronized
+    fun record(latency: Long) {
+        latencies[recordedCount % size] = latency
+        recordedCount++
+    }
+
+    /**
+     * Returns the [percentile] (0 to 100) of the latencies in the window, or `null` if it is empty.
+     */
+    @Synchronized
+    fun percentile(percentile: Int): Long? {
+        val count = minOf(recordedCount, size)
+        if (count == 0) return null
+        val sorted = latencies.copyOf(count).apply { sort() }
+        return sorted[(count * percentile / PERCENT).coerceIn(0, count - 1)]
+    }
+
+    companion object {
+        private const val DEFAULT_SIZE = 32
+        private const val PERCENT = 100
+    }
+}
@@ -22,4 +22,23 @@ sealed class Method(val stringValue: String) {
      * @property body The request body to send with the POST request.
      */
     class Post(val body: String) : Method("POST")
+
+    /**
+     * Represents the HTTP POST method with a JSON body that is written while the request is sent.
+     *
+     * @property body The request body to send with the POST request.
+     */
+    class PostJson(val body: JsonRequestBody) : Method("POST")
+
+    /**
+     * Represents the HTTP POST method with a JSON body that is written as UTF-8 bytes while the request
+     * is sent.
+     *
+     * @property body The request body to send with the POST request.
+     * @property additionalFields String fields added to the top-level object of [body] as it is written.
+     */
+    class PostEncodedJson(
+        val body: EncodedJsonRequestBody,
+        val additionalFields: Map<String, String> = emptyMap(),
+    ) : Method("POST")
 }
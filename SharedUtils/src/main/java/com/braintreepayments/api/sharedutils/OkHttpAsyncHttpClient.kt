@@ -0,0 +1,112 @@
+package com.braintreepayments.api.sharedutils
+
+import kotlinx.coroutines.CoroutineDispatcher
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.suspendCancellableCoroutine
+import kotlinx.coroutines.withContext
+import okhttp3.Call
+import okhttp3.Callback
+import okhttp3.ConnectionPool
+import okhttp3.OkHttpClient
+import okhttp3.Response
+import java.io.IOException
+import java.util.concurrent.TimeUnit
+import kotlin.coroutines.resumeWithException
+
+/**
+ * Non-blocking HTTP client using OkHttp for network requests.
+ *
+ * Requests are handed to OkHttp's dispatcher with [Call.enqueue], so no coroutine thread is parked
+ * while a request is in flight. Cancelling the calling coroutine cancels the underlying [Call] and
+ * closes its socket.
+ *
+ * @param lazyOkHttpClient OkHttpClient instance, defaults to the process-wide [SharedOkHttpClient]
+ * @property ioDispatcher dispatcher used to build the [OkHttpClient] if it has not been created yet
+ */
+internal class OkHttpAsyncHttpClient(
+    private val lazyOkHttpClient: Lazy<OkHttpClient> = SharedOkHttpClient.lazyInstance,
+    private val ioDispatcher: CoroutineDispatcher = Dispatchers.IO,
+) {
+
+    constructor(okHttpClient: OkHttpClient) : this(lazyOf(okHttpClient))
+
+    /**
+     * Derived from the shared client with a pool that keeps no idle connections, so every request
+     * made through it opens a connection of its own.
+     */
+    private val lazyNewConnectionOkHttpClient: Lazy<OkHttpClient> = lazy {
+        lazyOkHttpClient.value.newBuilder()
+            .connectionPool(ConnectionPool(0, 1, TimeUnit.SECONDS))
+            .build()
+    }
+
+    /**
+     * Executes an HTTP request using OkHttp's asynchronous API.
+     *
+     * @param okHttpRequest The request data to execute.
+     * @param newConnection `true` to send the request on a new connection instead of one that may be
+     * shared with, and stalled by, other requests to the same host.
+     * @return The HTTP response containing the body and timing information.
+     * @throws IOException if the request fails or the response is unsuccessful.
+     */
+    suspend fun executeRequest(okHttpRequest: OkHttpRequest, newConnection: Boolean = false): HttpResponse {
+        return enqueue(okHttpRequest, newConnection) { response, startTime, phaseTimingEventListener ->
+            response.toHttpResponse(startTime, phaseTimingEventListener)
+        }
+    }
+
+    /**
+     * Executes an HTTP request using OkHttp's asynchronous API and reads the response body with
+     * [decoder] as it is received.
+     *
+     * @param okHttpRequest The request data to execute.
+     * @param decoder Reads the body of a successful response.
+     * @return The decoded response body and timing information.
+     * @throws IOException if the request fails or the response is unsuccessful.
+     * @throws org.json.JSONException if the response body cannot be decoded.
+     */
+    suspend fun <T> executeRequest(
+        okHttpRequest: OkHttpRequest,
+        decoder: ResponseBodyDecoder<T>
+    ): DecodedHttpResponse<T> {
+        return enqueue(okHttpRequest, newConnection = false) { response, startTime, phaseTimingEventListener ->
+            response.toDecodedHttpResponse(startTime, phaseTimingEventListener, decoder)
+        }
+    }
+
+    private suspend fun <T> enqueue(
+        okHttpRequest: OkHttpRequest,
+        newConnection: Boolean,
+        readResponse: (Response, Long, PhaseTimingEventListener) -> T
+    ): T {
+        val okHttpClient =
+            getOkHttpClient(if (newConnection) lazyNewConnectionOkHttpClient else lazyOkHttpClient)
+        val startTime = System.currentTimeMillis()
+        val phaseTimingEventListener = PhaseTimingEventListener()
+        val call = okHttpClient.newCall(okHttpRequest.toRequest(phaseTimingEventListener))
+
+        return suspendCancellableCoroutine { continuation ->
+            continuation.invokeOnCancellation { call.cancel() }
+
+            call.enqueue(object : Callback {
+                override fun onFailure(call: Call, e: IOException) {
+                    continuation.resumeWithException(e)
+                }
+
+                override fun onResponse(call: Call, response: Response) {
+                    val result = runCatching { response.use { readResponse(it, startTime, phaseTimingEventListener) } }
+                    continuation.resumeWith(result)
+                }
+            })
+        }
+    }
+
+    private suspend fun getOkHttpClient(lazyOkHttpClient: Lazy<OkHttpClient>): OkHttpClient {
+        // creating the shared client initializes the TLS trust store, which must stay off the calling thread
+        return if (lazyOkHttpClient.isInitialized()) {
+            lazyOkHttpClient.value
+        } else {
+            withContext(ioDispatcher) { lazyOkHttpClient.value }
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.braintreepayments.api.sharedutils
+
+import android.util.JsonReader
+import android.util.JsonWriter
+import okhttp3.Headers
+import okhttp3.MediaType
+import okhttp3.MediaType.Companion.toMediaTypeOrNull
+import okhttp3.Request
+import okhttp3.RequestBody
+import okhttp3.RequestBody.Companion.toRequestBody
+import okhttp3.Response
+import okio.BufferedSink
+import org.json.JSONException
+import java.io.IOException
+import java.io.OutputStreamWriter
+import java.net.HttpURLConnection
+
+/**
+ * Converts an [OkHttpRequest] to an OkHttp [Request].
+ *
+ * This function builds the OkHttp [Request] by setting the URL, HTTP method,
+ * headers, and request body as specified in the [OkHttpRequest].
+ *
+ * @receiver The [OkHttpRequest] to convert.
+ * @param phaseTimingEventListener Listener tagged on the request to record its network phases.
+ * @return The constructed OkHttp [Request] object.
+ */
+internal fun OkHttpRequest.toRequest(phaseTimingEventListener: PhaseTimingEventListener? = null): Request {
+    val headersBuilder = Headers.Builder()
+    for (header in headers) {
+        headersBuilder.add(header.key, header.value)
+    }
+
+    val (method, requestBody) = when (method) {
+        is Method.Get -> method.stringValue to null
+        is Method.Post -> method.stringValue to method.body.toRequestBody("application/json".toMediaTypeOrNull())
+        is Method.PostJson -> method.stringValue to method.body.toRequestBody()
+        is Method.PostEncodedJson -> method.stringValue to method.body.toRequestBody(method.additionalFields)
+    }
+
+    // the body is serialized, and compressed by RequestCompressionInterceptor, as OkHttp sends it
+    return Request.Builder()
+        .url(url)
+        .method(method, requestBody)
+        .headers(headersBuilder.build())
+        .tag(PhaseTimingEventListener::class.java, phaseTimingEventListener)
+        .tag(TimeoutBudget::class.java, timeoutBudget)
+        .tag(RequestCompression::class.java, compression)
+        .build()
+}
+
+/**
+ * Adapts a [JsonRequestBody] to an OkHttp [RequestBody] that writes the JSON into the request sink as
+ * the request is sent. Its length is not known up front, so it is sent in chunks on HTTP/1.1.
+ */
+private fun JsonRequestBody.toRequestBody(): RequestBody = object : RequestBody() {
+
+    override fun contentType(): MediaType? = JSON_MEDIA_TYPE
+
+    override fun writeTo(sink: BufferedSink) {
+        // the writer is flushed but not closed: the sink belongs to OkHttp
+        val writer = JsonWriter(OutputStreamWriter(sink.outputStream(), Charsets.UTF_8))
+        this@toRequestBody.writeTo(writer)
+        writer.flush()
+    }
+}
+
+/**
+ * Adapts an [EncodedJsonRequestBody] to an OkHttp [RequestBody] that writes the JSON object into the
+ * request sink as the request is sent, followed by [additionalFields].
+ */
+private fun EncodedJsonRequestBody.toRequestBody(additionalFields: Map<String, String>): RequestBody =
+    object : RequestBody() {
+
+        override fun contentType(): MediaType? = JSON_MEDIA_TYPE
+
+        override fun writeTo(sink: BufferedSink) {
+            val writer = Utf8JsonWriter(sink)
+            writer.beginObject()
+            writeMembers(writer)
+            for ((name, value) in additionalFields) {
+                writer.name(JsonName(name)).value(value)
+            }
+            writer.endObject()
+        }
+    }
+
+private val JSON_MEDIA_TYPE = "application/json; charset=utf-8".toMediaTypeOrNull()
+
+/**
+ * Reads an OkHttp [Response] into an [HttpResponse]. The caller remains responsible for closing the
+ * [Response].
+ *
+ * A `304 Not Modified` answer to a conditional request is returned like a successful response.
+ *
+ * @param startTime The time in milliseconds at which the request was started.
+ * @param phaseTimingEventListener Listener that recorded the network phases of this response, if any.
+ * @throws HttpStatusException if the response is unsuccessful.
+ */
+@Throws(IOException::class)
+internal fun Response.toHttpResponse(
+    startTime: Long,
+    phaseTimingEventListener: PhaseTimingEventListener? = null,
+): HttpResponse {
+    val responseBody = body?.string()
+    val timing = responseTiming(startTime, phaseTimingEventListener)
+    if (!isSuccessful && code != HttpURLConnection.HTTP_NOT_MODIFIED) {
+        throw HttpStatusException(code, timing, "Unexpected code $this with body $responseBody")
+    }
+    return HttpResponse(
+        body = responseBody,
+        timing = timing,
+        statusCode = code,
+        headers = headers.toMultimap().mapValues { (_, values) -> values.joinToString(", ") }
+    )
+}
+
+/**
+ * Reads the body of a successful OkHttp [Response] with [decoder] as it streams from the network. The
+ * caller remains responsible for closing the [Response].
+ *
+ * @param startTime The time in milliseconds at which the request was started.
+ * @param phaseTimingEventListener Listener that recorded the network phases of this response, if any.
+ * @param decoder Reads the response body.
+ * @throws HttpStatusException if the response is unsuccessful.
+ * @throws JSONException if [decoder] cannot read the response body.
+ */
+@Throws(IOException::class, JSONException::class)
+internal fun <T> Response.toDecodedHttpResponse(
+    startTime: Long,
+    phaseTimingEventListener: PhaseTimingEventListener?,
+    decoder: ResponseBodyDecoder<T>,
+): DecodedHttpResponse<T> {
+    if (!isSuccessful) {
+        val responseBody = body?.string()
+        val timing = responseTiming(startTime, phaseTimingEventListener)
+        throw HttpStatusException(code, timing, "Unexpected code $this with body $responseBody")
+    }
+    val responseBody = body ?: throw IOException("Response body is null")
+    val decodedBody = JsonReader(responseBody.charStream()).use { decoder.decode(it) }
+    return DecodedHttpResponse(
+        body = decodedBody,
+        timing = responseTiming(startTime, phaseTimingEventListener),
+        statusCode = code
+    )
+}
+
+private fun responseTiming(startTime: Long, phaseTimingEventListener: PhaseTimingEventListener?) =
+    HttpResponseTiming(startTime, System.currentTimeMillis(), phaseTimingEventListener?.toPhaseTimings())
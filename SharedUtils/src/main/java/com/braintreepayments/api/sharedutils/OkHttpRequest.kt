@@ -10,10 +10,17 @@ import androidx.annotation.RestrictTo
  * @property url The URL to which the request will be sent.
  * @property method The HTTP method to use for the request (GET, POST, etc.).
  * @property headers A map of header key-value pairs to include in the request.
+ * @property timeoutBudget Bounds for timeouts adapted to the endpoint's observed latency, or `null` to
+ * use the client's fixed timeouts.
+ * @property priority How urgently the request is sent relative to other requests in flight.
+ * @property compression How the request body is compressed, or `null` to send it uncompressed.
  */
 @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
 data class OkHttpRequest(
     val url: String,
     val method: Method,
     val headers: Map<String, String> = emptyMap(),
+    val timeoutBudget: TimeoutBudget? = null,
+    val priority: RequestPriority = RequestPriority.USER_BLOCKING,
+    val compression: RequestCompression? = null,
 )
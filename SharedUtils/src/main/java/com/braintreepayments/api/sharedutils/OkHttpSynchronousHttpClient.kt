@@ -1,12 +1,8 @@
 package com.braintreepayments.api.sharedutils
 
-import okhttp3.Headers
-import okhttp3.MediaType.Companion.toMediaTypeOrNull
 import okhttp3.OkHttpClient
 import okhttp3.Request
-import okhttp3.RequestBody.Companion.toRequestBody
-import java.io.IOException
-import java.util.concurrent.TimeUnit
+import okhttp3.Response
 
 /**
  * Synchronous HTTP client using OkHttp for network requests.
@@ -14,18 +10,17 @@ import java.util.concurrent.TimeUnit
  * This client is intended for internal use and provides synchronous HTTP operations
  * with certificate pinning support. It wraps OkHttp and exposes a blocking request method.
  *
- * @property socketFactory TLSSocketFactory used for SSL connections
- * @property okHttpClient OkHttpClient instance
+ * @param lazyOkHttpClient OkHttpClient instance, defaults to the process-wide [SharedOkHttpClient]. It is
+ * resolved on the first request so that TLS setup never happens on the thread constructing this client.
  */
 internal class OkHttpSynchronousHttpClient(
-    private val socketFactory: TLSSocketFactory = TLSSocketFactory(),
-    private val okHttpClient: OkHttpClient = OkHttpClient.Builder()
-        .connectTimeout(THIRTY, TimeUnit.SECONDS)
-        .readTimeout(THIRTY, TimeUnit.SECONDS)
-        .sslSocketFactory(socketFactory, socketFactory.trustManager)
-        .build(),
+    lazyOkHttpClient: Lazy<OkHttpClient> = SharedOkHttpClient.lazyInstance,
 ) {
 
+    constructor(okHttpClient: OkHttpClient) : this(lazyOf(okHttpClient))
+
+    private val okHttpClient: OkHttpClient by lazyOkHttpClient
+
     /**
      * Executes a synchronous HTTP request using OkHttp.
      *
@@ -38,48 +33,37 @@ internal class OkHttpSynchronousHttpClient(
      */
     @Throws(Exception::class)
     fun executeRequest(okHttpRequest: OkHttpRequest): HttpResponse {
-        val startTime = System.currentTimeMillis()
-        val request = okHttpRequest.toRequest()
-
-        okHttpClient.newCall(request).execute().use { response ->
-            val responseBody = response.body?.string()
-            if (!response.isSuccessful) throw IOException("Unexpected code $response with body $responseBody")
-            val endTime = System.currentTimeMillis()
-            return HttpResponse(
-                body = responseBody,
-                timing = HttpResponseTiming(startTime, endTime)
-            )
+        return execute(okHttpRequest) { response, startTime, phaseTimingEventListener ->
+            response.toHttpResponse(startTime, phaseTimingEventListener)
         }
     }
 
     /**
-     * Converts an [OkHttpRequest] to an OkHttp [Request].
-     *
-     * This function builds the OkHttp [Request] by setting the URL, HTTP method,
-     * headers, and request body as specified in the [OkHttpRequest].
+     * Executes a synchronous HTTP request using OkHttp and reads the response body with [decoder] as it
+     * is received.
      *
-     * @receiver The [OkHttpRequest] to convert.
-     * @return The constructed OkHttp [Request] object.
+     * @param okHttpRequest The request data to execute.
+     * @param decoder Reads the body of a successful response.
+     * @return The decoded response body and timing information.
+     * @throws Exception if the request fails, the response is unsuccessful or cannot be decoded.
      */
-    private fun OkHttpRequest.toRequest(): Request {
-        val headersBuilder = Headers.Builder()
-        for (header in headers) {
-            headersBuilder.add(header.key, header.value)
-        }
-
-        val (method, requestBody) = when (method) {
-            is Method.Get -> method.stringValue to null
-            is Method.Post -> method.stringValue to method.body.toRequestBody("application/json".toMediaTypeOrNull())
+    @Throws(Exception::class)
+    fun <T> executeRequest(okHttpRequest: OkHttpRequest, decoder: ResponseBodyDecoder<T>): DecodedHttpResponse<T> {
+        return execute(okHttpRequest) { response, startTime, phaseTimingEventListener ->
+            response.toDecodedHttpResponse(startTime, phaseTimingEventListener, decoder)
         }
-
-        return Request.Builder()
-            .url(url)
-            .method(method, requestBody)
-            .headers(headersBuilder.build())
-            .build()
     }
 
-    companion object {
-        private const val THIRTY = 30L
+    private inline fun <T> execute(
+        okHttpRequest: OkHttpRequest,
+        readResponse: (Response, Long, PhaseTimingEventListener) -> T
+    ): T {
+        val startTime = System.currentTimeMillis()
+        val phaseTimingEventListener = PhaseTimingEventListener()
+        val request = okHttpRequest.toRequest(phaseTimingEventListener)
+
+        okHttpClient.newCall(request).execute().use { response ->
+            return readResponse(response, startTime, phaseTimingEventListener)
+        }
     }
 }
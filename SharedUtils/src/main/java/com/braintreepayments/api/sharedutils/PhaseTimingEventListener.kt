@@ -0,0 +1,135 @@
+package com.braintreepayments.api.sharedutils
+
+import okhttp3.Call
+import okhttp3.Connection
+import okhttp3.EventListener
+import okhttp3.Handshake
+import okhttp3.Protocol
+import okhttp3.Request
+import okhttp3.Response
+import java.net.InetAddress
+import java.net.InetSocketAddress
+import java.net.Proxy
+import java.util.concurrent.TimeUnit
+
+/**
+ * [EventListener] that records the phase boundaries of one [Call] on the [System.nanoTime] clock.
+ *
+ * An instance is attached to each outgoing request as a tag by [toRequest] and picked up by [FACTORY],
+ * which is installed on [SharedOkHttpClient]. Events for a single call are delivered sequentially, and
+ * [toPhaseTimings] is only read once the response body has been consumed.
+ */
+internal class PhaseTimingEventListener(
+    private val nanoTime: () -> Long = System::nanoTime,
+) : EventListener() {
+
+    private var isCallStarted = false
+    private var dnsStart = 0L
+    private var dnsEnd = 0L
+    private var connectStart = 0L
+    private var connectEnd = 0L
+    private var secureConnectStart = 0L
+    private var secureConnectEnd = 0L
+    private var requestEnd = 0L
+    private var responseHeadersStart = 0L
+    private var responseBodyStart = 0L
+    private var responseBodyEnd = 0L
+    private var requestBytes = 0L
+    private var responseBytes = 0L
+    private var isConnectStarted = false
+    private var connectionReused = false
+
+    override fun callStart(call: Call) {
+        isCallStarted = true
+    }
+
+    override fun dnsStart(call: Call, domainName: String) {
+        dnsStart = nanoTime()
+    }
+
+    override fun dnsEnd(call: Call, domainName: String, inetAddressList: List<InetAddress>) {
+        dnsEnd = nanoTime()
+    }
+
+    override fun connectStart(call: Call, inetSocketAddress: InetSocketAddress, proxy: Proxy) {
+        isConnectStarted = true
+        connectStart = nanoTime()
+    }
+
+    override fun secureConnectStart(call: Call) {
+        secureConnectStart = nanoTime()
+    }
+
+    override fun secureConnectEnd(call: Call, handshake: Handshake?) {
+        secureConnectEnd = nanoTime()
+    }
+
+    override fun connectEnd(
+        call: Call,
+        inetSocketAddress: InetSocketAddress,
+        proxy: Proxy,
+        protocol: Protocol?
+    ) {
+        connectEnd = nanoTime()
+    }
+
+    override fun connectionAcquired(call: Call, connection: Connection) {
+        // a pooled connection is handed out without any connect events
+        connectionReused = !isConnectStarted
+        isConnectStarted = false
+    }
+
+    override fun requestHeadersEnd(call: Call, request: Request) {
+        requestEnd = nanoTime()
+    }
+
+    override fun requestBodyEnd(call: Call, byteCount: Long) {
+        requestEnd = nanoTime()
+        requestBytes = byteCount
+    }
+
+    override fun responseHeadersStart(call: Call) {
+        responseHeadersStart = nanoTime()
+    }
+
+    override fun responseHeadersEnd(call: Call, response: Response) {
+        responseBodyStart = nanoTime()
+    }
+
+    override fun responseBodyEnd(call: Call, byteCount: Long) {
+        responseBodyEnd = nanoTime()
+        responseBytes = byteCount
+    }
+
+    /**
+     * Returns the phase durations recorded so far, or `null` if this listener was never installed on the
+     * call (for example when the [okhttp3.OkHttpClient] was built without [FACTORY]).
+     */
+    fun toPhaseTimings(): HttpPhaseTimings? {
+        if (!isCallStarted) return null
+        return HttpPhaseTimings(
+            dnsDuration = millisBetween(dnsStart, dnsEnd),
+            connectDuration = millisBetween(connectStart, connectEnd),
+            tlsDuration = millisBetween(secureConnectStart, secureConnectEnd),
+            timeToFirstByte = millisBetween(requestEnd, responseHeadersStart),
+            responseBodyDuration = millisBetween(responseBodyStart, responseBodyEnd),
+            requestBytes = requestBytes,
+            responseBytes = responseBytes,
+            isConnectionReused = connectionReused,
+        )
+    }
+
+    private fun millisBetween(start: Long, end: Long): Long {
+        return if (start == 0L || end < start) 0L else TimeUnit.NANOSECONDS.toMillis(end - start)
+    }
+
+    companion object {
+
+        /**
+         * Returns the [PhaseTimingEventListener] tagged on a call's request, or [EventListener.NONE].
+         */
+        val FACTORY = Factory { call ->
+            call.request().tag(PhaseTimingEventListener::class.java) ?: EventListener.NONE
+        }
+    }
+}
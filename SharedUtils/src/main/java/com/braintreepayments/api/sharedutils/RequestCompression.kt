@@ -0,0 +1,99 @@
+package com.braintreepayments.api.sharedutils
+
+import androidx.annotation.RestrictTo
+import okhttp3.MediaType
+import okhttp3.RequestBody
+import okio.Buffer
+import okio.BufferedSink
+import okio.GzipSink
+import okio.Sink
+import okio.Timeout
+import okio.buffer
+import java.io.IOException
+
+/**
+ * Compresses request bodies with gzip before they are sent. Only use this for endpoints known to
+ * accept a `Content-Encoding: gzip` request body.
+ *
+ * @property minBodySize smallest body in bytes that is compressed; smaller bodies are sent as they are,
+ * since gzip saves too little on them to be worth its header and the time spent compressing.
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+data class RequestCompression(
+    val minBodySize: Int,
+) {
+
+    /**
+     * Returns [body] wrapped so that it is compressed with gzip while OkHttp writes it into the request,
+     * or `null` if [body] is smaller than [minBodySize] and should be sent uncompressed.
+     *
+     * A body of unknown length, such as a streamed JSON body, is first written into a counter that
+     * gives up within one buffer segment of [minBodySize] bytes, so a large body is not written in full
+     * twice. Call this on the thread that sends the request.
+     */
+    internal fun compress(body: RequestBody): RequestBody? {
+        val contentLength = body.contentLength()
+        val isSmall = if (contentLength < 0) body.isShorterThan(minBodySize) else contentLength < minBodySize
+        return if (isSmall) null else GzipRequestBody(body)
+    }
+
+    companion object {
+        /**
+         * Compresses bodies of 1 KiB or more, such as analytics batches, whose repeated keys shrink
+         * well.
+         */
+        val GZIP = RequestCompression(minBodySize = 1_024)
+    }
+}
+
+/**
+ * Returns whether this body writes fewer than [byteCount] bytes. Writing is abandoned as soon as the
+ * buffered sink has passed [byteCount] bytes on to the counter.
+ */
+private fun RequestBody.isShorterThan(byteCount: Int): Boolean {
+    if (byteCount <= 0) return false
+    val counter = ByteCountingSink(limit = byteCount.toLong())
+    return try {
+        counter.buffer().use { writeTo(it) }
+        true
+    } catch (expected: LimitReachedException) {
+        false
+    }
+}
+
+/**
+ * Discards everything written to it, failing with [LimitReachedException] once [limit] bytes have
+ * been written.
+ */
+private class ByteCountingSink(private val limit: Long) : Sink {
+
+    private var bytesWritten = 0L
+
+    override fun write(source: Buffer, byteCount: Long) {
+        source.skip(byteCount)
+        bytesWritten += byteCount
+        if (bytesWritten >= limit) throw LimitReachedException()
+    }
+
+    override fun flush() = Unit
+
+    override fun timeout(): Timeout = Timeout.NONE
+
+    override fun close() = Unit
+}
+
+private class LimitReachedException : IOException("Body size limit reached")
+
+/**
+ * Compresses [body] into the request sink as it is written. The compressed length is not known up
+ * front, so the body is sent in chunks on HTTP/1.1.
+ */
+private class GzipRequestBody(private val body: RequestBody) : RequestBody() {
+
+    override fun contentType(): MediaType? = body.contentType()
+
+    override fun writeTo(sink: BufferedSink) {
+        // closing the gzip sink writes its trailer; OkHttp closes the request sink after writeTo anyway
+        GzipSink(sink).buffer().use { body.writeTo(it) }
+    }
+}
@@ -0,0 +1,29 @@
+package com.braintreepayments.api.sharedutils
+
+import okhttp3.Interceptor
+import okhttp3.Response
+
+/**
+ * Compresses the bodies of requests tagged with a [RequestCompression], on the thread that sends the
+ * request. Bodies smaller than [RequestCompression.minBodySize] and untagged requests are sent as they
+ * are.
+ */
+internal class RequestCompressionInterceptor : Interceptor {
+
+    override fun intercept(chain: Interceptor.Chain): Response {
+        val request = chain.request()
+        val compression = request.tag(RequestCompression::class.java)
+        val compressedBody = request.body?.let { compression?.compress(it) } ?: return chain.proceed(request)
+
+        val compressedRequest = request.newBuilder()
+            .header(CONTENT_ENCODING_HEADER, GZIP_ENCODING)
+            .method(request.method, compressedBody)
+            .build()
+        return chain.proceed(compressedRequest)
+    }
+
+    companion object {
+        private const val CONTENT_ENCODING_HEADER = "Content-Encoding"
+        private const val GZIP_ENCODING = "gzip"
+    }
+}
@@ -0,0 +1,26 @@
+package com.braintreepayments.api.sharedutils
+
+import androidx.annotation.RestrictTo
+
+/**
+ * How urgently [HttpClient] sends a request relative to the other requests in flight.
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+enum class RequestPriority {
+
+    /**
+     * A customer is waiting on the response, for example to tokenize a payment method. Sent immediately.
+     */
+    USER_BLOCKING,
+
+    /**
+     * Fetches data a customer is likely to wait on soon, such as configuration. Sent immediately.
+     */
+    PREFETCH,
+
+    /**
+     * Nobody is waiting on the response, for example analytics. Sent with limited concurrency, and
+     * only while no [USER_BLOCKING] or [PREFETCH] request is in flight.
+     */
+    BACKGROUND,
+}
@@ -0,0 +1,66 @@
+package com.braintreepayments.api.sharedutils
+
+import kotlinx.coroutines.flow.MutableStateFlow
+import kotlinx.coroutines.flow.first
+import kotlinx.coroutines.flow.update
+import kotlinx.coroutines.sync.Semaphore
+
+/**
+ * Orders requests by [RequestPriority] so that background traffic never competes with requests a
+ * customer is waiting on for the shared dispatcher and connections.
+ *
+ * [RequestPriority.USER_BLOCKING] and [RequestPriority.PREFETCH] requests start immediately. At most
+ * [maxBackgroundRequests] [RequestPriority.BACKGROUND] requests run at a time, and each one waits to
+ * start until no higher priority request is in flight. A background request that has already started
+ * is not interrupted.
+ */
+internal class RequestScheduler(
+    maxBackgroundRequests: Int = DEFAULT_MAX_BACKGROUND_REQUESTS,
+) {
+
+    private val backgroundPermits = Semaphore(maxBackgroundRequests)
+    private val priorityRequestsInFlight = MutableStateFlow(0)
+
+    /**
+     * Runs [request] once its [priority] allows it.
+     */
+    suspend fun <T> schedule(priority: RequestPriority, request: suspend () -> T): T {
+        if (priority == RequestPriority.BACKGROUND) {
+            acquireBackgroundPermit()
+            try {
+                return request()
+            } finally {
+                backgroundPermits.release()
+            }
+        }
+        priorityRequestsInFlight.update { it + 1 }
+        try {
+            return request()
+        } finally {
+            priorityRequestsInFlight.update { it - 1 }
+        }
+    }
+
+    /**
+     * Waits until no higher priority request is in flight before taking a permit, so that queued
+     * background requests do not hold permits while they wait. The gate is checked again once the
+     * permit is held, since a higher priority request may have started in the meantime.
+     */
+    private suspend fun acquireBackgroundPermit() {
+        while (true) {
+            priorityRequestsInFlight.first { it == 0 }
+            backgroundPermits.acquire()
+            if (priorityRequestsInFlight.value == 0) return
+            backgroundPermits.release()
+        }
+    }
+
+    companion object {
+        private const val DEFAULT_MAX_BACKGROUND_REQUESTS = 2
+
+        /**
+         * Scheduler shared by every [HttpClient], since they all send through [SharedOkHttpClient].
+         */
+        val instance: RequestScheduler by lazy { RequestScheduler() }
+    }
+}
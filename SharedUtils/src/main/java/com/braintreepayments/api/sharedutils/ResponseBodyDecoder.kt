@@ -0,0 +1,21 @@
+package com.braintreepayments.api.sharedutils
+
+import android.util.JsonReader
+import androidx.annotation.RestrictTo
+import org.json.JSONException
+import java.io.IOException
+
+/**
+ * Reads a successful JSON response body into [T] while it streams from the network, without first
+ * buffering it as a [String] or building a [org.json.JSONObject] tree.
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+fun interface ResponseBodyDecoder<T> {
+
+    /**
+     * @throws IOException if the body is not well-formed JSON or the connection fails while it is read
+     * @throws JSONException if the body is well-formed JSON that does not describe a [T]
+     */
+    @Throws(IOException::class, JSONException::class)
+    fun decode(reader: JsonReader): T
+}
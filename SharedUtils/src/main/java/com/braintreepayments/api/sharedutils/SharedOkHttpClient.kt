@@ -0,0 +1,75 @@
+package com.braintreepayments.api.sharedutils
+
+import androidx.annotation.VisibleForTesting
+import okhttp3.ConnectionPool
+import okhttp3.Dispatcher
+import okhttp3.OkHttpClient
+import java.util.concurrent.TimeUnit
+
+/**
+ * Process-wide [OkHttpClient] shared by every [OkHttpSynchronousHttpClient].
+ *
+ * All Braintree network traffic (configuration, REST, GraphQL and analytics) goes through a single
+ * connection pool and dispatcher so that TLS connections to the same host are reused across clients.
+ * Callers that need different settings should derive a client with [OkHttpClient.newBuilder], which
+ * keeps sharing the pool and dispatcher of [instance].
+ *
+ * No response [okhttp3.Cache] is installed: Braintree API responses are not HTTP-cacheable and
+ * SharedUtils has no [android.content.Context] to resolve a cache directory from.
+ */
+internal object SharedOkHttpClient {
+
+    private const val THIRTY = 30L
+    private const val MAX_IDLE_CONNECTIONS = 5
+    private const val KEEP_ALIVE_MINUTES = 5L
+
+    /**
+     * The shared [OkHttpClient]. Building it initializes the pinned trust store, so it is only created
+     * the first time a request is executed, off the main thread. HTTP clients read it when they are
+     * constructed.
+     */
+    @Volatile
+    var lazyInstance: Lazy<OkHttpClient> = lazy { create(TLSSocketFactory()) }
+        private set
+
+    /**
+     * The shared [OkHttpClient], created on first use.
+     */
+    val instance: OkHttpClient
+        get() = lazyInstance.value
+
+    /**
+     * Replaces the shared client with one whose builder is passed to [builderHook] before it is built,
+     * such as to trust the certificate of a local test server. HTTP clients constructed afterwards
+     * share the new client; calling it without a hook restores the default client.
+     */
+    @VisibleForTesting
+    fun resetForTesting(builderHook: (OkHttpClient.Builder) -> Unit = {}) {
+        lazyInstance = lazy { create(TLSSocketFactory(), builderHook) }
+    }
+
+    /**
+     * Builds an [OkHttpClient] with Braintree's timeouts, pinned [socketFactory], a dedicated
+     * [ConnectionPool] and [Dispatcher], and per-request phase timing. Requests carrying a
+     * [TimeoutBudget] get timeouts adapted to their endpoint by [AdaptiveTimeoutInterceptor], and
+     * requests carrying a [RequestCompression] have their bodies compressed by
+     * [RequestCompressionInterceptor].
+     * [builderHook] is applied to the builder last.
+     */
+    fun create(
+        socketFactory: TLSSocketFactory,
+        builderHook: (OkHttpClient.Builder) -> Unit = {},
+    ): OkHttpClient {
+        return OkHttpClient.Builder()
+            .connectTimeout(THIRTY, TimeUnit.SECONDS)
+            .readTimeout(THIRTY, TimeUnit.SECONDS)
+            .connectionPool(ConnectionPool(MAX_IDLE_CONNECTIONS, KEEP_ALIVE_MINUTES, TimeUnit.MINUTES))
+            .dispatcher(Dispatcher())
+            .eventListenerFactory(PhaseTimingEventListener.FACTORY)
+            .addInterceptor(AdaptiveTimeoutInterceptor())
+            .addInterceptor(RequestCompressionInterceptor())
+            .sslSocketFactory(socketFactory, socketFactory.trustManager)
+            .apply(builderHook)
+            .build()
+    }
+}
@@ -18,11 +18,13 @@ import javax.net.ssl.X509TrustManager
 /**
  * `TLSSocketFactory` is a custom implementation of [SSLSocketFactory] that enforces the use of specific TLS protocols
  * (TLSv1.2 and TLSv1.3) and allows for the management of trusted certificates from a provided [InputStream].
+ *
+ * By default the pinned certificates are read from [TLSTrustAnchors], which is pre-decoded to DER at build time.
  */
 @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
 @Suppress("TooGenericExceptionCaught", "SwallowedException")
 class TLSSocketFactory(
-    certificateStream: InputStream = TLSCertificatePinning.createCertificateInputStream(),
+    certificateStream: InputStream = TLSTrustAnchors.createCertificateInputStream(),
     keyStore: KeyStore = KeyStore.getInstance(KeyStore.getDefaultType()),
     certificateFactory: CertificateFactory = CertificateFactory.getInstance("X.509"),
     trustManagerFactory: TrustManagerFactory = TrustManagerFactory.getInstance(
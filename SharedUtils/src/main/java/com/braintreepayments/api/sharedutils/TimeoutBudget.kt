@@ -0,0 +1,47 @@
+package com.braintreepayments.api.sharedutils
+
+import androidx.annotation.RestrictTo
+
+/**
+ * Bounds for the connect, read and write timeouts of a request. Within these bounds the timeout
+ * follows the latency observed for the request's endpoint, so that a slow endpoint is given more time
+ * and an unresponsive one gives up its connection early.
+ *
+ * @property minTimeout shortest timeout in milliseconds, however fast the endpoint usually is.
+ * @property maxTimeout longest timeout in milliseconds; also used until the endpoint's latency is known.
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+data class TimeoutBudget(
+    val minTimeout: Long,
+    val maxTimeout: Long,
+) {
+
+    /**
+     * Returns the timeout in milliseconds for a request whose endpoint usually responds within
+     * [expectedLatency] milliseconds. Returns [maxTimeout] when [expectedLatency] is `null`.
+     */
+    fun timeoutFor(expectedLatency: Long?): Long {
+        if (expectedLatency == null) return maxTimeout
+        return (expectedLatency * LATENCY_MULTIPLIER).coerceIn(minTimeout, maxTimeout)
+    }
+
+    companion object {
+        private const val LATENCY_MULTIPLIER = 3
+
+        /**
+         * Fire-and-forget requests, such as analytics, that should never hold a connection for long.
+         */
+        val SHORT = TimeoutBudget(minTimeout = 2_000L, maxTimeout = 10_000L)
+
+        /**
+         * Requests the SDK makes on its own behalf, such as loading configuration.
+         */
+        val STANDARD = TimeoutBudget(minTimeout = 5_000L, maxTimeout = 30_000L)
+
+        /**
+         * Requests a customer is waiting on, such as tokenization, which are never given less time than
+         * the default [SharedOkHttpClient] timeouts.
+         */
+        val GENEROUS = TimeoutBudget(minTimeout = 30_000L, maxTimeout = 60_000L)
+    }
+}
@@ -0,0 +1,207 @@
+package com.braintreepayments.api.sharedutils
+
+import androidx.annotation.RestrictTo
+import okio.Buffer
+import okio.BufferedSink
+import okio.ByteString
+import okio.ByteString.Companion.encodeUtf8
+import java.io.IOException
+
+/**
+ * Writes JSON as UTF-8 bytes straight into a sink, for request bodies that are sent often enough for
+ * the cost of building [org.json.JSONObject] trees to matter.
+ *
+ * Member names are written from [JsonName]s, which are encoded once. Values that are already JSON,
+ * such as a stored event, are copied into the sink as they are with [rawValue] and [rawMembers].
+ *
+ * The writer does not check that the JSON it writes is well formed; it only places the commas between
+ * members and array elements.
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+class Utf8JsonWriter internal constructor(private val sink: BufferedSink) {
+
+    /**
+     * Whether the next member or array element follows another one and needs a separating comma.
+     */
+    private var needsSeparator = false
+
+    @Throws(IOException::class)
+    fun beginObject(): Utf8JsonWriter = begin('{')
+
+    @Throws(IOException::class)
+    fun endObject(): Utf8JsonWriter = end('}')
+
+    @Throws(IOException::class)
+    fun beginArray(): Utf8JsonWriter = begin('[')
+
+    @Throws(IOException::class)
+    fun endArray(): Utf8JsonWriter = end(']')
+
+    @Throws(IOException::class)
+    fun name(name: JsonName): Utf8JsonWriter {
+        separate()
+        sink.write(name.bytes)
+        needsSeparator = false
+        return this
+    }
+
+    @Throws(IOException::class)
+    fun value(value: String?): Utf8JsonWriter {
+        separate()
+        if (value == null) sink.write(NULL) else writeString(value)
+        needsSeparator = true
+        return this
+    }
+
+    @Throws(IOException::class)
+    fun value(value: Long): Utf8JsonWriter {
+        separate()
+        sink.writeDecimalLong(value)
+        needsSeparator = true
+        return this
+    }
+
+    @Throws(IOException::class)
+    fun value(value: Boolean): Utf8JsonWriter {
+        separate()
+        sink.write(if (value) TRUE else FALSE)
+        needsSeparator = true
+        return this
+    }
+
+    /**
+     * Writes the member [name] with [value], or nothing if [value] is null, as
+     * [org.json.JSONObject.putOpt] would.
+     */
+    @Throws(IOException::class)
+    fun opt(name: JsonName, value: String?): Utf8JsonWriter =
+        if (value == null) this else name(name).value(value)
+
+    /**
+     * Writes the member [name] with [value], or nothing if [value] is null.
+     */
+    @Throws(IOException::class)
+    fun opt(name: JsonName, value: Long?): Utf8JsonWriter =
+        if (value == null) this else name(name).value(value)
+
+    /**
+     * Writes the member [name] with [value], or nothing if [value] is null.
+     */
+    @Throws(IOException::class)
+    fun opt(name: JsonName, value: Boolean?): Utf8JsonWriter =
+        if (value == null) this else name(name).value(value)
+
+    /**
+     * Copies [json], a complete JSON value, into the sink without parsing it.
+     */
+    @Throws(IOException::class)
+    fun rawValue(json: String): Utf8JsonWriter {
+        separate()
+        sink.writeUtf8(json)
+        needsSeparator = true
+        return this
+    }
+
+    /**
+     * Copies [members], the encoded members of an object without its braces, into the object being
+     * written. [members] must not be empty.
+     */
+    @Throws(IOException::class)
+    fun rawMembers(members: ByteArray): Utf8JsonWriter {
+        separate()
+        sink.write(members)
+        needsSeparator = true
+        return this
+    }
+
+    private fun begin(bracket: Char): Utf8JsonWriter {
+        separate()
+        sink.writeByte(bracket.code)
+        needsSeparator = false
+        return this
+    }
+
+    private fun end(bracket: Char): Utf8JsonWriter {
+        sink.writeByte(bracket.code)
+        needsSeparator = true
+        return this
+    }
+
+    private fun separate() {
+        if (needsSeparator) sink.writeByte(','.code)
+    }
+
+    /**
+     * Writes [value] as a quoted string, copying runs of characters that need no escaping straight
+     * into the sink.
+     */
+    private fun writeString(value: String) {
+        sink.writeByte('"'.code)
+        var runStart = 0
+        for (index in value.indices) {
+            val escaped = escape(value[index]) ?: continue
+            if (index > runStart) sink.writeUtf8(value, runStart, index)
+            sink.writeUtf8(escaped)
+            runStart = index + 1
+        }
+        if (value.length > runStart) sink.writeUtf8(value, runStart, value.length)
+        sink.writeByte('"'.code)
+    }
+
+    companion object {
+
+        private val NULL = "null".encodeUtf8()
+        private val TRUE = "true".encodeUtf8()
+        private val FALSE = "false".encodeUtf8()
+
+        private const val LAST_CONTROL_CHARACTER = 0x1f
+        private const val HEX_RADIX = 16
+        private val CONTROL_CHARACTER_ESCAPES = Array(LAST_CONTROL_CHARACTER + 1) {
+            "\\u" + it.toString(HEX_RADIX).padStart(4, '0')
+        }.apply {
+            this['\b'.code] = "\\b"
+            this['\t'.code] = "\\t"
+            this['\n'.code] = "\\n"
+            this['\u000c'.code] = "\\f"
+            this['\r'.code] = "\\r"
+        }
+
+        /**
+         * Returns the escape sequence for [char], or null if it is written as it is. Line and paragraph
+         * separators are escaped as [org.json.JSONObject] escapes them.
+         */
+        internal fun escape(char: Char): String? = when {
+            char == '"' -> "\\\""
+            char == '\\' -> "\\\\"
+            char.code <= LAST_CONTROL_CHARACTER -> CONTROL_CHARACTER_ESCAPES[char.code]
+            char == '\u2028' -> "\\u2028"
+            char == '\u2029' -> "\\u2029"
+            else -> null
+        }
+
+        /**
+         * Encodes the JSON written by [block] into a [String], for JSON that is stored or inspected
+         * rather than sent.
+         */
+        fun encodeToString(block: (Utf8JsonWriter) -> Unit): String =
+            Buffer().also { block(Utf8JsonWriter(it)) }.readUtf8()
+
+        /**
+         * Encodes the JSON written by [block] into a [ByteArray], such as a fragment for [rawMembers].
+         */
+        fun encodeToByteArray(block: (Utf8JsonWriter) -> Unit): ByteArray =
+            Buffer().also { block(Utf8JsonWriter(it)) }.readByteArray()
+    }
+}
+
+/**
+ * A JSON member name encoded once, with its quotes and the colon that follows it, so that writing it
+ * with [Utf8JsonWriter.name] only copies bytes.
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+class JsonName(val name: String) {
+
+    internal val bytes: ByteString = Utf8JsonWriter.encodeToString { it.value(name) }.plus(":").encodeUtf8()
+
+    override fun toString(): String = name
+}
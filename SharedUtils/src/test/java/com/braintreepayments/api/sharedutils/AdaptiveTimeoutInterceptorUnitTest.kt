@@ -0,0 +1,101 @@
+package com.braintreepayments.api.sharedutils
+
+import io.mockk.every
+import io.mockk.mockk
+import io.mockk.verify
+import okhttp3.Call
+import okhttp3.Interceptor
+import okhttp3.Request
+import okhttp3.Response
+import org.junit.Before
+import org.junit.Test
+import java.io.IOException
+import java.util.concurrent.TimeUnit
+import kotlin.test.assertFailsWith
+
+class AdaptiveTimeoutInterceptorUnitTest {
+
+    private val latencyEstimator: LatencyEstimator = mockk(relaxed = true)
+    private val chain: Interceptor.Chain = mockk(relaxed = true)
+    private val timedChain: Interceptor.Chain = mockk(relaxed = true)
+    private val call: Call = mockk(relaxed = true)
+    private val response: Response = mockk(relaxed = true)
+
+    private val sut = AdaptiveTimeoutInterceptor(latencyEstimator)
+
+    @Before
+    fun setUp() {
+        every { chain.call() } returns call
+        every { chain.withConnectTimeout(any(), any()) } returns timedChain
+        every { timedChain.withReadTimeout(any(), any()) } returns timedChain
+        every { timedChain.withWriteTimeout(any(), any()) } returns timedChain
+        every { chain.proceed(any()) } returns response
+        every { timedChain.proceed(any()) } returns response
+    }
+
+    @Test
+    fun `when the request has a timeout budget, timeouts follow the estimated latency`() {
+        val request = createRequest(TimeoutBudget(minTimeout = 1_000L, maxTimeout = 20_000L))
+        every { chain.request() } returns request
+        every { latencyEstimator.estimate(request.url, any()) } returns 2_000L
+
+        sut.intercept(chain)
+
+        verify { chain.withConnectTimeout(6_000, TimeUnit.MILLISECONDS) }
+        verify { timedChain.withReadTimeout(6_000, TimeUnit.MILLISECONDS) }
+        verify { timedChain.withWriteTimeout(6_000, TimeUnit.MILLISECONDS) }
+        verify { timedChain.proceed(request) }
+    }
+
+    @Test
+    fun `when the request has no timeout budget, the client timeouts are kept`() {
+        val request = createRequest(timeoutBudget = null)
+        every { chain.request() } returns request
+
+        sut.intercept(chain)
+
+        verify(exactly = 0) { chain.withConnectTimeout(any(), any()) }
+        verify { chain.proceed(request) }
+    }
+
+    @Test
+    fun `response times are recorded for every request`() {
+        val request = createRequest(timeoutBudget = null)
+        every { chain.request() } returns request
+
+        sut.intercept(chain)
+
+        verify { latencyEstimator.record(request.url, any()) }
+    }
+
+    @Test
+    fun `when the request fails, the time it took to fail is recorded`() {
+        val request = createRequest(TimeoutBudget.SHORT)
+        every { chain.request() } returns request
+        every { timedChain.proceed(request) } throws IOException("timeout")
+
+        assertFailsWith<IOException> { sut.intercept(chain) }
+
+        verify { latencyEstimator.record(request.url, any()) }
+    }
+
+    @Test
+    fun `when the request is cancelled, its response time is not recorded`() {
+        val request = createRequest(TimeoutBudget.SHORT)
+        every { chain.request() } returns request
+        every { call.isCanceled() } returns true
+        every { timedChain.proceed(request) } throws IOException("Canceled")
+
+        assertFailsWith<IOException> { sut.intercept(chain) }
+
+        verify(exactly = 0) { latencyEstimator.record(any(), any()) }
+    }
+
+    private fun createRequest(timeoutBudget: TimeoutBudget?): Request {
+        return OkHttpRequest(
+            url = "https://api.braintreegateway.com/v1/configuration",
+            method = Method.Get,
+            timeoutBudget = timeoutBudget
+        ).toRequest()
+    }
+}
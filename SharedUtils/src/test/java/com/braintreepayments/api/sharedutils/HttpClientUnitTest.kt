@@ -1,17 +1,23 @@
 package com.braintreepayments.api.sharedutils
 
+import io.mockk.coEvery
+import io.mockk.coVerify
 import io.mockk.every
 import io.mockk.mockk
 import io.mockk.verify
+import kotlinx.coroutines.CancellationException
 import kotlinx.coroutines.ExperimentalCoroutinesApi
+import kotlinx.coroutines.delay
 import kotlinx.coroutines.test.StandardTestDispatcher
 import kotlinx.coroutines.test.runTest
 import org.junit.Assert.assertEquals
 import org.junit.Assert.assertNotNull
+import org.junit.Assert.assertTrue
 import org.junit.Before
 import org.junit.Test
 import org.junit.runner.RunWith
 import org.robolectric.RobolectricTestRunner
+import java.io.IOException
 import kotlin.test.assertFailsWith
 
 @OptIn(ExperimentalCoroutinesApi::class)
@@ -20,18 +26,20 @@ class HttpClientUnitTest {
 
     private val testDispatcher = StandardTestDispatcher()
     private lateinit var mockOkHttpClient: OkHttpSynchronousHttpClient
+    private lateinit var mockOkHttpAsyncClient: OkHttpAsyncHttpClient
     private lateinit var sut: HttpClient
 
     @Before
     fun setUp() {
         mockOkHttpClient = mockk<OkHttpSynchronousHttpClient>()
+        mockOkHttpAsyncClient = mockk<OkHttpAsyncHttpClient>()
         sut = HttpClient(mockOkHttpClient, testDispatcher)
     }
 
     @Test
     fun `sendRequest is a suspend function that executes in a coroutine`() =
         runTest(testDispatcher) {
-        val request = mockk<OkHttpRequest>()
+        val request = OkHttpRequest("https://example.com", Method.Get)
         val mockResponse = mockk<HttpResponse>()
 
         every { mockOkHttpClient.executeRequest(request) } returns mockResponse
@@ -46,7 +54,7 @@ class HttpClientUnitTest {
     @Test
     fun `when sendRequest is called with successful response, returns response`() =
         runTest(testDispatcher) {
-        val request = mockk<OkHttpRequest>()
+        val request = OkHttpRequest("https://example.com", Method.Get)
         val mockResponse = mockk<HttpResponse>()
 
         every { mockOkHttpClient.executeRequest(request) } returns mockResponse
@@ -60,7 +68,7 @@ class HttpClientUnitTest {
     @Test
     fun `when sendRequest is called with exception, throws exception`() =
         runTest(testDispatcher) {
-        val request = mockk<OkHttpRequest>()
+        val request = OkHttpRequest("https://example.com", Method.Get)
         val exception = RuntimeException("Network error")
 
         every { mockOkHttpClient.executeRequest(request) } throws exception
@@ -76,7 +84,7 @@ class HttpClientUnitTest {
     @Test
     fun `when IOException occurs, throws IOException`() =
         runTest(testDispatcher) {
-        val request = mockk<OkHttpRequest>()
+        val request = OkHttpRequest("https://example.com", Method.Get)
         val ioException = java.io.IOException("Network timeout")
 
         every { mockOkHttpClient.executeRequest(request) } throws ioException
@@ -89,9 +97,165 @@ class HttpClientUnitTest {
         verify { mockOkHttpClient.executeRequest(request) }
     }
 
+    @Test
+    fun `when call mode is NON_BLOCKING, sendRequest uses the async client`() =
+        runTest(testDispatcher) {
+        val request = OkHttpRequest("https://example.com", Method.Get)
+        val mockResponse = mockk<HttpResponse>()
+        coEvery { mockOkHttpAsyncClient.executeRequest(request) } returns mockResponse
+
+        val sut = HttpClient(
+            okHttpSynchronousHttpClient = mockOkHttpClient,
+            ioDispatcher = testDispatcher,
+            callMode = HttpCallMode.NON_BLOCKING,
+            okHttpAsyncHttpClient = mockOkHttpAsyncClient
+        )
+        val result = sut.sendRequest(request)
+
+        assertEquals(mockResponse, result)
+        coVerify { mockOkHttpAsyncClient.executeRequest(request) }
+        verify(exactly = 0) { mockOkHttpClient.executeRequest(any()) }
+    }
+
+    @Test
+    fun `sendRequest with a decoder returns the decoded response`() = runTest(testDispatcher) {
+        val request = OkHttpRequest("https://example.com", Method.Post("{}"))
+        val decoder = ResponseBodyDecoder { "decoded" }
+        val decodedResponse = DecodedHttpResponse("decoded", HttpResponseTiming(0, 0))
+        every { mockOkHttpClient.executeRequest(request, decoder) } returns decodedResponse
+
+        val result = sut.sendRequest(request, decoder)
+
+        assertEquals(decodedResponse, result)
+    }
+
+    @Test
+    fun `when call mode is NON_BLOCKING, sendRequest with a decoder uses the async client`() =
+        runTest(testDispatcher) {
+        val request = OkHttpRequest("https://example.com", Method.Post("{}"))
+        val decoder = ResponseBodyDecoder { "decoded" }
+        val decodedResponse = DecodedHttpResponse("decoded", HttpResponseTiming(0, 0))
+        coEvery { mockOkHttpAsyncClient.executeRequest(request, decoder) } returns decodedResponse
+
+        val result = createNonBlockingClient().sendRequest(request, decoder)
+
+        assertEquals(decodedResponse, result)
+        verify(exactly = 0) { mockOkHttpClient.executeRequest(any(), any<ResponseBodyDecoder<String>>()) }
+    }
+
+    @Test
+    fun `when the first attempt responds before the hedge delay, sendHedgedRequest sends one request`() =
+        runTest(testDispatcher) {
+        val request = OkHttpRequest("https://example.com", Method.Get)
+        val mockResponse = mockk<HttpResponse>()
+        coEvery { mockOkHttpAsyncClient.executeRequest(request, false) } coAnswers {
+            delay(500)
+            mockResponse
+        }
+
+        val result = createNonBlockingClient().sendHedgedRequest(request, hedgeDelay = 1_000)
+
+        assertEquals(mockResponse, result)
+        coVerify(exactly = 0) { mockOkHttpAsyncClient.executeRequest(request, true) }
+    }
+
+    @Test
+    fun `when the first attempt stalls, sendHedgedRequest returns the hedge on a new connection`() =
+        runTest(testDispatcher) {
+        val request = OkHttpRequest("https://example.com", Method.Get)
+        val stalledResponse = mockk<HttpResponse>()
+        val hedgeResponse = mockk<HttpResponse>()
+        var stalledAttemptCancelled = false
+        coEvery { mockOkHttpAsyncClient.executeRequest(request, false) } coAnswers {
+            try {
+                delay(30_000)
+                stalledResponse
+            } catch (e: CancellationException) {
+                stalledAttemptCancelled = true
+                throw e
+            }
+        }
+        coEvery { mockOkHttpAsyncClient.executeRequest(request, true) } coAnswers {
+            delay(200)
+            hedgeResponse
+        }
+
+        val result = createNonBlockingClient().sendHedgedRequest(request, hedgeDelay = 1_000)
+
+        assertEquals(hedgeResponse, result)
+        assertEquals(1_200L, currentTime)
+        assertTrue(stalledAttemptCancelled)
+    }
+
+    @Test
+    fun `when the hedge fails, sendHedgedRequest waits for the first attempt`() =
+        runTest(testDispatcher) {
+        val request = OkHttpRequest("https://example.com", Method.Get)
+        val mockResponse = mockk<HttpResponse>()
+        coEvery { mockOkHttpAsyncClient.executeRequest(request, false) } coAnswers {
+            delay(2_000)
+            mockResponse
+        }
+        coEvery { mockOkHttpAsyncClient.executeRequest(request, true) } throws IOException("hedge failed")
+
+        val result = createNonBlockingClient().sendHedgedRequest(request, hedgeDelay = 1_000)
+
+        assertEquals(mockResponse, result)
+    }
+
+    @Test
+    fun `when both attempts fail, sendHedgedRequest throws the first failure`() =
+        runTest(testDispatcher) {
+        val request = OkHttpRequest("https://example.com", Method.Get)
+        coEvery { mockOkHttpAsyncClient.executeRequest(request, false) } coAnswers {
+            delay(3_000)
+            throw IOException("first attempt failed")
+        }
+        coEvery { mockOkHttpAsyncClient.executeRequest(request, true) } coAnswers {
+            delay(1_000)
+            throw IOException("hedge failed")
+        }
+
+        val thrownException = assertFailsWith<IOException> {
+            createNonBlockingClient().sendHedgedRequest(request, hedgeDelay = 1_000)
+        }
+
+        assertEquals("hedge failed", thrownException.message)
+    }
+
+    @Test
+    fun `sendRequest schedules the request with its priority`() =
+        runTest(testDispatcher) {
+        val request = OkHttpRequest("https://example.com", Method.Get, priority = RequestPriority.BACKGROUND)
+        val mockResponse = mockk<HttpResponse>()
+        val scheduler = mockk<RequestScheduler>()
+        coEvery { scheduler.schedule<HttpResponse>(RequestPriority.BACKGROUND, any()) } coAnswers {
+            secondArg<suspend () -> HttpResponse>().invoke()
+        }
+        coEvery { mockOkHttpAsyncClient.executeRequest(request) } returns mockResponse
+
+        val sut = HttpClient(
+            okHttpSynchronousHttpClient = mockOkHttpClient,
+            ioDispatcher = testDispatcher,
+            callMode = HttpCallMode.NON_BLOCKING,
+            okHttpAsyncHttpClient = mockOkHttpAsyncClient,
+            requestScheduler = scheduler
+        )
+
+        assertEquals(mockResponse, sut.sendRequest(request))
+        coVerify { scheduler.schedule<HttpResponse>(RequestPriority.BACKGROUND, any()) }
+    }
+
     @Test
     fun `when HttpClient constructor is called without parameters, default instances are created`() {
         val sut = HttpClient()
         assertNotNull(sut)
     }
+
+    private fun createNonBlockingClient() = HttpClient(
+        okHttpSynchronousHttpClient = mockOkHttpClient,
+        ioDispatcher = testDispatcher,
+        callMode = HttpCallMode.NON_BLOCKING,
+        okHttpAsyncHttpClient = mockOkHttpAsyncClient
+    )
 }
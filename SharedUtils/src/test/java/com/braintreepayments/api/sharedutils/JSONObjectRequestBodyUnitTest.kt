@@ -0,0 +1,80 @@
+package com.braintreepayments.api.sharedutils
+
+import android.util.JsonWriter
+import org.json.JSONArray
+import org.json.JSONObject
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import java.io.StringWriter
+import java.math.BigDecimal
+
+@RunWith(RobolectricTestRunner::class)
+class JSONObjectRequestBodyUnitTest {
+
+    @Test
+    fun `writeTo writes nested objects, arrays and primitives`() {
+        val json = JSONObject()
+            .put("creditCard", JSONObject().put("number", "4111111111111111").put("expirationYear", "2030"))
+            .put("options", JSONObject().put("validate", false))
+            .put("amounts", JSONArray().put(1).put(2.5).put(3.0))
+            .put("nothing", JSONObject.NULL)
+
+        val body = write(JSONObjectRequestBody(json))
+
+        assertEquals(
+            "{\"creditCard\":{\"number\":\"4111111111111111\",\"expirationYear\":\"2030\"}," +
+                "\"options\":{\"validate\":false},\"amounts\":[1,2.5,3],\"nothing\":null}",
+            body
+        )
+    }
+
+    @Test
+    fun `writeTo writes numbers without truncating them`() {
+        val json = JSONObject()
+            .put("amount", BigDecimal("10.99"))
+            .put("rate", 0.25f)
+            .put("count", 3L)
+
+        val body = JSONObject(write(JSONObjectRequestBody(json)))
+
+        assertEquals("10.99", body.getString("amount"))
+        assertEquals(0.25, body.getDouble("rate"), 0.0)
+        assertEquals(3L, body.getLong("count"))
+    }
+
+    @Test
+    fun `writeTo adds additional fields without modifying the JSONObject`() {
+        val json = JSONObject().put("query", "mutation")
+
+        val body = JSONObject(write(JSONObjectRequestBody(json, mapOf("authorizationFingerprint" to "fingerprint"))))
+
+        assertEquals("mutation", body.getString("query"))
+        assertEquals("fingerprint", body.getString("authorizationFingerprint"))
+        assertFalse(json.has("authorizationFingerprint"))
+    }
+
+    @Test
+    fun `writeTo replaces a top-level key with the additional field of the same name`() {
+        val json = JSONObject().put("authorizationFingerprint", "stale").put("query", "mutation")
+
+        val body = write(JSONObjectRequestBody(json, mapOf("authorizationFingerprint" to "fingerprint")))
+
+        assertEquals("{\"query\":\"mutation\",\"authorizationFingerprint\":\"fingerprint\"}", body)
+    }
+
+    @Test
+    fun `writeTo can be called more than once`() {
+        val sut = JSONObjectRequestBody(JSONObject().put("query", "mutation"))
+
+        assertEquals(write(sut), write(sut))
+    }
+
+    private fun write(body: JsonRequestBody): String {
+        val out = StringWriter()
+        JsonWriter(out).use { body.writeTo(it) }
+        return out.toString()
+    }
+}
@@ -0,0 +1,75 @@
+package com.braintreepayments.api.sharedutils
+
+import okhttp3.HttpUrl.Companion.toHttpUrl
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNull
+import org.junit.Test
+
+class LatencyEstimatorUnitTest {
+
+    private val configurationUrl = "https://api.braintreegateway.com/v1/configuration".toHttpUrl()
+    private val tokenizeUrl = "https://api.braintreegateway.com/v1/payment_methods/credit_cards".toHttpUrl()
+
+    @Test
+    fun `estimate returns null until enough response times are recorded`() {
+        val sut = LatencyEstimator(minSamples = 3)
+        repeat(2) { sut.record(configurationUrl, 100L) }
+
+        assertNull(sut.estimate(configurationUrl, 95))
+    }
+
+    @Test
+    fun `estimate returns the percentile of the endpoint response times`() {
+        val sut = LatencyEstimator(minSamples = 3)
+        (1..20).forEach { sut.record(configurationUrl, it * 10L) }
+        repeat(20) { sut.record(tokenizeUrl, 5_000L) }
+
+        assertEquals(200L, sut.estimate(configurationUrl, 95))
+        assertEquals(110L, sut.estimate(configurationUrl, 50))
+    }
+
+    @Test
+    fun `estimate falls back to the host when the endpoint has too few response times`() {
+        val sut = LatencyEstimator(minSamples = 3)
+        repeat(3) { sut.record(configurationUrl, 400L) }
+        sut.record(tokenizeUrl, 9_000L)
+
+        assertEquals(400L, sut.estimate(tokenizeUrl, 50))
+    }
+
+    @Test
+    fun `estimate ignores the query string`() {
+        val sut = LatencyEstimator(minSamples = 1)
+        sut.record("https://api.braintreegateway.com/v1/configuration?configVersion=3".toHttpUrl(), 250L)
+
+        assertEquals(250L, sut.estimate(configurationUrl, 50))
+    }
+
+    @Test
+    fun `estimate shares an endpoint between merchant IDs and payment method nonces`() {
+        val sut = LatencyEstimator(minSamples = 2)
+        listOf("merchant1" to "nonce1", "merchant2" to "nonce2").forEach { (merchantId, nonce) ->
+            sut.record(threeDSecureLookupUrl(merchantId, nonce), 300L)
+            sut.record(merchantUrl(merchantId, "v1/configuration"), 50L)
+        }
+
+        assertEquals(300L, sut.estimate(threeDSecureLookupUrl("merchant3", "nonce3"), 50))
+        assertEquals(50L, sut.estimate(configurationUrl, 50))
+    }
+
+    @Test
+    fun `record drops the least recently used endpoints above maxWindows`() {
+        val sut = LatencyEstimator(minSamples = 1, maxWindows = 2)
+        sut.record("https://first.example.com/a".toHttpUrl(), 100L)
+        sut.record("https://second.example.com/b".toHttpUrl(), 200L)
+
+        assertNull(sut.estimate("https://first.example.com/a".toHttpUrl(), 50))
+        assertEquals(200L, sut.estimate("https://second.example.com/b".toHttpUrl(), 50))
+    }
+
+    private fun threeDSecureLookupUrl(merchantId: String, nonce: String) =
+        merchantUrl(merchantId, "v1/payment_methods/$nonce/three_d_secure/lookup")
+
+    private fun merchantUrl(merchantId: String, path: String) =
+        "https://api.braintreegateway.com/merchants/$merchantId/client_api/$path".toHttpUrl()
+}
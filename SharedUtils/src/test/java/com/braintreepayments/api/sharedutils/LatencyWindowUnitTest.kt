@@ -0,0 +1,33 @@
+package com.braintreepayments.api.sharedutils
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNull
+import org.junit.Test
+
+class LatencyWindowUnitTest {
+
+    @Test
+    fun `percentile returns null when nothing is recorded`() {
+        assertNull(LatencyWindow().percentile(50))
+    }
+
+    @Test
+    fun `percentile returns the requested percentile of the recorded latencies`() {
+        val sut = LatencyWindow(size = 100)
+        (1..100).shuffled().forEach { sut.record(it.toLong()) }
+
+        assertEquals(1L, sut.percentile(0))
+        assertEquals(51L, sut.percentile(50))
+        assertEquals(91L, sut.percentile(90))
+        assertEquals(100L, sut.percentile(100))
+    }
+
+    @Test
+    fun `record replaces the oldest latency once the window is full`() {
+        val sut = LatencyWindow(size = 3)
+        listOf(900L, 1L, 2L, 3L).forEach { sut.record(it) }
+
+        assertEquals(3, sut.sampleCount)
+        assertEquals(3L, sut.percentile(100))
+    }
+}
@@ -0,0 +1,92 @@
+package com.braintreepayments.api.sharedutils
+
+import io.mockk.Runs
+import io.mockk.every
+import io.mockk.just
+import io.mockk.mockk
+import io.mockk.slot
+import io.mockk.verify
+import kotlinx.coroutines.ExperimentalCoroutinesApi
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.test.runCurrent
+import kotlinx.coroutines.test.runTest
+import okhttp3.Call
+import okhttp3.Callback
+import okhttp3.OkHttpClient
+import okhttp3.Response
+import okhttp3.ResponseBody
+import org.junit.Assert.assertEquals
+import org.junit.Before
+import org.junit.Test
+import java.io.IOException
+import kotlin.test.assertFailsWith
+
+@OptIn(ExperimentalCoroutinesApi::class)
+class OkHttpAsyncHttpClientUnitTest {
+
+    private val okHttpClient: OkHttpClient = mockk(relaxed = true)
+    private val call: Call = mockk(relaxed = true)
+    private val response: Response = mockk(relaxed = true)
+    private val responseBody: ResponseBody = mockk(relaxed = true)
+    private val callbackSlot = slot<Callback>()
+
+    private val request = OkHttpRequest("https://example.com", Method.Get)
+
+    private lateinit var sut: OkHttpAsyncHttpClient
+
+    @Before
+    fun setUp() {
+        every { okHttpClient.newCall(any()) } returns call
+        every { response.body } returns responseBody
+
+        sut = OkHttpAsyncHttpClient(okHttpClient)
+    }
+
+    @Test
+    fun `when response is successful, executeRequest returns HttpResponse`() = runTest {
+        every { response.isSuccessful } returns true
+        every { responseBody.string() } returns "response body"
+        every { call.enqueue(capture(callbackSlot)) } answers {
+            callbackSlot.captured.onResponse(call, response)
+        }
+
+        val httpResponse = sut.executeRequest(request)
+
+        assertEquals("response body", httpResponse.body)
+        verify { response.close() }
+    }
+
+    @Test
+    fun `when response is unsuccessful, executeRequest throws IOException`() = runTest {
+        every { response.isSuccessful } returns false
+        every { call.enqueue(capture(callbackSlot)) } answers {
+            callbackSlot.captured.onResponse(call, response)
+        }
+
+        assertFailsWith<IOException> { sut.executeRequest(request) }
+    }
+
+    @Test
+    fun `when call fails, executeRequest throws the call exception`() = runTest {
+        val exception = IOException("Network timeout")
+        every { call.enqueue(capture(callbackSlot)) } answers {
+            callbackSlot.captured.onFailure(call, exception)
+        }
+
+        val thrownException = assertFailsWith<IOException> { sut.executeRequest(request) }
+
+        assertEquals("Network timeout", thrownException.message)
+    }
+
+    @Test
+    fun `when calling coroutine is cancelled, the OkHttp call is cancelled`() = runTest {
+        every { call.enqueue(any()) } just Runs
+
+        val job = launch { sut.executeRequest(request) }
+        runCurrent()
+        job.cancel()
+        runCurrent()
+
+        verify { call.cancel() }
+    }
+}
@@ -7,12 +7,14 @@ import io.mockk.slot
 import io.mockk.verify
 import okhttp3.Call
 import okhttp3.CertificatePinner
+import okhttp3.Headers.Companion.headersOf
 import okhttp3.OkHttpClient
 import okhttp3.Request
 import okhttp3.Response
 import okhttp3.ResponseBody
 import org.junit.After
 import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNull
 import org.junit.Assert.assertTrue
 import org.junit.Before
 import org.junit.Test
@@ -87,6 +89,35 @@ class OkHttpSynchronousHttpClientTest {
         sut.executeRequest(okHttpRequest)
     }
 
+    @Test
+    fun `when response is 304 Not Modified, executeRequest returns HttpResponse with the status code`() {
+        val okHttpRequest = OkHttpRequest("https://example.com", Method.Get, mapOf("If-None-Match" to "\"etag\""))
+        every { okHttpClient.newCall(any()) } returns call
+        every { call.execute() } returns response
+        every { response.isSuccessful } returns false
+        every { response.code } returns 304
+        every { response.body } returns null
+
+        val httpResponse = sut.executeRequest(okHttpRequest)
+
+        assertEquals(304, httpResponse.statusCode)
+        assertNull(httpResponse.body)
+    }
+
+    @Test
+    fun `when response has headers, executeRequest returns them keyed by lower case name`() {
+        every { okHttpClient.newCall(any()) } returns call
+        every { call.execute() } returns response
+        every { response.isSuccessful } returns true
+        every { response.body } returns responseBody
+        every { response.headers } returns headersOf("ETag", "\"etag\"", "Cache-Control", "max-age=60")
+
+        val httpResponse = sut.executeRequest(OkHttpRequest("https://example.com", Method.Get))
+
+        assertEquals("\"etag\"", httpResponse.headers["etag"])
+        assertEquals("max-age=60", httpResponse.header("Cache-Control"))
+    }
+
     @Test
     fun `when headers are provided, executeRequest sets headers on OkHttp Request`() {
         val url = "https://example.com"
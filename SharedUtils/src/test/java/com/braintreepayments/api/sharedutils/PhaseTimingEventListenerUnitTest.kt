@@ -0,0 +1,102 @@
+package com.braintreepayments.api.sharedutils
+
+import io.mockk.every
+import io.mockk.mockk
+import okhttp3.Call
+import okhttp3.EventListener
+import okhttp3.Request
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertNull
+import org.junit.Assert.assertSame
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import java.net.InetSocketAddress
+import java.net.Proxy
+import java.net.UnknownHostException
+import java.util.concurrent.TimeUnit
+
+class PhaseTimingEventListenerUnitTest {
+
+    private val call: Call = mockk(relaxed = true)
+    private var now = 0L
+    private val sut = PhaseTimingEventListener { now }
+
+    private fun at(millis: Long, event: () -> Unit) {
+        now = TimeUnit.MILLISECONDS.toNanos(millis)
+        event()
+    }
+
+    @Test
+    fun `toPhaseTimings returns null when the call never started`() {
+        assertNull(sut.toPhaseTimings())
+    }
+
+    @Test
+    fun `toPhaseTimings reports each phase of a call on a new connection`() {
+        val address = InetSocketAddress.createUnresolved("example.com", 443)
+
+        at(0) { sut.callStart(call) }
+        at(1) { sut.dnsStart(call, "example.com") }
+        at(6) { sut.dnsEnd(call, "example.com", emptyList()) }
+        at(6) { sut.connectStart(call, address, Proxy.NO_PROXY) }
+        at(20) { sut.secureConnectStart(call) }
+        at(50) { sut.secureConnectEnd(call, null) }
+        at(51) { sut.connectEnd(call, address, Proxy.NO_PROXY, null) }
+        at(51) { sut.connectionAcquired(call, mockk()) }
+        at(55) { sut.requestBodyEnd(call, 128) }
+        at(155) { sut.responseHeadersStart(call) }
+        at(156) { sut.responseHeadersEnd(call, mockk(relaxed = true)) }
+        at(166) { sut.responseBodyEnd(call, 2048) }
+
+        val phaseTimings = sut.toPhaseTimings()!!
+
+        assertEquals(5, phaseTimings.dnsDuration)
+        assertEquals(45, phaseTimings.connectDuration)
+        assertEquals(30, phaseTimings.tlsDuration)
+        assertEquals(100, phaseTimings.timeToFirstByte)
+        assertEquals(10, phaseTimings.responseBodyDuration)
+        assertEquals(128, phaseTimings.requestBytes)
+        assertEquals(2048, phaseTimings.responseBytes)
+        assertFalse(phaseTimings.isConnectionReused)
+    }
+
+    @Test
+    fun `toPhaseTimings reports a reused connection when no connect happened`() {
+        at(0) { sut.callStart(call) }
+        at(0) { sut.connectionAcquired(call, mockk()) }
+        at(1) { sut.requestHeadersEnd(call, mockk(relaxed = true)) }
+        at(21) { sut.responseHeadersStart(call) }
+
+        val phaseTimings = sut.toPhaseTimings()!!
+
+        assertTrue(phaseTimings.isConnectionReused)
+        assertEquals(0, phaseTimings.dnsDuration)
+        assertEquals(0, phaseTimings.connectDuration)
+        assertEquals(20, phaseTimings.timeToFirstByte)
+    }
+
+    @Test
+    fun `toPhaseTimings does not report a reused connection when no connection was acquired`() {
+        at(0) { sut.callStart(call) }
+        at(1) { sut.dnsStart(call, "example.com") }
+        at(3) { sut.callFailed(call, UnknownHostException()) }
+
+        assertFalse(sut.toPhaseTimings()!!.isConnectionReused)
+    }
+
+    @Test
+    fun `FACTORY returns the listener tagged on the request`() {
+        val request = OkHttpRequest("https://example.com", Method.Get).toRequest(sut)
+        every { call.request() } returns request
+
+        assertSame(sut, PhaseTimingEventListener.FACTORY.create(call))
+    }
+
+    @Test
+    fun `FACTORY returns NONE when no listener is tagged on the request`() {
+        every { call.request() } returns Request.Builder().url("https://example.com").build()
+
+        assertSame(EventListener.NONE, PhaseTimingEventListener.FACTORY.create(call))
+    }
+}
@@ -0,0 +1,73 @@
+package com.braintreepayments.api.sharedutils
+
+import io.mockk.every
+import io.mockk.mockk
+import io.mockk.slot
+import okhttp3.Interceptor
+import okhttp3.Request
+import okhttp3.Response
+import okio.Buffer
+import okio.GzipSource
+import okio.buffer
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNull
+import org.junit.Assert.assertSame
+import org.junit.Before
+import org.junit.Test
+
+class RequestCompressionInterceptorUnitTest {
+
+    private val chain: Interceptor.Chain = mockk(relaxed = true)
+    private val response: Response = mockk(relaxed = true)
+    private val proceededRequest = slot<Request>()
+
+    private val sut = RequestCompressionInterceptor()
+
+    @Before
+    fun setUp() {
+        every { chain.proceed(capture(proceededRequest)) } returns response
+    }
+
+    @Test
+    fun `when the request has a compression, a large body is sent gzip encoded`() {
+        val json = """{"event_name":"card:tokenize:started"}""".repeat(10)
+        val request = createRequest(json, RequestCompression(minBodySize = 64))
+        every { chain.request() } returns request
+
+        sut.intercept(chain)
+
+        val sentRequest = proceededRequest.captured
+        assertEquals("gzip", sentRequest.header("Content-Encoding"))
+        val sentBody = Buffer().also { sentRequest.body!!.writeTo(it) }
+        assertEquals(json, GzipSource(sentBody).buffer().use { it.readUtf8() })
+    }
+
+    @Test
+    fun `when the request has a compression, a small body is sent as it is`() {
+        val request = createRequest("""{"key":"value"}""", RequestCompression(minBodySize = 64))
+        every { chain.request() } returns request
+
+        sut.intercept(chain)
+
+        assertSame(request, proceededRequest.captured)
+    }
+
+    @Test
+    fun `when the request has no compression, the body is sent as it is`() {
+        val request = createRequest("""{"event_name":"card:tokenize:started"}""".repeat(10), compression = null)
+        every { chain.request() } returns request
+
+        sut.intercept(chain)
+
+        assertSame(request, proceededRequest.captured)
+        assertNull(proceededRequest.captured.header("Content-Encoding"))
+    }
+
+    private fun createRequest(body: String, compression: RequestCompression?): Request {
+        return OkHttpRequest(
+            url = "https://api.braintreegateway.com/v1/tracking/batch/events",
+            method = Method.Post(body),
+            compression = compression
+        ).toRequest()
+    }
+}
@@ -0,0 +1,77 @@
+package com.braintreepayments.api.sharedutils
+
+import okhttp3.MediaType.Companion.toMediaType
+import okhttp3.RequestBody
+import okhttp3.RequestBody.Companion.toRequestBody
+import okio.Buffer
+import okio.BufferedSink
+import okio.GzipSource
+import okio.buffer
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNull
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import kotlin.test.assertNotNull
+
+class RequestCompressionUnitTest {
+
+    private val sut = RequestCompression(minBodySize = 64)
+
+    @Test
+    fun `compress returns null for a request body known to be smaller than the minimum body size`() {
+        assertNull(sut.compress(ByteArray(63).toRequestBody()))
+    }
+
+    @Test
+    fun `compress returns a gzip encoding of a request body known to be at least the minimum body size`() {
+        val json = """{"event_name":"card:tokenize:started","tenant_name":"Braintree"}""".repeat(20)
+
+        val compressedBody = assertNotNull(sut.compress(json.toRequestBody("application/json".toMediaType())))
+
+        assertEquals(-1L, compressedBody.contentLength())
+        assertEquals("application/json".toMediaType(), compressedBody.contentType())
+        val sent = Buffer().also { compressedBody.writeTo(it) }
+        assertTrue(sent.size < json.length)
+        assertEquals(json, GzipSource(sent).buffer().use { it.readUtf8() })
+    }
+
+    @Test
+    fun `compress returns null for a streamed request body smaller than the minimum body size`() {
+        val streamedBody = StreamedBody(chunk = """{"key":"value"}""", chunkCount = 1)
+
+        assertNull(sut.compress(streamedBody))
+    }
+
+    @Test
+    fun `compress returns a gzip encoding of a streamed request body at least the minimum body size`() {
+        val streamedBody = StreamedBody(chunk = """{"event_name":"card:tokenize:started"}""", chunkCount = 2)
+
+        val compressedBody = assertNotNull(sut.compress(streamedBody))
+
+        val sent = Buffer().also { compressedBody.writeTo(it) }
+        assertEquals(streamedBody.chunk.repeat(2), GzipSource(sent).buffer().use { it.readUtf8() })
+    }
+
+    @Test
+    fun `compress stops writing a large streamed request body once it is known to be large enough`() {
+        val streamedBody = StreamedBody(chunk = "x".repeat(1_024), chunkCount = 1_000)
+
+        assertNotNull(sut.compress(streamedBody))
+
+        assertTrue(streamedBody.chunksWritten < streamedBody.chunkCount)
+    }
+
+    private class StreamedBody(val chunk: String, val chunkCount: Int) : RequestBody() {
+
+        var chunksWritten = 0
+
+        override fun contentType() = "application/json".toMediaType()
+
+        override fun writeTo(sink: BufferedSink) {
+            repeat(chunkCount) {
+                sink.writeUtf8(chunk)
+                chunksWritten++
+            }
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.braintreepayments.api.sharedutils
+
+import kotlinx.coroutines.ExperimentalCoroutinesApi
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.test.advanceUntilIdle
+import kotlinx.coroutines.test.currentTime
+import kotlinx.coroutines.test.runTest
+import org.junit.Assert.assertEquals
+import org.junit.Test
+
+@OptIn(ExperimentalCoroutinesApi::class)
+class RequestSchedulerUnitTest {
+
+    @Test
+    fun `background requests run with limited concurrency`() = runTest {
+        val sut = RequestScheduler(maxBackgroundRequests = 2)
+        var running = 0
+        var maxRunning = 0
+
+        repeat(6) {
+            launch {
+                sut.schedule(RequestPriority.BACKGROUND) {
+                    running++
+                    maxRunning = maxOf(maxRunning, running)
+                    delay(1_000)
+                    running--
+                }
+            }
+        }
+        advanceUntilIdle()
+
+        assertEquals(2, maxRunning)
+        assertEquals(3_000L, currentTime)
+    }
+
+    @Test
+    fun `background requests wait for user blocking and prefetch requests in flight`() = runTest {
+        val sut = RequestScheduler()
+        var backgroundStartTime = -1L
+
+        launch { sut.schedule(RequestPriority.USER_BLOCKING) { delay(500) } }
+        launch { sut.schedule(RequestPriority.PREFETCH) { delay(800) } }
+        launch { sut.schedule(RequestPriority.BACKGROUND) { backgroundStartTime = currentTime } }
+        advanceUntilIdle()
+
+        assertEquals(800L, backgroundStartTime)
+    }
+
+    @Test
+    fun `user blocking requests start immediately while background requests are queued`() = runTest {
+        val sut = RequestScheduler(maxBackgroundRequests = 1)
+        var userBlockingStartTime = -1L
+
+        repeat(10) { launch { sut.schedule(RequestPriority.BACKGROUND) { delay(1_000) } } }
+        delay(10)
+        launch { sut.schedule(RequestPriority.USER_BLOCKING) { userBlockingStartTime = currentTime } }
+        advanceUntilIdle()
+
+        assertEquals(10L, userBlockingStartTime)
+    }
+
+    @Test
+    fun `a failed request does not keep background requests waiting`() = runTest {
+        val sut = RequestScheduler()
+        var backgroundRan = false
+
+        launch {
+            runCatching { sut.schedule(RequestPriority.USER_BLOCKING) { throw IllegalStateException("failed") } }
+        }
+        launch { sut.schedule(RequestPriority.BACKGROUND) { backgroundRan = true } }
+        advanceUntilIdle()
+
+        assertEquals(true, backgroundRan)
+    }
+
+    @Test
+    fun `a background request waiting for a permit does not start while a user blocking request is in flight`() =
+        runTest {
+            val sut = RequestScheduler(maxBackgroundRequests = 1)
+            var backgroundStartTime = -1L
+
+            launch { sut.schedule(RequestPriority.BACKGROUND) { delay(1_000) } }
+            delay(10)
+            launch { sut.schedule(RequestPriority.BACKGROUND) { backgroundStartTime = currentTime } }
+            delay(890)
+            launch { sut.schedule(RequestPriority.USER_BLOCKING) { delay(600) } }
+            advanceUntilIdle()
+
+            assertEquals(1_500L, backgroundStartTime)
+        }
+}
@@ -0,0 +1,67 @@
+package com.braintreepayments.api.sharedutils
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNotSame
+import org.junit.Assert.assertSame
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import java.util.concurrent.TimeUnit
+
+class SharedOkHttpClientUnitTest {
+
+    @Test
+    fun `instance returns the same OkHttpClient on every access`() {
+        assertSame(SharedOkHttpClient.instance, SharedOkHttpClient.instance)
+    }
+
+    @Test
+    fun `derived clients share the connection pool and dispatcher of the shared instance`() {
+        val derived = SharedOkHttpClient.instance.newBuilder().build()
+
+        assertSame(SharedOkHttpClient.instance.connectionPool, derived.connectionPool)
+        assertSame(SharedOkHttpClient.instance.dispatcher, derived.dispatcher)
+    }
+
+    @Test
+    fun `create sets thirty second connect and read timeouts`() {
+        val client = SharedOkHttpClient.create(TLSSocketFactory())
+
+        assertEquals(30_000, client.connectTimeoutMillis)
+        assertEquals(30_000, client.readTimeoutMillis)
+    }
+
+    @Test
+    fun `create adapts the timeouts of requests with a timeout budget`() {
+        val client = SharedOkHttpClient.create(TLSSocketFactory())
+
+        assertTrue(client.interceptors.any { it is AdaptiveTimeoutInterceptor })
+    }
+
+    @Test
+    fun `create compresses the bodies of requests with a compression`() {
+        val client = SharedOkHttpClient.create(TLSSocketFactory())
+
+        assertTrue(client.interceptors.any { it is RequestCompressionInterceptor })
+    }
+
+    @Test
+    fun `create applies the builder hook after the default settings`() {
+        val client = SharedOkHttpClient.create(TLSSocketFactory()) { it.readTimeout(5, TimeUnit.SECONDS) }
+
+        assertEquals(5_000, client.readTimeoutMillis)
+        assertEquals(30_000, client.connectTimeoutMillis)
+    }
+
+    @Test
+    fun `resetForTesting replaces the shared instance`() {
+        val previous = SharedOkHttpClient.instance
+        try {
+            SharedOkHttpClient.resetForTesting()
+
+            assertNotSame(previous, SharedOkHttpClient.instance)
+            assertSame(SharedOkHttpClient.instance, SharedOkHttpClient.instance)
+        } finally {
+            SharedOkHttpClient.resetForTesting()
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.braintreepayments.api.sharedutils
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Test
+
+class TimeoutBudgetUnitTest {
+
+    private val sut = TimeoutBudget(minTimeout = 1_000L, maxTimeout = 10_000L)
+
+    @Test
+    fun `timeoutFor returns the maximum timeout when the expected latency is unknown`() {
+        assertEquals(10_000L, sut.timeoutFor(null))
+    }
+
+    @Test
+    fun `timeoutFor gives the expected latency headroom`() {
+        assertEquals(6_000L, sut.timeoutFor(2_000L))
+    }
+
+    @Test
+    fun `timeoutFor keeps the timeout within the budget`() {
+        assertEquals(1_000L, sut.timeoutFor(10L))
+        assertEquals(10_000L, sut.timeoutFor(60_000L))
+    }
+
+    @Test
+    fun `short budgets give up sooner than generous ones`() {
+        assertTrue(TimeoutBudget.SHORT.maxTimeout < TimeoutBudget.STANDARD.maxTimeout)
+        assertTrue(TimeoutBudget.GENEROUS.minTimeout >= TimeoutBudget.STANDARD.maxTimeout)
+    }
+}
@@ -0,0 +1,78 @@
+package com.braintreepayments.api.sharedutils
+
+import org.json.JSONObject
+import org.junit.Assert.assertEquals
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+
+@RunWith(RobolectricTestRunner::class)
+class Utf8JsonWriterUnitTest {
+
+    private val name = JsonName("name")
+    private val items = JsonName("items")
+    private val nested = JsonName("nested")
+
+    @Test
+    fun `writes commas between members and array elements of nested objects`() {
+        val json = Utf8JsonWriter.encodeToString { writer ->
+            writer.beginObject()
+                .name(name).value("value")
+                .name(items).beginArray().value(1L).value(true).value(null as String?).endArray()
+                .name(nested).beginObject().name(name).value(false).endObject()
+                .endObject()
+        }
+
+        assertEquals(
+            "{\"name\":\"value\",\"items\":[1,true,null],\"nested\":{\"name\":false}}",
+            json
+        )
+    }
+
+    @Test
+    fun `escapes strings as JSONObject does`() {
+        val value = "quote \" backslash \\ newline \n tab \t bell \u0007 separator \u2028 emoji 😀"
+
+        val json = Utf8JsonWriter.encodeToString { it.beginObject().name(name).value(value).endObject() }
+
+        assertEquals(JSONObject().put("name", value).toString(), json)
+        assertEquals(value, JSONObject(json).getString("name"))
+    }
+
+    @Test
+    fun `opt skips members whose value is null`() {
+        val json = Utf8JsonWriter.encodeToString { writer ->
+            writer.beginObject()
+                .opt(name, null as String?)
+                .opt(items, 2L)
+                .opt(nested, null as Boolean?)
+                .endObject()
+        }
+
+        assertEquals("{\"items\":2}", json)
+    }
+
+    @Test
+    fun `rawValue and rawMembers copy encoded JSON into the output`() {
+        val members = Utf8JsonWriter.encodeToByteArray { it.name(name).value("static") }
+
+        val json = Utf8JsonWriter.encodeToString { writer ->
+            writer.beginObject()
+                .name(items).beginArray().rawValue("{\"a\":1}").rawValue("{\"b\":2}").endArray()
+                .name(nested).beginObject().rawMembers(members).opt(items, 3L).endObject()
+                .endObject()
+        }
+
+        assertEquals(
+            "{\"items\":[{\"a\":1},{\"b\":2}],\"nested\":{\"name\":\"static\",\"items\":3}}",
+            json
+        )
+    }
+
+    @Test
+    fun `EncodedJsonRequestBody encodeToString wraps its members in an object`() {
+        val body = EncodedJsonRequestBody { it.name(name).value("value") }
+
+        assertEquals("{\"name\":\"value\"}", body.encodeToString())
+    }
+}
@@ -50,11 +50,11 @@ class EligiblePaymentsApiUnitTest {
         runTest(testDispatcher) {
         val expectedUrl = "https://api.paypal.com/v2/payments/find-eligible-methods"
         every { configuration.environment } returns "production"
-        coEvery { braintreeClient.sendPOST(url = any(), data = any(), additionalHeaders = any()) } returns "{}"
+        coEvery { braintreeClient.sendPOST(url = any(), data = any<String>(), additionalHeaders = any()) } returns "{}"
 
         sut.execute(createEmptyRequest(), callback)
         advanceUntilIdle()
-        coVerify { braintreeClient.sendPOST(url = expectedUrl, data = any(), additionalHeaders = any()) }
+        coVerify { braintreeClient.sendPOST(url = expectedUrl, data = any<String>(), additionalHeaders = any()) }
         }
 
     @Test
@@ -62,11 +62,11 @@ class EligiblePaymentsApiUnitTest {
         runTest(testDispatcher) {
         val expectedUrl = "https://api.sandbox.paypal.com/v2/payments/find-eligible-methods"
         every { configuration.environment } returns "sandbox"
-        coEvery { braintreeClient.sendPOST(url = any(), data = any(), additionalHeaders = any()) } returns "{}"
+        coEvery { braintreeClient.sendPOST(url = any(), data = any<String>(), additionalHeaders = any()) } returns "{}"
 
         sut.execute(createEmptyRequest(), callback)
         advanceUntilIdle()
-        coVerify { braintreeClient.sendPOST(url = expectedUrl, data = any(), additionalHeaders = any()) }
+        coVerify { braintreeClient.sendPOST(url = expectedUrl, data = any<String>(), additionalHeaders = any()) }
     }
 
     @Test
@@ -76,7 +76,7 @@ class EligiblePaymentsApiUnitTest {
 
         val headersSlot = slot<Map<String, String>>()
         coEvery {
-            braintreeClient.sendPOST(url = any(), data = any(), additionalHeaders = capture(headersSlot))
+            braintreeClient.sendPOST(url = any(), data = any<String>(), additionalHeaders = capture(headersSlot))
         } returns "{}"
         sut.execute(mockk(relaxed = true), mockk())
         advanceUntilIdle()
@@ -148,13 +148,13 @@ class EligiblePaymentsApiUnitTest {
 
     private fun mockBraintreeClientToSendPOSTWithError(error: IOException) {
         coEvery {
-            braintreeClient.sendPOST(url = any(), data = any(), additionalHeaders = any())
+            braintreeClient.sendPOST(url = any(), data = any<String>(), additionalHeaders = any())
         } throws error
     }
 
     private fun mockBraintreeClientToSendPOSTWithResponse(responseBody: String) {
         coEvery {
-            braintreeClient.sendPOST(url = any(), data = any(), additionalHeaders = any())
+            braintreeClient.sendPOST(url = any(), data = any<String>(), additionalHeaders = any())
         } returns responseBody
     }
 
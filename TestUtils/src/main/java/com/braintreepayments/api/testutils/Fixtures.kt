@@ -2677,4 +2677,61 @@ object Fixtures {
     """
 
     //endregion
+
+    // region Analytics
+    // language=JSON
+    const val FPTI_BATCH_PARAMS = """
+        {
+            "app_id": "com.braintreepayments.demo",
+            "app_name": "Braintree Demo",
+            "c_sdk_ver": "5.30.0",
+            "client_os": "Android API 34",
+            "comp": "braintreeclientsdk",
+            "device_manufacturer": "Google",
+            "mobile_device_model": "Pixel 8",
+            "drop_in_sdk_ver": "",
+            "event_source": "mobile-native",
+            "merchant_sdk_env": "sandbox",
+            "api_integration_type": "custom",
+            "is_simulator": false,
+            "mapv": "1.0.0",
+            "merchant_id": "dcpspy2brwdjr3qn",
+            "platform": "Android",
+            "session_id": "5ae3d1d4b4e54a1f9a0e5b3a6c9f2e71",
+            "venmo_installed": false,
+            "paypal_installed": true,
+            "space_key": "SKDUYK",
+            "product_name": "BT_DCC",
+            "tokenization_key": "sandbox_tmxhyf7d_dcpspy2brwdjr3qn"
+        }
+    """
+
+    // language=JSON
+    const val FPTI_EVENT = """
+        {
+            "event_name": "paypal:tokenize:handle-return:succeeded",
+            "t": 1729262400000,
+            "is_vault": false,
+            "tenant_name": "Braintree",
+            "context_id": "EC-7WL03470LE1538033",
+            "link_type": "universal",
+            "start_time": 1729262399210,
+            "end_time": 1729262399680,
+            "endpoint": "/v1/paypal_hermes/create_payment_resource",
+            "shopper_session_id": "3c5b8e2f-4f1a-4d0e-9b2d-7a6c1e8f9d01",
+            "merchant_enabled_app_switch": true,
+            "paypal_app_switch_url_received": true,
+            "context_type": "EC-TOKEN",
+            "attempted_app_switch": true,
+            "funding_source": "paypal",
+            "is_billing_agreement": false,
+            "dns_duration": 12,
+            "connect_duration": 48,
+            "tls_duration": 96,
+            "ttfb_duration": 231,
+            "response_body_duration": 4,
+            "connection_reused": false
+        }
+    """
+    // endregion
 }
@@ -1,9 +1,12 @@
 package com.braintreepayments.api.testutils
 
+import android.util.JsonReader
 import com.braintreepayments.api.core.ApiClient
+import com.braintreepayments.api.sharedutils.ResponseBodyDecoder
 import io.mockk.coEvery
 import io.mockk.mockk
 import org.json.JSONObject
+import java.io.StringReader
 
 class MockkApiClientBuilder {
 
@@ -45,6 +48,17 @@ class MockkApiClientBuilder {
             tokenizeGraphQLSuccess ?: throw tokenizeGraphQLError
                 ?: Exception("No response configured for tokenizeGraphQL")
         }
+        coEvery { apiClient.tokenizeREST(any(), any<ResponseBodyDecoder<Any>>()) } answers {
+            val json = tokenizeRESTSuccess ?: throw tokenizeRESTError
+                ?: Exception("No response configured for tokenizeREST")
+            secondArg<ResponseBodyDecoder<Any>>().decode(JsonReader(StringReader(json.toString())))
+        }
+
+        coEvery { apiClient.tokenizeGraphQL(any(), any<ResponseBodyDecoder<Any>>()) } answers {
+            val json = tokenizeGraphQLSuccess ?: throw tokenizeGraphQLError
+                ?: Exception("No response configured for tokenizeGraphQL")
+            secondArg<ResponseBodyDecoder<Any>>().decode(JsonReader(StringReader(json.toString())))
+        }
         return apiClient
     }
 }
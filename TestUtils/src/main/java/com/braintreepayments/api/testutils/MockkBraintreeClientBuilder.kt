@@ -8,6 +8,7 @@ import io.mockk.coEvery
 import io.mockk.every
 import io.mockk.mockk
 import java.io.IOException
+import org.json.JSONObject
 
 @Suppress("MagicNumber", "TooManyFunctions")
 class MockkBraintreeClientBuilder {
@@ -128,6 +129,14 @@ class MockkBraintreeClientBuilder {
             )
         } answers { sendPostAnswer() }
 
+        coEvery {
+            braintreeClient.sendPOST(
+                url = any<String>(),
+                data = any<JSONObject>(),
+                additionalHeaders = any<Map<String, String>>(),
+            )
+        } answers { sendPostAnswer() }
+
         coEvery { braintreeClient.sendGET(any<String>()) } answers {
             sendGetSuccess
                 ?: sendGetError?.let { throw it }
@@ -7,7 +7,8 @@ import android.util.Base64;
 
 import com.braintreepayments.api.core.Authorization;
 import com.braintreepayments.api.core.Configuration;
-import com.braintreepayments.api.sharedutils.BraintreeSharedPreferences;
+import com.braintreepayments.api.core.ConfigurationCache;
+import com.braintreepayments.api.core.ConfigurationCacheHeaders;
 
 public class SharedPreferencesHelper {
 
@@ -29,10 +30,9 @@ public class SharedPreferencesHelper {
 
         String cacheKey = Base64.encodeToString(
                 String.format("%s%s", configUrl, authorization.getBearer()).getBytes(), 0);
-        String timestampKey = String.format("%s_timestamp", cacheKey);
-        BraintreeSharedPreferences
-                .getInstance(context)
-                .putStringAndLong(cacheKey, configuration.toJson(), timestampKey,
-                        System.currentTimeMillis());
+        // configurations left in shared preferences are only moved into the cache when it is created,
+        // so the configuration is saved through the cache the SDK reads from
+        ConfigurationCache.Companion.getInstance(context).saveConfiguration(configuration, cacheKey,
+                System.currentTimeMillis(), ConfigurationCacheHeaders.Companion.getNONE());
     }
 }
@@ -1,5 +1,6 @@
 package com.braintreepayments.api.venmo
 
+import android.util.JsonReader
 import androidx.annotation.RestrictTo
 import com.braintreepayments.api.core.PaymentMethodNonce
 import com.braintreepayments.api.core.PostalAddress
@@ -7,6 +8,7 @@ import com.braintreepayments.api.core.PostalAddressParser.fromJson
 import kotlinx.parcelize.Parcelize
 import org.json.JSONException
 import org.json.JSONObject
+import java.io.IOException
 
 /**
  * [PaymentMethodNonce] representing a [VenmoAccountNonce]
@@ -115,5 +117,18 @@ data class VenmoAccountNonce internal constructor(
                 shippingAddress = shippingAddress
             )
         }
+
+        /**
+         * Read Venmo account nonce from a tokenization response as it streams from the network,
+         * without building a [JSONObject] for it. Accepts the same response shapes as [fromJSON].
+         *
+         * @param reader reader positioned at the start of the response
+         * @return [VenmoAccountNonce]
+         * @throws JSONException if nonce could not be parsed successfully
+         */
+        @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+        @Throws(IOException::class, JSONException::class)
+        @JvmStatic
+        fun fromJsonReader(reader: JsonReader): VenmoAccountNonce = VenmoAccountNonceReader.decode(reader)
     }
 }
@@ -0,0 +1,193 @@
+package com.braintreepayments.api.venmo
+
+import android.util.JsonReader
+import android.util.JsonToken
+import com.braintreepayments.api.core.PostalAddressParser
+import com.braintreepayments.api.sharedutils.JsonReaderExtensions.nextBooleanOrFallback
+import com.braintreepayments.api.sharedutils.JsonReaderExtensions.nextJsonValue
+import com.braintreepayments.api.sharedutils.JsonReaderExtensions.nextStringOrNull
+import com.braintreepayments.api.sharedutils.JsonReaderExtensions.readObject
+import com.braintreepayments.api.sharedutils.ResponseBodyDecoder
+import org.json.JSONException
+import org.json.JSONObject
+
+/**
+ * Reads a [VenmoAccountNonce] from a tokenization response as it streams from the network, accepting
+ * the same RESTful, payment context and plain JSON shapes as [VenmoAccountNonce.fromJSON] without
+ * building a [JSONObject] for the response.
+ *
+ * Addresses are small, so they are read into a [JSONObject] and handed to [PostalAddressParser].
+ */
+internal object VenmoAccountNonceReader : ResponseBodyDecoder<VenmoAccountNonce> {
+
+    /**
+     * @throws JSONException if a nonce could not be read from the response
+     */
+    override fun decode(reader: JsonReader): VenmoAccountNonce {
+        return try {
+            readTokenizeResponse(reader)
+        } catch (e: IllegalStateException) {
+            throw JSONException(e.message)
+        }
+    }
+
+    private fun readTokenizeResponse(reader: JsonReader): VenmoAccountNonce {
+        val plainFields = VenmoAccountFields()
+        var restFields: VenmoAccountFields? = null
+        var hasRestResource = false
+
+        reader.readObject { name ->
+            if (name == API_RESOURCE_KEY) {
+                hasRestResource = true
+                restFields = readFirstRestResource(reader)
+            } else {
+                plainFields.read(name, reader)
+            }
+        }
+
+        if (hasRestResource) {
+            return restFields?.toVenmoAccountNonce() ?: throw JSONException("No value for $PAYMENT_METHOD_NONCE_KEY")
+        }
+        return plainFields.toVenmoAccountNonce()
+    }
+
+    private fun readFirstRestResource(reader: JsonReader): VenmoAccountFields? {
+        if (reader.peek() != JsonToken.BEGIN_ARRAY) {
+            reader.skipValue()
+            return null
+        }
+        reader.beginArray()
+        val fields = if (reader.hasNext()) {
+            VenmoAccountFields().also { fields -> reader.readObject { name -> fields.read(name, reader) } }
+        } else {
+            null
+        }
+        while (reader.hasNext()) {
+            reader.skipValue()
+        }
+        reader.endArray()
+        return fields
+    }
+
+    /**
+     * Fields of a Venmo account in a plain, RESTful or payment context response.
+     */
+    private class VenmoAccountFields {
+        var nonce: String? = null
+        var isDefault = false
+        var detailsUsername: String? = null
+        var hasDetails = false
+        var paymentMethodId: String? = null
+        var paymentMethodUsername: String? = null
+        var payerInfo: PayerInfo? = null
+
+        fun read(name: String, reader: JsonReader) {
+            when (name) {
+                PAYMENT_METHOD_NONCE_KEY -> nonce = reader.nextRequiredString()
+                PAYMENT_METHOD_DEFAULT_KEY -> isDefault = reader.nextBooleanOrFallback(false)
+                VENMO_PAYMENT_METHOD_ID_KEY -> paymentMethodId = reader.nextRequiredString()
+                VENMO_PAYMENT_METHOD_USERNAME_KEY -> paymentMethodUsername = reader.nextRequiredString()
+                VENMO_DETAILS_KEY -> hasDetails = reader.readObject { detailsName ->
+                    if (detailsName == VENMO_USERNAME_KEY) {
+                        detailsUsername = reader.nextRequiredString()
+                    } else {
+                        reader.skipValue()
+                    }
+                }
+                VENMO_PAYER_INFO_KEY -> payerInfo = readPayerInfo(reader)
+                else -> reader.skipValue()
+            }
+        }
+
+        private fun readPayerInfo(reader: JsonReader): PayerInfo? {
+            if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+                reader.skipValue()
+                return null
+            }
+            return PayerInfo().also { payerInfo -> reader.readObject { name -> payerInfo.read(name, reader) } }
+        }
+
+        fun toVenmoAccountNonce(): VenmoAccountNonce {
+            val paymentMethodId = paymentMethodId
+            val nonce: String
+            val isDefault: Boolean
+            val username: String
+            if (paymentMethodId != null) {
+                nonce = paymentMethodId
+                isDefault = false
+                username = paymentMethodUsername
+                    ?: throw JSONException("No value for $VENMO_PAYMENT_METHOD_USERNAME_KEY")
+            } else {
+                nonce = this.nonce ?: throw JSONException("No value for $PAYMENT_METHOD_NONCE_KEY")
+                isDefault = this.isDefault
+                if (!hasDetails) {
+                    throw JSONException("No value for $VENMO_DETAILS_KEY")
+                }
+                username = detailsUsername ?: throw JSONException("No value for $VENMO_USERNAME_KEY")
+            }
+
+            return VenmoAccountNonce(
+                string = nonce,
+                isDefault = isDefault,
+                username = username,
+                email = payerInfo?.email,
+                externalId = payerInfo?.externalId,
+                firstName = payerInfo?.firstName,
+                lastName = payerInfo?.lastName,
+                phoneNumber = payerInfo?.phoneNumber,
+                billingAddress = payerInfo?.let { PostalAddressParser.fromJson(it.billingAddressJson) },
+                shippingAddress = payerInfo?.let { PostalAddressParser.fromJson(it.shippingAddressJson) }
+            )
+        }
+    }
+
+    /**
+     * Fields of the `payerInfo` object of a Venmo account. Values are read as [JSONObject.optString]
+     * reads them: a missing value reads as `""` and a JSON `null` as `"null"`.
+     */
+    private class PayerInfo {
+        var email = ""
+        var externalId = ""
+        var firstName = ""
+        var lastName = ""
+        var phoneNumber = ""
+        var billingAddressJson: JSONObject? = null
+        var shippingAddressJson: JSONObject? = null
+
+        fun read(name: String, reader: JsonReader) {
+            when (name) {
+                VENMO_EMAIL_KEY -> email = reader.nextRequiredString()
+                VENMO_EXTERNAL_ID_KEY -> externalId = reader.nextRequiredString()
+                VENMO_FIRST_NAME_KEY -> firstName = reader.nextRequiredString()
+                VENMO_LAST_NAME_KEY -> lastName = reader.nextRequiredString()
+                VENMO_PHONE_NUMBER_KEY -> phoneNumber = reader.nextRequiredString()
+                VENMO_BILLING_ADDRESS_KEY -> billingAddressJson = reader.nextJsonValue() as? JSONObject
+                VENMO_SHIPPING_ADDRESS_KEY -> shippingAddressJson = reader.nextJsonValue() as? JSONObject
+                else -> reader.skipValue()
+            }
+        }
+    }
+
+    /**
+     * Reads the value of a key, where a JSON `null` reads as `"null"` like [JSONObject.getString].
+     */
+    private fun JsonReader.nextRequiredString(): String = nextStringOrNull() ?: JSONObject.NULL.toString()
+
+    private const val API_RESOURCE_KEY = "venmoAccounts"
+    private const val PAYMENT_METHOD_NONCE_KEY = "nonce"
+    private const val PAYMENT_METHOD_DEFAULT_KEY = "default"
+
+    private const val VENMO_DETAILS_KEY = "details"
+    private const val VENMO_USERNAME_KEY = "username"
+
+    private const val VENMO_PAYMENT_METHOD_ID_KEY = "paymentMethodId"
+    private const val VENMO_PAYER_INFO_KEY = "payerInfo"
+    private const val VENMO_EMAIL_KEY = "email"
+    private const val VENMO_EXTERNAL_ID_KEY = "externalId"
+    private const val VENMO_FIRST_NAME_KEY = "firstName"
+    private const val VENMO_LAST_NAME_KEY = "lastName"
+    private const val VENMO_PHONE_NUMBER_KEY = "phoneNumber"
+    private const val VENMO_PAYMENT_METHOD_USERNAME_KEY = "userName"
+    private const val VENMO_BILLING_ADDRESS_KEY = "billingAddress"
+    private const val VENMO_SHIPPING_ADDRESS_KEY = "shippingAddress"
+}
@@ -147,9 +147,7 @@ internal class VenmoApi(
     suspend fun vaultVenmoAccountNonce(nonce: String): VenmoAccountNonce {
         val venmoAccount = VenmoAccount(nonce)
 
-        val tokenizationResponse = apiClient.tokenizeREST(venmoAccount)
-        val venmoAccountNonce = fromJSON(tokenizationResponse)
-        return venmoAccountNonce
+        return apiClient.tokenizeREST(venmoAccount, VenmoAccountNonceReader)
     }
 
     companion object {
@@ -1,6 +1,7 @@
 package com.braintreepayments.api.venmo
 
 import android.os.Parcel
+import android.util.JsonReader
 import com.braintreepayments.api.testutils.Fixtures
 import kotlinx.parcelize.parcelableCreator
 import org.json.JSONException
@@ -12,6 +13,8 @@ import org.junit.Assert.assertNull
 import org.junit.Test
 import org.junit.runner.RunWith
 import org.robolectric.RobolectricTestRunner
+import java.io.StringReader
+import kotlin.test.assertFailsWith
 
 @RunWith(RobolectricTestRunner::class)
 class VenmoAccountNonceUnitTest {
@@ -131,4 +134,46 @@ class VenmoAccountNonceUnitTest {
         assertEquals("venmo-last-name", parceled.lastName)
         assertEquals("venmo-phone-number", parceled.phoneNumber)
     }
+
+    @Test
+    fun `fromJsonReader reads the same values as fromJSON for every tokenization response shape`() {
+        listOf(
+            Fixtures.PAYMENT_METHODS_VENMO_ACCOUNT_RESPONSE,
+            Fixtures.PAYMENT_METHOD_VENMO_PLAIN_OBJECT,
+            Fixtures.VENMO_PAYMENT_METHOD_CONTEXT_JSON,
+            Fixtures.VENMO_PAYMENT_METHOD_CONTEXT_JSON_WITH_ADDRESSES,
+            Fixtures.VENMO_PAYMENT_METHOD_CONTEXT_WITH_NULL_PAYER_INFO_JSON,
+        ).forEach { json ->
+            val expected = VenmoAccountNonce.fromJSON(JSONObject(json))
+            val actual = VenmoAccountNonce.fromJsonReader(JsonReader(StringReader(json)))
+
+            assertEquals(expected, actual)
+        }
+    }
+
+    @Test
+    fun `fromJsonReader reads missing payer info values as empty strings, like fromJSON`() {
+        val json = """
+            {
+              "paymentMethodId": "sample-payment-method-id",
+              "userName": "@sampleuser",
+              "payerInfo": { "firstName": "John", "lastName": null }
+            }
+        """
+
+        val expected = VenmoAccountNonce.fromJSON(JSONObject(json))
+        val actual = VenmoAccountNonce.fromJsonReader(JsonReader(StringReader(json)))
+
+        assertEquals(expected, actual)
+        assertEquals("", actual.email)
+    }
+
+    @Test
+    fun `fromJsonReader throws JSONException when the username is missing`() {
+        assertFailsWith<JSONException> {
+            VenmoAccountNonce.fromJsonReader(
+                JsonReader(StringReader("""{ "venmoAccounts": [{ "nonce": "fake-nonce", "details": {} }] }"""))
+            )
+        }
+    }
 }
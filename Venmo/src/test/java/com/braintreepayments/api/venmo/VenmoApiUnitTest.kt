@@ -6,9 +6,11 @@ import com.braintreepayments.api.core.BraintreeClient
 import com.braintreepayments.api.core.BraintreeException
 import com.braintreepayments.api.core.BuildConfig
 import com.braintreepayments.api.core.MerchantRepository
+import com.braintreepayments.api.sharedutils.ResponseBodyDecoder
 import com.braintreepayments.api.testutils.Fixtures
 import com.braintreepayments.api.testutils.MockkApiClientBuilder
 import com.braintreepayments.api.testutils.MockkBraintreeClientBuilder
+import io.mockk.coEvery
 import io.mockk.coVerify
 import io.mockk.every
 import io.mockk.mockk
@@ -357,6 +359,9 @@ class VenmoApiUnitTest {
 
     @Test
     fun `vaultVenmoAccountNonce sends a tokenize request containing the nonce`() = runTest {
+        coEvery {
+            apiClient.tokenizeREST(any(), any<ResponseBodyDecoder<VenmoAccountNonce>>())
+        } returns VenmoAccountNonce.fromJSON(JSONObject(Fixtures.PAYMENT_METHODS_VENMO_ACCOUNT_RESPONSE))
         val sut = VenmoApi(
             braintreeClient,
             apiClient,
@@ -366,7 +371,7 @@ class VenmoApiUnitTest {
         sut.vaultVenmoAccountNonce("nonce")
 
         val captor = slot<VenmoAccount>()
-        coVerify { apiClient.tokenizeREST(capture(captor)) }
+        coVerify { apiClient.tokenizeREST(capture(captor), any<ResponseBodyDecoder<VenmoAccountNonce>>()) }
 
         val venmoAccount = captor.captured
         val venmoJSON = venmoAccount.buildJSON()